@@ -0,0 +1,130 @@
+package omegadrive.bus.gen;
+
+import omegadrive.joypad.GenesisJoypad;
+import omegadrive.m68k.MC68000Wrapper;
+import omegadrive.memory.IMemoryProvider;
+import omegadrive.memory.MemoryProvider;
+import omegadrive.util.Size;
+import omegadrive.vdp.MdVdpTestUtil;
+import omegadrive.vdp.model.GenesisVdpProvider;
+import omegadrive.z80.Z80CoreWrapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GenesisBusBenchmark
+ * <p>
+ * 68k bus accesses: read/write go through the page table, readData/writeData through the address decoder.
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenesisBusBenchmark {
+
+    private static final int ROM_SIZE = 0x80000;
+    private static final int RAM_START = 0xFF0000;
+    private static final int ACCESSES = 1024;
+
+    private GenesisBus bus;
+    private int[] romAddress = new int[ACCESSES];
+    private int[] ramAddress = new int[ACCESSES];
+
+    @Setup
+    public void setup() {
+        bus = new GenesisBus();
+        IMemoryProvider memory = MemoryProvider.createGenesisInstance();
+        int[] rom = new int[ROM_SIZE];
+        for (int i = 0; i < rom.length; i++) {
+            rom[i] = (i * 31) & 0xFF;
+        }
+        memory.setRomData(rom);
+        GenesisVdpProvider vdp = GenesisVdpProvider.createVdp(bus);
+        MC68000Wrapper cpu = new MC68000Wrapper(bus);
+        Z80CoreWrapper z80 = Z80CoreWrapper.createGenesisInstance(bus);
+        GenesisJoypad joypad = new GenesisJoypad();
+        joypad.init();
+        bus.attachDevice(memory).attachDevice(cpu).attachDevice(z80).attachDevice(joypad).
+                attachDevice(MdVdpTestUtil.createTestGenesisProvider()).attachDevice(vdp);
+        bus.init();
+        //even addresses, word aligned
+        for (int i = 0; i < ACCESSES; i++) {
+            romAddress[i] = (i * 0x1F2E) & (ROM_SIZE - 2);
+            ramAddress[i] = RAM_START | ((i * 0x3A6) & 0xFFFE);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public long readRomWord() {
+        long res = 0;
+        for (int i = 0; i < ACCESSES; i++) {
+            res += bus.read(romAddress[i], Size.WORD);
+        }
+        return res;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public long readDataRomWord() {
+        long res = 0;
+        for (int i = 0; i < ACCESSES; i++) {
+            res += bus.readData(romAddress[i], Size.WORD);
+        }
+        return res;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public long readRamLong() {
+        long res = 0;
+        for (int i = 0; i < ACCESSES; i++) {
+            res += bus.read(ramAddress[i], Size.LONG);
+        }
+        return res;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public long readDataRamLong() {
+        long res = 0;
+        for (int i = 0; i < ACCESSES; i++) {
+            res += bus.readData(ramAddress[i], Size.LONG);
+        }
+        return res;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public void writeRamWord() {
+        for (int i = 0; i < ACCESSES; i++) {
+            bus.write(ramAddress[i], i, Size.WORD);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public void writeDataRamWord() {
+        for (int i = 0; i < ACCESSES; i++) {
+            bus.writeData(ramAddress[i], i, Size.WORD);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCESSES)
+    public long readDataIoByte() {
+        long res = 0;
+        for (int i = 0; i < ACCESSES; i++) {
+            //joypad data ports
+            res += bus.readData(0xA10003 + ((i & 1) << 1), Size.BYTE);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,146 @@
+package omegadrive.sound;
+
+import omegadrive.sound.fm.ym2413.Emu2413;
+import omegadrive.sound.fm.ym2413.OPLL;
+import omegadrive.sound.fm.ym2612.nukeykt.IYm3438;
+import omegadrive.sound.fm.ym2612.nukeykt.Ym3438;
+import omegadrive.sound.psg.white.SN76489;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SoundBenchmark
+ * <p>
+ * Sample generation of the sound chips, all the channels are keyed on.
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SoundBenchmark {
+
+    private static final int SAMPLES = 1024;
+    //one NTSC frame at 44.1khz
+    private static final int PSG_SAMPLES = 735;
+    //the YM3438 needs 24 clocks to output a sample
+    private static final int YM3438_CLOCKS_PER_SAMPLE = 24;
+
+    @State(Scope.Thread)
+    public static class Ym3438State {
+        Ym3438 ym3438 = new Ym3438();
+        IYm3438.IYm3438_Type chip = new IYm3438.IYm3438_Type();
+        int[][] accm = new int[YM3438_CLOCKS_PER_SAMPLE][2];
+
+        @Setup
+        public void setup() {
+            ym3438.OPN2_SetChipType(IYm3438.ym3438_mode_readmode);
+            ym3438.OPN2_Reset(chip);
+            for (int part = 0; part < 2; part++) {
+                for (int ch = 0; ch < 3; ch++) {
+                    for (int op = 0; op < 4; op++) {
+                        int opOffset = ch + (op << 2);
+                        write(part, 0x30 + opOffset, 0x01 + op); //MUL
+                        write(part, 0x40 + opOffset, 0x10); //TL
+                        write(part, 0x50 + opOffset, 0x1F); //AR
+                        write(part, 0x80 + opOffset, 0x0F); //SL/RR
+                    }
+                    write(part, 0xA4 + ch, 0x22 + ch);
+                    write(part, 0xA0 + ch, 0x69);
+                    write(part, 0xB0 + ch, ch + part); //algorithm
+                    write(part, 0xB4 + ch, 0xC0); //L+R
+                }
+            }
+            for (int ch : new int[]{0, 1, 2, 4, 5, 6}) {
+                write(0, 0x28, 0xF0 | ch); //key on
+            }
+        }
+
+        private void write(int part, int reg, int data) {
+            ym3438.OPN2_Write(chip, part << 1, reg);
+            clock(YM3438_CLOCKS_PER_SAMPLE);
+            ym3438.OPN2_Write(chip, (part << 1) + 1, data);
+            clock(YM3438_CLOCKS_PER_SAMPLE);
+        }
+
+        private void clock(int cycles) {
+            for (int i = 0; i < cycles; i++) {
+                ym3438.OPN2_Clock(chip, accm[i % YM3438_CLOCKS_PER_SAMPLE]);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PsgState {
+        SN76489 psg = new SN76489();
+        byte[] buffer = new byte[PSG_SAMPLES];
+
+        @Setup
+        public void setup() {
+            psg.init((int) SoundProvider.NTSC_PSG_CLOCK, 44100);
+            for (int ch = 0; ch < 3; ch++) {
+                psg.write(0x80 | (ch << 5) | 0xE); //tone low
+                psg.write(0x08 + ch); //tone high
+                psg.write(0x90 | (ch << 5) | 0x2); //volume
+            }
+            psg.write(0xE4); //white noise
+            psg.write(0xF4);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OpllState {
+        OPLL opll;
+
+        @Setup
+        public void setup() {
+            Emu2413.OPLL_init();
+            opll = Emu2413.OPLL_new();
+            for (int ch = 0; ch < 9; ch++) {
+                write(0x30 + ch, ((ch + 1) << 4) | 0x2); //instrument, volume
+                write(0x10 + ch, 0x80 + (ch << 3)); //fnum
+                write(0x20 + ch, 0x18 | 0x4); //key on, block 4
+            }
+        }
+
+        private void write(int reg, int data) {
+            Emu2413.OPLL_writeIO(opll, 0, reg);
+            Emu2413.OPLL_writeIO(opll, 1, data);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int ym3438Clock(Ym3438State s) {
+        int res = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            for (int j = 0; j < YM3438_CLOCKS_PER_SAMPLE; j++) {
+                s.ym3438.OPN2_Clock(s.chip, s.accm[j]);
+                res += s.accm[j][0];
+            }
+        }
+        return res;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PSG_SAMPLES)
+    public byte[] sn76489Update(PsgState s) {
+        s.psg.update(s.buffer, 0, PSG_SAMPLES);
+        return s.buffer;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int opllCalc(OpllState s) {
+        int res = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            res += Emu2413.OPLL_calc(s.opll);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,47 @@
+package omegadrive.ssp16;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ssp16Benchmark
+ * <p>
+ * Runs a synthetic program of loads, ALU ops and multiply-accumulate.
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Ssp16Benchmark {
+
+    //see Genesis.SVP_RUN_CYCLES
+    private static final int RUN_CYCLES = 150;
+
+    //ld X,Y; add A,X; ld Y,A; mpya (r0),(r4); sub A,Y; ld A,X; and A,X; nop
+    private static final int[] PROGRAM = {0x0012, 0x8001, 0x0023, 0x9600, 0x2002, 0x0031, 0xA001, 0x0000};
+
+    private Ssp16Impl ssp16;
+
+    @Setup
+    public void setup() {
+        ssp16 = Ssp16Test.createSvp();
+        int[] iramRom = ssp16.getSvpContext().iram_rom;
+        for (int i = 0; i < iramRom.length; i++) {
+            iramRom[i] = PROGRAM[i % PROGRAM.length];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RUN_CYCLES)
+    public int run() {
+        ssp16.ssp1601_run(RUN_CYCLES);
+        return ssp16.rA32.v;
+    }
+}
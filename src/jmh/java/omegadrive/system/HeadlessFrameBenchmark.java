@@ -0,0 +1,59 @@
+package omegadrive.system;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HeadlessFrameBenchmark
+ * <p>
+ * Runs a whole system at full throttle via the HeadlessRunner, the score is in frames per second.
+ * <p>
+ * Uses a synthetic rom by default, a different rom can be provided with:
+ * -p romFile=/path/to/rom.md
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeadlessFrameBenchmark {
+
+    private static final int FRAMES = 10;
+
+    @Param({"md", "sms"})
+    public String system;
+
+    @Param({""})
+    public String romFile;
+
+    private HeadlessRunner runner;
+
+    @Setup
+    public void setup() throws Exception {
+        Path rom = romFile.isEmpty() ?
+                SyntheticRom.writeTempFile("md".equals(system) ? SyntheticRom.createMdRom() : SyntheticRom.createSmsRom(),
+                        "." + system) : Paths.get(romFile);
+        runner = HeadlessRunner.createInstance(rom);
+        //skip the boot
+        runner.step(60);
+    }
+
+    @TearDown
+    public void tearDown() {
+        runner.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public HeadlessRunner.FrameData runFrames() {
+        return runner.step(FRAMES);
+    }
+}
@@ -0,0 +1,135 @@
+package omegadrive.system;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * SyntheticRom
+ * <p>
+ * Tiny hand assembled programs that keep the CPU, the bus and the VDP busy:
+ * the display is turned on and the whole VRAM is rewritten continuously.
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+public class SyntheticRom {
+
+    private static final int MD_ROM_SIZE = 0x20000;
+    private static final int MD_CODE_START = 0x200;
+    private static final int SMS_ROM_SIZE = 0x8000;
+
+    private static final int[] MD_CODE = {
+            0x43F9, 0x00C0, 0x0004,  //lea $C00004,a1
+            0x41F9, 0x00C0, 0x0000,  //lea $C00000,a0
+            0x32BC, 0x8004,          //move.w #$8004,(a1)
+            0x32BC, 0x8154,          //display on, mode5
+            0x32BC, 0x8230,          //plane A 0xC000
+            0x32BC, 0x8407,          //plane B 0xE000
+            0x32BC, 0x8578,          //sprites 0xF000
+            0x32BC, 0x8C81,          //H40
+            0x32BC, 0x8D3F,          //hscroll 0xFC00
+            0x32BC, 0x8F02,          //autoinc 2
+            0x32BC, 0x9001,          //64x32
+            0x22BC, 0xC000, 0x0000,  //move.l #$C0000000,(a1), CRAM write
+            0x703F,                  //moveq #63,d0
+            0x3080,                  //cram: move.w d0,(a0)
+            0x51C8, 0xFFFC,          //dbra d0,cram
+            //main:
+            0x22BC, 0x4000, 0x0000,  //move.l #$40000000,(a1), VRAM write
+            0x303C, 0x7FFF,          //move.w #$7FFF,d0
+            0x3082,                  //vram: move.w d2,(a0)
+            0xD440,                  //add.w d0,d2
+            0x51C8, 0xFFFA,          //dbra d0,vram
+            0x60EC,                  //bra.s main
+    };
+
+    private static final int[] SMS_CODE = {
+            0xF3,                    //di
+            0x31, 0xF0, 0xDF,        //ld sp,$DFF0
+            0xED, 0x56,              //im 1
+            0x21, 0x40, 0x00,        //ld hl,regs
+            0x06, 0x16,              //ld b,22
+            0x0E, 0xBF,              //ld c,$BF
+            0xED, 0xB3,              //otir
+            0x3E, 0x00,              //ld a,0
+            0xD3, 0xBF,              //out ($BF),a
+            0x3E, 0xC0,              //ld a,$C0, CRAM write
+            0xD3, 0xBF,              //out ($BF),a
+            0x06, 0x20,              //ld b,32
+            0x78,                    //cram: ld a,b
+            0xD3, 0xBE,              //out ($BE),a
+            0x10, 0xFB,              //djnz cram
+            //main:
+            0x3E, 0x00,              //ld a,0
+            0xD3, 0xBF,              //out ($BF),a
+            0x3E, 0x40,              //ld a,$40, VRAM write
+            0xD3, 0xBF,              //out ($BF),a
+            0x01, 0x00, 0x40,        //ld bc,$4000
+            0x79,                    //vram: ld a,c
+            0x80,                    //add a,b
+            0xD3, 0xBE,              //out ($BE),a
+            0x0B,                    //dec bc
+            0x78,                    //ld a,b
+            0xB1,                    //or c
+            0x20, 0xF7,              //jr nz,vram
+            0x18, 0xEA,              //jr main
+    };
+
+    //value, register: name table 0x3800, sprites 0x3F00
+    private static final int[] SMS_REGS = {
+            0x36, 0x80, 0xC0, 0x81, 0xFF, 0x82, 0xFF, 0x83, 0xFF, 0x84, 0xFF, 0x85,
+            0xFB, 0x86, 0x00, 0x87, 0x00, 0x88, 0x00, 0x89, 0xFF, 0x8A
+    };
+    private static final int SMS_REGS_START = 0x40;
+
+    public static byte[] createMdRom() {
+        byte[] rom = new byte[MD_ROM_SIZE];
+        writeLong(rom, 0, 0x00FF_FE00); //SSP
+        writeLong(rom, 4, MD_CODE_START); //PC
+        writeString(rom, 0x100, "SEGA MEGA DRIVE ");
+        writeString(rom, 0x150, "SYNTHETIC BENCHMARK");
+        writeLong(rom, 0x1A0, 0);
+        writeLong(rom, 0x1A4, MD_ROM_SIZE - 1);
+        writeLong(rom, 0x1A8, 0xFF_0000);
+        writeLong(rom, 0x1AC, 0xFF_FFFF);
+        writeString(rom, 0x1F0, "JUE");
+        for (int i = 0; i < MD_CODE.length; i++) {
+            rom[MD_CODE_START + (i << 1)] = (byte) (MD_CODE[i] >> 8);
+            rom[MD_CODE_START + (i << 1) + 1] = (byte) MD_CODE[i];
+        }
+        return rom;
+    }
+
+    public static byte[] createSmsRom() {
+        byte[] rom = new byte[SMS_ROM_SIZE];
+        for (int i = 0; i < SMS_CODE.length; i++) {
+            rom[i] = (byte) SMS_CODE[i];
+        }
+        for (int i = 0; i < SMS_REGS.length; i++) {
+            rom[SMS_REGS_START + i] = (byte) SMS_REGS[i];
+        }
+        writeString(rom, 0x7FF0, "TMR SEGA");
+        return rom;
+    }
+
+    public static Path writeTempFile(byte[] rom, String extension) throws IOException {
+        Path p = Files.createTempFile("synthetic", extension);
+        p.toFile().deleteOnExit();
+        return Files.write(p, rom);
+    }
+
+    private static void writeLong(byte[] rom, int address, int value) {
+        rom[address] = (byte) (value >> 24);
+        rom[address + 1] = (byte) (value >> 16);
+        rom[address + 2] = (byte) (value >> 8);
+        rom[address + 3] = (byte) value;
+    }
+
+    private static void writeString(byte[] rom, int address, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            rom[address + i] = (byte) s.charAt(i);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package omegadrive.vdp;
+
+import omegadrive.SystemLoader;
+import omegadrive.util.RegionDetector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SmsVdpBenchmark
+ * <p>
+ * Renders a full SMS frame, optionally rewriting some pattern bytes every frame to exercise tile decoding.
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SmsVdpBenchmark {
+
+    private static final int LINES = 192;
+    private static final int VRAM_SIZE = 0x4000;
+    //name table 0x3800, sprites 0x3F00
+    private static final int[] REGS = {0x36, 0xC0, 0xFF, 0xFF, 0xFF, 0xFF, 0xFB, 0x00, 0x00, 0x00, 0xFF};
+
+    @Param({"0", "64"})
+    public int patternWritesPerFrame;
+
+    private SmsVdp vdp;
+    private Random random = new Random(0x1234);
+
+    @Setup
+    public void setup() {
+        vdp = new SmsVdp(SystemLoader.SystemType.SMS, RegionDetector.Region.USA);
+        vdp.init();
+        for (int i = 0; i < REGS.length; i++) {
+            vdp.controlWrite(REGS[i]);
+            vdp.controlWrite(0x80 | i);
+        }
+        setAddress(0, 0x40);
+        for (int i = 0; i < VRAM_SIZE; i++) {
+            vdp.dataWrite(random.nextInt(0x100));
+        }
+        //sprite Y table: 64 sprites on screen, no terminator
+        setAddress(0x3F00, 0x40);
+        for (int i = 0; i < 64; i++) {
+            vdp.dataWrite(random.nextInt(LINES - 8));
+        }
+        setAddress(0, 0xC0);
+        for (int i = 0; i < 32; i++) {
+            vdp.dataWrite(random.nextInt(0x40));
+        }
+        drawFrame();
+    }
+
+    private void setAddress(int address, int code) {
+        vdp.controlWrite(address & 0xFF);
+        vdp.controlWrite(code | (address >> 8));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int[] drawFrame() {
+        if (patternWritesPerFrame > 0) {
+            setAddress(random.nextInt(0x3800 - patternWritesPerFrame), 0x40);
+            for (int i = 0; i < patternWritesPerFrame; i++) {
+                vdp.dataWrite(i);
+            }
+        }
+        for (int i = 0; i < LINES; i++) {
+            vdp.drawLine(i);
+        }
+        return vdp.getScreenDataLinear();
+    }
+}
@@ -0,0 +1,110 @@
+package omegadrive.vdp.gen;
+
+import omegadrive.bus.gen.GenesisBusProvider;
+import omegadrive.memory.IMemoryProvider;
+import omegadrive.memory.MemoryProvider;
+import omegadrive.util.RegionDetector;
+import omegadrive.util.VideoMode;
+import omegadrive.vdp.MdVdpTestUtil;
+import omegadrive.vdp.model.GenesisVdpProvider;
+import omegadrive.vdp.model.VdpDmaHandler;
+import omegadrive.vdp.model.VdpMemoryInterface;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VdpDmaBenchmark
+ * <p>
+ * 68k to VRAM, VRAM fill and VRAM copy, one doDmaSlot call per operation, the DMA is restarted when done.
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VdpDmaBenchmark {
+
+    private static final int SLOTS = 1024;
+
+    @Param({"MEM_TO_VRAM", "VRAM_FILL", "VRAM_COPY"})
+    public String dmaMode;
+
+    private GenesisVdpProvider vdp;
+    private VdpDmaHandlerImpl dmaHandler;
+    private VideoMode videoMode;
+    private VdpDmaHandler.DmaMode mode;
+
+    @Setup
+    public void setup() {
+        GenesisBusProvider busProvider = GenesisBusProvider.createBus();
+        IMemoryProvider memoryProvider = MemoryProvider.createGenesisInstance();
+        busProvider.attachDevice(MdVdpTestUtil.createTestGenesisProvider()).attachDevice(memoryProvider);
+        for (int i = 0; i < MemoryProvider.M68K_RAM_SIZE; i++) {
+            memoryProvider.writeRamByte(i, i);
+        }
+        VdpMemoryInterface memoryInterface = GenesisVdpMemoryInterface.createInstance();
+        dmaHandler = new VdpDmaHandlerImpl();
+        vdp = GenesisVdp.createInstance(busProvider, memoryInterface, dmaHandler, RegionDetector.Region.USA);
+        dmaHandler.vdpProvider = vdp;
+        dmaHandler.memoryInterface = memoryInterface;
+        dmaHandler.busProvider = busProvider;
+        vdp.updateRegisterData(1, 4); //mode5
+        MdVdpTestUtil.setH40(vdp);
+        videoMode = vdp.getVideoMode();
+        mode = VdpDmaHandler.DmaMode.valueOf(dmaMode);
+        startDma();
+    }
+
+    //length 0xFFFF, dest 0x8000, 68k source 0xFF0000
+    private void startDma() {
+        vdp.writeControlPort(0x8F01);
+        vdp.writeControlPort(0x8154);
+        vdp.writeControlPort(0x93FF);
+        vdp.writeControlPort(0x94FF);
+        switch (mode) {
+            case MEM_TO_VRAM:
+                vdp.writeControlPort(0x8F02);
+                vdp.writeControlPort(0x9500);
+                vdp.writeControlPort(0x9680);
+                vdp.writeControlPort(0x977F);
+                vdp.writeControlPort(0x4000);
+                vdp.writeControlPort(0x0082);
+                break;
+            case VRAM_FILL:
+                vdp.writeControlPort(0x9500);
+                vdp.writeControlPort(0x9600);
+                vdp.writeControlPort(0x9780);
+                vdp.writeControlPort(0x4000);
+                vdp.writeControlPort(0x0082);
+                vdp.writeDataPort(0x68AC);
+                break;
+            default:
+                vdp.writeControlPort(0x9500);
+                vdp.writeControlPort(0x9600);
+                vdp.writeControlPort(0x97C0);
+                vdp.writeControlPort(0x0000);
+                vdp.writeControlPort(0x00C2);
+                break;
+        }
+        MdVdpTestUtil.runVdpUntilFifoEmpty(vdp);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SLOTS)
+    public int dmaSlot() {
+        int done = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            if (dmaHandler.doDmaSlot(videoMode)) {
+                done++;
+                startDma();
+            }
+        }
+        return done;
+    }
+}
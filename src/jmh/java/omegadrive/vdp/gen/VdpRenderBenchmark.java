@@ -0,0 +1,99 @@
+package omegadrive.vdp.gen;
+
+import omegadrive.bus.gen.GenesisBusProvider;
+import omegadrive.util.RegionDetector;
+import omegadrive.vdp.MdVdpTestUtil;
+import omegadrive.vdp.model.GenesisVdpProvider;
+import omegadrive.vdp.model.VdpMemoryInterface;
+import omegadrive.vdp.model.VdpRenderHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static omegadrive.vdp.model.GenesisVdpProvider.VdpRamType.*;
+
+/**
+ * VdpRenderBenchmark
+ * <p>
+ * Renders a full H40 frame of pseudo-random VRAM content: planes, window and sprites.
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VdpRenderBenchmark {
+
+    private static final int LINES = 224;
+
+    @Param({"false", "true"})
+    public boolean shadowHighlight;
+
+    private VdpRenderHandler renderHandler;
+
+    @Setup
+    public void setup() {
+        GenesisBusProvider busProvider = GenesisBusProvider.createBus();
+        VdpMemoryInterface memoryInterface = GenesisVdpMemoryInterface.createInstance();
+        VdpDmaHandlerImpl dmaHandler = new VdpDmaHandlerImpl();
+        GenesisVdpProvider vdp = GenesisVdp.createInstance(busProvider, memoryInterface, dmaHandler,
+                RegionDetector.Region.USA);
+        dmaHandler.vdpProvider = vdp;
+        dmaHandler.memoryInterface = memoryInterface;
+        dmaHandler.busProvider = busProvider;
+        //listens to the video mode change below
+        renderHandler = VdpRenderHandlerImpl.createInstance(vdp, memoryInterface);
+
+        vdp.writeControlPort(0x8004);
+        vdp.writeControlPort(0x8154); //display on, mode5
+        vdp.writeControlPort(0x8230); //plane A 0xC000
+        vdp.writeControlPort(0x8334); //window 0xD000
+        vdp.writeControlPort(0x8407); //plane B 0xE000
+        vdp.writeControlPort(0x8578); //sprites 0xF000
+        vdp.writeControlPort(0x8D3F); //hscroll 0xFC00
+        vdp.writeControlPort(0x8F02);
+        vdp.writeControlPort(0x9001); //64x32
+        vdp.writeControlPort(0x9105); //window: 10 cells on the left
+        vdp.writeControlPort(0x9290); //window: bottom 16 cells
+        MdVdpTestUtil.setH40(vdp);
+        if (shadowHighlight) {
+            vdp.writeControlPort(0x8C89);
+        }
+        MdVdpTestUtil.runVdpUntilFifoEmpty(vdp);
+
+        Random r = new Random(0x1234);
+        for (int i = 0; i < GenesisVdpProvider.VDP_VRAM_SIZE; i += 2) {
+            memoryInterface.writeVideoRamWord(VRAM, r.nextInt(0x10000), i);
+        }
+        for (int i = 0; i < GenesisVdpProvider.VDP_CRAM_SIZE; i += 2) {
+            memoryInterface.writeVideoRamWord(CRAM, r.nextInt(0x10000) & 0xEEE, i);
+        }
+        for (int i = 0; i < GenesisVdpProvider.VDP_VSRAM_SIZE; i += 2) {
+            memoryInterface.writeVideoRamWord(VSRAM, r.nextInt(0x400), i);
+        }
+        //80 sprites, linked in order
+        for (int i = 0; i < 80; i++) {
+            int base = 0xF000 + (i << 3);
+            memoryInterface.writeVideoRamWord(VRAM, 0x80 + r.nextInt(LINES), base);
+            memoryInterface.writeVideoRamWord(VRAM, (r.nextInt(16) << 8) | (i < 79 ? i + 1 : 0), base + 2);
+            memoryInterface.writeVideoRamWord(VRAM, r.nextInt(0x10000), base + 4);
+            memoryInterface.writeVideoRamWord(VRAM, 0x80 + r.nextInt(320), base + 6);
+        }
+        renderFrame();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int[] renderFrame() {
+        for (int i = 0; i < LINES; i++) {
+            renderHandler.renderLine(i);
+        }
+        return renderHandler.getScreenDataLinear();
+    }
+}
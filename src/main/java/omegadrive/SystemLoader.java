@@ -57,7 +57,8 @@ public class SystemLoader {
 
     private final static Logger LOG = LogManager.getLogger(SystemLoader.class.getSimpleName());
 
-    public static final SystemLoader INSTANCE = new SystemLoader();
+    //the UI launcher, emulated systems don't depend on it, see createSystemProvider(Path, DisplayWindow, boolean)
+    private static final SystemLoader INSTANCE = new SystemLoader();
 
     private static final String PROPERTIES_FILENAME = "./helios.properties";
 
@@ -263,6 +264,16 @@ public class SystemLoader {
     }
 
     public SystemProvider createSystemProvider(Path file, boolean debugPerf) {
+        systemProvider = createSystemProvider(file, emuFrame, debugPerf);
+        return systemProvider;
+    }
+
+    /**
+     * Creates a new system for the file, no state is shared with other systems:
+     * several instances can run concurrently, ie. headless, each on its own thread.
+     */
+    public static SystemProvider createSystemProvider(Path file, DisplayWindow emuFrame, boolean debugPerf) {
+        SystemProvider systemProvider = null;
         String lowerCaseName = handleCompressedFiles(file, file.toString().toLowerCase());
         if (lowerCaseName == null) {
             return null;
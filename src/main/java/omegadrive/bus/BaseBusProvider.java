@@ -30,6 +30,33 @@ public interface BaseBusProvider extends Device {
 
     void write(long address, long data, Size size);
 
+    /**
+     * Width specialised accessors, buses on a hot path should override them.
+     */
+    default int read8(int address) {
+        return (int) read(address, Size.BYTE);
+    }
+
+    default int read16(int address) {
+        return (int) read(address, Size.WORD);
+    }
+
+    default int read32(int address) {
+        return (int) read(address, Size.LONG);
+    }
+
+    default void write8(int address, int data) {
+        write(address, data, Size.BYTE);
+    }
+
+    default void write16(int address, int data) {
+        write(address, data, Size.WORD);
+    }
+
+    default void write32(int address, int data) {
+        write(address, data, Size.LONG);
+    }
+
     void writeIoPort(int port, int value);
 
     int readIoPort(int port);
@@ -175,6 +175,10 @@ public class BusArbiter implements Device, BaseVdpProvider.VdpEventListener {
         }
     }
 
+    public boolean is68kInterruptIdle() {
+        return int68k == IntState.NONE && !isVdpVInt() && !isVdpHInt();
+    }
+
     public void checkInterrupts68k() {
         if (isVdpVInt() || isVdpHInt()) {
             int68k = IntState.PENDING;
@@ -27,8 +27,10 @@ import omegadrive.cart.loader.MdRomDbModel;
 import omegadrive.cart.mapper.RomMapper;
 import omegadrive.cart.mapper.md.MdBackupMemoryMapper;
 import omegadrive.cart.mapper.md.Ssf2Mapper;
+import omegadrive.memory.MemoryProvider;
 import omegadrive.sound.fm.FmProvider;
 import omegadrive.sound.psg.PsgProvider;
+import omegadrive.ssp16.Ssp16;
 import omegadrive.system.SystemProvider;
 import omegadrive.util.Size;
 import omegadrive.util.Util;
@@ -40,6 +42,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements GenesisBusProvider, RomMapper {
@@ -59,10 +63,26 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
 
     private BusArbiter busArbiter = BusArbiter.NO_OP;
 
-    public static long ROM_START_ADDRESS;
-    public static long ROM_END_ADDRESS;
-    public static long RAM_START_ADDRESS;
-    public static long RAM_END_ADDRESS;
+    private long romStartAddress;
+    private long romEndAddress;
+    private long ramStartAddress;
+    private long ramEndAddress;
+
+    /**
+     * 68k address space decoder, one entry per 64Kb page.
+     * ROM and RAM pages are served straight from the backing arrays,
+     * anything else goes through the current mapper.
+     */
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    static final int NUM_PAGES = (ADDRESS_UPPER_LIMIT + 1) >> PAGE_SHIFT;
+    //a long access at the end of a RAM page would cross the page boundary
+    private static final int RAM_PAGE_LIMIT = M68K_RAM_MASK - 3;
+
+    private final byte[] pageTable = new byte[NUM_PAGES];
+    //live backing arrays, null when the memory provider doesn't expose them (ie. PackedMemoryProvider)
+    private int[] romData;
+    private int[] ramData;
+    private final List<MemoryMapListener> memoryMapListeners = new ArrayList<>();
 
     enum BusState {READY, NOT_READY}
 
@@ -78,19 +98,72 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
     }
 
     void initializeRomData() {
-        ROM_START_ADDRESS = cartridgeInfoProvider.getRomStart();
-        ROM_END_ADDRESS = Math.max(cartridgeInfoProvider.getRomEnd(), DEFAULT_ROM_END_ADDRESS);
-        ROM_END_ADDRESS = Math.min(ROM_END_ADDRESS, Z80_ADDRESS_SPACE_START);
-        RAM_START_ADDRESS = cartridgeInfoProvider.getRamStart();
-        RAM_END_ADDRESS = cartridgeInfoProvider.getRamEnd();
+        romStartAddress = cartridgeInfoProvider.getRomStart();
+        romEndAddress = Math.max(cartridgeInfoProvider.getRomEnd(), DEFAULT_ROM_END_ADDRESS);
+        romEndAddress = Math.min(romEndAddress, Z80_ADDRESS_SPACE_START);
+        ramStartAddress = cartridgeInfoProvider.getRamStart();
+        ramEndAddress = cartridgeInfoProvider.getRamEnd();
         entry = MdLoader.getEntry(cartridgeInfoProvider.getSerial());
         if (cartridgeInfoProvider.isSramEnabled() || entry.hasEeprom()) {
             mapper = MdBackupMemoryMapper.createInstance(this, cartridgeInfoProvider, entry);
         }
         //some homebrews use a flat ROM mapper, in theory up to Z80_ADDRESS_SPACE_START
-        if (ROM_END_ADDRESS > DEFAULT_ROM_END_ADDRESS) {
-            LOG.warn("Assuming flat ROM mapper up to address: {}", ROM_END_ADDRESS);
+        if (romEndAddress > DEFAULT_ROM_END_ADDRESS) {
+            LOG.warn("Assuming flat ROM mapper up to address: {}", romEndAddress);
+        }
+        updatePageTable();
+    }
+
+    /**
+     * Rebuild the page table, needs to be called every time the mapper changes.
+     */
+    void updatePageTable() {
+        if (cartridgeInfoProvider == null) {
+            return;
+        }
+        boolean liveArrays = memoryProvider instanceof MemoryProvider;
+        romData = liveArrays ? memoryProvider.getRomData() : null;
+        ramData = liveArrays ? memoryProvider.getRamData() : null;
+        int romSize = memoryProvider.getRomSize();
+        for (int i = 0; i < NUM_PAGES; i++) {
+            int start = i << PAGE_SHIFT;
+            int end = start + PAGE_SIZE - 1;
+            byte type = PAGE_MAPPER;
+            if (start >= ADDRESS_RAM_MAP_START && memoryProvider.getRamSize() == M68K_RAM_MASK + 1) {
+                type = PAGE_RAM;
+            } else if (end <= romEndAddress && end + 3 < romSize && !isMapperPage(start)) {
+                //ROM mirrors are left to the mapper
+                type = PAGE_ROM;
+            }
+            pageTable[i] = type;
+        }
+        memoryMapListeners.forEach(this::notifyMemoryMap);
+    }
+
+    @Override
+    public void addMemoryMapListener(MemoryMapListener listener) {
+        memoryMapListeners.add(listener);
+        notifyMemoryMap(listener);
+    }
+
+    private void notifyMemoryMap(MemoryMapListener listener) {
+        //verbose logging needs every access to go through the bus
+        listener.onMemoryMapChange(pageTable, verbose ? null : romData, verbose ? null : ramData);
+    }
+
+    private boolean isMapperPage(int pageStart) {
+        int pageEnd = pageStart + PAGE_SIZE - 1;
+        if (cartridgeInfoProvider.isSramUsedWithBrokenHeader(pageStart)) {
+            return true;
+        }
+        if (mapper != this && pageEnd >= MdCartInfoProvider.DEFAULT_SRAM_START_ADDRESS &&
+                pageStart <= MdCartInfoProvider.DEFAULT_SRAM_END_ADDRESS) {
+            return true;
+        }
+        if (ssf2Mapper != RomMapper.NO_OP_MAPPER && pageEnd >= Ssf2Mapper.BANKABLE_START_ADDRESS) {
+            return true;
         }
+        return svpMapper != SvpBus.NO_OP && pageEnd >= SvpBus.SVP_MAP_DRAM_START_ADDR_BYTE;
     }
 
     @Override
@@ -147,6 +220,19 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
                     Long.toHexString(address), size, Long.toHexString(res));
             return res;
         }
+        int addr = (int) (address & 0xFF_FFFF);
+        switch (pageTable[addr >>> PAGE_SHIFT]) {
+            case PAGE_ROM:
+                return romData != null ? Util.readData(romData, size, addr) :
+                        Util.readRom(memoryProvider, size, addr);
+            case PAGE_RAM:
+                addr &= M68K_RAM_MASK;
+                if (addr <= RAM_PAGE_LIMIT) {
+                    return ramData != null ? Util.readData(ramData, size, addr) :
+                            Util.readRam(memoryProvider, size, addr);
+                }
+                break;
+        }
         return mapper.readData(address, size);
     }
 
@@ -156,13 +242,153 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
             logInfo("Write address: {}, data: {}, size: {}", Long.toHexString(address),
                     Long.toHexString(data), size);
         }
+        int addr = (int) (address & 0xFF_FFFF);
+        if (pageTable[addr >>> PAGE_SHIFT] == PAGE_RAM) {
+            addr &= M68K_RAM_MASK;
+            if (addr <= RAM_PAGE_LIMIT) {
+                if (ramData != null) {
+                    Util.writeData(ramData, size, addr, data);
+                } else {
+                    Util.writeRam(memoryProvider, size, addr, data & size.getMask());
+                }
+                return;
+            }
+        }
         mapper.writeData(address, data, size);
     }
 
+    @Override
+    public int read8(int address) {
+        if (verbose) {
+            return (int) read(address, Size.BYTE);
+        }
+        int addr = address & 0xFF_FFFF;
+        switch (pageTable[addr >>> PAGE_SHIFT]) {
+            case PAGE_ROM:
+                return romData != null ? romData[addr] : memoryProvider.readRomByte(addr);
+            case PAGE_RAM:
+                addr &= M68K_RAM_MASK;
+                if (addr <= RAM_PAGE_LIMIT) {
+                    return ramData != null ? ramData[addr] : memoryProvider.readRamByte(addr);
+                }
+                break;
+        }
+        return mapper.readData8(address);
+    }
+
+    @Override
+    public int read16(int address) {
+        if (verbose) {
+            return (int) read(address, Size.WORD);
+        }
+        int addr = address & 0xFF_FFFF;
+        switch (pageTable[addr >>> PAGE_SHIFT]) {
+            case PAGE_ROM:
+                return romData != null ? romData[addr] << 8 | romData[addr + 1] :
+                        memoryProvider.readRomWord(addr);
+            case PAGE_RAM:
+                addr &= M68K_RAM_MASK;
+                if (addr <= RAM_PAGE_LIMIT) {
+                    return ramData != null ? ramData[addr] << 8 | ramData[addr + 1] :
+                            memoryProvider.readRamWord(addr);
+                }
+                break;
+        }
+        return mapper.readData16(address);
+    }
+
+    @Override
+    public int read32(int address) {
+        if (verbose) {
+            return (int) read(address, Size.LONG);
+        }
+        int addr = address & 0xFF_FFFF;
+        switch (pageTable[addr >>> PAGE_SHIFT]) {
+            case PAGE_ROM:
+                return romData != null ? romData[addr] << 24 | romData[addr + 1] << 16 |
+                        romData[addr + 2] << 8 | romData[addr + 3] : memoryProvider.readRomLong(addr);
+            case PAGE_RAM:
+                addr &= M68K_RAM_MASK;
+                if (addr <= RAM_PAGE_LIMIT) {
+                    return ramData != null ? ramData[addr] << 24 | ramData[addr + 1] << 16 |
+                            ramData[addr + 2] << 8 | ramData[addr + 3] : memoryProvider.readRamLong(addr);
+                }
+                break;
+        }
+        return mapper.readData32(address);
+    }
+
+    @Override
+    public void write8(int address, int data) {
+        int addr = address & 0xFF_FFFF;
+        if (!verbose && pageTable[addr >>> PAGE_SHIFT] == PAGE_RAM) {
+            addr &= M68K_RAM_MASK;
+            if (addr <= RAM_PAGE_LIMIT) {
+                if (ramData != null) {
+                    ramData[addr] = data & 0xFF;
+                } else {
+                    memoryProvider.writeRamByte(addr, data & 0xFF);
+                }
+                return;
+            }
+        }
+        if (verbose) {
+            write(address, data, Size.BYTE);
+            return;
+        }
+        mapper.writeData8(address, data);
+    }
+
+    @Override
+    public void write16(int address, int data) {
+        int addr = address & 0xFF_FFFF;
+        if (!verbose && pageTable[addr >>> PAGE_SHIFT] == PAGE_RAM) {
+            addr &= M68K_RAM_MASK;
+            if (addr <= RAM_PAGE_LIMIT) {
+                if (ramData != null) {
+                    ramData[addr] = (data >> 8) & 0xFF;
+                    ramData[addr + 1] = data & 0xFF;
+                } else {
+                    memoryProvider.writeRamWord(addr, data & 0xFFFF);
+                }
+                return;
+            }
+        }
+        if (verbose) {
+            write(address, data, Size.WORD);
+            return;
+        }
+        mapper.writeData16(address, data);
+    }
+
+    @Override
+    public void write32(int address, int data) {
+        int addr = address & 0xFF_FFFF;
+        if (!verbose && pageTable[addr >>> PAGE_SHIFT] == PAGE_RAM) {
+            addr &= M68K_RAM_MASK;
+            if (addr <= RAM_PAGE_LIMIT) {
+                if (ramData != null) {
+                    ramData[addr] = (data >> 24) & 0xFF;
+                    ramData[addr + 1] = (data >> 16) & 0xFF;
+                    ramData[addr + 2] = (data >> 8) & 0xFF;
+                    ramData[addr + 3] = data & 0xFF;
+                } else {
+                    memoryProvider.writeRamLong(addr, data);
+                }
+                return;
+            }
+        }
+        if (verbose) {
+            write(address, data, Size.LONG);
+            return;
+        }
+        mapper.writeData32(address, data);
+    }
+
     @Override
     public long readData(long addressL, Size size) {
         int address = (int) (addressL & 0xFF_FFFF);
-        if (address <= ROM_END_ADDRESS) {  //ROM
+        if (address <= romEndAddress) {  //ROM
             if (cartridgeInfoProvider.isSramUsedWithBrokenHeader(address)) { // Buck Rogers
                 checkBackupMemoryMapper(SramMode.READ_WRITE);
                 return mapper.readData(address, size);
@@ -202,7 +428,7 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
             internalRegWrite(address, size, data);
         } else if (address >= VDP_ADDRESS_SPACE_START && address < VDP_ADDRESS_SPACE_END) {  //VDP
             vdpWrite(address, size, data);
-        } else if (address <= ROM_END_ADDRESS) {
+        } else if (address <= romEndAddress) {
             cartWrite(address, data, size);
         } else {
             LOG.error("Unexpected bus write: {}, 68k PC: {}",
@@ -210,6 +436,87 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
         }
     }
 
+    /**
+     * Width specialised mapper accessors, used when the bus is its own mapper.
+     * VDP and IO accesses skip the address decoding and the Size based helpers,
+     * anything else goes through readData/writeData.
+     */
+    @Override
+    public int readData8(int address) {
+        int addr = address & 0xFF_FFFF;
+        if (addr >= VDP_ADDRESS_SPACE_START && addr <= VDP_ADDRESS_SPACE_END) {
+            int port = addr & 0x1F;
+            if (port < 0x8 && (addr & VDP_VALID_ADDRESS_MASK) == VDP_ADDRESS_SPACE_START) {
+                int vdpData = readVdpPortWord(port);
+                return (port & 1) == 0 ? vdpData >> 8 : vdpData & 0xFF;
+            }
+            return vdpReadInternal(addr, Size.BYTE);
+        } else if (addr >= IO_ADDRESS_SPACE_START && addr <= IO_ADDRESS_SPACE_END) {
+            return (int) ioRead(addr, Size.BYTE);
+        }
+        return (int) readData(addr, Size.BYTE);
+    }
+
+    @Override
+    public int readData16(int address) {
+        int addr = address & 0xFF_FFFF;
+        if (addr >= VDP_ADDRESS_SPACE_START && addr <= VDP_ADDRESS_SPACE_END) {
+            int port = addr & 0x1F;
+            if (port < 0x8 && (addr & VDP_VALID_ADDRESS_MASK) == VDP_ADDRESS_SPACE_START) {
+                return readVdpPortWord(port);
+            }
+            return vdpReadInternal(addr, Size.WORD);
+        } else if (addr >= IO_ADDRESS_SPACE_START && addr <= IO_ADDRESS_SPACE_END) {
+            return (int) ioRead(addr, Size.WORD);
+        }
+        return (int) readData(addr, Size.WORD);
+    }
+
+    @Override
+    public int readData32(int address) {
+        int addr = address & 0xFF_FFFF;
+        if (addr >= VDP_ADDRESS_SPACE_START && addr <= VDP_ADDRESS_SPACE_END) {
+            return vdpReadInternal(addr, Size.WORD) << 16 | vdpReadInternal(addr + 2, Size.WORD);
+        } else if (addr >= IO_ADDRESS_SPACE_START && addr <= IO_ADDRESS_SPACE_END) {
+            return (int) ioRead(addr, Size.LONG);
+        }
+        return (int) readData(addr, Size.LONG);
+    }
+
+    @Override
+    public void writeData8(int address, int data) {
+        int addr = address & 0xFF_FFFF;
+        if (addr >= VDP_ADDRESS_SPACE_START && addr < VDP_ADDRESS_SPACE_END) {
+            vdpWriteWord(addr, Size.BYTE, data & 0xFF);
+        } else if (addr >= IO_ADDRESS_SPACE_START && addr <= IO_ADDRESS_SPACE_END) {
+            ioWriteInternal(addr, data & 0xFF);
+        } else {
+            writeData(addr, data, Size.BYTE);
+        }
+    }
+
+    @Override
+    public void writeData16(int address, int data) {
+        int addr = address & 0xFF_FFFF;
+        if (addr >= VDP_ADDRESS_SPACE_START && addr < VDP_ADDRESS_SPACE_END) {
+            vdpWriteWord(addr, Size.WORD, data & 0xFFFF);
+        } else if (addr >= IO_ADDRESS_SPACE_START && addr <= IO_ADDRESS_SPACE_END) {
+            ioWriteInternal(addr, data & 0xFFFF);
+        } else {
+            writeData(addr, data, Size.WORD);
+        }
+    }
+
+    @Override
+    public void writeData32(int address, int data) {
+        int addr = address & 0xFF_FFFF;
+        if (addr >= VDP_ADDRESS_SPACE_START && addr < VDP_ADDRESS_SPACE_END) {
+            vdpWrite(addr, Size.LONG, data & 0xFFFF_FFFFL);
+        } else {
+            writeData(addr, data, Size.LONG);
+        }
+    }
+
     private void cartWrite(long addressL, long data, Size size) {
         if (cartridgeInfoProvider.isSramUsedWithBrokenHeader(addressL)) { // Buck Rogers
             LOG.info("Unexpected Sram write: " + Long.toHexString(addressL) + ", value : " + data);
@@ -742,6 +1049,7 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
         if (ssf2Mapper == RomMapper.NO_OP_MAPPER) {
             this.ssf2Mapper = Ssf2Mapper.createInstance(this, memoryProvider);
             mapper = ssf2Mapper;
+            updatePageTable();
         }
     }
 
@@ -749,6 +1057,7 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
         if (svpMapper == SvpBus.NO_OP) {
             this.svpMapper = SvpMapper.createInstance(this, memoryProvider);
             mapper = svpMapper;
+            updatePageTable();
             LOG.info("Enabling mapper: {}", mapper.getClass().getSimpleName());
         }
     }
@@ -764,6 +1073,7 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
         }
         backupMemMapper.setSramMode(sramMode);
         this.mapper = backupMemMapper;
+        updatePageTable();
     }
 
     @Override
@@ -771,6 +1081,11 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
         return svpMapper != SvpBus.NO_OP;
     }
 
+    @Override
+    public Ssp16 getSsp16() {
+        return svpMapper.getSsp16();
+    }
+
     @Override
     public FmProvider getFm() {
         return soundProvider.getFm();
@@ -821,6 +1136,17 @@ public class GenesisBus extends DeviceAwareBus<GenesisVdpProvider> implements Ge
         busArbiter.handleInterrupts68k();
     }
 
+    @Override
+    public boolean is68kInterruptIdle() {
+        return busArbiter.is68kInterruptIdle();
+    }
+
+    @Override
+    public boolean is68kRamShared() {
+        return isZ80Running() && Objects.nonNull(z80Provider) &&
+                GenesisZ80BusProvider.getRomBank68kSerial(z80Provider) >= ADDRESS_RAM_MAP_START;
+    }
+
     @Override
     public void handleVdpInterruptsZ80() {
         busArbiter.handleInterruptZ80();
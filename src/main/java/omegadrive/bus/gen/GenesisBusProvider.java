@@ -22,11 +22,14 @@ package omegadrive.bus.gen;
 import omegadrive.bus.BaseBusProvider;
 import omegadrive.sound.fm.FmProvider;
 import omegadrive.sound.psg.PsgProvider;
+import omegadrive.ssp16.Ssp16;
 import omegadrive.system.SystemProvider;
 import omegadrive.vdp.model.GenesisVdpProvider;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.EventListener;
+
 import static omegadrive.memory.MemoryProvider.M68K_RAM_SIZE;
 
 public interface GenesisBusProvider extends BaseBusProvider {
@@ -65,6 +68,12 @@ public interface GenesisBusProvider extends BaseBusProvider {
 
     int M68K_RAM_MASK = M68K_RAM_SIZE - 1;
 
+    //68k page table, one entry per 64Kb page, see GenesisBus#updatePageTable
+    int PAGE_SHIFT = 16;
+    byte PAGE_MAPPER = 0;
+    byte PAGE_ROM = 1;
+    byte PAGE_RAM = 2;
+
     int NUM_MAPPER_BANKS = 8;
 
     Logger LOG = LogManager.getLogger(GenesisBusProvider.class.getSimpleName());
@@ -77,6 +86,20 @@ public interface GenesisBusProvider extends BaseBusProvider {
 
     void handleVdpInterruptsZ80();
 
+    /**
+     * No 68k interrupt pending or being processed: nothing changes until the vdp runs.
+     */
+    default boolean is68kInterruptIdle() {
+        return false;
+    }
+
+    /**
+     * The 68k RAM can be written by the z80, its bank window points to it.
+     */
+    default boolean is68kRamShared() {
+        return true;
+    }
+
 
     /**
      * VRES is fed to 68000 for 128 VCLKs (16.7us); ZRES is fed
@@ -133,4 +156,24 @@ public interface GenesisBusProvider extends BaseBusProvider {
     default boolean isSvp() {
         return false;
     }
+
+    default Ssp16 getSsp16() {
+        return Ssp16.NO_SVP;
+    }
+
+    /**
+     * The listener is notified straight away and then every time the 68k memory map changes.
+     */
+    default void addMemoryMapListener(MemoryMapListener listener) {
+        //DO NOTHING
+    }
+
+    /**
+     * PAGE_ROM and PAGE_RAM pages can be read straight from romData and ramData,
+     * PAGE_MAPPER pages need to go through the bus.
+     * The arrays are null when the memory provider doesn't expose them.
+     */
+    interface MemoryMapListener extends EventListener {
+        void onMemoryMapChange(byte[] pageTable, int[] romData, int[] ramData);
+    }
 }
@@ -1,6 +1,7 @@
 package omegadrive.bus.gen;
 
 import omegadrive.cart.mapper.RomMapper;
+import omegadrive.ssp16.Ssp16;
 import omegadrive.util.Size;
 
 /**
@@ -63,4 +64,8 @@ public interface SvpBus extends RomMapper {
     default void m68kSvpRegWrite(int address, long data, Size size) {
         m68kSvpWriteData(address, data, size);
     }
+
+    default Ssp16 getSsp16() {
+        return Ssp16.NO_SVP;
+    }
 }
@@ -39,21 +39,14 @@ public class SvpMapper implements RomMapper, SvpBus {
     private static final boolean verbose = false;
     private static final boolean VR_TEST_MODE = false;
 
-    //TODO fix
-    public static Ssp16 ssp16 = NO_SVP;
-    private static SvpMapper instance = null;
-
-    protected Svp_t svpCtx;
-    protected Ssp1601_t sspCtx;
+    //NOTE the context is owned by ssp16 and can be replaced when loading a savestate
+    protected final Ssp16 ssp16;
 
     protected RomMapper baseMapper;
 
     protected SvpMapper(RomMapper baseMapper, Ssp16 ssp16p) {
         this.baseMapper = baseMapper;
-        ssp16 = ssp16p;
-        this.svpCtx = ssp16p.getSvpContext();
-        this.sspCtx = this.svpCtx.ssp1601;
-        instance = this;
+        this.ssp16 = ssp16p;
     }
 
     public static SvpMapper createInstance(RomMapper baseMapper, Ssp16 ssp16) {
@@ -77,23 +70,23 @@ public class SvpMapper implements RomMapper, SvpBus {
 
     @Override
     public long m68kSvpRegRead(int address, Size size) {
-        return m68kSvpRegRead(sspCtx, address, size);
+        return m68kSvpRegRead(ssp16.getSvpContext().ssp1601, address, size);
     }
 
     @Override
     public void m68kSvpRegWrite(int address, long data, Size size) {
-        m68kSvpRegWrite(sspCtx, address, data, size);
+        m68kSvpRegWrite(ssp16.getSvpContext().ssp1601, address, data, size);
     }
 
     //68k writing data
     @Override
     public void m68kSvpWriteData(long addressL, long data, Size size) {
-        m68kSvpWriteData(svpCtx, addressL, data, size);
+        m68kSvpWriteData(ssp16.getSvpContext(), addressL, data, size);
     }
 
     @Override
     public long m68kSvpReadData(long addressL, Size size) {
-        return m68kSvpReadData(svpCtx, addressL, size);
+        return m68kSvpReadData(ssp16.getSvpContext(), addressL, size);
     }
 
     protected final long m68kSvpRegRead(Ssp1601_t sspCtx, int address, Size size) {
@@ -195,6 +188,7 @@ public class SvpMapper implements RomMapper, SvpBus {
     }
 
     protected final void svpMemoryWriteWord(Svp_t svpCtx, int addressByte, int data) {
+        Ssp1601_t sspCtx = svpCtx.ssp1601;
         if (data > 0) {
             if (addressByte == SVP_CMD_SENT_FLAG_BYTE) sspCtx.setEmu_status(sspCtx.getEmu_status() & ~SSP_WAIT_30FE06);
             else if (addressByte == SVP_CMD_ID_FLAG_BYTE)
@@ -225,12 +219,8 @@ public class SvpMapper implements RomMapper, SvpBus {
         baseMapper.writeData(addressL, data, size);
     }
 
-    public static void setSvpContext(Svp_t svpCtx) {
-        if (svpCtx == null) {
-            return;
-        }
-        instance.svpCtx = svpCtx;
-        instance.sspCtx = svpCtx.ssp1601;
-        ssp16.loadSvpContext(svpCtx);
+    @Override
+    public Ssp16 getSsp16() {
+        return ssp16;
     }
 }
@@ -107,18 +107,23 @@ public class MsxBus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProvide
 
     @Override
     public long read(long addressL, Size size) {
-        int addressI = (int) (addressL & 0xFFFF);
+        return read8((int) addressL);
+    }
+
+    @Override
+    public int read8(int addr) {
+        int addressI = addr & 0xFFFF;
         int page = addressI >> 14;
         int secSlotNumber = pageSlotMapper[page];
         int res = 0xFF;
         int address = (addressI & PAGE_MASK) + pageStartAddress[page];
 
         if(mapper != RomMapper.NO_OP_MAPPER && secSlotNumber > 0 && secSlotNumber < 3){
-            res = (int) mapper.readData(addressL, Size.BYTE);
+            res = mapper.readData8(addr);
         } else if(address < secondarySlot[secSlotNumber].length) {
             res = secondarySlot[secSlotNumber][address];
         } else {
-            LOG.error("Unexpected read: {}, slot: {}", Long.toHexString(addressL), secSlotNumber);
+            LOG.error("Unexpected read: {}, slot: {}", Integer.toHexString(addr), secSlotNumber);
         }
         return res;
     }
@@ -130,18 +135,23 @@ public class MsxBus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProvide
     }
 
     @Override
-    public void write(long addressL, long data, Size size) {
-        int addressI = (int) (addressL & 0xFFFF);
+    public void write(long addr, long data, Size size) {
+        write8((int) addr, (int) data);
+    }
+
+    @Override
+    public void write8(int addr, int data) {
+        int addressI = addr & 0xFFFF;
         int page = addressI >> 14;
         int secSlotNumber = pageSlotMapper[page];
         if(secondarySlotWritable[secSlotNumber]){
             int address = (addressI & PAGE_MASK) + pageStartAddress[page];
-            writeSlot(secondarySlot[secSlotNumber], address, (int) data);
+            writeSlot(secondarySlot[secSlotNumber], address, data);
         } else if(mapper != RomMapper.NO_OP_MAPPER && secSlotNumber > 0 && secSlotNumber < 3) {
-            mapper.writeData(addressL, data, size);
+            mapper.writeData8(addr, data);
         } else {
-            LOG.error("Unexpected write: {}, data: {}, slot: {}", Long.toHexString(addressL),
-                    Long.toHexString(data), secSlotNumber);
+            LOG.error("Unexpected write: {}, data: {}, slot: {}", Integer.toHexString(addr),
+                    Integer.toHexString(data), secSlotNumber);
         }
     }
 
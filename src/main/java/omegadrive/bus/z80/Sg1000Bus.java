@@ -47,6 +47,11 @@ public class Sg1000Bus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProv
             LOG.error("Unexpected read, addr : {} , size: {}", address, size);
             return 0xFF;
         }
+        return read8(address);
+    }
+
+    @Override
+    public int read8(int address) {
         if (address <= ROM_END) {
             return memoryProvider.readRomByte(address);
         } else if (address >= RAM_START && address <= RAM_END) {
@@ -59,8 +64,12 @@ public class Sg1000Bus extends DeviceAwareBus<Tms9918aVdp> implements Z80BusProv
 
     @Override
     public void write(long address, long data, Size size) {
-        address &= RAM_SIZE - 1;
-        memoryProvider.writeRamByte((int) address, (int) (data & 0xFF));
+        write8((int) address, (int) data);
+    }
+
+    @Override
+    public void write8(int address, int data) {
+        memoryProvider.writeRamByte(address & (RAM_SIZE - 1), data & 0xFF);
     }
 
     /**
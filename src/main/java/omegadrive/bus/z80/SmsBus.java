@@ -110,11 +110,26 @@ public class SmsBus extends DeviceAwareBus<SmsVdp> implements Z80BusProvider, Ro
         mapper.writeData(addressL, dataL, size);
     }
 
+    @Override
+    public int read8(int address) {
+        return mapper.readData8(address);
+    }
+
+    @Override
+    public void write8(int address, int data) {
+        mapper.writeData8(address, data);
+    }
+
     @Override
     public long readData(long addressL, Size size) {
         return smsMapper.readDataMapper(addressL, size);
     }
 
+    @Override
+    public int readData8(int address) {
+        return smsMapper.readDataMapper8(address);
+    }
+
     @Override
     public void writeData(long address, long data, Size size) {
         memoryProvider.writeRamByte((int)(address & RAM_MASK), (int)(data & 0xFF));
@@ -27,7 +27,7 @@ import omegadrive.util.Util;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.Arrays;
+import java.util.stream.IntStream;
 
 public class MdCartInfoProvider extends CartridgeInfoProvider {
 
@@ -228,11 +228,12 @@ public class MdCartInfoProvider extends CartridgeInfoProvider {
     }
 
     private void detectHeaderMetadata() {
-        if (memoryProvider.getRomData().length < SERIAL_NUMBER_END) {
+        if (memoryProvider.getRomSize() < SERIAL_NUMBER_END) {
 
             return;
         }
-        int[] serialArray = Arrays.copyOfRange(memoryProvider.getRomData(), SERIAL_NUMBER_START, SERIAL_NUMBER_END);
+        int[] serialArray = IntStream.range(SERIAL_NUMBER_START, SERIAL_NUMBER_END).
+                map(memoryProvider::readRomByte).toArray();
         this.serial = Util.toStringValue(serialArray);
 //        System.out.println(serial);
 //        MdLoader.testLoading(this);
@@ -99,9 +99,19 @@ public class MdRomDbModel {
             return getIntValue("size", 0);
         }
 
+        /**
+         * Page writes wrap inside the page, rom.db has no page size: 24Cxx datasheet value for the size,
+         * X24C01 (128 bytes, 7 bit addressing) uses 4 byte pages.
+         */
+        public int getPageSize() {
+            int size = getSize();
+            int defaultPageSize = size <= 0x80 ? 4 : (size <= 0x100 ? 8 : (size <= 0x800 ? 16 : 32));
+            return getIntValue("pagesize", defaultPageSize);
+        }
+
         @Override
         public String toString() {
-            return "EEPROM{type=" + getType() + ", size=" + getSize() + "}";
+            return "EEPROM{type=" + getType() + ", size=" + getSize() + ", pageSize=" + getPageSize() + "}";
         }
     }
 }
@@ -20,13 +20,10 @@
 package omegadrive.cart.mapper;
 
 import omegadrive.SystemLoader;
-import omegadrive.util.FileLoader;
-import omegadrive.util.Util;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
@@ -40,7 +37,7 @@ public abstract class BackupMemoryMapper {
     protected String sramFolderProp;
 
     protected Path backupFile;
-    protected int[] sram = new int[0];
+    protected BackupMemoryStore sram = BackupMemoryStore.NO_STORE;
     protected String fileType;
     protected String romName;
 
@@ -63,44 +60,14 @@ public abstract class BackupMemoryMapper {
 
     protected void initBackupFileIfNecessary() {
         if (backupFile == null) {
-            try {
-                backupFile = Paths.get(sramFolder,
-                        romName + "." + fileType);
-                long size = 0;
-                if (Files.isReadable(backupFile)) {
-                    size = Files.size(backupFile);
-                    if (size > 0) {
-                        sram = Util.toUnsignedIntArray(FileLoader.readBinaryFile(backupFile));
-                    } else {
-                        LOG.error("Backup file with size 0, attempting to recreate it");
-                        size = createBackupFile();
-                    }
-                } else {
-                    size = createBackupFile();
-                }
-                LOG.info("Using sram file: " + backupFile + " size: " + size + " bytes");
-            } catch (Exception e) {
-                LOG.error("Unable to create file for: " + romName);
-            }
+            backupFile = Paths.get(sramFolder, romName + "." + fileType);
+            sram = BackupMemoryStore.open(backupFile, sramSize);
+            LOG.info("Using sram file: " + backupFile + " size: " + sram.size() + " bytes");
         }
     }
 
-    private int createBackupFile() {
-        LOG.info("Creating backup memory file: " + backupFile);
-        sram = new int[sramSize];
-        FileLoader.writeFileSafe(backupFile, Util.unsignedToByteArray(sram));
-        return sram.length;
-    }
-
-    protected void writeFile() {
-        initBackupFileIfNecessary();
-        if (sram.length == 0) {
-            LOG.error("Unexpected sram length: {}", sram.length);
-            return;
-        }
-        if (Files.isWritable(backupFile)) {
-            LOG.info("Writing to sram file: {}, len: {}", this.backupFile, sram.length);
-            FileLoader.writeFileSafe(backupFile, Util.unsignedToByteArray(sram));
-        }
+    protected void closeBackupFile() {
+        LOG.info("Closing sram file: {}", backupFile);
+        sram.close();
     }
 }
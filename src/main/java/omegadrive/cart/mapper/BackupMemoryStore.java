@@ -0,0 +1,197 @@
+/*
+ * BackupMemoryStore
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 10:12
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.cart.mapper;
+
+import omegadrive.util.PriorityThreadFactory;
+import omegadrive.util.Size;
+import omegadrive.util.ZipUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Battery backed memory (sram, eeprom) mapped to its file.
+ * <p>
+ * Writes land in the OS page cache as soon as they happen, a crash of the emulator loses nothing.
+ * Writes mark their page as dirty, a background thread periodically forces the file to disk
+ * when something has changed (helios.sram.flush.ms), the emulation thread never does file I/O.
+ * <p>
+ * If the file cannot be mapped the store falls back to heap memory, ie. nothing is persisted.
+ * The flusher is a daemon thread, on exit the OS still writes back the pages of the mapping.
+ */
+public class BackupMemoryStore {
+
+    private final static Logger LOG = LogManager.getLogger(BackupMemoryStore.class.getSimpleName());
+
+    public static final BackupMemoryStore NO_STORE = new BackupMemoryStore(null, ByteBuffer.allocate(0));
+
+    private static final long FLUSH_INTERVAL_MS =
+            Long.parseLong(System.getProperty("helios.sram.flush.ms", "2000"));
+    private static final int PAGE_SHIFT = 8;
+
+    private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            new PriorityThreadFactory(Thread.MIN_PRIORITY, BackupMemoryStore.class.getSimpleName(), true));
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final int size;
+    //one bit per page
+    private final AtomicLongArray dirtyPages;
+    private volatile boolean dirty;
+    private ScheduledFuture<?> flushTask;
+    private FileChannel channel;
+
+    private long flushCount, flushedPages;
+
+    private BackupMemoryStore(Path file, ByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+        this.size = buffer.capacity();
+        this.dirtyPages = new AtomicLongArray(((size >> PAGE_SHIFT) >> 6) + 1);
+    }
+
+    /**
+     * Maps the file, creating it when missing or smaller than the given size.
+     */
+    public static BackupMemoryStore open(Path file, int size) {
+        FileChannel channel = null;
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            int len = (int) Math.max(size, channel.size());
+            MappedByteBuffer mbb = channel.map(FileChannel.MapMode.READ_WRITE, 0, len);
+            BackupMemoryStore s = new BackupMemoryStore(file, mbb);
+            s.channel = channel;
+            s.flushTask = flusher.scheduleWithFixedDelay(s::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS,
+                    TimeUnit.MILLISECONDS);
+            LOG.info("Mapped backup memory file: {}, size: {} bytes", file, len);
+            return s;
+        } catch (Exception e) {
+            LOG.error("Unable to map backup memory file: {}, changes will not be saved", file, e);
+            ZipUtil.closeQuietly(channel);
+        }
+        return new BackupMemoryStore(file, ByteBuffer.allocate(size));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int read(int address) {
+        return buffer.get(address) & 0xFF;
+    }
+
+    public void write(int address, int data) {
+        buffer.put(address, (byte) data);
+        int page = address >> PAGE_SHIFT;
+        long mask = 1L << page;
+        int word = page >> 6;
+        if ((dirtyPages.get(word) & mask) == 0) {
+            dirtyPages.getAndAccumulate(word, mask, (a, b) -> a | b);
+        }
+        dirty = true;
+    }
+
+    public long read(Size size, int address) {
+        switch (size) {
+            case BYTE:
+                return read(address);
+            case WORD:
+                return buffer.getShort(address) & 0xFFFF;
+            default:
+                return buffer.getInt(address) & 0xFFFF_FFFFL;
+        }
+    }
+
+    public void write(Size size, int address, long data) {
+        switch (size) {
+            case BYTE:
+                write(address, (int) data);
+                break;
+            case WORD:
+                write(address, (int) (data >> 8));
+                write(address + 1, (int) data);
+                break;
+            default:
+                write(address, (int) (data >> 24));
+                write(address + 1, (int) (data >> 16));
+                write(address + 2, (int) (data >> 8));
+                write(address + 3, (int) data);
+                break;
+        }
+    }
+
+    /**
+     * Flusher thread, forces the mapped file to disk when pages have been written.
+     * The OS only writes back the dirty pages of the mapping.
+     */
+    void flush() {
+        if (!dirty || !(buffer instanceof MappedByteBuffer)) {
+            return;
+        }
+        dirty = false;
+        int pages = 0;
+        for (int i = 0; i < dirtyPages.length(); i++) {
+            pages += Long.bitCount(dirtyPages.getAndSet(i, 0));
+        }
+        try {
+            ((MappedByteBuffer) buffer).force();
+            flushCount++;
+            flushedPages += pages;
+        } catch (Exception e) {
+            LOG.error("Unable to flush backup memory file: {}", file, e);
+        }
+    }
+
+    /**
+     * The last flush and the file closing happen on the flusher thread.
+     */
+    public Future<?> close() {
+        if (flushTask == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        flushTask.cancel(false);
+        flushTask = null;
+        return flusher.submit(() -> {
+            flush();
+            ZipUtil.closeQuietly(channel);
+            LOG.info("Closed backup memory file: {}, flushes: {}, pages written: {}",
+                    file, flushCount, flushedPages);
+        });
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+}
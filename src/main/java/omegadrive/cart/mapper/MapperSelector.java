@@ -25,8 +25,8 @@ import omegadrive.cart.loader.MsxXmlLoader;
 import omegadrive.cart.loader.SmsLoader;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MapperSelector {
 
@@ -35,24 +35,23 @@ public class MapperSelector {
     public static final String ROM_DB_BASE_FOLDER = "res/romdb/";
 
     public static Entry getMapperData(SystemLoader.SystemType type, String code) {
-        if(!cache.containsKey(type)){
-            switch (type){
-                case MSX:
-                    cache.put(type, MsxXmlLoader.loadData());
-                    break;
-                case SMS:
-                case GG:
-                    cache.put(type, SmsLoader.loadData(type));
-                    break;
-                default:
-                    cache.put(type, Collections.emptyMap());
-                    break;
-            }
+        return cache.computeIfAbsent(type, MapperSelector::loadData).getOrDefault(code, MISSING_DATA);
+    }
+
+    private static Map<String, Entry> loadData(SystemLoader.SystemType type) {
+        switch (type) {
+            case MSX:
+                return MsxXmlLoader.loadData();
+            case SMS:
+            case GG:
+                return SmsLoader.loadData(type);
+            default:
+                return Collections.emptyMap();
         }
-        return cache.get(type).getOrDefault(code, MISSING_DATA);
     }
 
-    static Map<SystemLoader.SystemType, Map<String, Entry>> cache = new HashMap<>();
+    //read-only rom db, loaded once and shared by all the running systems
+    private static final Map<SystemLoader.SystemType, Map<String, Entry>> cache = new ConcurrentHashMap<>();
 
     public static class Entry {
         public String title;
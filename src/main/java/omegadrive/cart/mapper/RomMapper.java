@@ -43,6 +43,33 @@ public interface RomMapper {
 
     void writeData(long address, long data, Size size);
 
+    /**
+     * Width specialised accessors, mappers on a hot path should override them.
+     */
+    default int readData8(int address) {
+        return (int) readData(address, Size.BYTE);
+    }
+
+    default int readData16(int address) {
+        return (int) readData(address, Size.WORD);
+    }
+
+    default int readData32(int address) {
+        return (int) readData(address, Size.LONG);
+    }
+
+    default void writeData8(int address, int data) {
+        writeData(address, data, Size.BYTE);
+    }
+
+    default void writeData16(int address, int data) {
+        writeData(address, data, Size.WORD);
+    }
+
+    default void writeData32(int address, int data) {
+        writeData(address, data, Size.LONG);
+    }
+
     default void writeBankData(long addressL, long data) {
         //DO NOTHING
     }
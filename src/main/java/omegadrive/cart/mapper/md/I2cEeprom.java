@@ -1,6 +1,7 @@
 package omegadrive.cart.mapper.md;
 
 import omegadrive.cart.loader.MdRomDbModel;
+import omegadrive.cart.mapper.BackupMemoryStore;
 import omegadrive.util.LogHelper;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -37,22 +38,29 @@ public class I2cEeprom {
     private int cycles, rw;
     private int buffer;
     private int address = 0;
-    private int[] sram = new int[0];
+    private BackupMemoryStore sram = BackupMemoryStore.NO_STORE;
     private int sizeMask = 0;
+    private int pageMask = 0;
     private EepromState state = EepromState.STANDBY;
 
-    public static I2cEeprom createInstance(MdRomDbModel.Entry entry) {
+    public static I2cEeprom createInstance(MdRomDbModel.Entry entry, BackupMemoryStore store) {
         I2cEeprom e = NO_OP;
         if (entry.hasEeprom()) {
-            e = new I2cEeprom();
             MdRomDbModel.EEPROM eeprom = entry.getEeprom();
-            e.sram = new int[eeprom.getSize()];
-            e.sizeMask = e.sram.length - 1;
+            e = createInstance(eeprom.getSize(), eeprom.getPageSize(), store);
             LOG.info("Init " + eeprom);
         }
         return e;
     }
 
+    static I2cEeprom createInstance(int size, int pageSize, BackupMemoryStore store) {
+        I2cEeprom e = new I2cEeprom();
+        e.sram = store;
+        e.sizeMask = size - 1;
+        e.pageMask = pageSize - 1;
+        return e;
+    }
+
     public static void main(String[] args) {
         I2cEeprom i2c = new I2cEeprom();
         int[] writes = {3, 2, 0, 0, 0,
@@ -93,7 +101,7 @@ public class I2cEeprom {
             if (cycles < 9) {
                 /* return memory array (max 64kB) DATA bits */
                 int index = address & 0xffff;
-                int res = ((sram[index] >> (8 - cycles)) & 1);
+                int res = ((sram.read(index & sizeMask) >> (8 - cycles)) & 1);
                 LogHelper.printLevel(LOG, Level.INFO, "{}, read {}, on cycle {}", state, res, cycles, verbose);
                 return res;
             }
@@ -122,7 +130,12 @@ public class I2cEeprom {
                 buffer |= (sda << (8 - cycles));
                 LogHelper.printLevel(LOG, Level.INFO, "{}, buffer {}", state, buffer, verbose);
             } else {
+                /* write back to the memory array */
                 LogHelper.printLevel(LOG, Level.INFO, "{}, val {}", state, buffer, verbose);
+                sram.write(address & sizeMask, buffer);
+                buffer = 0;
+                /* increment Word Address (roll up at maximum page size) */
+                address = (address & ~pageMask) | ((address + 1) & pageMask);
             }
         }
     }
@@ -25,7 +25,6 @@ import omegadrive.cart.loader.MdRomDbModel;
 import omegadrive.cart.mapper.BackupMemoryMapper;
 import omegadrive.cart.mapper.RomMapper;
 import omegadrive.util.Size;
-import omegadrive.util.Util;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -60,9 +59,9 @@ public class MdBackupMemoryMapper extends BackupMemoryMapper implements RomMappe
         mapper.sramMode = SramMode.READ_WRITE;
         mapper.cartridgeInfoProvider = cart;
         mapper.eeprom = entry.getEeprom();
-        mapper.i2c = I2cEeprom.createInstance(entry);
         LOG.info("BackupMemoryMapper created, using folder: " + mapper.sramFolder);
         mapper.initBackupFileIfNecessary();
+        mapper.i2c = I2cEeprom.createInstance(entry, mapper.sram);
         return mapper;
     }
 
@@ -102,7 +101,7 @@ public class MdBackupMemoryMapper extends BackupMemoryMapper implements RomMappe
         if (sramRead) {
             initBackupFileIfNecessary();
             address = (address & 0xFFFF);
-            long res = Util.readSram(sram, size, address);
+            long res = sram.read(size, (int) address);
             logInfo("SRAM read at: {} {}, result: {} ", address, size, res);
             return res;
         }
@@ -119,7 +118,7 @@ public class MdBackupMemoryMapper extends BackupMemoryMapper implements RomMappe
             initBackupFileIfNecessary();
             address = (address & 0xFFFF);
             logInfo("SRAM write at: {} {}, data: {} ", address, size, data);
-            Util.writeSram(sram, size, (int) address, data);
+            sram.write(size, (int) address, data);
         }
     }
 
@@ -151,6 +150,6 @@ public class MdBackupMemoryMapper extends BackupMemoryMapper implements RomMappe
 
     @Override
     public void closeRom() {
-        writeFile();
+        closeBackupFile();
     }
 }
\ No newline at end of file
@@ -98,8 +98,13 @@ class KonamiMapperImpl implements RomMapper {
 
     @Override
     public long readData(long addressL, Size size) {
+        return readData8((int) addressL);
+    }
+
+    @Override
+    public int readData8(int addr) {
         int res = 0xFF;
-        int address = (int) (addressL & 0xFFFF);
+        int address = addr & 0xFFFF;
         if (address < MAPPER_START_ADDRESS || address > MAPPER_END_ADDRESS) {
             return -1;
         }
@@ -125,11 +125,15 @@ public class SmsMapper {
     }
 
     public long readDataMapper(long addressL, Size size) {
-        int address = (int) (addressL & 0xFFFF);
         if (size != Size.BYTE) {
-            LOG.error("Unexpected read, addr : {} , size: {}", address, size);
+            LOG.error("Unexpected read, addr : {} , size: {}", addressL & 0xFFFF, size);
             return 0xFF;
         }
+        return readDataMapper8((int) addressL);
+    }
+
+    public int readDataMapper8(int addr) {
+        int address = addr & 0xFFFF;
         int page = (address >> 14);
         if(page < FRAME_REG_DEFAULT.length) { //rom
             int block16k = frameReg[page] << 14;
@@ -165,6 +169,14 @@ public class SmsMapper {
             return readDataMapper(address, size);
         }
 
+        @Override
+        public int readData8(int address) {
+            if (sramSlot2Enable) {
+                return (int) readSramDataMaybe(address, Size.BYTE);
+            }
+            return readDataMapper8(address);
+        }
+
         @Override
         public void writeData(long addressL, long dataL, Size size) {
 //            LogHelper.printLevel(LOG, Level.INFO,"writeData: {} , data: {}", addressL, dataL, verbose);
@@ -185,7 +197,7 @@ public class SmsMapper {
             int address = (int) (addressL & 0xFFFF);
             int page = address >> 14;
             if (sramSlot2Enable && page == 2) {
-                return sram[address & 0x3FFF];
+                return sram.read(address & 0x3FFF);
             }
             return readDataMapper(addressL, size);
         }
@@ -194,7 +206,7 @@ public class SmsMapper {
             int address = (int) (addressL & 0xFFFF);
             int page = address >> 14;
             if (sramSlot2Enable && page == 2) {
-                sram[address & 0x3FFF] = (int) (dataL & 0xFF);
+                sram.write(address & 0x3FFF, (int) (dataL & 0xFF));
                 return true;
             }
             return false;
@@ -247,7 +259,7 @@ public class SmsMapper {
 
         @Override
         public void closeRom() {
-            writeFile();
+            closeBackupFile();
         }
     }
 
@@ -258,6 +270,11 @@ public class SmsMapper {
             return readDataMapper(address, size);
         }
 
+        @Override
+        public int readData8(int address) {
+            return readDataMapper8(address);
+        }
+
         @Override
         public void writeData(long addressL, long dataL, Size size) {
             int address = (int) (addressL & 0xFFFF);
@@ -283,6 +300,11 @@ public class SmsMapper {
             return readDataMapper(address, size);
         }
 
+        @Override
+        public int readData8(int address) {
+            return readDataMapper8(address);
+        }
+
         @Override
         public void writeData(long addressL, long dataL, Size size) {
             int address = (int) (addressL & 0xFFFF);
@@ -79,6 +79,7 @@ public class KeyboardInputHelper {
         DEFAULT_INPUT_MAP.put(getKeyStroke(VK_8, CTRL_DOWN_MASK), QUICK_SAVE);
         DEFAULT_INPUT_MAP.put(getKeyStroke(VK_7, CTRL_DOWN_MASK), LOAD_STATE);
         DEFAULT_INPUT_MAP.put(getKeyStroke(VK_6, CTRL_DOWN_MASK), SAVE_STATE);
+        DEFAULT_INPUT_MAP.put(getKeyStroke(VK_BACK_SPACE, CTRL_DOWN_MASK), REWIND);
         DEFAULT_INPUT_MAP.put(getKeyStroke(VK_L, CTRL_DOWN_MASK), NEW_ROM);
         DEFAULT_INPUT_MAP.put(getKeyStroke(VK_ESCAPE, CTRL_DOWN_MASK), CLOSE_ROM);
         DEFAULT_INPUT_MAP.put(getKeyStroke(VK_S, CTRL_DOWN_MASK | SHIFT_DOWN_MASK), TOGGLE_SOUND_RECORD);
@@ -0,0 +1,509 @@
+/*
+ * M68kIdleLoopDetector
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 10:12
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.m68k;
+
+import m68k.cpu.MC68000;
+import m68k.memory.AddressSpace;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+
+/**
+ * Detects the 68k spinning in a short loop, ie. polling the VDP status or a RAM flag
+ * waiting for the next interrupt, and replays it without executing it.
+ * <p>
+ * A short backward branch taken twice in a row starts the monitoring: the loop instructions
+ * are executed with an address space that records every access. The loop is idle when two
+ * consecutive iterations produce the same cpu state after each instruction, do not write
+ * and only read ROM, RAM or the VDP control port.
+ * <p>
+ * When idle each step re-reads (RAM, VDP control) the values the next loop instruction would read:
+ * if unchanged the cpu registers are set to the recorded state after the instruction and its cycles
+ * are returned, otherwise (or when an interrupt is taken) the cpu goes back to executing instructions.
+ * Timing, interrupt latency and cpu state are the same as executing the loop.
+ * <p>
+ * A loop that only reads ROM and RAM can only be exited by an interrupt, as long as no other device
+ * writes the RAM: whole iterations are then skipped up to the point where an interrupt can be raised.
+ * <p>
+ * A loop that fails the checks is remembered and not monitored again.
+ */
+public class M68kIdleLoopDetector {
+
+    private final static Logger LOG = LogManager.getLogger(M68kIdleLoopDetector.class.getSimpleName());
+
+    public static final boolean ENABLE =
+            Boolean.valueOf(System.getProperty("helios.m68k.idle.detection", "true"));
+    //comma separated, a rom whose name contains one of the entries is excluded
+    private static final String[] BLACKLIST =
+            System.getProperty("helios.m68k.idle.blacklist", "").toLowerCase().split(",");
+
+    static final int MAX_LOOP_BYTES = 32;
+    static final int MAX_LOOP_INSTRUCTIONS = 8;
+    static final int MAX_READS = 8;
+    //iterations to wait for the cpu state to repeat
+    static final int MAX_MONITOR_ITERATIONS = 4;
+    //taken branches to the same loop head before monitoring
+    static final int MIN_LOOP_HITS = 2;
+    static final int REJECTED_CACHE_SIZE = 256;
+
+    //D0-D7, A0-A7, SR, USP, SSP, PC
+    static final int NUM_REGS = 20;
+    static final int REG_SR = 16, REG_PC = 19;
+
+    private static final int ADDRESS_MASK = 0xFF_FFFF;
+    private static final int ROM_END = 0x3F_FFFF;
+    private static final int RAM_START = 0xE0_0000;
+    private static final int VDP_CONTROL_PORT = 0xC0_0004;
+
+    enum State {NONE, MONITOR, IDLE}
+
+    private final MC68000 m68k;
+    private final AddressSpace addressSpace;
+    private final AddressSpace monitorSpace;
+    private boolean enabled = ENABLE;
+
+    private State state = State.NONE;
+    private int head, tail, lastHead = -1, hits;
+    private final int[] rejected = new int[REJECTED_CACHE_SIZE];
+
+    //monitored iteration
+    private int monitorIterations;
+    private boolean violation;
+    private int numInstr, numReads;
+    private final int[][] regs = new int[MAX_LOOP_INSTRUCTIONS][NUM_REGS];
+    private final int[] cycles = new int[MAX_LOOP_INSTRUCTIONS];
+    private final int[] readAddress = new int[MAX_READS], readSize = new int[MAX_READS],
+            readValue = new int[MAX_READS], readInstr = new int[MAX_READS];
+    //previous iteration
+    private int prevNumInstr, prevNumReads;
+    private final int[][] prevRegs = new int[MAX_LOOP_INSTRUCTIONS][NUM_REGS];
+    private final int[] prevCycles = new int[MAX_LOOP_INSTRUCTIONS];
+    private final int[] prevReadAddress = new int[MAX_READS], prevReadSize = new int[MAX_READS],
+            prevReadValue = new int[MAX_READS], prevReadInstr = new int[MAX_READS];
+
+    //idle replay, index of the next loop instruction
+    private int replayIndex;
+    private final int[] changedRegs = new int[NUM_REGS];
+    private int numChangedRegs;
+    private int iterationCycles;
+    private boolean ramOnlyReads;
+    //iterations credited by the last skip
+    private int loopCycles, skipIterations;
+
+    private long skippedCycles, idleCount;
+
+    public M68kIdleLoopDetector(MC68000 m68k, AddressSpace addressSpace) {
+        this.m68k = m68k;
+        this.addressSpace = addressSpace;
+        this.monitorSpace = createMonitorSpace();
+        Arrays.fill(rejected, -1);
+    }
+
+    public static boolean isBlacklisted(String romName) {
+        String name = String.valueOf(romName).toLowerCase();
+        return Arrays.stream(BLACKLIST).map(String::trim).anyMatch(s -> !s.isEmpty() && name.contains(s));
+    }
+
+    public void setEnabled(boolean enabled) {
+        reset();
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isIdle() {
+        return state == State.IDLE;
+    }
+
+    /**
+     * @return the cycles of the loop instruction replayed, 0 if the cpu has to execute it
+     */
+    public int idleStep() {
+        int prev = replayIndex == 0 ? prevNumInstr - 1 : replayIndex - 1;
+        //the cpu has been moved, ie. savestate
+        if (m68k.getPC() != prevRegs[prev][REG_PC]) {
+            exit();
+            return 0;
+        }
+        for (int i = 0; i < prevNumReads; i++) {
+            if (prevReadInstr[i] == replayIndex &&
+                    read(addressSpace, prevReadAddress[i], prevReadSize[i]) != prevReadValue[i]) {
+                exit();
+                return 0;
+            }
+        }
+        writeRegs(prevRegs[replayIndex]);
+        int res = prevCycles[replayIndex];
+        replayIndex = (replayIndex + 1) % prevNumInstr;
+        skippedCycles += res;
+        return res;
+    }
+
+    /**
+     * The cpu is at the head of a replayed loop that reads nothing but ROM and RAM: only an interrupt
+     * can change what the next iterations do.
+     *
+     * @param ramShared another device can write the RAM, ie. the z80 bank window points to it
+     * @return the cycles of one iteration, 0 when the iterations cannot be skipped
+     */
+    public int getLoopCycles(boolean ramShared) {
+        boolean stable = state == State.IDLE && replayIndex == 0 && m68k.getPC() == head &&
+                (prevNumReads == 0 || (ramOnlyReads && !ramShared));
+        loopCycles = stable ? iterationCycles : 0;
+        return loopCycles;
+    }
+
+    /**
+     * To be called after getLoopCycles, skips whole iterations.
+     *
+     * @return the cycles skipped, at most maxCycles, 0 when not applicable
+     */
+    public int skipIterations(int maxCycles) {
+        if (loopCycles == 0) {
+            return 0;
+        }
+        skipIterations = maxCycles / loopCycles;
+        int res = skipIterations * loopCycles;
+        loopCycles = 0;
+        skippedCycles += res;
+        return res;
+    }
+
+    /**
+     * The last skip has been cut short, gives back the iterations that have not elapsed.
+     */
+    public void cancelIterations(int cycles) {
+        if (skipIterations == 0) {
+            return;
+        }
+        skippedCycles -= Math.min(skipIterations, cycles / iterationCycles) * (long) iterationCycles;
+        skipIterations = 0;
+    }
+
+    /**
+     * After each executed instruction.
+     */
+    public void afterInstruction(int pc, int nextPc, int instCycles) {
+        if (state == State.MONITOR) {
+            monitor(nextPc, instCycles);
+        } else if (nextPc <= pc && pc - nextPc <= MAX_LOOP_BYTES && !isRejected(nextPc)) {
+            hits = nextPc == lastHead ? hits + 1 : 1;
+            lastHead = nextPc;
+            if (hits >= MIN_LOOP_HITS) {
+                startMonitor(nextPc, pc);
+            }
+        }
+    }
+
+    /**
+     * An exception or interrupt has been taken.
+     */
+    public void exit() {
+        if (state == State.MONITOR) {
+            m68k.setAddressSpace(addressSpace);
+        }
+        state = State.NONE;
+        hits = 0;
+        lastHead = -1;
+        loopCycles = 0;
+        skipIterations = 0;
+    }
+
+    public void reset() {
+        exit();
+        Arrays.fill(rejected, -1);
+    }
+
+    public long getSkippedCycles() {
+        return skippedCycles;
+    }
+
+    public long getIdleCount() {
+        return idleCount;
+    }
+
+    private void startMonitor(int head, int tail) {
+        this.head = head;
+        this.tail = tail;
+        state = State.MONITOR;
+        monitorIterations = 0;
+        prevNumInstr = 0;
+        startIteration();
+        m68k.setAddressSpace(monitorSpace);
+    }
+
+    private void startIteration() {
+        numInstr = 0;
+        numReads = 0;
+        violation = false;
+    }
+
+    private void monitor(int nextPc, int instCycles) {
+        if (violation || numInstr == MAX_LOOP_INSTRUCTIONS) {
+            reject();
+            return;
+        }
+        readRegs(regs[numInstr]);
+        cycles[numInstr] = instCycles;
+        numInstr++;
+        if (nextPc == head) {
+            endIteration();
+        } else if (nextPc < head || nextPc > tail) {
+            //the loop has been exited, not necessarily by a branch
+            exit();
+        }
+    }
+
+    private void endIteration() {
+        if (monitorIterations > 0 && isSameIteration()) {
+            m68k.setAddressSpace(addressSpace);
+            state = State.IDLE;
+            replayIndex = 0;
+            prepareReplay();
+            idleCount++;
+            return;
+        }
+        if (++monitorIterations == MAX_MONITOR_ITERATIONS || !isSupervisorByteConstant()) {
+            reject();
+            return;
+        }
+        storeIteration();
+        startIteration();
+    }
+
+    private boolean isSameIteration() {
+        if (numInstr != prevNumInstr || numReads != prevNumReads) {
+            return false;
+        }
+        for (int i = 0; i < numInstr; i++) {
+            if (cycles[i] != prevCycles[i] || !Arrays.equals(regs[i], prevRegs[i])) {
+                return false;
+            }
+        }
+        for (int i = 0; i < numReads; i++) {
+            if (readAddress[i] != prevReadAddress[i] || readSize[i] != prevReadSize[i] ||
+                    readValue[i] != prevReadValue[i] || readInstr[i] != prevReadInstr[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //the replay only restores the condition codes
+    private boolean isSupervisorByteConstant() {
+        for (int i = 1; i < numInstr; i++) {
+            if ((regs[i][REG_SR] & 0xFF00) != (regs[0][REG_SR] & 0xFF00)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void storeIteration() {
+        prevNumInstr = numInstr;
+        prevNumReads = numReads;
+        for (int i = 0; i < numInstr; i++) {
+            System.arraycopy(regs[i], 0, prevRegs[i], 0, NUM_REGS);
+        }
+        System.arraycopy(cycles, 0, prevCycles, 0, numInstr);
+        System.arraycopy(readAddress, 0, prevReadAddress, 0, numReads);
+        System.arraycopy(readSize, 0, prevReadSize, 0, numReads);
+        System.arraycopy(readValue, 0, prevReadValue, 0, numReads);
+        System.arraycopy(readInstr, 0, prevReadInstr, 0, numReads);
+    }
+
+    private void reject() {
+        rejected[(head >> 1) & (REJECTED_CACHE_SIZE - 1)] = head;
+        exit();
+    }
+
+    boolean isRejected(int pc) {
+        return rejected[(pc >> 1) & (REJECTED_CACHE_SIZE - 1)] == pc;
+    }
+
+    private void onRead(int address, int size, int value) {
+        int a = address & ADDRESS_MASK;
+        if (a <= ROM_END) {
+            return;
+        }
+        boolean valid = a >= RAM_START || ((a & ~3) == VDP_CONTROL_PORT && size < 4);
+        if (!valid || numReads == MAX_READS) {
+            violation = true;
+            return;
+        }
+        readAddress[numReads] = address;
+        readSize[numReads] = size;
+        readValue[numReads] = value;
+        readInstr[numReads] = numInstr;
+        numReads++;
+    }
+
+    private void readRegs(int[] r) {
+        for (int i = 0; i < 8; i++) {
+            r[i] = m68k.getDataRegisterLong(i);
+            r[i + 8] = m68k.getAddrRegisterLong(i);
+        }
+        r[REG_SR] = m68k.getSR();
+        r[17] = m68k.getUSP();
+        r[18] = m68k.getSSP();
+        r[REG_PC] = m68k.getPC();
+    }
+
+    //only the registers modified by the loop
+    private void writeRegs(int[] r) {
+        for (int i = 0; i < numChangedRegs; i++) {
+            int reg = changedRegs[i];
+            if (reg < 8) {
+                m68k.setDataRegisterLong(reg, r[reg]);
+            } else if (reg < REG_SR) {
+                m68k.setAddrRegisterLong(reg - 8, r[reg]);
+            }
+        }
+        m68k.setCCRegister(r[REG_SR]);
+        m68k.setPC(r[REG_PC]);
+    }
+
+    private void prepareReplay() {
+        iterationCycles = 0;
+        for (int i = 0; i < prevNumInstr; i++) {
+            iterationCycles += prevCycles[i];
+        }
+        ramOnlyReads = true;
+        for (int i = 0; i < prevNumReads; i++) {
+            ramOnlyReads &= (prevReadAddress[i] & ADDRESS_MASK) >= RAM_START;
+        }
+        numChangedRegs = 0;
+        for (int reg = 0; reg < REG_SR; reg++) {
+            for (int i = 1; i < prevNumInstr; i++) {
+                if (prevRegs[i][reg] != prevRegs[0][reg]) {
+                    changedRegs[numChangedRegs++] = reg;
+                    break;
+                }
+            }
+        }
+    }
+
+    private static int read(AddressSpace as, int address, int size) {
+        switch (size) {
+            case 1:
+                return as.readByte(address);
+            case 2:
+                return as.readWord(address);
+            default:
+                return as.readLong(address);
+        }
+    }
+
+    private AddressSpace createMonitorSpace() {
+        return new AddressSpace() {
+            @Override
+            public void reset() {
+                addressSpace.reset();
+            }
+
+            @Override
+            public int getStartAddress() {
+                return addressSpace.getStartAddress();
+            }
+
+            @Override
+            public int getEndAddress() {
+                return addressSpace.getEndAddress();
+            }
+
+            @Override
+            public int readByte(int addr) {
+                int v = addressSpace.readByte(addr);
+                onRead(addr, 1, v);
+                return v;
+            }
+
+            @Override
+            public int readWord(int addr) {
+                int v = addressSpace.readWord(addr);
+                onRead(addr, 2, v);
+                return v;
+            }
+
+            @Override
+            public int readLong(int addr) {
+                int v = addressSpace.readLong(addr);
+                onRead(addr, 4, v);
+                return v;
+            }
+
+            @Override
+            public void writeByte(int addr, int value) {
+                violation = true;
+                addressSpace.writeByte(addr, value);
+            }
+
+            @Override
+            public void writeWord(int addr, int value) {
+                violation = true;
+                addressSpace.writeWord(addr, value);
+            }
+
+            @Override
+            public void writeLong(int addr, int value) {
+                violation = true;
+                addressSpace.writeLong(addr, value);
+            }
+
+            @Override
+            public int internalReadByte(int addr) {
+                return readByte(addr);
+            }
+
+            @Override
+            public int internalReadWord(int addr) {
+                return readWord(addr);
+            }
+
+            @Override
+            public int internalReadLong(int addr) {
+                return readLong(addr);
+            }
+
+            @Override
+            public void internalWriteByte(int addr, int value) {
+                writeByte(addr, value);
+            }
+
+            @Override
+            public void internalWriteWord(int addr, int value) {
+                writeWord(addr, value);
+            }
+
+            @Override
+            public void internalWriteLong(int addr, int value) {
+                writeLong(addr, value);
+            }
+
+            @Override
+            public int size() {
+                return addressSpace.size();
+            }
+        };
+    }
+}
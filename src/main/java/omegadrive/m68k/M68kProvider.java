@@ -44,6 +44,54 @@ public interface M68kProvider extends Device {
 
     void softReset();
 
+    /**
+     * Replaying idle loops instead of executing them, see M68kIdleLoopDetector
+     */
+    default void setIdleDetection(boolean enable) {
+        //DO NOTHING
+    }
+
+    /**
+     * The cpu state has been replaced, ie. a savestate has been loaded: drops the loop being
+     * monitored or replayed, the loops already rejected are not monitored again.
+     */
+    default void resetIdleLoop() {
+        //DO NOTHING
+    }
+
+    /**
+     * Cycles of one iteration when the cpu is in an idle loop that only an interrupt can exit,
+     * and no interrupt is pending, 0 otherwise.
+     */
+    default int getIdleLoopCycles() {
+        return 0;
+    }
+
+    /**
+     * To be called after getIdleLoopCycles, skips the loop iterations that fit in maxCycles.
+     *
+     * @param maxCycles cycles where the interrupt state is known not to change
+     * @return the cycles skipped, 0 if the cpu has to run
+     */
+    default int skipIdleCycles(int maxCycles) {
+        return 0;
+    }
+
+    /**
+     * The idle loop has been woken up (interrupt, 68k RAM write) before the end of the last skip,
+     * gives back the iterations that have not elapsed.
+     */
+    default void cancelIdleCycles(int cycles) {
+        //DO NOTHING
+    }
+
+    /**
+     * @return cycles not executed as the cpu was idle
+     */
+    default long getSkippedCycles() {
+        return 0;
+    }
+
     default int getPrefetchWord() {
         return 0;
     }
@@ -22,18 +22,39 @@ package omegadrive.m68k;
 import m68k.memory.AddressSpace;
 import omegadrive.bus.gen.GenesisBusProvider;
 import omegadrive.memory.MemoryProvider;
-import omegadrive.util.Size;
 
-public class MC68000AddressSpace implements AddressSpace {
+import static omegadrive.bus.gen.GenesisBusProvider.*;
+
+/**
+ * ROM and RAM reads are served straight from the arrays of the current memory map,
+ * everything else (I/O, SRAM, SVP, SSF2 banks, ROM mirrors) goes through the bus.
+ */
+public class MC68000AddressSpace implements AddressSpace, GenesisBusProvider.MemoryMapListener {
+
+    private static final byte[] NO_DIRECT_PAGES = new byte[(ADDRESS_UPPER_LIMIT + 1) >> PAGE_SHIFT];
+    //a long access at the end of a RAM page would cross the page boundary
+    private static final int RAM_PAGE_LIMIT = M68K_RAM_MASK - 3;
 
     private GenesisBusProvider busProvider;
+    private byte[] pageTable = NO_DIRECT_PAGES;
+    private int[] romData;
+    private int[] ramData;
 
     public static AddressSpace createInstance(GenesisBusProvider busProvider) {
         MC68000AddressSpace m = new MC68000AddressSpace();
         m.busProvider = busProvider;
+        busProvider.addMemoryMapListener(m);
         return m;
     }
 
+    @Override
+    public void onMemoryMapChange(byte[] pageTable, int[] romData, int[] ramData) {
+        boolean direct = romData != null && ramData != null;
+        this.romData = romData;
+        this.ramData = ramData;
+        this.pageTable = direct ? pageTable : NO_DIRECT_PAGES;
+    }
+
     @Override
     public void reset() {
         //NOT USED - DO NOTHING
@@ -51,32 +72,63 @@ public class MC68000AddressSpace implements AddressSpace {
 
     @Override
     public int readByte(int addr) {
-        return (int) busProvider.read(addr, Size.BYTE);
+        int address = addr & ADDRESS_UPPER_LIMIT;
+        switch (pageTable[address >>> PAGE_SHIFT]) {
+            case PAGE_ROM:
+                return romData[address];
+            case PAGE_RAM:
+                return ramData[address & M68K_RAM_MASK];
+        }
+        return busProvider.read8(addr);
     }
 
     @Override
     public int readWord(int addr) {
-        return (int) busProvider.read(addr, Size.WORD);
+        int address = addr & ADDRESS_UPPER_LIMIT;
+        switch (pageTable[address >>> PAGE_SHIFT]) {
+            case PAGE_ROM:
+                return romData[address] << 8 | romData[address + 1];
+            case PAGE_RAM:
+                address &= M68K_RAM_MASK;
+                if (address <= RAM_PAGE_LIMIT) {
+                    return ramData[address] << 8 | ramData[address + 1];
+                }
+                break;
+        }
+        return busProvider.read16(addr);
     }
 
     @Override
     public int readLong(int addr) {
-        return (int) busProvider.read(addr, Size.LONG);
+        int address = addr & ADDRESS_UPPER_LIMIT;
+        switch (pageTable[address >>> PAGE_SHIFT]) {
+            case PAGE_ROM:
+                return romData[address] << 24 | romData[address + 1] << 16 |
+                        romData[address + 2] << 8 | romData[address + 3];
+            case PAGE_RAM:
+                address &= M68K_RAM_MASK;
+                if (address <= RAM_PAGE_LIMIT) {
+                    return ramData[address] << 24 | ramData[address + 1] << 16 |
+                            ramData[address + 2] << 8 | ramData[address + 3];
+                }
+                break;
+        }
+        return busProvider.read32(addr);
     }
 
     @Override
     public void writeByte(int addr, int value) {
-        busProvider.write(addr, value, Size.BYTE);
+        busProvider.write8(addr, value);
     }
 
     @Override
     public void writeWord(int addr, int value) {
-        busProvider.write(addr, value, Size.WORD);
+        busProvider.write16(addr, value);
     }
 
     @Override
     public void writeLong(int addr, int value) {
-        busProvider.write(addr, value, Size.LONG);
+        busProvider.write32(addr, value);
     }
 
     @Override
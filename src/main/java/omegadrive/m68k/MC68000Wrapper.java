@@ -57,12 +57,14 @@ public class MC68000Wrapper implements M68kProvider {
     private boolean stop;
     protected int currentPC;
     protected int instCycles = 0;
+    protected M68kIdleLoopDetector idleLoop;
 
     public MC68000Wrapper(GenesisBusProvider busProvider) {
         this.m68k = createCpu();
         this.busProvider = busProvider;
         this.addressSpace = createAddressSpace();
         m68k.setAddressSpace(addressSpace);
+        this.idleLoop = new M68kIdleLoopDetector(m68k, addressSpace);
         TAS.EMULATE_BROKEN_TAS = GENESIS_TAS_BROKEN;
     }
 
@@ -74,9 +76,18 @@ public class MC68000Wrapper implements M68kProvider {
     public int runInstruction() {
         int res = 0;
         try {
+            if (idleLoop.isIdle()) {
+                res = idleLoop.idleStep();
+                if (res > 0) {
+                    return res;
+                }
+            }
             currentPC = m68k.getPC();
             res = m68k.execute() + instCycles;
             instCycles = 0;
+            if (idleLoop.isEnabled()) {
+                idleLoop.afterInstruction(currentPC, m68k.getPC(), res);
+            }
         } catch (Exception e) {
             LOG.error("68k error", e);
             handleException(ILLEGAL_ACCESS_EXCEPTION);
@@ -128,16 +139,51 @@ public class MC68000Wrapper implements M68kProvider {
     @Override
     public void reset() {
         m68k.reset();
+        idleLoop.reset();
     }
 
     //X-men uses it
     @Override
     public void softReset() {
         m68k.reset();
+        idleLoop.reset();
         instCycles += 132;
         stop = false;
     }
 
+    @Override
+    public void setIdleDetection(boolean enable) {
+        idleLoop.setEnabled(enable);
+    }
+
+    @Override
+    public void resetIdleLoop() {
+        idleLoop.exit();
+    }
+
+    @Override
+    public int getIdleLoopCycles() {
+        if (!idleLoop.isIdle() || !busProvider.is68kInterruptIdle()) {
+            return 0;
+        }
+        return idleLoop.getLoopCycles(busProvider.is68kRamShared());
+    }
+
+    @Override
+    public int skipIdleCycles(int maxCycles) {
+        return idleLoop.skipIterations(maxCycles);
+    }
+
+    @Override
+    public void cancelIdleCycles(int cycles) {
+        idleLoop.cancelIterations(cycles);
+    }
+
+    @Override
+    public long getSkippedCycles() {
+        return idleLoop.getSkippedCycles();
+    }
+
 
     @Override
     public String getInfo() {
@@ -152,6 +198,7 @@ public class MC68000Wrapper implements M68kProvider {
         return new MC68000() {
             @Override
             public void raiseException(int vector) {
+                idleLoop.exit();
                 handleException(vector);
                 super.raiseException(vector);
                 handleException(vector);
@@ -27,6 +27,27 @@ public interface IMemoryRam extends Device {
 
     void writeRamByte(int address, int data);
 
+    default int readRamWord(int address) {
+        return readRamByte(address) << 8 | readRamByte(address + 1);
+    }
+
+    default int readRamLong(int address) {
+        return readRamByte(address) << 24 | readRamByte(address + 1) << 16 |
+                readRamByte(address + 2) << 8 | readRamByte(address + 3);
+    }
+
+    default void writeRamWord(int address, int data) {
+        writeRamByte(address, data >> 8);
+        writeRamByte(address + 1, data & 0xFF);
+    }
+
+    default void writeRamLong(int address, int data) {
+        writeRamByte(address, (data >> 24) & 0xFF);
+        writeRamByte(address + 1, (data >> 16) & 0xFF);
+        writeRamByte(address + 2, (data >> 8) & 0xFF);
+        writeRamByte(address + 3, data & 0xFF);
+    }
+
     int[] getRamData();
 
     default int getRamSize() {
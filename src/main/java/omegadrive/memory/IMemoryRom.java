@@ -23,6 +23,15 @@ public interface IMemoryRom {
 
     int readRomByte(int address);
 
+    default int readRomWord(int address) {
+        return readRomByte(address) << 8 | readRomByte(address + 1);
+    }
+
+    default int readRomLong(int address) {
+        return readRomByte(address) << 24 | readRomByte(address + 1) << 16 |
+                readRomByte(address + 2) << 8 | readRomByte(address + 3);
+    }
+
     int[] getRomData();
 
     default int getRomSize() {
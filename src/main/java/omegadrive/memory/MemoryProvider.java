@@ -35,6 +35,12 @@ public class MemoryProvider implements IMemoryProvider {
     public static final int SMS_Z80_RAM_SIZE = 0x2000;
     public static final int CHECKSUM_START_ADDRESS = 0x18E;
 
+    //use the packed byte storage, see PackedMemoryProvider
+    public static final boolean MD_PACKED_MEMORY =
+            Boolean.valueOf(System.getProperty("md.memory.packed", "false"));
+    public static final boolean SMS_PACKED_MEMORY =
+            Boolean.valueOf(System.getProperty("sms.memory.packed", "false"));
+
     private int[] rom;
     private int[] ram;
 
@@ -47,7 +53,7 @@ public class MemoryProvider implements IMemoryProvider {
 
 
     public static IMemoryProvider createGenesisInstance() {
-        return createInstance(new int[1], M68K_RAM_SIZE);
+        return createInstance(new int[1], M68K_RAM_SIZE, MD_PACKED_MEMORY);
     }
 
     public static IMemoryProvider createSg1000Instance() {
@@ -59,9 +65,16 @@ public class MemoryProvider implements IMemoryProvider {
     }
 
     public static IMemoryProvider createSmsInstance() {
-        return createInstance(new int[1], SMS_Z80_RAM_SIZE);
+        return createInstance(new int[1], SMS_Z80_RAM_SIZE, SMS_PACKED_MEMORY);
     }
 
+    public static IMemoryProvider createInstance(int[] rom, int ramSize, boolean packed) {
+        if (packed) {
+            LOG.info("Using packed memory storage");
+            return PackedMemoryProvider.createInstance(rom, ramSize);
+        }
+        return createInstance(rom, ramSize);
+    }
 
     public static IMemoryProvider createInstance(int[] rom, int ramSize) {
         MemoryProvider memory = new MemoryProvider();
@@ -0,0 +1,198 @@
+/*
+ * PackedMemoryProvider
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/26 10:00
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.memory;
+
+import omegadrive.util.Util;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Stores ROM and RAM as packed bytes, word and long accesses are a single big-endian read.
+ * <p>
+ * The ROM is expanded to a power of two image that already contains the mirrored data,
+ * plus a few bytes of padding so that a long read at the end of the image wraps around.
+ * <p>
+ * NOTE: getRomData/getRamData return a copy of the data, not a live view.
+ */
+public class PackedMemoryProvider implements IMemoryProvider {
+
+    private final static Logger LOG = LogManager.getLogger(PackedMemoryProvider.class.getSimpleName());
+
+    private static final boolean DIRECT_BUFFER =
+            Boolean.valueOf(System.getProperty("helios.memory.direct", "false"));
+
+    //a long read at the end of the image needs 3 more bytes
+    private static final int ROM_PADDING = 3;
+
+    private ByteBuffer rom;
+    private ByteBuffer ram;
+
+    private int romMask;
+    private int romSize;
+    private int ramSize;
+
+    private PackedMemoryProvider() {
+    }
+
+    public static IMemoryProvider createInstance(int[] rom, int ramSize) {
+        PackedMemoryProvider memory = new PackedMemoryProvider();
+        memory.setRomData(rom);
+        memory.ram = allocate(ramSize);
+        memory.ramSize = ramSize;
+        return memory;
+    }
+
+    private static ByteBuffer allocate(int size) {
+        ByteBuffer b = DIRECT_BUFFER ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        return b.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Override
+    public int readRomByte(int address) {
+        return rom.get(address & romMask) & 0xFF;
+    }
+
+    @Override
+    public int readRomWord(int address) {
+        return rom.getShort(address & romMask) & 0xFFFF;
+    }
+
+    @Override
+    public int readRomLong(int address) {
+        return rom.getInt(address & romMask);
+    }
+
+    @Override
+    public int readRamByte(int address) {
+        if (address < ramSize) {
+            return ram.get(address) & 0xFF;
+        }
+        LOG.error("Invalid RAM read, address : " + Integer.toHexString(address));
+        return 0;
+    }
+
+    @Override
+    public int readRamWord(int address) {
+        if (address < ramSize - 1) {
+            return ram.getShort(address) & 0xFFFF;
+        }
+        return IMemoryProvider.super.readRamWord(address);
+    }
+
+    @Override
+    public int readRamLong(int address) {
+        if (address < ramSize - 3) {
+            return ram.getInt(address);
+        }
+        return IMemoryProvider.super.readRamLong(address);
+    }
+
+    @Override
+    public void writeRamByte(int address, int data) {
+        if (address < ramSize) {
+            ram.put(address, (byte) data);
+        } else {
+            LOG.error("Invalid RAM write, address : " + Integer.toHexString(address) + ", data: " + data);
+        }
+    }
+
+    @Override
+    public void writeRamWord(int address, int data) {
+        if (address < ramSize - 1) {
+            ram.putShort(address, (short) data);
+            return;
+        }
+        IMemoryProvider.super.writeRamWord(address, data);
+    }
+
+    @Override
+    public void writeRamLong(int address, int data) {
+        if (address < ramSize - 3) {
+            ram.putInt(address, data);
+            return;
+        }
+        IMemoryProvider.super.writeRamLong(address, data);
+    }
+
+    /**
+     * Mirroring follows MemoryProvider::readRomByte, for any address:
+     * address &= romMask; address = address > romSize - 1 ? address - romSize : address
+     */
+    @Override
+    public void setRomData(int[] data) {
+        this.romSize = data.length;
+        this.romMask = (int) Math.pow(2, Util.log2(romSize) + 1) - 1;
+        ByteBuffer image = allocate(romMask + 1 + ROM_PADDING);
+        for (int i = 0; i <= romMask; i++) {
+            image.put(i, (byte) data[i < romSize ? i : i - romSize]);
+        }
+        for (int i = 0; i < ROM_PADDING; i++) {
+            image.put(romMask + 1 + i, image.get(i & romMask));
+        }
+        this.rom = image;
+    }
+
+    @Override
+    public void setChecksumRomValue(long value) {
+        writeRomImage(MemoryProvider.CHECKSUM_START_ADDRESS, (int) ((value >> 8) & 0xFF));
+        writeRomImage(MemoryProvider.CHECKSUM_START_ADDRESS + 1, (int) (value & 0xFF));
+    }
+
+    //update the byte and all its mirrors
+    private void writeRomImage(int address, int value) {
+        for (int i = address; i <= romMask; i += romSize) {
+            rom.put(i, (byte) value);
+            if (i < ROM_PADDING) {
+                rom.put(romMask + 1 + i, (byte) value);
+            }
+        }
+    }
+
+    @Override
+    public int[] getRomData() {
+        int[] data = new int[romSize];
+        for (int i = 0; i < romSize; i++) {
+            data[i] = rom.get(i) & 0xFF;
+        }
+        return data;
+    }
+
+    @Override
+    public int[] getRamData() {
+        int[] data = new int[ramSize];
+        for (int i = 0; i < ramSize; i++) {
+            data[i] = ram.get(i) & 0xFF;
+        }
+        return data;
+    }
+
+    @Override
+    public int getRomSize() {
+        return romSize;
+    }
+
+    @Override
+    public int getRamSize() {
+        return ramSize;
+    }
+}
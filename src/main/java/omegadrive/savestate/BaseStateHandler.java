@@ -19,15 +19,19 @@
 
 package omegadrive.savestate;
 
-import omegadrive.util.FileLoader;
+import omegadrive.util.FileIoWorker;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 
 public interface BaseStateHandler {
 
     Logger LOG = LogManager.getLogger(BaseStateHandler.class.getSimpleName());
+    boolean GZIP_STATE = Boolean.valueOf(System.getProperty("helios.savestate.gzip", "false"));
     BaseStateHandler EMPTY_STATE = new BaseStateHandler() {
         @Override
         public Type getType() {
@@ -51,9 +55,38 @@ public interface BaseStateHandler {
 
     byte[] getData();
 
-    default void storeData() {
-        LOG.info("Persisting savestate to: {}", getFileName());
-        FileLoader.writeFileSafe(Paths.get(getFileName()), getData());
+    /**
+     * In memory states (snapshots, rewind, run-ahead) are processed every frame, they should not log.
+     */
+    default boolean isInMemory() {
+        return false;
+    }
+
+    /**
+     * The state data from position 0 to the limit, may be backed by a buffer reused by the handler.
+     */
+    default ByteBuffer getDataBuffer() {
+        return ByteBuffer.wrap(getData());
+    }
+
+    /**
+     * Copies the data and hands it to the I/O worker, the handler can be discarded on return.
+     *
+     * @return completes when the file has been written
+     */
+    default CompletableFuture<Path> storeData() {
+        ByteBuffer buf = getDataBuffer();
+        byte[] data = new byte[buf.remaining()];
+        buf.duplicate().get(data);
+        Path file = Paths.get(getFileName());
+        LOG.info("Persisting savestate to: {}, gzip: {}", file, GZIP_STATE);
+        return FileIoWorker.write(file, data, GZIP_STATE).whenComplete((p, e) -> {
+            if (e != null) {
+                LOG.error("Unable to persist savestate: {}", file, e);
+            } else {
+                LOG.info("Savestate persisted: {}", p);
+            }
+        });
     }
 
     enum Type {SAVE, LOAD}
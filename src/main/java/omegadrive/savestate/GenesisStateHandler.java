@@ -32,6 +32,8 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.core.config.Configurator;
 
+import java.nio.ByteBuffer;
+
 public interface GenesisStateHandler extends BaseStateHandler {
 
     GenesisStateHandler EMPTY_STATE = new GenesisStateHandler() {
@@ -108,6 +110,20 @@ public interface GenesisStateHandler extends BaseStateHandler {
 
     void save68k(MC68000Wrapper mc68000Wrapper, IMemoryProvider memoryProvider);
 
+    /**
+     * Scheduler state of the system, ie. when each device is next due, not covered by the Genecyst layout.
+     */
+    default void saveTiming(double[] timing) {
+        //DO NOTHING
+    }
+
+    /**
+     * @return the timing stored by saveTiming, an empty array when not available
+     */
+    default double[] loadTiming() {
+        return new double[0];
+    }
+
     static GenesisStateHandler createLoadInstance(String fileName) {
         GshStateHandler h = new GshStateHandler();
         h.type = Type.LOAD;
@@ -123,22 +139,47 @@ public interface GenesisStateHandler extends BaseStateHandler {
         return h;
     }
 
+    /**
+     * In memory load, no file involved.
+     * The Z80 reset line is restored as saved, as required by rewind and run-ahead.
+     */
+    static GenesisStateHandler createLoadInstance(String fileName, byte[] data) {
+        return createLoadInstance(fileName, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * In memory load, the state goes from position to limit, the data is not copied.
+     */
+    static GenesisStateHandler createLoadInstance(String fileName, ByteBuffer data) {
+        GshStateHandler h = new GshStateHandler();
+        h.type = Type.LOAD;
+        h.fileName = fileName;
+        h.inMemory = true;
+        h.buffer = data.slice();
+        return h.detectStateFileType();
+    }
+
+    /**
+     * In memory save, the buffer is reused when large enough.
+     */
+    static GenesisStateHandler createSaveInstance(String fileName, ByteBuffer buffer) {
+        GshStateHandler h = new GshStateHandler();
+        h.type = Type.SAVE;
+        h.inMemory = true;
+        h.init(fileName, buffer);
+        return h;
+    }
+
     default void processState(BaseVdpProvider vdp, Z80Provider z80, GenesisBusProvider bus,
                               SoundProvider sound, M68kProvider cpu, IMemoryProvider mem) {
+        if (isInMemory()) {
+            processStateInternal(vdp, z80, bus, sound, cpu, mem);
+            return;
+        }
         Level prev = LogManager.getRootLogger().getLevel();
         try {
             Configurator.setRootLevel(Level.ERROR);
-            if (getType() == Type.LOAD) {
-                loadFmState(sound.getFm());
-                loadVdpState(vdp);
-                loadZ80(z80, bus);
-                load68k((MC68000Wrapper) cpu, mem);
-            } else {
-                saveFm(sound.getFm());
-                saveZ80(z80, bus);
-                save68k((MC68000Wrapper) cpu, mem);
-                saveVdp(vdp);
-            }
+            processStateInternal(vdp, z80, bus, sound, cpu, mem);
         } finally {
             Configurator.setRootLevel(prev);
         }
@@ -147,6 +188,21 @@ public interface GenesisStateHandler extends BaseStateHandler {
         }
     }
 
+    default void processStateInternal(BaseVdpProvider vdp, Z80Provider z80, GenesisBusProvider bus,
+                                      SoundProvider sound, M68kProvider cpu, IMemoryProvider mem) {
+        if (getType() == Type.LOAD) {
+            loadFmState(sound.getFm());
+            loadVdpState(vdp);
+            loadZ80(z80, bus);
+            load68k((MC68000Wrapper) cpu, mem);
+        } else {
+            saveFm(sound.getFm());
+            saveZ80(z80, bus);
+            save68k((MC68000Wrapper) cpu, mem);
+            saveVdp(vdp);
+        }
+    }
+
     default void loadSvpState(Ssp16 ssp16) {
     }
 
@@ -22,11 +22,12 @@ package omegadrive.savestate;
 import com.google.common.io.Files;
 import com.google.common.primitives.Bytes;
 import omegadrive.bus.gen.GenesisBusProvider;
-import omegadrive.bus.gen.SvpMapper;
 import omegadrive.sound.fm.FmProvider;
 import omegadrive.sound.fm.ym2612.nukeykt.Ym2612Nuke;
+import omegadrive.sound.fm.ym2612.nukeykt.Ym3438StateCodec;
 import omegadrive.ssp16.Ssp16;
 import omegadrive.ssp16.Ssp16Types;
+import omegadrive.ssp16.SvpStateCodec;
 import omegadrive.util.FileLoader;
 import omegadrive.util.Util;
 import omegadrive.z80.Z80Provider;
@@ -38,6 +39,7 @@ import java.nio.ByteBuffer;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
 public class GshStateHandler extends GstStateHandler {
@@ -50,6 +52,22 @@ public class GshStateHandler extends GstStateHandler {
     protected static final String SVP_MAGIC_WORD = "SVP0";
     protected static final String fileExtension = "gsh";
 
+    /*
+     * Binary chunks, appended after the Genecyst data:
+     * magic, layout version, chunk count, index of (tag, offset, length), chunk data.
+     * Older savestates store java serialized data between magic words, see FM_MAGIC_WORD_NUKE.
+     */
+    protected static final String CHUNK_MAGIC_WORD = "HCNK";
+    protected static final int CHUNK_LAYOUT_VERSION = 1;
+    protected static final String FM_CHUNK_NUKE = "YM34";
+    protected static final String SVP_CHUNK = "SSP1";
+    protected static final String TIMING_CHUNK = "TIM0";
+    private static final int MAX_CHUNKS = 4;
+    private static final int CHUNK_COUNT_OFFSET = FILE_SIZE + 5;
+    private static final int CHUNK_INDEX_OFFSET = FILE_SIZE + 6;
+    private static final int CHUNK_INDEX_ENTRY_LEN = 12;
+    private static final int CHUNK_HEADER_LEN = 6 + MAX_CHUNKS * CHUNK_INDEX_ENTRY_LEN;
+
     private static int SSF2_MAPPER_REG_OFFSET = 0x440;
 
     protected GshStateHandler() {
@@ -64,16 +82,28 @@ public class GshStateHandler extends GstStateHandler {
         this.fileName = handleFileExtension(fileNameEx);
 
         if (type == Type.SAVE) {
-            buffer = ByteBuffer.allocate(GstStateHandler.FILE_SIZE);
-            buffer.put(MAGIC_WORD.getBytes());
-            //special Genecyst stuff
-            buffer.put(6, (byte) 0xE0).put(7, (byte) 0x40);
+            initSave(ByteBuffer.allocate(GstStateHandler.FILE_SIZE));
         } else {
             String ext = Files.getFileExtension(fileNameEx);
-            buffer = ByteBuffer.wrap(FileLoader.readBinaryFile(Paths.get(fileName), ext));
+            buffer = ByteBuffer.wrap(FileLoader.readStateFile(Paths.get(fileName), ext));
         }
     }
 
+    protected void init(String fileName, ByteBuffer reuse) {
+        this.fileName = fileName;
+        boolean canReuse = reuse != null && reuse.hasArray() && reuse.capacity() >= GstStateHandler.FILE_SIZE;
+        initSave(canReuse ? reuse : ByteBuffer.allocate(GstStateHandler.FILE_SIZE));
+    }
+
+    private void initSave(ByteBuffer buf) {
+        buffer = buf;
+        //the limit marks the end of the data, extended when appending serialized data
+        buffer.clear().limit(GstStateHandler.FILE_SIZE);
+        buffer.put(MAGIC_WORD.getBytes());
+        //special Genecyst stuff
+        buffer.put(6, (byte) 0xE0).put(7, (byte) 0x40);
+    }
+
     protected GenesisStateHandler detectStateFileType() {
         String fileType = Util.toStringValue(buffer.get(), buffer.get(), buffer.get());
         boolean isSupported = MAGIC_WORD.equalsIgnoreCase(fileType) || MAGIC_WORD_GST.equalsIgnoreCase(fileType);
@@ -83,7 +113,9 @@ public class GshStateHandler extends GstStateHandler {
         }
         version = buffer.get(0x50) & 0xFF;
         softwareId = buffer.get(0x51) & 0xFF;
-        LOG.info("Savestate type {}, version: {}, softwareId: {}", fileType, version, softwareId);
+        if (!inMemory) {
+            LOG.info("Savestate type {}, version: {}, softwareId: {}", fileType, version, softwareId);
+        }
         if (MAGIC_WORD_GST.equalsIgnoreCase(fileType)) {
             LOG.warn("Loading a {} savestate, fm sound may not work correctly!", fileType);
         }
@@ -99,6 +131,17 @@ public class GshStateHandler extends GstStateHandler {
 
     @Override
     public void loadFmState(FmProvider fm) {
+        if (hasChunks()) {
+            ByteBuffer chunk = findChunk(FM_CHUNK_NUKE);
+            if (chunk != null && fm instanceof Ym2612Nuke) {
+                Ym2612Nuke.Ym3438Context ctx = new Ym2612Nuke.Ym3438Context();
+                Ym3438StateCodec.decode(chunk, ctx);
+                ((Ym2612Nuke) fm).setState(ctx);
+            } else {
+                super.loadFmState(fm); //load FM registers
+            }
+            return;
+        }
         byte[] ba = buffer.array();
         int fmNukeStart = Bytes.indexOf(ba, FM_MAGIC_WORD_NUKE.getBytes());
         if (fmNukeStart > -1 && fm instanceof Ym2612Nuke) {
@@ -112,11 +155,18 @@ public class GshStateHandler extends GstStateHandler {
 
     @Override
     public void loadSvpState(Ssp16 ssp16) {
+        if (hasChunks()) {
+            ByteBuffer chunk = findChunk(SVP_CHUNK);
+            if (chunk != null && ssp16 != Ssp16.NO_SVP) {
+                ssp16.loadSvpContext(SvpStateCodec.decode(chunk));
+            }
+            return;
+        }
         byte[] ba = buffer.array();
         int svpStart = Bytes.indexOf(ba, SVP_MAGIC_WORD.getBytes());
         if (svpStart > -1 && ssp16 != Ssp16.NO_SVP) {
             Optional<Serializable> res = loadSerializedData(SVP_MAGIC_WORD, svpStart, ba);
-            res.ifPresent(ser -> SvpMapper.setSvpContext((Ssp16Types.Svp_t) ser));
+            res.ifPresent(ser -> ssp16.loadSvpContext((Ssp16Types.Svp_t) ser));
         }
     }
 
@@ -126,19 +176,71 @@ public class GshStateHandler extends GstStateHandler {
         return Optional.ofNullable(Util.deserializeObject(data, dataStart, dataEnd - dataStart));
     }
 
-    private void storeSerializedData(String magicWord, Serializable object, int prevPos) {
-        int len = magicWord.length() << 1;
-        byte[] data = Util.serializeObject(object);
-        buffer = extendBuffer(buffer, data.length + len);
-        try {
-            buffer.put(magicWord.getBytes());
-            buffer.put(data);
-            buffer.put(magicWord.getBytes());
-        } catch (Exception e) {
-            LOG.error("Unable to save {} data", magicWord);
-        } finally {
+    private boolean hasChunks() {
+        if (buffer.limit() < FILE_SIZE + CHUNK_HEADER_LEN) {
+            return false;
+        }
+        byte[] magic = CHUNK_MAGIC_WORD.getBytes();
+        for (int i = 0; i < magic.length; i++) {
+            if (buffer.get(FILE_SIZE + i) != magic[i]) {
+                return false;
+            }
+        }
+        int layoutVersion = buffer.get(FILE_SIZE + magic.length);
+        if (layoutVersion != CHUNK_LAYOUT_VERSION) {
+            LOG.error("Unsupported chunk layout version: {}", layoutVersion);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return a view of the chunk data, null if not found
+     */
+    private ByteBuffer findChunk(String tag) {
+        int tagValue = ByteBuffer.wrap(tag.getBytes()).getInt();
+        int count = buffer.get(CHUNK_COUNT_OFFSET);
+        for (int i = 0; i < count; i++) {
+            int entry = CHUNK_INDEX_OFFSET + i * CHUNK_INDEX_ENTRY_LEN;
+            if (buffer.getInt(entry) == tagValue) {
+                int offset = buffer.getInt(entry + 4);
+                int len = buffer.getInt(entry + 8);
+                ByteBuffer chunk = buffer.duplicate();
+                chunk.limit(offset + len).position(offset);
+                return chunk;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Appends a chunk and records it in the index, the buffer position is preserved.
+     *
+     * @param maxSize upper bound of the encoded size
+     */
+    private void storeChunk(String tag, int maxSize, Consumer<ByteBuffer> encoder) {
+        int prevPos = buffer.position();
+        if (buffer.limit() == FILE_SIZE) {
+            buffer = extendBuffer(buffer, CHUNK_HEADER_LEN);
+            buffer.put(CHUNK_MAGIC_WORD.getBytes()).put((byte) CHUNK_LAYOUT_VERSION).put((byte) 0);
+        }
+        int count = buffer.get(CHUNK_COUNT_OFFSET);
+        if (count >= MAX_CHUNKS) {
+            LOG.error("Unable to save {} data, too many chunks", tag);
             buffer.position(prevPos);
+            return;
         }
+        buffer = extendBuffer(buffer, maxSize);
+        int start = buffer.position();
+        encoder.accept(buffer);
+        int end = buffer.position();
+        buffer.limit(end);
+        int entry = CHUNK_INDEX_OFFSET + count * CHUNK_INDEX_ENTRY_LEN;
+        buffer.putInt(entry, ByteBuffer.wrap(tag.getBytes()).getInt());
+        buffer.putInt(entry + 4, start);
+        buffer.putInt(entry + 8, end - start);
+        buffer.put(CHUNK_COUNT_OFFSET, (byte) (count + 1));
+        buffer.position(prevPos);
     }
 
     @Override
@@ -146,17 +248,36 @@ public class GshStateHandler extends GstStateHandler {
         super.saveFm(fm); //save FM registers
         if (fm instanceof Ym2612Nuke) {
             Ym2612Nuke.Ym3438Context chip = ((Ym2612Nuke) fm).getState();
-            storeSerializedData(FM_MAGIC_WORD_NUKE, chip, buffer.position());
+            storeChunk(FM_CHUNK_NUKE, Ym3438StateCodec.MAX_SIZE, buf -> Ym3438StateCodec.encode(chip, buf));
         }
     }
 
     private void saveSvp(Ssp16Types.Svp_t context) {
-        if (context != Ssp16.NO_SVP) {
-            storeSerializedData(SVP_MAGIC_WORD, context, buffer.position());
+        if (context != Ssp16Types.NO_SVP_CONTEXT) {
+            storeChunk(SVP_CHUNK, SvpStateCodec.MAX_SIZE, buf -> SvpStateCodec.encode(context, buf));
         }
     }
 
 
+    @Override
+    public void saveTiming(double[] timing) {
+        storeChunk(TIMING_CHUNK, 4 + (timing.length << 3), buf -> {
+            buf.putInt(timing.length);
+            Arrays.stream(timing).forEach(buf::putDouble);
+        });
+    }
+
+    @Override
+    public double[] loadTiming() {
+        ByteBuffer chunk = hasChunks() ? findChunk(TIMING_CHUNK) : null;
+        if (chunk == null) {
+            return super.loadTiming();
+        }
+        double[] timing = new double[chunk.getInt()];
+        IntStream.range(0, timing.length).forEach(i -> timing[i] = chunk.getDouble());
+        return timing;
+    }
+
     @Override
     public void saveZ80(Z80Provider z80, GenesisBusProvider bus) {
         super.saveZ80(z80, bus);
@@ -165,7 +286,7 @@ public class GshStateHandler extends GstStateHandler {
             buffer.position(SSF2_MAPPER_REG_OFFSET);
             Arrays.stream(data).forEach(v -> buffer.put((byte) v));
         }
-        saveSvp(SvpMapper.ssp16.getSvpContext());
+        saveSvp(bus.getSsp16().getSvpContext());
     }
 
 
@@ -176,14 +297,18 @@ public class GshStateHandler extends GstStateHandler {
         int[] data = new int[GenesisBusProvider.NUM_MAPPER_BANKS];
         IntStream.range(0, data.length).forEach(i -> data[i] = buffer.get() & 0xFF);
         bus.setMapperData(data);
-        loadSvpState(SvpMapper.ssp16);
+        loadSvpState(bus.getSsp16());
     }
 
     private ByteBuffer extendBuffer(ByteBuffer current, int increaseDelta) {
-        ByteBuffer extBuffer = ByteBuffer.allocate(buffer.capacity() + increaseDelta);
-        current.position(0);
-        extBuffer.put(current);
-        extBuffer.position(buffer.capacity());
+        int end = current.limit();
+        ByteBuffer extBuffer = current;
+        if (current.capacity() < end + increaseDelta) {
+            extBuffer = ByteBuffer.allocate(end + increaseDelta);
+            extBuffer.put(current.array(), 0, end);
+        }
+        extBuffer.limit(end + increaseDelta);
+        extBuffer.position(end);
         return extBuffer;
     }
 }
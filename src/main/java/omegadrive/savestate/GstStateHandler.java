@@ -39,6 +39,7 @@ import z80core.Z80;
 import z80core.Z80State;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.IntStream;
@@ -64,7 +65,7 @@ public class GstStateHandler implements GenesisStateHandler {
     protected int softwareId;
     protected String fileName;
     protected Type type;
-    protected boolean runAhead;
+    protected boolean inMemory;
 
     byte[] arr4 = new byte[4], arr2 = new byte[2];
 
@@ -108,9 +109,22 @@ public class GstStateHandler implements GenesisStateHandler {
         return fileName;
     }
 
+    @Override
+    public boolean isInMemory() {
+        return inMemory;
+    }
+
     @Override
     public byte[] getData() {
-        return buffer.array();
+        //a reused buffer can be larger than the data
+        return buffer.limit() == buffer.capacity() ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.limit());
+    }
+
+    @Override
+    public ByteBuffer getDataBuffer() {
+        ByteBuffer res = buffer.duplicate();
+        res.position(0);
+        return res;
     }
 
     @Override
@@ -183,8 +197,7 @@ public class GstStateHandler implements GenesisStateHandler {
         bus.setZ80ResetState(false);
 
         boolean isReset = (buffer.get(0x438) & 0xFF) > 0;
-        if (isReset && runAhead) {
-            LOG.warn("Z80 should be reset, not doing it!");
+        if (isReset && inMemory) {
             bus.setZ80ResetState(true);
             //TODO dont think this is needed?
             z80.reset();
@@ -218,10 +231,10 @@ public class GstStateHandler implements GenesisStateHandler {
         m68k.setPC(getInt4Fn.apply(0xC8));
         int ssp = getInt4Fn.apply(0xD2);
         int usp = getInt4Fn.apply(0xD6);
-        if (usp > 0) {
+        if (usp > 0 && !inMemory) {
             LOG.warn("USP is not 0: " + usp);
         }
-        if (ssp > 0) {
+        if (ssp > 0 && !inMemory) {
             LOG.warn("SSP is not 0: " + ssp);
         }
     }
@@ -59,6 +59,7 @@ public class MekaStateHandler implements SmsStateHandler {
     private int softwareId;
     private String fileName;
     private Type type;
+    private boolean inMemory;
     private SystemLoader.SystemType systemType;
     private MekaSavestateVersion mekaVersion;
 
@@ -68,7 +69,7 @@ public class MekaStateHandler implements SmsStateHandler {
     public static SmsStateHandler createLoadInstance(String fileName) {
         MekaStateHandler h = new MekaStateHandler();
         h.fileName = handleFileExtension(fileName);
-        h.buffer = ByteBuffer.wrap(FileLoader.readBinaryFile(Paths.get(h.fileName)));
+        h.buffer = ByteBuffer.wrap(FileLoader.readStateFile(Paths.get(h.fileName)));
         h.type = Type.LOAD;
         SmsStateHandler s = h.detectStateFileType();
         return s;
@@ -83,8 +84,38 @@ public class MekaStateHandler implements SmsStateHandler {
         return s;
     }
 
+    /**
+     * In memory load, the state goes from position to limit, the data is not copied.
+     */
+    public static SmsStateHandler createLoadInstance(String fileName, ByteBuffer data) {
+        MekaStateHandler h = new MekaStateHandler();
+        h.fileName = fileName;
+        h.buffer = data.slice();
+        h.type = Type.LOAD;
+        h.inMemory = true;
+        return h.detectStateFileType();
+    }
+
     public static SmsStateHandler createSaveInstance(String fileName, SystemLoader.SystemType systemType,
                                                      String romCrc32) {
+        MekaStateHandler h = createSaveInstance(systemType, romCrc32, null);
+        h.fileName = handleFileExtension(fileName);
+        return h;
+    }
+
+    /**
+     * In memory save, the buffer is reused when it has the expected size.
+     */
+    public static SmsStateHandler createSaveInstance(String fileName, SystemLoader.SystemType systemType,
+                                                     ByteBuffer buffer) {
+        MekaStateHandler h = createSaveInstance(systemType, "0", buffer);
+        h.fileName = fileName;
+        h.inMemory = true;
+        return h;
+    }
+
+    private static MekaStateHandler createSaveInstance(SystemLoader.SystemType systemType, String romCrc32,
+                                                       ByteBuffer reuse) {
         MekaStateHandler h = new MekaStateHandler();
         int machineDriverId = systemType == SystemLoader.SystemType.SMS ? 0 :
                 (systemType == SystemLoader.SystemType.GG ? 1 : -1);
@@ -93,7 +124,9 @@ public class MekaStateHandler implements SmsStateHandler {
         }
         long crc32 = Long.parseLong(romCrc32, 16);
         int len = (DEFAULT_SAVE_VERSION.getMemoryEndPos() + 3) << 1;
-        h.buffer = ByteBuffer.allocate(len);
+        boolean canReuse = reuse != null && reuse.hasArray() && reuse.capacity() == len;
+        h.buffer = canReuse ? reuse : ByteBuffer.allocate(len);
+        h.buffer.clear();
         //file type
         h.buffer.put(MAGIC_WORD);
         h.buffer.put((byte) 0x1A); //unknown
@@ -111,8 +144,6 @@ public class MekaStateHandler implements SmsStateHandler {
 
         h.mekaVersion = DEFAULT_SAVE_VERSION;
         h.systemType = systemType;
-
-        h.fileName = handleFileExtension(fileName);
         h.type = Type.SAVE;
         return h;
     }
@@ -147,7 +178,7 @@ public class MekaStateHandler implements SmsStateHandler {
         SmsBus smsbus = (SmsBus) bus;
         int[] frameReg = smsbus.getFrameReg();
         int control = smsbus.getMapperControl();
-        LOG.info("mapperControl: {}, frameReg: {}", control, Arrays.toString(frameReg));
+        LOG.debug("mapperControl: {}, frameReg: {}", control, Arrays.toString(frameReg));
         buffer.put((byte) (control & 0xFF));
         buffer.put(Util.unsignedToByteArray(frameReg));
     }
@@ -179,7 +210,9 @@ public class MekaStateHandler implements SmsStateHandler {
     private void crcCheck() {
         if (version >= 0xC) {
             String crc32 = decodeCrc32(mekaVersion, buffer);
-            LOG.info("ROM crc32: {}", crc32);
+            if (!inMemory) {
+                LOG.info("ROM crc32: {}", crc32);
+            }
         }
     }
 
@@ -226,7 +259,7 @@ public class MekaStateHandler implements SmsStateHandler {
         loadMappers(buffer, bus);
         if (version >= 0xD) {
             int vdpLine = Util.getUInt32LE(buffer.get(), buffer.get());
-            LOG.info("vdpLine: {}", vdpLine);
+            LOG.debug("vdpLine: {}", vdpLine);
         }
     }
 
@@ -313,6 +346,11 @@ public class MekaStateHandler implements SmsStateHandler {
         return fileName;
     }
 
+    @Override
+    public boolean isInMemory() {
+        return inMemory;
+    }
+
     @Override
     public byte[] getData() {
         return buffer.array();
@@ -68,7 +68,7 @@ public class MekaStateHandlerOld implements SmsStateHandler {
     public static SmsStateHandler createLoadInstance(String fileName) {
         MekaStateHandlerOld h = new MekaStateHandlerOld();
         h.fileName = handleFileExtension(fileName);
-        h.buffer = IntBuffer.wrap(Util.toUnsignedIntArray(FileLoader.readBinaryFile(Paths.get(h.fileName))));
+        h.buffer = IntBuffer.wrap(Util.toUnsignedIntArray(FileLoader.readStateFile(Paths.get(h.fileName))));
         h.type = Type.LOAD;
         SmsStateHandler s = h.detectStateFileType();
         return s;
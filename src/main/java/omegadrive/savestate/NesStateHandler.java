@@ -5,6 +5,7 @@ import com.grapeshot.halfnes.state.HalfnesSaveStateHandler;
 import omegadrive.util.FileLoader;
 import omegadrive.util.Util;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Paths;
 
 /**
@@ -28,7 +29,7 @@ public class NesStateHandler implements BaseStateHandler {
         NesStateHandler n = new NesStateHandler();
         n.fileName = handleFileExtension(fileName);
         n.type = Type.LOAD;
-        n.stateData = FileLoader.readBinaryFile(Paths.get(n.fileName), fileExtension);
+        n.stateData = FileLoader.readStateFile(Paths.get(n.fileName), fileExtension);
         return n;
     }
 
@@ -40,6 +41,29 @@ public class NesStateHandler implements BaseStateHandler {
         return n;
     }
 
+    public static NesStateHandler createLoadInstance(String fileName, byte[] data) {
+        NesStateHandler n = new NesStateHandler();
+        n.fileName = handleFileExtension(fileName);
+        n.type = Type.LOAD;
+        n.stateData = data;
+        return n;
+    }
+
+    /**
+     * In memory load, halfnes wants an array holding only the state: the data is copied when the buffer holds more.
+     */
+    public static NesStateHandler createLoadInstance(String fileName, ByteBuffer data) {
+        byte[] array;
+        if (data.hasArray() && data.arrayOffset() == 0 && data.position() == 0 &&
+                data.limit() == data.array().length) {
+            array = data.array();
+        } else {
+            array = new byte[data.remaining()];
+            data.duplicate().get(array);
+        }
+        return createLoadInstance(fileName, array);
+    }
+
     public static NesStateHandler createSaveInstance(String fileName) {
         NesStateHandler n = new NesStateHandler();
         n.fileName = handleFileExtension(fileName);
@@ -0,0 +1,322 @@
+/*
+ * RewindBuffer
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 10:12
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.savestate;
+
+import omegadrive.util.PriorityThreadFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Ring of compressed snapshots, newest last.
+ * <p>
+ * The emulation thread copies the snapshot into a free slot and returns, a background thread
+ * compresses it: a keyframe every keyframeInterval frames (or when the state size changes),
+ * the other frames are XORed with the previous keyframe and deflated, ie. mostly runs of zeros.
+ * When full, the oldest entries are dropped; a delta keeps a reference to its keyframe, a dropped keyframe
+ * is still accounted for until its last delta is dropped. The first frame after a rewind is a keyframe.
+ * <p>
+ * If the compressor falls behind and no slot is free, the frame is not captured.
+ */
+public class RewindBuffer {
+
+    private static final Logger LOG = LogManager.getLogger(RewindBuffer.class.getSimpleName());
+
+    //frames waiting for compression
+    private static final int NUM_SLOTS = 4;
+
+    private final int capacityFrames;
+    private final int keyframeInterval;
+    private final long maxBytes;
+
+    private final BlockingQueue<Slot> freeSlots = new ArrayBlockingQueue<>(NUM_SLOTS);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new PriorityThreadFactory(Thread.MIN_PRIORITY, RewindBuffer.class.getSimpleName()));
+
+    //guarded by ring
+    private final ArrayDeque<Entry> ring = new ArrayDeque<>();
+    private long ringBytes;
+    //bumped by rewind, frames captured before a rewind are discarded
+    private volatile int generation;
+
+    //compressor thread only
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[] keyframe = new byte[0];
+    private Entry keyEntry;
+    private int keyGeneration;
+    private int sinceKeyframe;
+    private byte[] deltaBuffer = new byte[0];
+    private byte[] compressBuffer = new byte[0];
+
+    //rewind caller only
+    private final Inflater inflater = new Inflater();
+    private byte[] restoreBuffer = new byte[0];
+    private byte[] inflateBuffer = new byte[0];
+
+    private volatile long capturedFrames, compressedFrames, droppedFrames;
+
+    public RewindBuffer(int capacityFrames, int keyframeInterval, long maxBytes) {
+        this.capacityFrames = capacityFrames;
+        this.keyframeInterval = keyframeInterval;
+        this.maxBytes = maxBytes;
+        for (int i = 0; i < NUM_SLOTS; i++) {
+            freeSlots.add(new Slot());
+        }
+        LOG.info("Rewind buffer: {} frames, keyframe every {} frames, max {} bytes",
+                capacityFrames, keyframeInterval, maxBytes);
+    }
+
+    /**
+     * Emulation thread, copies the state and hands it to the compressor.
+     */
+    public void capture(ByteBuffer state) {
+        Slot slot = freeSlots.poll();
+        if (slot == null) {
+            droppedFrames++;
+            return;
+        }
+        int len = state.remaining();
+        if (slot.data.length < len) {
+            slot.data = new byte[len];
+        }
+        state.duplicate().get(slot.data, 0, len);
+        slot.len = len;
+        slot.generation = generation;
+        capturedFrames++;
+        executor.execute(() -> compress(slot));
+    }
+
+    /**
+     * Emulation thread, drops the latest frames.
+     *
+     * @return the state as it was the given number of frames ago, or the oldest one available;
+     * empty if nothing has been captured.
+     */
+    public Optional<ByteBuffer> rewind(int frames) {
+        Entry entry = null;
+        synchronized (ring) {
+            generation++;
+            for (int i = 0; i < frames && !ring.isEmpty(); i++) {
+                entry = removeNewest();
+            }
+        }
+        if (entry == null) {
+            return Optional.empty();
+        }
+        try {
+            restoreBuffer = inflate(entry.key, restoreBuffer);
+            if (entry != entry.key) {
+                inflateBuffer = inflate(entry, inflateBuffer);
+                for (int i = 0; i < entry.len; i++) {
+                    restoreBuffer[i] ^= inflateBuffer[i];
+                }
+            }
+        } catch (DataFormatException e) {
+            LOG.error("Unable to decompress rewind frame", e);
+            return Optional.empty();
+        }
+        return Optional.of(ByteBuffer.wrap(restoreBuffer, 0, entry.len));
+    }
+
+    private void compress(Slot slot) {
+        try {
+            if (slot.generation != generation) {
+                return;
+            }
+            byte[] src = slot.data;
+            //the previous keyframe may have been rewound
+            boolean isKeyframe = keyEntry == null || sinceKeyframe >= keyframeInterval ||
+                    keyEntry.len != slot.len || keyGeneration != slot.generation;
+            if (isKeyframe) {
+                if (keyframe.length < slot.len) {
+                    keyframe = new byte[slot.len];
+                }
+                System.arraycopy(src, 0, keyframe, 0, slot.len);
+                keyGeneration = slot.generation;
+                sinceKeyframe = 0;
+            } else {
+                if (deltaBuffer.length < slot.len) {
+                    deltaBuffer = new byte[slot.len];
+                }
+                for (int i = 0; i < slot.len; i++) {
+                    deltaBuffer[i] = (byte) (src[i] ^ keyframe[i]);
+                }
+                src = deltaBuffer;
+            }
+            Entry entry = new Entry(deflate(src, slot.len), slot.len);
+            entry.key = isKeyframe ? entry : keyEntry;
+            keyEntry = entry.key;
+            sinceKeyframe++;
+            add(entry, slot.generation);
+            compressedFrames++;
+        } catch (Exception e) {
+            LOG.error("Unable to compress rewind frame", e);
+        } finally {
+            freeSlots.offer(slot);
+        }
+    }
+
+    private void add(Entry entry, int frameGeneration) {
+        synchronized (ring) {
+            if (frameGeneration != generation) {
+                return;
+            }
+            ring.addLast(entry);
+            ringBytes += entry.data.length;
+            while (ring.size() > capacityFrames || (ringBytes > maxBytes && ring.size() > 1)) {
+                removeOldest();
+            }
+        }
+    }
+
+    //guarded by ring, the deltas of a keyframe follow it in the ring
+    private void removeOldest() {
+        Entry entry = ring.pollFirst();
+        Entry next = ring.peekFirst();
+        boolean keyInUse = next != null && next.key == entry.key;
+        if (entry.key == entry && keyInUse) {
+            //the following deltas need it, the bytes stay accounted
+            return;
+        }
+        ringBytes -= entry.data.length;
+        if (entry.key != entry && !keyInUse) {
+            //the keyframe was dropped earlier, this was its last delta
+            ringBytes -= entry.key.data.length;
+        }
+    }
+
+    //guarded by ring
+    private Entry removeNewest() {
+        Entry entry = ring.pollLast();
+        ringBytes -= entry.data.length;
+        if (entry.key != entry && ring.isEmpty()) {
+            //the keyframe was dropped earlier, this was its last delta
+            ringBytes -= entry.key.data.length;
+        }
+        return entry;
+    }
+
+    private byte[] deflate(byte[] src, int len) {
+        if (compressBuffer.length < len + 64) {
+            compressBuffer = new byte[len + (len >> 3) + 64];
+        }
+        deflater.reset();
+        deflater.setInput(src, 0, len);
+        deflater.finish();
+        int size = 0;
+        while (!deflater.finished()) {
+            if (size == compressBuffer.length) {
+                byte[] b = new byte[compressBuffer.length << 1];
+                System.arraycopy(compressBuffer, 0, b, 0, size);
+                compressBuffer = b;
+            }
+            size += deflater.deflate(compressBuffer, size, compressBuffer.length - size);
+        }
+        byte[] res = new byte[size];
+        System.arraycopy(compressBuffer, 0, res, 0, size);
+        return res;
+    }
+
+    private byte[] inflate(Entry entry, byte[] dest) throws DataFormatException {
+        if (dest.length < entry.len) {
+            dest = new byte[entry.len];
+        }
+        inflater.reset();
+        inflater.setInput(entry.data);
+        int size = 0;
+        while (size < entry.len && !inflater.finished()) {
+            int n = inflater.inflate(dest, size, entry.len - size);
+            //not finished and no progress: truncated data or a dictionary is needed
+            if (n == 0) {
+                throw new DataFormatException("Truncated rewind frame: " + size + "/" + entry.len);
+            }
+            size += n;
+        }
+        if (size < entry.len) {
+            throw new DataFormatException("Short rewind frame: " + size + "/" + entry.len);
+        }
+        return dest;
+    }
+
+    public int getFrames() {
+        synchronized (ring) {
+            return ring.size();
+        }
+    }
+
+    public long getBytes() {
+        synchronized (ring) {
+            return ringBytes;
+        }
+    }
+
+    public long getCapturedFrames() {
+        return capturedFrames;
+    }
+
+    public long getCompressedFrames() {
+        return compressedFrames;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        deflater.end();
+        inflater.end();
+        LOG.info("Rewind buffer closed, frames: {}, bytes: {}, captured: {}, dropped: {}",
+                getFrames(), getBytes(), capturedFrames, droppedFrames);
+    }
+
+    private static class Slot {
+        byte[] data = new byte[0];
+        int len;
+        int generation;
+    }
+
+    private static class Entry {
+        final byte[] data;
+        final int len;
+        Entry key;
+
+        Entry(byte[] data, int len) {
+            this.data = data;
+            this.len = len;
+        }
+    }
+}
@@ -80,7 +80,9 @@ public interface SmsStateHandler extends BaseStateHandler {
             loadZ80(z80, bus);
             loadVdp(vdp, mem, bus);
             loadMemory(mem, vdp);
-            LOG.info("Savestate loaded from: {}", getFileName());
+            if (!isInMemory()) {
+                LOG.info("Savestate loaded from: {}", getFileName());
+            }
         } else {
             saveZ80(z80, bus);
             saveVdp(vdp, mem, bus);
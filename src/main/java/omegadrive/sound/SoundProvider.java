@@ -20,8 +20,10 @@
 package omegadrive.sound;
 
 import omegadrive.Device;
+import omegadrive.sound.fm.AudioRateControl;
 import omegadrive.sound.fm.FmProvider;
 import omegadrive.sound.psg.PsgProvider;
+import omegadrive.system.perf.Telemetry;
 import omegadrive.util.RegionDetector;
 import omegadrive.util.SoundUtil;
 import omegadrive.util.Util;
@@ -30,6 +32,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.sound.sampled.AudioFormat;
+import java.util.Optional;
 
 public interface SoundProvider extends Device, BaseVdpProvider.VdpEventListener {
     Logger LOG = LogManager.getLogger(SoundProvider.class.getSimpleName());
@@ -56,6 +59,14 @@ public interface SoundProvider extends Device, BaseVdpProvider.VdpEventListener
 
     FmProvider getFm();
 
+    /**
+     * Frames emulated off the real timeline (run-ahead) must not be heard:
+     * while hidden FM samples are dropped and PSG writes ignored.
+     */
+    default void setHiddenFrame(boolean hidden) {
+        //DO NOTHING
+    }
+
     static int getPsgBufferByteSize(AudioFormat audioFormat) {
         return getFmBufferIntSize(audioFormat) >> 1;
     }
@@ -122,6 +133,17 @@ public interface SoundProvider extends Device, BaseVdpProvider.VdpEventListener
         //NO OP
     }
 
+    default Optional<String> getAudioStats() {
+        return getFm().getAudioRateControl().flatMap(AudioRateControl::getLatestStats);
+    }
+
+    /**
+     * Telemetry belongs to the system, samples are pulled once per frame.
+     */
+    default void addTelemetrySamples(Telemetry telemetry) {
+        getFm().getAudioRateControl().ifPresent(arc -> arc.addTelemetrySamples(telemetry));
+    }
+
     boolean isMute();
 
     void setEnabled(boolean mute);
@@ -19,7 +19,6 @@
 
 package omegadrive.sound.fm;
 
-import com.google.common.collect.Maps;
 import omegadrive.sound.SoundProvider;
 import omegadrive.system.perf.Telemetry;
 import org.apache.logging.log4j.LogManager;
@@ -27,9 +26,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
-import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * AudioRateControl
@@ -55,13 +52,13 @@ public class AudioRateControl {
         LOG.info("Init with targetBufferSize: {}, bufferSize: {}", targetBufferSize, bufferSize);
     }
 
-    public static Optional<String> getLatestStats() {
-        if (StatsHolder.statsHolderMap.isEmpty()) {
-            return Optional.empty();
-        }
-        String s = StatsHolder.statsHolderMap.values().stream().
-                map(StatsHolder::computeStringStats).collect(Collectors.joining(","));
-        return Optional.ofNullable(s);
+    public Optional<String> getLatestStats() {
+        return Optional.ofNullable(statsHolder.computeStringStats());
+    }
+
+    public void addTelemetrySamples(Telemetry telemetry) {
+        telemetry.addSample(statsHolder.sourceName + ".audioDelayMs", statsHolder.audioDelayMs);
+        telemetry.addSample(statsHolder.sourceName + ".audioQueueLen", statsHolder.latestLen);
     }
 
     public double adaptiveRateControl(long queueLen, double fmCalcsPerMicros, int sampleRate) {
@@ -89,8 +86,8 @@ public class AudioRateControl {
     }
 
     private static class StatsHolder {
-        public static Map<String, StatsHolder> statsHolderMap = Maps.newHashMap();
-        private static NumberFormat bufferMsFormatter = new DecimalFormat("000");
+        //NOTE DecimalFormat is not thread safe, one per instance
+        private final NumberFormat bufferMsFormatter = new DecimalFormat("000");
         public long maxLen = 0;
         public long latestLen = 0;
         public long audioDelayMs = 0;
@@ -99,14 +96,10 @@ public class AudioRateControl {
 
         protected StatsHolder(String sourceName) {
             this.sourceName = sourceName;
-            statsHolderMap.clear();
-            statsHolderMap.put(sourceName, this);
         }
 
         protected void computeTelemetryStats() {
             audioDelayMs = (long) (1000.0 * latestLen / SoundProvider.SAMPLE_RATE_HZ);
-            Telemetry.getInstance().addSample(sourceName + ".audioDelayMs", audioDelayMs);
-            Telemetry.getInstance().addSample(sourceName + ".audioQueueLen", latestLen);
         }
 
         protected String computeStringStats() {
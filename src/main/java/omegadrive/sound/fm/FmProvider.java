@@ -22,6 +22,8 @@ package omegadrive.sound.fm;
 import omegadrive.Device;
 import omegadrive.vdp.model.BaseVdpProvider;
 
+import java.util.Optional;
+
 public interface FmProvider extends Device, BaseVdpProvider.VdpEventListener {
 
     FmProvider NO_SOUND = new FmProvider() {
@@ -73,6 +75,10 @@ public interface FmProvider extends Device, BaseVdpProvider.VdpEventListener {
 
     void reset();
 
+    default Optional<AudioRateControl> getAudioRateControl() {
+        return Optional.empty();
+    }
+
     int update(int[] buf_lr, int offset, int count);
 
     void init(int clock, int rate);
@@ -89,6 +95,13 @@ public interface FmProvider extends Device, BaseVdpProvider.VdpEventListener {
         throw new RuntimeException("Invalid");
     }
 
+    /**
+     * When disabled the chip keeps running but the samples are dropped.
+     */
+    default void setOutputEnabled(boolean enabled) {
+        //DO NOTHING
+    }
+
     default void output(int[] buf_lr) {
         update(buf_lr, 0, buf_lr.length / 2);
     }
@@ -20,15 +20,13 @@
 package omegadrive.sound.fm;
 
 import omegadrive.sound.SoundProvider;
+import omegadrive.util.IntSpscQueue;
 import omegadrive.util.SoundUtil;
-import omegadrive.util.Util;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.jctools.queues.atomic.SpscAtomicArrayQueue;
 
 import javax.sound.sampled.AudioFormat;
-import java.util.Queue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Optional;
 
 public abstract class VariableSampleRateSource implements FmProvider {
 
@@ -39,12 +37,13 @@ public abstract class VariableSampleRateSource implements FmProvider {
     protected double sourceSampleRate;
     protected volatile double fmCalcsPerMicros;
     private double outputSampleRate;
-    private Queue<Integer> sampleQueue =
-            new SpscAtomicArrayQueue<>(SoundProvider.SAMPLE_RATE_HZ);
-    private AtomicInteger queueLen = new AtomicInteger();
+    private IntSpscQueue sampleQueue = new IntSpscQueue(SoundProvider.SAMPLE_RATE_HZ);
+    private int[] drainBuffer = new int[0];
     private AudioRateControl audioRateControl;
+    private Optional<AudioRateControl> audioRateControlOpt;
     private int sampleRatePerFrame = 0;
     private final int audioScaleBits;
+    private boolean outputEnabled = true;
 
     protected VariableSampleRateSource(double sourceSampleRate, AudioFormat audioFormat, String sourceName) {
         this(sourceSampleRate, audioFormat, sourceName, DEFAULT_AUDIO_SCALE_BITS);
@@ -58,53 +57,62 @@ public abstract class VariableSampleRateSource implements FmProvider {
         this.microsPerInputSample = (1_000_000.0 / sourceSampleRate);
         this.fmCalcsPerMicros = microsPerOutputSample;
         this.audioRateControl = new AudioRateControl(sourceName, SoundUtil.getMonoSamplesBufferSize(audioFormat));
+        this.audioRateControlOpt = Optional.of(audioRateControl);
         this.audioScaleBits = audioScaleBits;
     }
 
     protected abstract void spinOnce();
 
     protected void addSample(int sample) {
-        sampleQueue.offer(Util.getFromIntegerCache(sample));
-        queueLen.addAndGet(1);
+        if (!outputEnabled) {
+            return;
+        }
+        if (!sampleQueue.offer(sample)) {
+            LOG.debug("Sample queue full, dropping sample");
+            return;
+        }
         sampleRatePerFrame++;
     }
 
     @Override
     public int update(int[] buf_lr, int offset, int count) {
-        offset <<= 1;
-        int end = (count << 1) + offset;
-        int rsample, lsample;
-        int sampleNum;
-        Integer isample;
-        final int initialQueueSize = queueLen.get();
-        int queueIndicativeLen = initialQueueSize;
-        for (int i = offset; i < end && queueIndicativeLen > 0; i += 2) {
-            isample = sampleQueue.peek();
-            if (isample == null) {
-                LOG.debug("Null sample QL{} P{}", queueIndicativeLen, i);
-                break;
-            }
-            sampleQueue.poll();
+        if (drainBuffer.length < count) {
+            drainBuffer = new int[count];
+        }
+        final int sampleNum = sampleQueue.drainTo(drainBuffer, 0, count);
+        int rsample, lsample, isample;
+        for (int j = 0, i = offset << 1; j < sampleNum; j++, i += 2) {
+            isample = drainBuffer[j];
             lsample = (short) (isample & 0xFFFF);
             rsample = (short) (lsample - (short) ((isample >> 16) & 0xFFFF)); // diff = l - r, r = l - diff
-            queueIndicativeLen = queueLen.decrementAndGet();
             buf_lr[i] = lsample << audioScaleBits;
             buf_lr[i + 1] = rsample << audioScaleBits;
         }
-        sampleNum = initialQueueSize - queueIndicativeLen;
         return sampleNum;
     }
 
+    @Override
+    public Optional<AudioRateControl> getAudioRateControl() {
+        return audioRateControlOpt;
+    }
+
     @Override
     public void reset() {
         sampleQueue.clear();
-        queueLen.set(0);
         sampleRatePerFrame = 0;
     }
 
+    @Override
+    public void setOutputEnabled(boolean enabled) {
+        outputEnabled = enabled;
+    }
+
     @Override
     public void onNewFrame() {
-        fmCalcsPerMicros = audioRateControl.adaptiveRateControl(queueLen.get(), fmCalcsPerMicros, sampleRatePerFrame);
+        if (!outputEnabled) {
+            return;
+        }
+        fmCalcsPerMicros = audioRateControl.adaptiveRateControl(sampleQueue.size(), fmCalcsPerMicros, sampleRatePerFrame);
         sampleRatePerFrame = 0;
     }
 }
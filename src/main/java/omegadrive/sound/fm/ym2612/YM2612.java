@@ -19,15 +19,15 @@
 
 package omegadrive.sound.fm.ym2612;
 
+import omegadrive.sound.SoundProvider;
 import omegadrive.sound.fm.MdFmProvider;
+import omegadrive.util.IntSpscQueue;
 import omegadrive.util.LogHelper;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Test port of Gens YM2612 core.
@@ -264,7 +264,8 @@ public final class YM2612 extends Ym2612RegSupport implements MdFmProvider {
     volatile int YM2612_Status;
 
     //DAC
-    private Queue<Integer> dacQueue;
+    private IntSpscQueue dacQueue;
+    private int[] dacBuffer = new int[0];
     private static int DAC_SILENCE = 0x80;
     private volatile int dacValue;
     private long lastEvent = 0;
@@ -274,7 +275,7 @@ public final class YM2612 extends Ym2612RegSupport implements MdFmProvider {
      */
     public YM2612() {
         for (int i = 0; i < 6; i++) YM2612_CHANNEL[i] = new cChannel();
-        dacQueue = new ConcurrentLinkedQueue<>();
+        dacQueue = new IntSpscQueue(SoundProvider.SAMPLE_RATE_HZ);
     }
 
     // YM2612 Emulation Methods
@@ -657,7 +658,7 @@ public final class YM2612 extends Ym2612RegSupport implements MdFmProvider {
         updateChannel((YM2612_CHANNEL[3].ALGO + algo_type), (YM2612_CHANNEL[3]), buf_lr, offset, end);
         updateChannel((YM2612_CHANNEL[4].ALGO + algo_type), (YM2612_CHANNEL[4]), buf_lr, offset, end);
 
-        boolean dacSampleToProcess = dacQueue.peek() != null;
+        boolean dacSampleToProcess = !dacQueue.isEmpty();
         if (YM2612_DAC == 0 && !dacSampleToProcess) {
             updateChannel(YM2612_CHANNEL[5].ALGO + algo_type, YM2612_CHANNEL[5], buf_lr, offset, end);
             drainDacQueue();
@@ -669,19 +670,21 @@ public final class YM2612 extends Ym2612RegSupport implements MdFmProvider {
     }
 
     private void updateDac(int[] buf_lr, int offset, int end, boolean dacSampleToProcess) {
-        Integer val;
-        int i = offset;
         if (dacSampleToProcess) {
-            while ((val = dacQueue.poll()) != null && i < end) {
+            int len = (end - offset) >> 1;
+            if (dacBuffer.length < len) {
+                dacBuffer = new int[len];
+            }
+            int num = dacQueue.drainTo(dacBuffer, 0, len);
+            for (int j = 0, i = offset; j < num; j++, i += 2) {
+                int val = dacBuffer[j];
                 if (val == DAC_SILENCE) {
-                    i += 2;
                     continue;
                 }
                 //8 bit unsigned to 13 bit signed
                 int dacValue = (val - DAC_SILENCE) << 4;
                 buf_lr[i] += dacValue;
                 buf_lr[i + 1] += dacValue;
-                i += 2;
             }
         } else {
             drainDacQueue();
@@ -22,7 +22,6 @@ package omegadrive.sound.fm.ym2612.nukeykt;
 import omegadrive.sound.fm.MdFmProvider;
 import omegadrive.sound.fm.VariableSampleRateSource;
 import omegadrive.sound.fm.ym2612.Ym2612RegSupport;
-import omegadrive.util.Util;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -54,6 +53,10 @@ public class Ym2612Nuke extends VariableSampleRateSource implements MdFmProvider
     private int prevL, prevR;
 
     private double cycleAccum = 0;
+    //output filter and sample timing when the output was disabled, see setOutputEnabled
+    private boolean hidden;
+    private double hiddenCycleAccum;
+    private int hiddenPrevL, hiddenPrevR;
 
     public Ym2612Nuke(AudioFormat audioFormat, double sourceSampleRate) {
         this(new IYm3438.IYm3438_Type(), audioFormat, sourceSampleRate);
@@ -100,7 +103,7 @@ public class Ym2612Nuke extends VariableSampleRateSource implements MdFmProvider
 
     private void addSample() {
         if (cycleAccum > fmCalcsPerMicros) {
-            super.addSample(Util.getFromIntegerCache(state.ym3438_diffLR_sampleL));
+            super.addSample(state.ym3438_diffLR_sampleL);
             cycleAccum -= fmCalcsPerMicros;
         }
     }
@@ -140,6 +143,25 @@ public class Ym2612Nuke extends VariableSampleRateSource implements MdFmProvider
         prevR = sampleR;
     }
 
+    /**
+     * The chip state is restored after the hidden frames, the output filter and the sample timing
+     * are not part of it: they go back to where they were when the output was disabled.
+     */
+    @Override
+    public void setOutputEnabled(boolean enabled) {
+        if (enabled && hidden) {
+            cycleAccum = hiddenCycleAccum;
+            prevL = hiddenPrevL;
+            prevR = hiddenPrevR;
+        } else if (!enabled && !hidden) {
+            hiddenCycleAccum = cycleAccum;
+            hiddenPrevL = prevL;
+            hiddenPrevR = prevR;
+        }
+        hidden = !enabled;
+        super.setOutputEnabled(enabled);
+    }
+
     public void setState(Ym3438Context state) {
         if (state != null) {
             this.state = state;
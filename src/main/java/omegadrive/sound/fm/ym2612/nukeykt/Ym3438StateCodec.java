@@ -0,0 +1,336 @@
+/*
+ * Ym3438StateCodec
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 10:12
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.sound.fm.ym2612.nukeykt;
+
+import java.nio.ByteBuffer;
+
+import static omegadrive.util.VarIntCodec.*;
+
+/**
+ * Binary codec for {@link Ym2612Nuke.Ym3438Context}, replaces java serialization in savestates.
+ * <p>
+ * Fields are written in declaration order as varints, a new field must be appended at the end
+ * and bump {@link #VERSION}.
+ */
+public class Ym3438StateCodec {
+
+    public static final int VERSION = 1;
+    //upper bound of the encoded size, every int takes at most 5 bytes
+    public static final int MAX_SIZE;
+
+    static {
+        Ym2612Nuke.Ym3438Context ctx = new Ym2612Nuke.Ym3438Context();
+        ctx.chip = new IYm3438.IYm3438_Type();
+        ByteBuffer buf = ByteBuffer.allocate(0x10000);
+        encode(ctx, buf);
+        MAX_SIZE = buf.position() * MAX_INT_BYTES;
+    }
+
+    public static void encode(Ym2612Nuke.Ym3438Context ctx, ByteBuffer buf) {
+        buf.put((byte) VERSION);
+        putInt(buf, ctx.ym3438_cycles);
+        putInt(buf, ctx.ym3438_diffLR_sampleL);
+        putInts(buf, ctx.ym3438_accm);
+        encodeChip(ctx.chip, buf);
+    }
+
+    /**
+     * Loads the state into an existing context.
+     */
+    public static void decode(ByteBuffer buf, Ym2612Nuke.Ym3438Context ctx) {
+        int version = buf.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported Ym3438 state version: " + version);
+        }
+        ctx.ym3438_cycles = getInt(buf);
+        ctx.ym3438_diffLR_sampleL = getInt(buf);
+        getInts(buf, ctx.ym3438_accm);
+        if (ctx.chip == null) {
+            ctx.chip = new IYm3438.IYm3438_Type();
+        }
+        decodeChip(buf, ctx.chip);
+    }
+
+    private static void encodeChip(IYm3438.IYm3438_Type chip, ByteBuffer buf) {
+        putInt(buf, chip.cycles);
+        putInt(buf, chip.channel);
+        putInt(buf, chip.mol);
+        putInt(buf, chip.mor);
+        putInt(buf, chip.write_data);
+        putInt(buf, chip.write_a);
+        putInt(buf, chip.write_d);
+        putBoolean(buf, chip.write_a_en);
+        putBoolean(buf, chip.write_d_en);
+        putInt(buf, chip.write_busy);
+        putInt(buf, chip.write_busy_cnt);
+        putBoolean(buf, chip.write_fm_address);
+        putInt(buf, chip.write_fm_data);
+        putInt(buf, chip.write_fm_mode_a);
+        putInt(buf, chip.address);
+        putInt(buf, chip.data);
+        putInt(buf, chip.pin_test_in);
+        putInt(buf, chip.pin_irq);
+        putInt(buf, chip.busy);
+        putInt(buf, chip.lfo_en);
+        putInt(buf, chip.lfo_freq);
+        putInt(buf, chip.lfo_pm);
+        putInt(buf, chip.lfo_am);
+        putInt(buf, chip.lfo_cnt);
+        putInt(buf, chip.lfo_inc);
+        putInt(buf, chip.lfo_quotient);
+        putInt(buf, chip.pg_fnum);
+        putInt(buf, chip.pg_block);
+        putInt(buf, chip.pg_kcode);
+        putInts(buf, chip.pg_inc);
+        putInts(buf, chip.pg_phase);
+        putBooleans(buf, chip.pg_reset);
+        putInt(buf, chip.pg_read);
+        putInt(buf, chip.eg_cycle);
+        putInt(buf, chip.eg_cycle_stop);
+        putInt(buf, chip.eg_shift);
+        putInt(buf, chip.eg_shift_lock);
+        putInt(buf, chip.eg_timer_low_lock);
+        putInt(buf, chip.eg_timer);
+        putInt(buf, chip.eg_timer_inc);
+        putInt(buf, chip.eg_quotient);
+        putBoolean(buf, chip.eg_custom_timer);
+        putInt(buf, chip.eg_rate);
+        putInt(buf, chip.eg_ksv);
+        putInt(buf, chip.eg_inc);
+        putInt(buf, chip.eg_ratemax);
+        putInts(buf, chip.eg_sl);
+        putInt(buf, chip.eg_lfo_am);
+        putInts(buf, chip.eg_tl);
+        putInts(buf, chip.eg_state);
+        putInts(buf, chip.eg_level);
+        putInts(buf, chip.eg_out);
+        putInts(buf, chip.eg_kon);
+        putInts(buf, chip.eg_kon_csm);
+        putInts(buf, chip.eg_kon_latch);
+        putInts(buf, chip.eg_csm_mode);
+        putBooleans(buf, chip.eg_ssg_enable);
+        putInts(buf, chip.eg_ssg_pgrst_latch);
+        putInts(buf, chip.eg_ssg_repeat_latch);
+        putInts(buf, chip.eg_ssg_hold_up_latch);
+        putInts(buf, chip.eg_ssg_dir);
+        putInts(buf, chip.eg_ssg_inv);
+        putInts(buf, chip.eg_read);
+        putInt(buf, chip.eg_read_inc);
+        putInts(buf, chip.fm_op1);
+        putInts(buf, chip.fm_op2);
+        putInts(buf, chip.fm_out);
+        putInts(buf, chip.fm_mod);
+        putInts(buf, chip.ch_acc);
+        putInts(buf, chip.ch_out);
+        putInt(buf, chip.ch_lock);
+        putInt(buf, chip.ch_lock_l);
+        putInt(buf, chip.ch_lock_r);
+        putInt(buf, chip.ch_read);
+        putInt(buf, chip.timer_a_cnt);
+        putInt(buf, chip.timer_a_reg);
+        putBoolean(buf, chip.timer_a_load_lock);
+        putBoolean(buf, chip.timer_a_load);
+        putBoolean(buf, chip.timer_a_enable);
+        putBoolean(buf, chip.timer_a_reset);
+        putBoolean(buf, chip.timer_a_load_latch);
+        putBoolean(buf, chip.timer_a_overflow_flag);
+        putInt(buf, chip.timer_a_overflow);
+        putInt(buf, chip.timer_b_cnt);
+        putInt(buf, chip.timer_b_subcnt);
+        putInt(buf, chip.timer_b_reg);
+        putBoolean(buf, chip.timer_b_load_lock);
+        putBoolean(buf, chip.timer_b_load);
+        putBoolean(buf, chip.timer_b_enable);
+        putBoolean(buf, chip.timer_b_reset);
+        putBoolean(buf, chip.timer_b_load_latch);
+        putBoolean(buf, chip.timer_b_overflow_flag);
+        putInt(buf, chip.timer_b_overflow);
+        putInts(buf, chip.mode_test_21);
+        putInts(buf, chip.mode_test_2c);
+        putInt(buf, chip.mode_ch3);
+        putInt(buf, chip.mode_kon_channel);
+        putInts(buf, chip.mode_kon_operator);
+        putInts(buf, chip.mode_kon);
+        putBoolean(buf, chip.mode_csm);
+        putBoolean(buf, chip.mode_kon_csm);
+        putInt(buf, chip.dacen);
+        putInt(buf, chip.dacdata);
+        putInts(buf, chip.ks);
+        putInts(buf, chip.ar);
+        putInts(buf, chip.sr);
+        putInts(buf, chip.dt);
+        putInts(buf, chip.multi);
+        putInts(buf, chip.sl);
+        putInts(buf, chip.rr);
+        putInts(buf, chip.dr);
+        putInts(buf, chip.am);
+        putInts(buf, chip.tl);
+        putInts(buf, chip.ssg_eg);
+        putInts(buf, chip.fnum);
+        putInts(buf, chip.block);
+        putInts(buf, chip.kcode);
+        putInts(buf, chip.fnum_3ch);
+        putInts(buf, chip.block_3ch);
+        putInts(buf, chip.kcode_3ch);
+        putInt(buf, chip.reg_a4);
+        putInt(buf, chip.reg_ac);
+        putInts(buf, chip.connect);
+        putInts(buf, chip.fb);
+        putInts(buf, chip.pan_l);
+        putInts(buf, chip.pan_r);
+        putInts(buf, chip.ams);
+        putInts(buf, chip.pms);
+        putInt(buf, chip.status);
+        putInt(buf, chip.status_time);
+    }
+
+    private static void decodeChip(ByteBuffer buf, IYm3438.IYm3438_Type chip) {
+        chip.cycles = getInt(buf);
+        chip.channel = getInt(buf);
+        chip.mol = getInt(buf);
+        chip.mor = getInt(buf);
+        chip.write_data = getInt(buf);
+        chip.write_a = getInt(buf);
+        chip.write_d = getInt(buf);
+        chip.write_a_en = getBoolean(buf);
+        chip.write_d_en = getBoolean(buf);
+        chip.write_busy = getInt(buf);
+        chip.write_busy_cnt = getInt(buf);
+        chip.write_fm_address = getBoolean(buf);
+        chip.write_fm_data = getInt(buf);
+        chip.write_fm_mode_a = getInt(buf);
+        chip.address = getInt(buf);
+        chip.data = getInt(buf);
+        chip.pin_test_in = getInt(buf);
+        chip.pin_irq = getInt(buf);
+        chip.busy = getInt(buf);
+        chip.lfo_en = getInt(buf);
+        chip.lfo_freq = getInt(buf);
+        chip.lfo_pm = getInt(buf);
+        chip.lfo_am = getInt(buf);
+        chip.lfo_cnt = getInt(buf);
+        chip.lfo_inc = getInt(buf);
+        chip.lfo_quotient = getInt(buf);
+        chip.pg_fnum = getInt(buf);
+        chip.pg_block = getInt(buf);
+        chip.pg_kcode = getInt(buf);
+        getInts(buf, chip.pg_inc);
+        getInts(buf, chip.pg_phase);
+        getBooleans(buf, chip.pg_reset);
+        chip.pg_read = getInt(buf);
+        chip.eg_cycle = getInt(buf);
+        chip.eg_cycle_stop = getInt(buf);
+        chip.eg_shift = getInt(buf);
+        chip.eg_shift_lock = getInt(buf);
+        chip.eg_timer_low_lock = getInt(buf);
+        chip.eg_timer = getInt(buf);
+        chip.eg_timer_inc = getInt(buf);
+        chip.eg_quotient = getInt(buf);
+        chip.eg_custom_timer = getBoolean(buf);
+        chip.eg_rate = getInt(buf);
+        chip.eg_ksv = getInt(buf);
+        chip.eg_inc = getInt(buf);
+        chip.eg_ratemax = getInt(buf);
+        getInts(buf, chip.eg_sl);
+        chip.eg_lfo_am = getInt(buf);
+        getInts(buf, chip.eg_tl);
+        getInts(buf, chip.eg_state);
+        getInts(buf, chip.eg_level);
+        getInts(buf, chip.eg_out);
+        getInts(buf, chip.eg_kon);
+        getInts(buf, chip.eg_kon_csm);
+        getInts(buf, chip.eg_kon_latch);
+        getInts(buf, chip.eg_csm_mode);
+        getBooleans(buf, chip.eg_ssg_enable);
+        getInts(buf, chip.eg_ssg_pgrst_latch);
+        getInts(buf, chip.eg_ssg_repeat_latch);
+        getInts(buf, chip.eg_ssg_hold_up_latch);
+        getInts(buf, chip.eg_ssg_dir);
+        getInts(buf, chip.eg_ssg_inv);
+        getInts(buf, chip.eg_read);
+        chip.eg_read_inc = getInt(buf);
+        getInts(buf, chip.fm_op1);
+        getInts(buf, chip.fm_op2);
+        getInts(buf, chip.fm_out);
+        getInts(buf, chip.fm_mod);
+        getInts(buf, chip.ch_acc);
+        getInts(buf, chip.ch_out);
+        chip.ch_lock = getInt(buf);
+        chip.ch_lock_l = getInt(buf);
+        chip.ch_lock_r = getInt(buf);
+        chip.ch_read = getInt(buf);
+        chip.timer_a_cnt = getInt(buf);
+        chip.timer_a_reg = getInt(buf);
+        chip.timer_a_load_lock = getBoolean(buf);
+        chip.timer_a_load = getBoolean(buf);
+        chip.timer_a_enable = getBoolean(buf);
+        chip.timer_a_reset = getBoolean(buf);
+        chip.timer_a_load_latch = getBoolean(buf);
+        chip.timer_a_overflow_flag = getBoolean(buf);
+        chip.timer_a_overflow = getInt(buf);
+        chip.timer_b_cnt = getInt(buf);
+        chip.timer_b_subcnt = getInt(buf);
+        chip.timer_b_reg = getInt(buf);
+        chip.timer_b_load_lock = getBoolean(buf);
+        chip.timer_b_load = getBoolean(buf);
+        chip.timer_b_enable = getBoolean(buf);
+        chip.timer_b_reset = getBoolean(buf);
+        chip.timer_b_load_latch = getBoolean(buf);
+        chip.timer_b_overflow_flag = getBoolean(buf);
+        chip.timer_b_overflow = getInt(buf);
+        getInts(buf, chip.mode_test_21);
+        getInts(buf, chip.mode_test_2c);
+        chip.mode_ch3 = getInt(buf);
+        chip.mode_kon_channel = getInt(buf);
+        getInts(buf, chip.mode_kon_operator);
+        getInts(buf, chip.mode_kon);
+        chip.mode_csm = getBoolean(buf);
+        chip.mode_kon_csm = getBoolean(buf);
+        chip.dacen = getInt(buf);
+        chip.dacdata = getInt(buf);
+        getInts(buf, chip.ks);
+        getInts(buf, chip.ar);
+        getInts(buf, chip.sr);
+        getInts(buf, chip.dt);
+        getInts(buf, chip.multi);
+        getInts(buf, chip.sl);
+        getInts(buf, chip.rr);
+        getInts(buf, chip.dr);
+        getInts(buf, chip.am);
+        getInts(buf, chip.tl);
+        getInts(buf, chip.ssg_eg);
+        getInts(buf, chip.fnum);
+        getInts(buf, chip.block);
+        getInts(buf, chip.kcode);
+        getInts(buf, chip.fnum_3ch);
+        getInts(buf, chip.block_3ch);
+        getInts(buf, chip.kcode_3ch);
+        chip.reg_a4 = getInt(buf);
+        chip.reg_ac = getInt(buf);
+        getInts(buf, chip.connect);
+        getInts(buf, chip.fb);
+        getInts(buf, chip.pan_l);
+        getInts(buf, chip.pan_r);
+        getInts(buf, chip.ams);
+        getInts(buf, chip.pms);
+        chip.status = getInt(buf);
+        chip.status_time = getInt(buf);
+    }
+}
@@ -66,6 +66,7 @@ public abstract class AbstractSoundManager implements SoundProvider {
 
     protected volatile boolean hasFm;
     protected volatile boolean hasPsg;
+    private volatile boolean hiddenFrame;
 
     public static SoundProvider createSoundProvider(SystemLoader.SystemType systemType, RegionDetector.Region region) {
         if (!ENABLE_SOUND) {
@@ -139,9 +140,16 @@ public abstract class AbstractSoundManager implements SoundProvider {
         this.type = type;
     }
 
+    //the PSG state is not part of a savestate, writes from hidden frames are dropped
     @Override
     public PsgProvider getPsg() {
-        return psg;
+        return hiddenFrame ? PsgProvider.NO_SOUND : psg;
+    }
+
+    @Override
+    public void setHiddenFrame(boolean hidden) {
+        hiddenFrame = hidden;
+        fm.setOutputEnabled(!hidden);
     }
 
     public void setPsg(PsgProvider psg) {
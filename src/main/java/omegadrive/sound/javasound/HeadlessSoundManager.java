@@ -0,0 +1,152 @@
+/*
+ * HeadlessSoundManager
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 10:12
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.sound.javasound;
+
+import omegadrive.SystemLoader;
+import omegadrive.sound.SoundProvider;
+import omegadrive.sound.fm.FmProvider;
+import omegadrive.sound.psg.PsgProvider;
+import omegadrive.util.RegionDetector;
+import omegadrive.util.SoundUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.sound.sampled.SourceDataLine;
+import java.util.Arrays;
+
+/**
+ * Mixes FM and PSG on the emulation thread, no audio line and no audio thread.
+ * <p>
+ * The caller pulls the samples once per frame via {@link #mixFrame()} and
+ * collects them with {@link #drainSamples()}, the output format is {@link AbstractSoundManager#audioFormat}.
+ */
+public class HeadlessSoundManager extends AbstractSoundManager {
+
+    private static final Logger LOG = LogManager.getLogger(HeadlessSoundManager.class.getSimpleName());
+
+    private static final int[] EMPTY_FM = new int[0];
+    private static final byte[] EMPTY_PSG = new byte[0];
+
+    private int[] fmBuffer;
+    private byte[] psgBuffer;
+    private byte[] mixBuffer;
+    private byte[] output = new byte[0];
+    private int outputLen;
+    private int samplesPerFrame;
+
+    public static SoundProvider createSoundProvider(SystemLoader.SystemType systemType, RegionDetector.Region region) {
+        if (!ENABLE_SOUND) {
+            LOG.warn("Sound disabled");
+            return NO_SOUND;
+        }
+        HeadlessSoundManager hsm = new HeadlessSoundManager();
+        hsm.setFm(hsm.getFmProvider(systemType, region));
+        hsm.setPsg(hsm.getPsgProvider(systemType, region));
+        hsm.setSystemType(systemType);
+        hsm.init(region);
+        return hsm;
+    }
+
+    @Override
+    protected void init(RegionDetector.Region region) {
+        this.region = region;
+        fmSize = SoundProvider.getFmBufferIntSize(audioFormat);
+        samplesPerFrame = (int) (audioFormat.getSampleRate() / region.getFps());
+        init();
+        LOG.info("Output audioFormat: " + audioFormat + ", bufferSize: " + fmSize);
+    }
+
+    @Override
+    public void init() {
+        hasFm = getFm() != FmProvider.NO_SOUND;
+        hasPsg = getPsg() != PsgProvider.NO_SOUND;
+        fmBuffer = hasFm ? new int[fmSize] : EMPTY_FM;
+        psgBuffer = hasPsg ? new byte[hasFm ? fmSize >> 1 : samplesPerFrame] : EMPTY_PSG;
+        mixBuffer = new byte[Math.max(fmSize, samplesPerFrame << 1) << 1];
+    }
+
+    /**
+     * Mixes the samples produced since the previous call,
+     * with no FM the PSG generates a frame worth of samples.
+     */
+    public void mixFrame() {
+        if (!hasFm && !hasPsg) {
+            return;
+        }
+        int monoLen;
+        do {
+            monoLen = hasFm ? fm.update(fmBuffer, 0, fmBuffer.length >> 1) : samplesPerFrame;
+            if (monoLen == 0) {
+                break;
+            }
+            psg.output(psgBuffer, 0, monoLen);
+            int stereoLen = monoLen << 1;
+            SoundUtil.mixFmPsgStereo(fmBuffer, mixBuffer, psgBuffer, stereoLen);
+            append(mixBuffer, stereoLen << 1);
+            Arrays.fill(fmBuffer, 0);
+        } while (hasFm && monoLen == fmBuffer.length >> 1);
+    }
+
+    /**
+     * Returns the samples mixed so far (16 bit signed, stereo, little endian) and clears the buffer.
+     */
+    public byte[] drainSamples() {
+        byte[] res = Arrays.copyOf(output, outputLen);
+        outputLen = 0;
+        return res;
+    }
+
+    private void append(byte[] data, int len) {
+        if (outputLen + len > output.length) {
+            output = Arrays.copyOf(output, Math.max(output.length << 1, outputLen + len));
+        }
+        System.arraycopy(data, 0, output, outputLen, len);
+        outputLen += len;
+    }
+
+    @Override
+    public void onNewFrame() {
+        fm.onNewFrame();
+    }
+
+    @Override
+    protected Runnable getRunnable(SourceDataLine dataLine, RegionDetector.Region region) {
+        return () -> {
+        };
+    }
+
+    @Override
+    public boolean isRecording() {
+        return false;
+    }
+
+    @Override
+    public void setRecording(boolean recording) {
+        //NO OP
+    }
+
+    @Override
+    public void reset() {
+        LOG.info("Resetting sound");
+        outputLen = 0;
+        psg.reset();
+        fm.reset();
+    }
+}
@@ -44,7 +44,6 @@ public class JavaSoundManager extends AbstractSoundManager {
     volatile int fmSizeMono;
 
     //stats
-    private Telemetry telemetry;
     private volatile int samplesProducedCount, samplesConsumedCount, audioThreadLoops, audioThreadEmptyLoops;
 
     @Override
@@ -57,7 +56,6 @@ public class JavaSoundManager extends AbstractSoundManager {
         hasPsg = getPsg() != PsgProvider.NO_SOUND;
         fm_buf_ints = hasFm ? fm_buf_ints : EMPTY_FM;
         psg_buf_bytes = hasPsg ? psg_buf_bytes : EMPTY_PSG;
-        telemetry = Telemetry.getInstance();
     }
 
     private int playOnceStereo(int fmBufferLenMono) {
@@ -119,18 +117,18 @@ public class JavaSoundManager extends AbstractSoundManager {
 
     @Override
     public void onNewFrame() {
-        doStats();
+        audioThreadLoops = audioThreadEmptyLoops = samplesConsumedCount = samplesProducedCount = 0;
         fm.onNewFrame();
     }
 
-    private void doStats() {
-        if (Telemetry.enable) {
-            telemetry.addSample("audioThreadLoops", audioThreadLoops);
-            telemetry.addSample("audioThreadEmptyLoops", audioThreadEmptyLoops);
-            telemetry.addSample("audioSamplesConsumed", samplesConsumedCount);
-            telemetry.addSample("audioSamplesProduced", samplesProducedCount);
-        }
-        audioThreadLoops = audioThreadEmptyLoops = samplesConsumedCount = samplesProducedCount = 0;
+    //NOTE called by the system before onNewFrame resets the counters
+    @Override
+    public void addTelemetrySamples(Telemetry telemetry) {
+        telemetry.addSample("audioThreadLoops", audioThreadLoops);
+        telemetry.addSample("audioThreadEmptyLoops", audioThreadEmptyLoops);
+        telemetry.addSample("audioSamplesConsumed", samplesConsumedCount);
+        telemetry.addSample("audioSamplesProduced", samplesProducedCount);
+        super.addTelemetrySamples(telemetry);
     }
 }
 
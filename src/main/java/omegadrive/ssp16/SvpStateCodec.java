@@ -0,0 +1,109 @@
+/*
+ * SvpStateCodec
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 10:12
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.ssp16;
+
+import java.nio.ByteBuffer;
+
+import static omegadrive.ssp16.Ssp16.IRAM_SIZE_WORDS;
+import static omegadrive.ssp16.Ssp16Types.*;
+import static omegadrive.util.VarIntCodec.*;
+
+/**
+ * Binary codec for {@link Svp_t}, replaces java serialization in savestates.
+ * <p>
+ * Only the IRAM part of iram_rom is stored, the ROM is copied back from the cart
+ * by {@link Ssp16#loadSvpContext}.
+ */
+public class SvpStateCodec {
+
+    public static final int VERSION = 1;
+    //upper bound of the encoded size, every int takes at most 5 bytes
+    public static final int MAX_SIZE;
+
+    static {
+        ByteBuffer buf = ByteBuffer.allocate(0x40000);
+        encode(NO_SVP_CONTEXT, buf);
+        MAX_SIZE = buf.position() * MAX_INT_BYTES;
+    }
+
+    public static void encode(Svp_t svp, ByteBuffer buf) {
+        buf.put((byte) VERSION);
+        encodeSsp(svp.ssp1601, buf);
+        putInt(buf, IRAM_SIZE_WORDS);
+        for (int i = 0; i < IRAM_SIZE_WORDS; i++) {
+            putInt(buf, svp.iram_rom[i]);
+        }
+        putInts(buf, svp.dram);
+    }
+
+    /**
+     * @return a new context, to be loaded via {@link Ssp16#loadSvpContext}
+     */
+    public static Svp_t decode(ByteBuffer buf) {
+        int version = buf.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported SVP state version: " + version);
+        }
+        Svp_t svp = new Svp_t(new Ssp1601_t());
+        decodeSsp(buf, svp.ssp1601);
+        int len = getInt(buf);
+        for (int i = 0; i < len; i++) {
+            int v = getInt(buf);
+            if (i < IRAM_SIZE_WORDS) {
+                svp.iram_rom[i] = v;
+            }
+        }
+        getInts(buf, svp.dram);
+        return svp;
+    }
+
+    private static void encodeSsp(Ssp1601_t ssp, ByteBuffer buf) {
+        putInts(buf, ssp.mem.bank.RAM0);
+        putInts(buf, ssp.mem.bank.RAM1);
+        putInts(buf, ssp.ptr.bank.r0);
+        putInts(buf, ssp.ptr.bank.r1);
+        putInt(buf, ssp.gr.length);
+        for (Ssp_reg_t reg : ssp.gr) {
+            putInt(buf, reg.v);
+            putInt(buf, reg.l);
+            putInt(buf, reg.h);
+        }
+        putShorts(buf, ssp.stack);
+        putInt(buf, ssp.emu_status);
+        putInts(buf, ssp.pmac);
+    }
+
+    private static void decodeSsp(ByteBuffer buf, Ssp1601_t ssp) {
+        getInts(buf, ssp.mem.bank.RAM0);
+        getInts(buf, ssp.mem.bank.RAM1);
+        getInts(buf, ssp.ptr.bank.r0);
+        getInts(buf, ssp.ptr.bank.r1);
+        int len = getInt(buf);
+        for (int i = 0; i < len; i++) {
+            Ssp_reg_t reg = i < ssp.gr.length ? ssp.gr[i] : new Ssp_reg_t();
+            reg.v = getInt(buf);
+            reg.l = (short) getInt(buf);
+            reg.h = (short) getInt(buf);
+        }
+        getShorts(buf, ssp.stack);
+        ssp.emu_status = getInt(buf);
+        getInts(buf, ssp.pmac);
+    }
+}
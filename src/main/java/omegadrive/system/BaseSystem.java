@@ -27,10 +27,14 @@ import omegadrive.input.KeyboardInput;
 import omegadrive.joypad.JoypadProvider;
 import omegadrive.memory.IMemoryProvider;
 import omegadrive.savestate.BaseStateHandler;
+import omegadrive.savestate.RewindBuffer;
 import omegadrive.sound.SoundProvider;
+import omegadrive.sound.javasound.AbstractSoundManager;
+import omegadrive.sound.javasound.HeadlessSoundManager;
 import omegadrive.system.perf.Telemetry;
 import omegadrive.ui.DisplayWindow;
 import omegadrive.ui.PrefStore;
+import omegadrive.util.FileIoWorker;
 import omegadrive.util.FileLoader;
 import omegadrive.util.RegionDetector;
 import omegadrive.util.Util;
@@ -39,6 +43,7 @@ import omegadrive.vdp.model.BaseVdpProvider;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Objects;
@@ -47,6 +52,7 @@ import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseStateHandler> implements SystemProvider {
 
@@ -58,7 +64,7 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
     protected IMemoryProvider memory;
     protected BaseVdpProvider vdp;
     protected JoypadProvider joypad;
-    protected SoundProvider sound;
+    protected SoundProvider sound = SoundProvider.NO_SOUND;
     protected InputProvider inputProvider;
     protected BUS bus;
 
@@ -74,6 +80,34 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
 
     protected volatile boolean saveStateFlag = false;
     protected volatile STH stateHandler;
+    protected static final String SNAPSHOT_NAME = "snapshot";
+    //reused by snapshot()
+    private ByteBuffer snapshotBuffer;
+
+    //max wait for pending savestate/sram writes when closing the app
+    private static final long FILE_IO_FLUSH_MS = 5000;
+
+    //rewind, one snapshot per frame, see RewindBuffer
+    private static final boolean REWIND_ENABLE =
+            Boolean.valueOf(System.getProperty("helios.rewind.enable", "false"));
+    private static final int REWIND_SECONDS = Integer.parseInt(System.getProperty("helios.rewind.seconds", "60"));
+    private static final int REWIND_KEYFRAME_INTERVAL =
+            Integer.parseInt(System.getProperty("helios.rewind.keyframe.interval", "60"));
+    private static final int REWIND_MAX_MB = Integer.parseInt(System.getProperty("helios.rewind.max.mb", "64"));
+    //frames rewound by a REWIND event without parameter
+    private static final int REWIND_STEP_FRAMES =
+            Integer.parseInt(System.getProperty("helios.rewind.step.frames", "30"));
+    private RewindBuffer rewindBuffer;
+    private boolean rewindSupported = REWIND_ENABLE;
+    private volatile int rewindFrames;
+
+    //run-ahead: after each frame the next frames are emulated and discarded, only the last one is shown
+    private static final int RUN_AHEAD_FRAMES = Integer.parseInt(System.getProperty("helios.runahead.frames", "0"));
+    private int runAheadFrames = RUN_AHEAD_FRAMES;
+    private boolean runAheadSupported = runAheadFrames > 0;
+    //0 on the real timeline, otherwise the hidden frame being emulated
+    private int runAheadFrame;
+    private ByteBuffer runAheadState;
 
     private boolean vdpDumpScreenData = false;
     private volatile boolean pauseFlag = false;
@@ -81,7 +115,8 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
     protected volatile boolean softReset = false;
 
     //frame pacing stuff
-    protected Telemetry telemetry = Telemetry.getInstance();
+    protected final Telemetry telemetry = new Telemetry();
+    private final Supplier<Optional<String>> audioStatsSupplier = () -> sound.getAudioStats();
     private static final boolean fullThrottle;
     protected long elapsedWaitNs, frameProcessingDelayNs, startCycle;
     protected long targetNs, startNs = 0;
@@ -92,6 +127,8 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
 
 
     private CyclicBarrier pauseBarrier = new CyclicBarrier(2);
+    //not null when driven by a HeadlessRunner
+    private HeadlessRunner headlessRunner;
 
     static {
         fullThrottle = Boolean.valueOf(java.lang.System.getProperty("helios.fullSpeed", "false"));
@@ -115,6 +152,44 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
 
     protected abstract STH createStateHandler(Path file, BaseStateHandler.Type type);
 
+    /**
+     * In memory state handler: SAVE may reuse the buffer, LOAD reads from it.
+     *
+     * @return null when snapshots are not supported
+     */
+    protected STH createSnapshotHandler(ByteBuffer buffer, BaseStateHandler.Type type) {
+        return null;
+    }
+
+    /**
+     * Loads or saves the state, depending on the handler type.
+     */
+    protected void processState(STH handler) {
+    }
+
+    @Override
+    public ByteBuffer snapshot() {
+        STH handler = createSnapshotHandler(snapshotBuffer, BaseStateHandler.Type.SAVE);
+        if (handler == null) {
+            return SystemProvider.super.snapshot();
+        }
+        processState(handler);
+        ByteBuffer data = handler.getDataBuffer();
+        snapshotBuffer = data;
+        return data.duplicate();
+    }
+
+    @Override
+    public void restore(ByteBuffer data) {
+        //the handlers read from a view of the state, no copy
+        STH handler = createSnapshotHandler(data.slice(), BaseStateHandler.Type.LOAD);
+        if (handler == null) {
+            SystemProvider.super.restore(data);
+            return;
+        }
+        processState(handler);
+    }
+
     @Override
     public void handleSystemEvent(SystemEvent event, Object parameter) {
         LOG.info("Event: {}, with parameter: {}", event, Objects.toString(parameter));
@@ -159,6 +234,9 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
             case SOFT_RESET:
                 softReset = true;
                 break;
+            case REWIND:
+                rewindFrames += parameter instanceof Integer ? (Integer) parameter : REWIND_STEP_FRAMES;
+                break;
             default:
                 LOG.warn("Unable to handle event: {}, with parameter: {}", event, Objects.toString(parameter));
                 break;
@@ -194,16 +272,24 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
             handleCloseRom();
             sound.close();
             PrefStore.close();
+            FileIoWorker.flush(FILE_IO_FLUSH_MS);
         } catch (Exception e) {
             LOG.error("Error while closing app", e);
         }
     }
 
+    //reading and parsing happen on the I/O worker, the emulation thread only applies the state
     private void handleLoadState(Path file) {
-        stateHandler = createStateHandler(file, BaseStateHandler.Type.LOAD);
-        LOG.info("Savestate action detected: {} , using file: {}",
-                stateHandler.getType(), stateHandler.getFileName());
-        this.saveStateFlag = true;
+        FileIoWorker.submit(() -> createStateHandler(file, BaseStateHandler.Type.LOAD)).whenComplete((h, e) -> {
+            if (e != null) {
+                LOG.error("Unable to load savestate: {}", file, e);
+                return;
+            }
+            stateHandler = h;
+            LOG.info("Savestate action detected: {} , using file: {}",
+                    stateHandler.getType(), stateHandler.getFileName());
+            this.saveStateFlag = true;
+        });
     }
 
     private void handleSaveState(Path file) {
@@ -243,19 +329,11 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
         @Override
         public void run() {
             try {
-                int[] data = Util.toUnsignedIntArray(FileLoader.readBinaryFile(file, getSystemType()));
-                if (data.length == 0) {
-                    LOG.error("Unable to open/access file: {}", file.toAbsolutePath().toString());
+                Thread.currentThread().setName(threadNamePrefix + file.getFileName().toString());
+                Thread.currentThread().setPriority(Thread.NORM_PRIORITY + 1);
+                if (!loadRom(file)) {
                     return;
                 }
-                memory.setRomData(data);
-                romName = file.getFileName().toString();
-                Thread.currentThread().setName(threadNamePrefix + romName);
-                Thread.currentThread().setPriority(Thread.NORM_PRIORITY + 1);
-                emuFrame.setTitle(romName);
-                region = getRegionInternal(memory, emuFrame.getRegionOverride());
-                LOG.info("Running rom: " + romName + ", region: " + region);
-                initAfterRomLoad();
                 loop();
             } catch (Exception | Error e) {
                 e.printStackTrace();
@@ -265,6 +343,39 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
         }
     }
 
+    boolean loadRom(Path file) {
+        int[] data = Util.toUnsignedIntArray(FileLoader.readBinaryFile(file, getSystemType()));
+        if (data.length == 0) {
+            LOG.error("Unable to open/access file: {}", file.toAbsolutePath().toString());
+            return false;
+        }
+        this.romFile = file;
+        memory.setRomData(data);
+        romName = file.getFileName().toString();
+        emuFrame.setTitle(romName);
+        region = getRegionInternal(memory, emuFrame.getRegionOverride());
+        LOG.info("Running rom: " + romName + ", region: " + region);
+        initAfterRomLoad();
+        return true;
+    }
+
+    protected SoundProvider createSoundProvider(SystemLoader.SystemType systemType) {
+        return headlessRunner != null ? HeadlessSoundManager.createSoundProvider(systemType, region) :
+                AbstractSoundManager.createSoundProvider(systemType, region);
+    }
+
+    /**
+     * HeadlessRunner only, between steps: overrides helios.runahead.frames.
+     */
+    void setRunAheadFrames(int frames) {
+        runAheadFrames = frames;
+        resetRunAhead();
+    }
+
+    void setHeadlessRunner(HeadlessRunner headlessRunner) {
+        this.headlessRunner = headlessRunner;
+    }
+
     protected void pauseAndWait() {
         if (!pauseFlag) {
             return;
@@ -314,6 +425,8 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
             sound.reset();
             bus.closeRom();
             telemetry.reset();
+            closeRewind();
+            resetRunAhead();
             Optional.ofNullable(vdp).ifPresent(Device::reset);
         }
     }
@@ -328,16 +441,30 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
     }
 
     protected void newFrame() {
+        if (headlessRunner != null) {
+            newFrameHeadless();
+            return;
+        }
+        if (isRunAheadFrameHidden()) {
+            newFrameRunAhead();
+            return;
+        }
         long tstamp = System.nanoTime();
         updateVideoMode(false);
         renderScreenLinearInternal(vdp.getScreenDataLinear(), getStats(startCycle));
         handleVdpDumpScreenData();
         long startWaitNs = System.nanoTime();
         elapsedWaitNs = syncCycle(startCycle) - startWaitNs;
-        processSaveState();
         pauseAndWait();
         resetCycleCounters(counter);
         counter = 0;
+        //states are loaded at cycle 0, see Genesis::loadTiming
+        if (runAheadFrame > 0) {
+            endRunAhead();
+        } else {
+            processSaveState();
+            processRewind();
+        }
         startCycle = System.nanoTime();
         frameProcessingDelayNs = startCycle - tstamp - elapsedWaitNs;
         futureDoneFlag = runningRomFuture.isDone();
@@ -345,13 +472,127 @@ public abstract class BaseSystem<BUS extends BaseBusProvider, STH extends BaseSt
 //        LOG.info("{}, {}", elapsedWaitNs, frameProcessingDelayNs);
     }
 
+    //no rendering, no pacing: the runner decides when to stop
+    private void newFrameHeadless() {
+        if (isRunAheadFrameHidden()) {
+            newFrameRunAhead();
+            return;
+        }
+        updateVideoMode(false);
+        resetCycleCounters(counter);
+        counter = 0;
+        if (runAheadFrame == 0) {
+            processSaveState();
+            processRewind();
+        }
+        futureDoneFlag = headlessRunner.onNewFrame(vdp.getScreenDataLinear(), videoMode);
+        if (runAheadFrame > 0) {
+            endRunAhead();
+        }
+        handleSoftReset();
+    }
+
+    private boolean isRunAheadFrameHidden() {
+        return runAheadSupported && runAheadFrame < runAheadFrames;
+    }
+
+    /**
+     * A frame that is not shown: the end of a real frame, where the hidden frames start from,
+     * or a hidden frame before the last one.
+     * No pacing here, the frame is paced when the last hidden frame is shown.
+     */
+    private void newFrameRunAhead() {
+        updateVideoMode(false);
+        resetCycleCounters(counter);
+        counter = 0;
+        if (runAheadFrame == 0) {
+            processSaveState();
+            processRewind();
+            startRunAhead();
+        } else {
+            runAheadFrame++;
+            vdp.setRenderEnabled(runAheadFrame == runAheadFrames);
+        }
+        if (headlessRunner == null) {
+            futureDoneFlag = runningRomFuture.isDone();
+        }
+    }
+
+    private void startRunAhead() {
+        try {
+            runAheadState = snapshot();
+        } catch (UnsupportedOperationException e) {
+            LOG.warn("Run-ahead not supported for: {}", getSystemType());
+            runAheadSupported = false;
+            return;
+        }
+        sound.setHiddenFrame(true);
+        vdp.setRenderEnabled(runAheadFrames == 1);
+        runAheadFrame = 1;
+    }
+
+    //the last hidden frame has been shown, back to the real timeline
+    private void endRunAhead() {
+        //restore while still hidden, the PSG is not reset
+        restore(runAheadState);
+        sound.setHiddenFrame(false);
+        vdp.setRenderEnabled(false);
+        runAheadFrame = 0;
+    }
+
+    /**
+     * Restores a previous frame when a rewind has been requested, otherwise stores the current one.
+     */
+    private void processRewind() {
+        if (!rewindSupported) {
+            return;
+        }
+        int frames = rewindFrames;
+        if (frames > 0 && rewindBuffer != null) {
+            rewindFrames = 0;
+            rewindBuffer.rewind(frames).ifPresent(this::restore);
+            return;
+        }
+        try {
+            ByteBuffer state = snapshot();
+            if (rewindBuffer == null) {
+                rewindBuffer = new RewindBuffer(REWIND_SECONDS * 60, REWIND_KEYFRAME_INTERVAL,
+                        REWIND_MAX_MB * 1024L * 1024L);
+            }
+            rewindBuffer.capture(state);
+        } catch (UnsupportedOperationException e) {
+            LOG.warn("Rewind not supported for: {}", getSystemType());
+            rewindSupported = false;
+        }
+    }
+
+    private void resetRunAhead() {
+        if (runAheadFrame > 0) {
+            sound.setHiddenFrame(false);
+        }
+        runAheadFrame = 0;
+        runAheadSupported = runAheadFrames > 0;
+        Optional.ofNullable(vdp).ifPresent(v -> v.setRenderEnabled(true));
+    }
+
+    private void closeRewind() {
+        rewindFrames = 0;
+        if (rewindBuffer != null) {
+            rewindBuffer.close();
+            rewindBuffer = null;
+        }
+    }
+
     protected Optional<String> getStats(long nowNs) {
         if (!SystemLoader.showFps) {
             return Optional.empty();
         }
 
         lastFps = (1.0 * Util.SECOND_IN_NS) / ((nowNs - startNs));
-        telemetry.newFrame(lastFps, driftNs / 1000d).ifPresent(st -> stats = Optional.of(st));
+        if (Telemetry.enable) {
+            sound.addTelemetrySamples(telemetry);
+        }
+        telemetry.newFrame(lastFps, driftNs / 1000d, audioStatsSupplier).ifPresent(st -> stats = Optional.of(st));
         startNs = nowNs;
         return stats;
     }
@@ -22,9 +22,9 @@ package omegadrive.system;
 import omegadrive.SystemLoader;
 import omegadrive.bus.gen.GenesisBus;
 import omegadrive.bus.gen.GenesisBusProvider;
-import omegadrive.bus.gen.SvpMapper;
 import omegadrive.input.InputProvider;
 import omegadrive.joypad.GenesisJoypad;
+import omegadrive.m68k.M68kIdleLoopDetector;
 import omegadrive.m68k.M68kProvider;
 import omegadrive.m68k.MC68000Wrapper;
 import omegadrive.memory.IMemoryProvider;
@@ -32,7 +32,7 @@ import omegadrive.memory.MemoryProvider;
 import omegadrive.savestate.BaseStateHandler;
 import omegadrive.savestate.GenesisStateHandler;
 import omegadrive.sound.SoundProvider;
-import omegadrive.sound.javasound.AbstractSoundManager;
+import omegadrive.ssp16.Ssp16;
 import omegadrive.system.perf.GenesisPerf;
 import omegadrive.ui.DisplayWindow;
 import omegadrive.util.RegionDetector;
@@ -44,6 +44,7 @@ import omegadrive.z80.Z80Provider;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 
 /**
@@ -51,7 +52,7 @@ import java.nio.file.Path;
  * <p>
  * MEMORY MAP:	https://en.wikibooks.org/wiki/Genesis_Programming
  */
-public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler> {
+public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler> implements MainCycleSystem {
 
     public final static boolean verbose = false;
     //NTSC_MCLOCK_MHZ = 53693175;
@@ -70,6 +71,16 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
     protected double nextVdpCycle = vdpVals[0];
     private int next68kCycle = M68K_DIVIDER;
     private int nextZ80Cycle = Z80_DIVIDER;
+    //only Virtua Racing has an SVP, the other carts never schedule it
+    private boolean svp;
+    private long stopSkippedCycles;
+    private boolean idleDetection;
+    //z80 idle loop iterations credited in advance, from z80SkipStart to nextZ80Cycle
+    private boolean z80Skipping;
+    private int z80SkipStart, z80SkipLoopTicks;
+    //68k idle loop iterations credited in advance, from m68kSkipStart to next68kCycle
+    private boolean m68kSkipping;
+    private int m68kSkipStart, m68kSkipLoopTicks;
     //fm emulation
     private double microsPerTick = 1;
 
@@ -101,6 +112,8 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
 
         bus.attachDevice(this).attachDevice(memory).attachDevice(joypad).attachDevice(vdp).
                 attachDevice(cpu).attachDevice(z80);
+        //the SVP mapper is attached on the first access to its registers, the page table changes then
+        bus.addMemoryMapListener((pageTable, romData, ramData) -> updateSvp());
         reloadWindowState();
         createAndAddVdpEventListener();
     }
@@ -109,29 +122,74 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
     static final int SVP_RUN_CYCLES = (int) (SVP_CYCLES * 1.5);
 
 
+    /**
+     * Event driven loop: instead of advancing the master clock one tick at a time, jump straight
+     * to the earliest pending device deadline; devices are still serviced in the same order
+     * (68k, Z80, FM, VDP, SVP) when more than one deadline falls on the same tick.
+     */
     protected void loop() {
         LOG.info("Starting game loop");
-        updateVideoMode(true);
-        int cnt;
-
+        initLoop();
         try {
-            do {
-                cnt = counter;
-                run68k(cnt);
-                runZ80(cnt);
-                runFM(cnt);
-                runVdp(cnt);
-                if (cnt % SVP_CYCLES == 0) {
-                    SvpMapper.ssp16.ssp1601_run(SVP_RUN_CYCLES);
-                }
-                counter++;
-            } while (!futureDoneFlag);
+            runCycles();
         } catch (Exception e) {
             LOG.error("Error main cycle", e);
         }
+        LOG.info("68k cycles skipped, idle loops: {}, stopped: {}", cpu.getSkippedCycles(), stopSkippedCycles);
+        LOG.info("Z80 T-states skipped, idle loops: {}", z80.getSkippedCycles());
         LOG.info("Exiting rom thread loop");
     }
 
+    @Override
+    public void initLoop() {
+        updateVideoMode(true);
+    }
+
+    @Override
+    public void runCycles() {
+        int cnt;
+        do {
+            cnt = counter;
+            run68k(cnt);
+            runZ80(cnt);
+            runFM(cnt);
+            runVdp(cnt);
+            if (svp) {
+                runSvp(cnt);
+            }
+            //NOTE: runVdp can start a new frame and reset the counter
+            counter = nextCycle(counter);
+        } while (!futureDoneFlag);
+    }
+
+    /**
+     * Returns the earliest master clock tick, strictly after the current one, where at least one device is due.
+     * The ticks in between are the ones the per-tick loop would spend doing nothing.
+     */
+    protected final int nextCycle(int counter) {
+        int next = nextMultiple(counter, FM_DIVIDER);
+        next = svp ? Math.min(next, nextMultiple(counter, SVP_CYCLES)) : next;
+        next = next68kCycle > counter ? Math.min(next, next68kCycle) : next;
+        next = nextZ80Cycle > counter ? Math.min(next, nextZ80Cycle) : next;
+        int vdpCycle = (int) Math.ceil(nextVdpCycle);
+        next = vdpCycle > counter ? Math.min(next, vdpCycle) : next;
+        return next;
+    }
+
+    private static int nextMultiple(int counter, int divider) {
+        return (counter / divider + 1) * divider;
+    }
+
+    private void updateSvp() {
+        svp = bus.getSsp16() != Ssp16.NO_SVP;
+    }
+
+    protected final void runSvp(int counter) {
+        if (counter % SVP_CYCLES == 0) {
+            bus.getSsp16().ssp1601_run(SVP_RUN_CYCLES);
+        }
+    }
+
     protected final void runVdp(int counter) {
         if (counter >= nextVdpCycle) {
             int vdpMclk = vdp.runSlot();
@@ -144,8 +202,23 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
             boolean isRunning = bus.is68kRunning();
             boolean canRun = !cpu.isStopped() && isRunning;
             int cycleDelay = 1;
+            //waiting for an interrupt, nothing changes before the tick after the next vdp slot
+            int idleCycles = ((int) Math.ceil(nextVdpCycle) + 1 - counter) / M68K_DIVIDER;
+            m68kSkipping = false;
             if (canRun) {
-                cycleDelay = cpu.runInstruction();
+                int loopCycles = cpu.getIdleLoopCycles();
+                cycleDelay = loopCycles > 0 ? cpu.skipIdleCycles(get68kIdleCycles(counter)) : 0;
+                if (cycleDelay == 0) {
+                    cycleDelay = cpu.runInstruction();
+                } else {
+                    m68kSkipping = cycleDelay > loopCycles;
+                    m68kSkipStart = counter;
+                    m68kSkipLoopTicks = M68K_DIVIDER * loopCycles;
+                }
+            } else if (isRunning && bus.is68kInterruptIdle()) {
+                //STOP
+                cycleDelay = Math.max(1, idleCycles);
+                stopSkippedCycles += cycleDelay - 1;
             }
             //interrupts are processed after the current instruction
             //TODO check: interrupt shouldnt be processed when 68k is frozen but are
@@ -153,6 +226,9 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
             if (isRunning) {
                 bus.handleVdpInterrupts68k();
             }
+            if (z80Skipping && !bus.isZ80Running()) {
+                cancelZ80Skip(counter);
+            }
             cycleDelay = Math.max(1, cycleDelay);
             next68kCycle += M68K_DIVIDER * cycleDelay;
         }
@@ -162,15 +238,60 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
         if (counter == nextZ80Cycle) {
             int cycleDelay = 0;
             boolean running = bus.isZ80Running();
+            z80Skipping = false;
             if (running) {
-                cycleDelay = z80.executeInstruction();
-                bus.handleVdpInterruptsZ80();
+                int loopCycles = z80.getIdleLoopCycles();
+                if (loopCycles > 0) {
+                    bus.handleVdpInterruptsZ80();
+                    cycleDelay = z80.skipIdleCycles(getZ80IdleCycles());
+                    z80Skipping = cycleDelay > loopCycles;
+                    z80SkipStart = counter;
+                    z80SkipLoopTicks = Z80_DIVIDER * loopCycles;
+                } else {
+                    cycleDelay = z80.executeInstruction();
+                    bus.handleVdpInterruptsZ80();
+                    if (m68kSkipping && (!bus.is68kRunning() || cpu.getIdleLoopCycles() == 0)) {
+                        cancel68kSkip(counter);
+                    }
+                }
             }
             cycleDelay = Math.max(1, cycleDelay);
             nextZ80Cycle += Z80_DIVIDER * cycleDelay;
         }
     }
 
+    //the vdp slot that can raise the z80 interrupt runs after the z80, assume the fast slots
+    private int getZ80IdleCycles() {
+        int slots = vdp.getSlotsToNextLineEvent();
+        return slots == 0 ? 0 : ((int) (nextVdpCycle + (slots - 1) * vdpVals[0]) - nextZ80Cycle) / Z80_DIVIDER;
+    }
+
+    //the vdp slot that can raise the 68k interrupt runs after the 68k, assume the fast slots
+    private int get68kIdleCycles(int counter) {
+        int slots = Math.max(1, vdp.getSlotsToNextLineEvent());
+        return ((int) Math.ceil(nextVdpCycle + (slots - 1) * vdpVals[0]) + 1 - counter) / M68K_DIVIDER;
+    }
+
+    //the z80 has woken up (vdp registers, 68k RAM) or frozen (dma) the 68k during a skip, the 68k
+    //is due on the first iteration that had not started yet, the current one started before the z80 ran
+    private void cancel68kSkip(int counter) {
+        int elapsed = (counter - m68kSkipStart) / m68kSkipLoopTicks + 1;
+        int next = m68kSkipStart + elapsed * m68kSkipLoopTicks;
+        cpu.cancelIdleCycles((next68kCycle - next) / M68K_DIVIDER);
+        next68kCycle = next;
+        m68kSkipping = false;
+    }
+
+    //the 68k has stopped the z80 (bus request, reset) during a skip, the z80 is due on
+    //the first iteration that had not started yet
+    private void cancelZ80Skip(int counter) {
+        int elapsed = (counter - z80SkipStart + z80SkipLoopTicks - 1) / z80SkipLoopTicks;
+        int next = z80SkipStart + elapsed * z80SkipLoopTicks;
+        z80.cancelIdleCycles((nextZ80Cycle - next) / Z80_DIVIDER);
+        nextZ80Cycle = next;
+        z80Skipping = false;
+    }
+
     protected final void runFM(int counter) {
         if (counter % FM_DIVIDER == 0) {
             bus.getFm().tick(microsPerTick);
@@ -200,20 +321,74 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
                 GenesisStateHandler.createSaveInstance(fileName);
     }
 
+    @Override
+    protected GenesisStateHandler createSnapshotHandler(ByteBuffer buffer, BaseStateHandler.Type type) {
+        return type == BaseStateHandler.Type.LOAD ?
+                GenesisStateHandler.createLoadInstance(SNAPSHOT_NAME, buffer) :
+                GenesisStateHandler.createSaveInstance(SNAPSHOT_NAME, buffer);
+    }
+
     @Override
     protected void processSaveState() {
         if (saveStateFlag) {
-            stateHandler.processState(vdp, z80, bus, sound, cpu, memory);
+            processState(stateHandler);
             if (stateHandler.getType() == GenesisStateHandler.Type.SAVE) {
                 stateHandler.storeData();
-            } else {
-                sound.getPsg().reset();
             }
             stateHandler = GenesisStateHandler.EMPTY_STATE;
             saveStateFlag = false;
         }
     }
 
+    @Override
+    protected void processState(GenesisStateHandler handler) {
+        handler.processState(vdp, z80, bus, sound, cpu, memory);
+        if (handler.getType() == GenesisStateHandler.Type.SAVE) {
+            handler.saveTiming(saveTiming());
+        } else {
+            loadTiming(handler.loadTiming());
+        }
+        if (handler.getType() == GenesisStateHandler.Type.LOAD) {
+            //the cpu state has changed, the loops rejected so far stay rejected
+            cpu.resetIdleLoop();
+            sound.getPsg().reset();
+        }
+    }
+
+    //relative to the current cycle, a state can be saved and loaded at different points of a frame
+    private double[] saveTiming() {
+        //the 68k skip is stored from the last iteration boundary, it doesn't depend on when the loop
+        //has been detected, ie. before or after a savestate load
+        boolean skipping = false;
+        int skipStart = counter, skipLoopTicks = 0;
+        if (m68kSkipping) {
+            skipStart = m68kSkipStart + (counter - m68kSkipStart) / m68kSkipLoopTicks * m68kSkipLoopTicks;
+            skipping = next68kCycle - skipStart > m68kSkipLoopTicks;
+            skipLoopTicks = skipping ? m68kSkipLoopTicks : 0;
+            skipStart = skipping ? skipStart : counter;
+        }
+        return new double[]{next68kCycle - counter, nextZ80Cycle - counter, nextVdpCycle - counter,
+                z80Skipping ? 1 : 0, z80SkipStart - counter, z80SkipLoopTicks,
+                skipping ? 1 : 0, skipStart - counter, skipLoopTicks};
+    }
+
+    private void loadTiming(double[] timing) {
+        if (timing.length < 6) {
+            return;
+        }
+        next68kCycle = counter + (int) timing[0];
+        nextZ80Cycle = counter + (int) timing[1];
+        nextVdpCycle = counter + timing[2];
+        z80Skipping = timing[3] > 0;
+        z80SkipStart = counter + (int) timing[4];
+        z80SkipLoopTicks = (int) timing[5];
+        m68kSkipping = timing.length > 8 && timing[6] > 0;
+        if (m68kSkipping) {
+            m68kSkipStart = counter + (int) timing[7];
+            m68kSkipLoopTicks = (int) timing[8];
+        }
+    }
+
     @Override
     protected RegionDetector.Region getRegionInternal(IMemoryProvider memory, String regionOvr) {
         RegionDetector.Region romRegion = RegionDetector.detectRegion(memory);
@@ -228,16 +403,23 @@ public class Genesis extends BaseSystem<GenesisBusProvider, GenesisStateHandler>
     @Override
     protected void resetCycleCounters(int counter) {
         nextZ80Cycle -= counter;
+        z80SkipStart -= counter;
+        m68kSkipStart -= counter;
         next68kCycle -= counter;
         nextVdpCycle -= counter;
     }
 
     @Override
     protected void initAfterRomLoad() {
-        sound = AbstractSoundManager.createSoundProvider(getSystemType(), region);
+        idleDetection = M68kIdleLoopDetector.ENABLE && !M68kIdleLoopDetector.isBlacklisted(getRomName());
+        LOG.info("68k idle loop detection: {}", idleDetection);
+        cpu.setIdleDetection(idleDetection);
+        sound = createSoundProvider(getSystemType());
         bus.attachDevice(sound);
         vdp.addVdpEventListener(sound);
         resetAfterRomLoad();
+        updateSvp();
+        LOG.info("SVP: {}", svp);
     }
 
     @Override
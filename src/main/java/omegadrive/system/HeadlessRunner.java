@@ -0,0 +1,180 @@
+/*
+ * HeadlessRunner
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 10:12
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system;
+
+import omegadrive.SystemLoader;
+import omegadrive.joypad.JoypadProvider;
+import omegadrive.sound.javasound.HeadlessSoundManager;
+import omegadrive.ui.DisplayWindow;
+import omegadrive.util.VideoMode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Drives a system programmatically, frame by frame, on the calling thread.
+ * <p>
+ * No DisplayWindow, no audio line and no frame pacing: the emulation runs as fast as the host allows.
+ * Each runner owns its system, several runners can be used concurrently from different threads.
+ * <p>
+ * Supports the systems with a native main loop (see {@link MainCycleSystem}): Genesis, SMS, GG, SG-1000,
+ * Coleco and MSX.
+ * <p>
+ * Usage:
+ * <pre>
+ * HeadlessRunner runner = HeadlessRunner.createInstance(romPath);
+ * HeadlessRunner.FrameData fd = runner.step(60, (frame, joypad) -> joypad.setButtonAction(...));
+ * runner.close();
+ * </pre>
+ */
+public class HeadlessRunner {
+
+    private final static Logger LOG = LogManager.getLogger(HeadlessRunner.class.getSimpleName());
+
+    public static final FrameInput NO_INPUT = (frame, joypad) -> {
+    };
+
+    /**
+     * Called before each emulated frame, on the thread invoking step().
+     */
+    public interface FrameInput {
+        void onFrame(long frameNumber, JoypadProvider joypad);
+    }
+
+    public static class FrameData {
+        public final int[] screen;
+        public final VideoMode videoMode;
+        //16 bit signed, stereo, little endian, see AbstractSoundManager.audioFormat
+        public final byte[] audio;
+        public final long frameNumber;
+
+        FrameData(int[] screen, VideoMode videoMode, byte[] audio, long frameNumber) {
+            this.screen = screen;
+            this.videoMode = videoMode;
+            this.audio = audio;
+            this.frameNumber = frameNumber;
+        }
+    }
+
+    private final BaseSystem<?, ?> system;
+    private final MainCycleSystem mainCycle;
+    private boolean loopReady;
+    private FrameInput frameInput = NO_INPUT;
+    private long frameCounter;
+    private int framesToRun;
+    private int[] screen = new int[0];
+    private VideoMode videoMode;
+
+    private <S extends BaseSystem<?, ?> & MainCycleSystem> HeadlessRunner(S system) {
+        this.system = system;
+        this.mainCycle = system;
+    }
+
+    public static HeadlessRunner createInstance(Path romFile) {
+        SystemProvider sp = SystemLoader.createSystemProvider(romFile, DisplayWindow.HEADLESS_INSTANCE, false);
+        if (!(sp instanceof MainCycleSystem)) {
+            throw new IllegalArgumentException("Unsupported system for: " + romFile.toAbsolutePath());
+        }
+        HeadlessRunner runner = new HeadlessRunner((BaseSystem<?, ?> & MainCycleSystem) sp);
+        runner.system.setHeadlessRunner(runner);
+        runner.system.init();
+        if (!runner.system.loadRom(romFile)) {
+            throw new IllegalArgumentException("Unable to load: " + romFile.toAbsolutePath());
+        }
+        LOG.info("Headless runner ready: {}", runner.system.getRomName());
+        return runner;
+    }
+
+    public FrameData step(int frames) {
+        return step(frames, NO_INPUT);
+    }
+
+    /**
+     * Runs the given number of frames and returns the last screen and all the audio generated.
+     * Any error raised by the emulation is propagated to the caller.
+     */
+    public FrameData step(int frames, FrameInput frameInput) {
+        if (frames <= 0) {
+            throw new IllegalArgumentException("Invalid number of frames: " + frames);
+        }
+        this.frameInput = frameInput;
+        this.framesToRun = frames;
+        frameInput.onFrame(frameCounter, system.joypad);
+        runMainCycle();
+        byte[] audio = system.sound instanceof HeadlessSoundManager ?
+                ((HeadlessSoundManager) system.sound).drainSamples() : new byte[0];
+        return new FrameData(screen, videoMode, audio, frameCounter);
+    }
+
+    /**
+     * Runs until onNewFrame asks to stop.
+     * The main cycle is entered directly: no loop logging and errors are propagated to the caller.
+     */
+    private void runMainCycle() {
+        if (!loopReady) {
+            mainCycle.initLoop();
+            loopReady = true;
+        }
+        system.futureDoneFlag = false;
+        mainCycle.runCycles();
+    }
+
+    /**
+     * Called by the system at the end of each frame, returns true when the runner should stop.
+     */
+    boolean onNewFrame(int[] screenData, VideoMode videoMode) {
+        frameCounter++;
+        framesToRun--;
+        if (system.sound instanceof HeadlessSoundManager) {
+            ((HeadlessSoundManager) system.sound).mixFrame();
+        }
+        if (framesToRun > 0) {
+            frameInput.onFrame(frameCounter, system.joypad);
+            return false;
+        }
+        //the caller owns the returned screen buffer
+        screen = Arrays.copyOf(screenData, screenData.length);
+        this.videoMode = videoMode;
+        return true;
+    }
+
+    /**
+     * Overrides helios.runahead.frames, 0 disables run-ahead.
+     */
+    public void setRunAheadFrames(int frames) {
+        system.setRunAheadFrames(frames);
+    }
+
+    public SystemProvider getSystemProvider() {
+        return system;
+    }
+
+    public long getFrameCounter() {
+        return frameCounter;
+    }
+
+    public void close() {
+        system.sound.close();
+        system.bus.closeRom();
+        LOG.info("Headless runner closed: {}", system.getRomName());
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * MainCycleSystem
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 12:47
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system;
+
+/**
+ * A system with a native main cycle that can be entered directly, ie. by a HeadlessRunner.
+ */
+interface MainCycleSystem {
+
+    /**
+     * Sets up the main cycle, called once before the first call to runCycles.
+     */
+    void initLoop();
+
+    /**
+     * Runs the main cycle until futureDoneFlag is set, exceptions are propagated to the caller.
+     */
+    void runCycles();
+}
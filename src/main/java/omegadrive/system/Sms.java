@@ -29,7 +29,6 @@ import omegadrive.memory.MemoryProvider;
 import omegadrive.savestate.BaseStateHandler;
 import omegadrive.savestate.MekaStateHandler;
 import omegadrive.savestate.SmsStateHandler;
-import omegadrive.sound.javasound.AbstractSoundManager;
 import omegadrive.system.perf.SmsPerf;
 import omegadrive.ui.DisplayWindow;
 import omegadrive.util.RegionDetector;
@@ -40,9 +39,10 @@ import omegadrive.z80.Z80Provider;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 
-public class Sms extends BaseSystem<Z80BusProvider, SmsStateHandler> {
+public class Sms extends BaseSystem<Z80BusProvider, SmsStateHandler> implements MainCycleSystem {
 
     private static Logger LOG = LogManager.getLogger(Sms.class.getSimpleName());
 
@@ -113,20 +113,40 @@ public class Sms extends BaseSystem<Z80BusProvider, SmsStateHandler> {
     @Override
     protected void loop() {
         LOG.info("Starting game loop");
+        initLoop();
+        try {
+            runCycles();
+        } catch (Exception e) {
+            LOG.error("Error main cycle", e);
+        }
+        LOG.info("Z80 T-states skipped, idle loops: {}", z80.getSkippedCycles());
+        LOG.info("Exiting rom thread loop");
+    }
+
+    @Override
+    public void initLoop() {
         targetNs = (long) (region.getFrameIntervalMs() * Util.MILLI_IN_NS);
+    }
 
+    @Override
+    public void runCycles() {
         do {
-            try {
-                runZ80(counter);
-                runVdp(counter);
-                runFM(counter);
-                counter++;
-            } catch (Exception e) {
-                LOG.error("Error main cycle", e);
-                break;
-            }
-        } while (!runningRomFuture.isDone());
-        LOG.info("Exiting rom thread loop");
+            runZ80(counter);
+            runVdp(counter);
+            runFM(counter);
+            //NOTE: runVdp can start a new frame and reset the counter
+            counter = nextCycle(counter);
+        } while (!futureDoneFlag);
+    }
+
+    /**
+     * Earliest tick, strictly after the current one, where the Z80, the VDP or the FM are due.
+     */
+    protected int nextCycle(int counter) {
+        int next = ((counter + 1) / FM_DIVIDER + 1) * FM_DIVIDER - 1;
+        next = nextZ80Cycle > counter ? Math.min(next, nextZ80Cycle) : next;
+        next = nextVdpCycle > counter ? Math.min(next, nextVdpCycle) : next;
+        return next;
     }
 
     @Override
@@ -136,7 +156,7 @@ public class Sms extends BaseSystem<Z80BusProvider, SmsStateHandler> {
 
     @Override
     protected void initAfterRomLoad() {
-        sound = AbstractSoundManager.createSoundProvider(systemType, region);
+        sound = createSoundProvider(systemType);
         z80 = Z80CoreWrapper.createInstance(bus);
         bus.attachDevice(sound).attachDevice(z80);
         vdp.addVdpEventListener(sound);
@@ -158,20 +178,33 @@ public class Sms extends BaseSystem<Z80BusProvider, SmsStateHandler> {
     }
 
 
+    @Override
+    protected SmsStateHandler createSnapshotHandler(ByteBuffer buffer, BaseStateHandler.Type type) {
+        return type == BaseStateHandler.Type.LOAD ?
+                MekaStateHandler.createLoadInstance(SNAPSHOT_NAME, buffer) :
+                MekaStateHandler.createSaveInstance(SNAPSHOT_NAME, systemType, buffer);
+    }
+
     @Override
     protected void processSaveState() {
         if (saveStateFlag) {
-            stateHandler.processState((SmsVdp) vdp, z80, (SmsBus) bus, memory);
+            processState(stateHandler);
             if (stateHandler.getType() == BaseStateHandler.Type.SAVE) {
                 stateHandler.storeData();
-            } else {
-                sound.getPsg().reset();
             }
             stateHandler = SmsStateHandler.EMPTY_STATE;
             saveStateFlag = false;
         }
     }
 
+    @Override
+    protected void processState(SmsStateHandler handler) {
+        handler.processState((SmsVdp) vdp, z80, (SmsBus) bus, memory);
+        if (handler.getType() == BaseStateHandler.Type.LOAD) {
+            sound.getPsg().reset();
+        }
+    }
+
     @Override
     protected void resetCycleCounters(int counter) {
         nextZ80Cycle -= counter;
@@ -187,13 +220,25 @@ public class Sms extends BaseSystem<Z80BusProvider, SmsStateHandler> {
 
     protected void runZ80(long counter) {
         if (counter == nextZ80Cycle) {
-            int cycleDelay = z80.executeInstruction();
-            handleMaskableInterrupts();
+            int cycleDelay;
+            if (z80.getIdleLoopCycles() > 0) {
+                handleMaskableInterrupts();
+                cycleDelay = z80.skipIdleCycles(getZ80IdleCycles());
+            } else {
+                cycleDelay = z80.executeInstruction();
+                handleMaskableInterrupts();
+            }
             cycleDelay = Math.max(1, cycleDelay);
             nextZ80Cycle += Z80_DIVIDER * cycleDelay;
         }
     }
 
+    //the vdp slot that can raise an interrupt runs after the z80 on the same tick
+    private int getZ80IdleCycles() {
+        int slots = vdp.getSlotsToNextLineEvent();
+        return slots == 0 ? 0 : (nextVdpCycle + (slots - 1) * VDP_DIVIDER - nextZ80Cycle) / Z80_DIVIDER;
+    }
+
     protected void runFM(int counter) {
         if ((counter + 1) % FM_DIVIDER == 0) {
             sound.getFm().tick(0);
@@ -23,6 +23,8 @@ import omegadrive.Device;
 import omegadrive.SystemLoader;
 import omegadrive.util.RegionDetector;
 
+import java.nio.ByteBuffer;
+
 public interface SystemProvider extends Device {
 
     void handleSystemEvent(SystemEvent event, Object parameter);
@@ -43,6 +45,27 @@ public interface SystemProvider extends Device {
 
     SystemLoader.SystemType getSystemType();
 
+    /**
+     * SNAPSHOT
+     * In memory savestate, to be called between frames: on the emulation thread (ie. from a frame callback)
+     * or when the system is not running (ie. between HeadlessRunner steps).
+     **/
+
+    /**
+     * @return the state from position 0 to the limit, the backing buffer is reused by the next snapshot
+     */
+    default ByteBuffer snapshot() {
+        throw new UnsupportedOperationException("Snapshot not supported: " + getSystemType());
+    }
+
+    default void restore(ByteBuffer data) {
+        throw new UnsupportedOperationException("Snapshot not supported: " + getSystemType());
+    }
+
+    default void restore(byte[] data) {
+        restore(ByteBuffer.wrap(data));
+    }
+
     enum SystemEvent {
         NONE,
         NEW_ROM,
@@ -61,6 +84,7 @@ public interface SystemProvider extends Device {
         TOGGLE_DEBUG_LOGGING,
         SET_DEBUG_UI,
         TOGGLE_SOUND_RECORD,
-        SOFT_RESET
+        SOFT_RESET,
+        REWIND
     }
 }
@@ -31,7 +31,6 @@ import omegadrive.joypad.TwoButtonsJoypad;
 import omegadrive.memory.IMemoryProvider;
 import omegadrive.memory.MemoryProvider;
 import omegadrive.savestate.BaseStateHandler;
-import omegadrive.sound.javasound.AbstractSoundManager;
 import omegadrive.ui.DisplayWindow;
 import omegadrive.util.RegionDetector;
 import omegadrive.util.Util;
@@ -44,7 +43,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.nio.file.Path;
 
-public class Z80BaseSystem extends BaseSystem<Z80BusProvider, BaseStateHandler> {
+public class Z80BaseSystem extends BaseSystem<Z80BusProvider, BaseStateHandler> implements MainCycleSystem {
 
     private static Logger LOG = LogManager.getLogger(Z80BaseSystem.class.getSimpleName());
 
@@ -116,25 +115,43 @@ public class Z80BaseSystem extends BaseSystem<Z80BusProvider, BaseStateHandler>
     @Override
     protected void loop() {
         LOG.info("Starting game loop");
+        initLoop();
+        try {
+            runCycles();
+        } catch (Exception e) {
+            LOG.error("Error main cycle", e);
+        }
+        LOG.info("Z80 T-states skipped, idle loops: {}", z80.getSkippedCycles());
+        LOG.info("Exiting rom thread loop");
+    }
+
+    @Override
+    public void initLoop() {
         targetNs = (long) (region.getFrameIntervalMs() * Util.MILLI_IN_NS);
         updateVideoMode(true);
+    }
 
+    @Override
+    public void runCycles() {
         do {
-            try {
-                runZ80(counter);
-                runVdp(counter);
-                counter++;
-            } catch (Exception e) {
-                LOG.error("Error main cycle", e);
-                break;
-            }
-        } while (!runningRomFuture.isDone());
-        LOG.info("Exiting rom thread loop");
+            runZ80(counter);
+            runVdp(counter);
+            //NOTE: runVdp can start a new frame and reset the counter
+            counter = nextCycle(counter);
+        } while (!futureDoneFlag);
+    }
+
+    /**
+     * Earliest tick, strictly after the current one, where the Z80 or the VDP (odd ticks) are due.
+     */
+    private int nextCycle(int counter) {
+        int next = counter + ((counter & 1) == 0 ? 1 : 2);
+        return nextZ80Cycle > counter ? Math.min(next, nextZ80Cycle) : next;
     }
 
     @Override
     protected void initAfterRomLoad() {
-        sound = AbstractSoundManager.createSoundProvider(systemType, region);
+        sound = createSoundProvider(systemType);
         z80 = Z80CoreWrapper.createInstance(bus);
         bus.attachDevice(sound).attachDevice(z80);
 
@@ -196,13 +213,25 @@ public class Z80BaseSystem extends BaseSystem<Z80BusProvider, BaseStateHandler>
 
     private void runZ80(long counter) {
         if (counter == nextZ80Cycle) {
-            int cycleDelay = z80.executeInstruction();
-            handleInterrupt();
+            int cycleDelay;
+            if (z80.getIdleLoopCycles() > 0) {
+                handleInterrupt();
+                cycleDelay = z80.skipIdleCycles(getZ80IdleCycles());
+            } else {
+                cycleDelay = z80.executeInstruction();
+                handleInterrupt();
+            }
             cycleDelay = Math.max(1, cycleDelay);
             nextZ80Cycle += Z80_DIVIDER * cycleDelay;
         }
     }
 
+    //the vdp runs on odd ticks, after the z80
+    private int getZ80IdleCycles() {
+        int slots = vdp.getSlotsToNextLineEvent();
+        return slots == 0 ? 0 : ((nextZ80Cycle | 1) + (slots - 1) * 2 - nextZ80Cycle) / Z80_DIVIDER;
+    }
+
     private void handleInterrupt(){
         bus.handleInterrupts(vdpInterruptType);
     }
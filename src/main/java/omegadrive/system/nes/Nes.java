@@ -38,6 +38,7 @@ import omegadrive.util.Util;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 
 public class Nes extends BaseSystem<BaseBusProvider, NesStateHandler> {
@@ -122,20 +123,33 @@ public class Nes extends BaseSystem<BaseBusProvider, NesStateHandler> {
         resetAfterRomLoad();
     }
 
+    @Override
+    protected NesStateHandler createSnapshotHandler(ByteBuffer buffer, BaseStateHandler.Type type) {
+        return type == BaseStateHandler.Type.LOAD ?
+                NesStateHandler.createLoadInstance(SNAPSHOT_NAME, buffer) :
+                NesStateHandler.createSaveInstance(SNAPSHOT_NAME);
+    }
+
     @Override
     protected void processSaveState() {
         if (saveStateFlag) {
-            stateHandler.processState(gui.getNes());
+            processState(stateHandler);
             if (stateHandler.getType() == BaseStateHandler.Type.SAVE) {
                 stateHandler.storeData();
-            } else {
-                sound.getPsg().reset();
             }
             stateHandler = NesStateHandler.EMPTY_STATE;
             saveStateFlag = false;
         }
     }
 
+    @Override
+    protected void processState(NesStateHandler handler) {
+        handler.processState(gui.getNes());
+        if (handler.getType() == BaseStateHandler.Type.LOAD) {
+            sound.getPsg().reset();
+        }
+    }
+
     @Override
     protected void resetCycleCounters(int counter) {
         //DO NOTHING
@@ -22,6 +22,7 @@ public class NesSoundWrapper implements AudioOutInterface, FmProvider {
     protected volatile int[] monoBuffer;
     protected volatile int monoBufPtr = 0;
     protected int samplesPerFrame;
+    private boolean outputEnabled = true;
     double VOLUME = 13107 / 16384.;
 
     public NesSoundWrapper(RegionDetector.Region region, AudioFormat audioFormat) {
@@ -50,7 +51,7 @@ public class NesSoundWrapper implements AudioOutInterface, FmProvider {
 
     @Override
     public void outputSample(int sample) {
-        if (monoBufPtr > monoBuffer.length - 1) {
+        if (!outputEnabled || monoBufPtr > monoBuffer.length - 1) {
             return;
         }
         sample *= VOLUME;
@@ -67,6 +68,11 @@ public class NesSoundWrapper implements AudioOutInterface, FmProvider {
         monoBufPtr++;
     }
 
+    @Override
+    public void setOutputEnabled(boolean enabled) {
+        outputEnabled = enabled;
+    }
+
     @Override
     public void flushFrame(boolean waitIfBufferFull) {
         //DO NOTHING
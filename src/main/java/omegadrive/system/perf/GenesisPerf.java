@@ -102,15 +102,19 @@ public class GenesisPerf extends Genesis {
         LOG.info("Starting game loop");
         updateVideoMode(true);
         double prevVdpCycle = 0;
+        int lastCounted = counter - 1;
         do {
             try {
+                //account for the ticks skipped by the scheduler
+                countSkipped(lastCounted, counter);
                 prevVdpCycle = nextVdpCycle;
                 run68k(counter);
                 runZ80(counter);
                 runFM(counter);
                 runVdp(counter);
                 doCounting(prevVdpCycle);
-                counter++;
+                lastCounted = counter;
+                counter = nextCycle(counter);
             } catch (Exception e) {
                 LOG.error("Error main cycle", e);
                 break;
@@ -132,6 +136,17 @@ public class GenesisPerf extends Genesis {
         }
     }
 
+    private void countSkipped(int from, int to) {
+        cycle68kCnt += countMultiples(from, to, M68K_DIVIDER);
+        cycleZ80cnt += countMultiples(from, to, Z80_DIVIDER);
+        cycleFmCnt += countMultiples(from, to, FM_DIVIDER);
+    }
+
+    //multiples of divider in the open interval (from, to)
+    private static int countMultiples(int from, int to, int divider) {
+        return to - from < 2 ? 0 : Math.floorDiv(to - 1, divider) - Math.floorDiv(from, divider);
+    }
+
     @Override
     protected void updateVideoMode(boolean force) {
         VideoMode prev = videoMode;
@@ -99,6 +99,21 @@ public class SmsPerf extends Sms {
         cycleVdpCnt = cycleFmCnt = cycleZ80cnt = 0;
     }
 
+    @Override
+    protected int nextCycle(int counter) {
+        int next = super.nextCycle(counter);
+        //account for the ticks skipped by the scheduler
+        cycleVdpCnt += countMultiples(counter, next, VDP_DIVIDER);
+        cycleZ80cnt += countMultiples(counter, next, Z80_DIVIDER);
+        cycleFmCnt += countMultiples(counter, next, FM_DIVIDER);
+        return next;
+    }
+
+    //multiples of divider in the open interval (from, to)
+    private static int countMultiples(int from, int to, int divider) {
+        return to - from < 2 ? 0 : Math.floorDiv(to - 1, divider) - Math.floorDiv(from, divider);
+    }
+
     @Override
     protected void runVdp(long counter) {
         cycleVdpCnt += counter % VDP_DIVIDER == 0 ? 1 : 0;
@@ -2,7 +2,6 @@ package omegadrive.system.perf;
 
 import com.google.common.collect.Table;
 import com.google.common.collect.TreeBasedTable;
-import omegadrive.sound.fm.AudioRateControl;
 import omegadrive.util.Util;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -18,6 +17,7 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -38,8 +38,8 @@ public class Telemetry {
         return res.substring(1, res.length() - 2);
     };
 
-    private static Telemetry telemetry = new Telemetry();
-    private static NumberFormat fpsFormatter = new DecimalFormat("#0.00");
+    //NOTE DecimalFormat is not thread safe, one per instance
+    private final NumberFormat fpsFormatter = new DecimalFormat("#0.00");
     private Table<String, Long, Double> data = TreeBasedTable.create();
     private Path telemetryFile;
     private long frameCounter = 0;
@@ -47,10 +47,6 @@ public class Telemetry {
     private double fpsAccum = 0;
 
 
-    public static Telemetry getInstance() {
-        return telemetry;
-    }
-
     private static void writeToFile(Path file, String res) {
         try {
             Files.write(file, res.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
@@ -84,10 +80,10 @@ public class Telemetry {
         return frameCounter % STATS_EVERY_FRAMES == 0; //update fps label every N frames
     }
 
-    public Optional<String> getNewStats() {
+    public Optional<String> getNewStats(Supplier<Optional<String>> audioStats) {
         Optional<String> o = Optional.empty();
         if (hasNewStats()) {
-            Optional<String> arc = AudioRateControl.getLatestStats();
+            Optional<String> arc = audioStats.get();
             o = Optional.of(getAvgFpsRounded() + "fps" + (arc.isPresent() ? ", " + arc.get() : ""));
         }
         return o;
@@ -99,10 +95,10 @@ public class Telemetry {
         telemetryFile = null;
     }
 
-    public Optional<String> newFrame(double lastFps, double driftNs) {
+    public Optional<String> newFrame(double lastFps, double driftNs, Supplier<Optional<String>> audioStats) {
         addFpsSample(lastFps);
         addSample("driftNs", driftNs / 1000d);
-        Optional<String> os = getNewStats();
+        Optional<String> os = getNewStats(audioStats);
         newFrame();
         return os;
     }
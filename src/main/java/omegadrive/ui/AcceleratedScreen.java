@@ -0,0 +1,142 @@
+/*
+ * AcceleratedScreen
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 10:12
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.ui;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.VolatileImage;
+
+/**
+ * Presents the native resolution frame via Java2D: the frame is uploaded to a VolatileImage
+ * and scaled by the rendering pipeline (nearest neighbour) while drawing to the BufferStrategy.
+ * <p>
+ * The software scaler is not involved, the cost per frame is the upload of the native frame.
+ */
+public class AcceleratedScreen extends Canvas {
+
+    private static final long serialVersionUID = -4378046283571834169L;
+
+    private static final Logger LOG = LogManager.getLogger(AcceleratedScreen.class.getSimpleName());
+
+    private static final int NUM_BUFFERS = 2;
+
+    private BufferedImage staging;
+    private int[] stagingPixels = new int[0];
+    private VolatileImage frameImage;
+    private BufferStrategy strategy;
+
+    public AcceleratedScreen() {
+        setBackground(Color.BLACK);
+        setIgnoreRepaint(true);
+        //key events go to the frame, where the input handlers are registered
+        setFocusable(false);
+    }
+
+    /**
+     * Java2D can only be used when VolatileImages are backed by the GPU, otherwise the software path is faster.
+     */
+    public static boolean isSupported(GraphicsConfiguration gc) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return false;
+        }
+        ImageCapabilities caps = gc.getImageCapabilities();
+        boolean supported = caps.isAccelerated();
+        LOG.info("Accelerated images: {}, page flipping: {}", supported,
+                gc.getBufferCapabilities().isPageFlipping());
+        return supported;
+    }
+
+    /**
+     * Draws the frame scaled to outputSize, centered in the canvas.
+     *
+     * @return false if the canvas is not ready yet, ie. not displayable
+     */
+    public boolean present(int[] data, Dimension nativeSize, Dimension outputSize) {
+        if (!isDisplayable()) {
+            return false;
+        }
+        if (strategy == null) {
+            createBufferStrategy(NUM_BUFFERS);
+            strategy = getBufferStrategy();
+        }
+        updateStaging(data, nativeSize);
+        int x = Math.max(0, (getWidth() - outputSize.width) >> 1);
+        int y = Math.max(0, (getHeight() - outputSize.height) >> 1);
+        do {
+            do {
+                uploadFrame(nativeSize);
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    g.setColor(Color.BLACK);
+                    g.fillRect(0, 0, getWidth(), getHeight());
+                    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                            RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+                    g.drawImage(frameImage, x, y, outputSize.width, outputSize.height, null);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+        return true;
+    }
+
+    private void updateStaging(int[] data, Dimension nativeSize) {
+        if (staging == null || staging.getWidth() != nativeSize.width || staging.getHeight() != nativeSize.height) {
+            staging = new BufferedImage(nativeSize.width, nativeSize.height, BufferedImage.TYPE_INT_RGB);
+            stagingPixels = ((DataBufferInt) staging.getRaster().getDataBuffer()).getData();
+        }
+        System.arraycopy(data, 0, stagingPixels, 0, Math.min(data.length, stagingPixels.length));
+    }
+
+    private void uploadFrame(Dimension nativeSize) {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (frameImage == null || frameImage.getWidth() != nativeSize.width ||
+                frameImage.getHeight() != nativeSize.height ||
+                frameImage.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+            if (frameImage != null) {
+                frameImage.flush();
+            }
+            frameImage = gc.createCompatibleVolatileImage(nativeSize.width, nativeSize.height);
+        }
+        Graphics2D g = frameImage.createGraphics();
+        try {
+            g.drawImage(staging, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        strategy = null;
+        if (frameImage != null) {
+            frameImage.flush();
+            frameImage = null;
+        }
+    }
+}
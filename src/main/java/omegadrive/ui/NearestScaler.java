@@ -0,0 +1,185 @@
+/*
+ * NearestScaler
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 10:12
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.ui;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.awt.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Nearest neighbour scaler, same output as {@link RenderingStrategy#renderNearest}.
+ * <p>
+ * The source column of each output column and the source row of each output row are
+ * computed once per size change (separable tables, width + height ints).
+ * Output rows mapping to the same source row are copied from the previous output row,
+ * when the horizontal factor is an integer each source pixel is replicated without the column table.
+ * Large outputs are split by rows across a small ForkJoin pool.
+ * <p>
+ * Not thread safe, one instance per caller.
+ */
+public class NearestScaler {
+
+    private static final Logger LOG = LogManager.getLogger(NearestScaler.class.getSimpleName());
+
+    //output pixels, 1280x720 by default
+    private static final int PARALLEL_THRESHOLD =
+            Integer.parseInt(System.getProperty("ui.scale.parallel.threshold", "921600"));
+    private static final int PARALLELISM = Math.max(1, Math.min(4,
+            Runtime.getRuntime().availableProcessors() - 1));
+    //rows per task, below this the split is not worth it
+    private static final int MIN_ROWS_TASK = 64;
+
+    private int srcWidth, srcHeight, destWidth, destHeight;
+    private int[] colIndex = new int[0];
+    private int[] rowIndex = new int[0];
+    //0 when the horizontal factor is not an integer
+    private int xFactor;
+
+    private long lastScaleNs;
+    private long totalScaleNs;
+    private long frames;
+
+    public void scale(int[] srcPixels, int[] outputPixels, Dimension src, Dimension dest) {
+        long start = System.nanoTime();
+        if (src.width != srcWidth || src.height != srcHeight ||
+                dest.width != destWidth || dest.height != destHeight) {
+            computeTables(src, dest);
+        }
+        if (PARALLELISM > 1 && dest.width * dest.height >= PARALLEL_THRESHOLD) {
+            PoolHolder.POOL.invoke(new RowsTask(srcPixels, outputPixels, 0, destHeight));
+        } else {
+            scaleRows(srcPixels, outputPixels, 0, destHeight);
+        }
+        lastScaleNs = System.nanoTime() - start;
+        totalScaleNs += lastScaleNs;
+        frames++;
+    }
+
+    private void computeTables(Dimension src, Dimension dest) {
+        srcWidth = src.width;
+        srcHeight = src.height;
+        destWidth = dest.width;
+        destHeight = dest.height;
+        colIndex = new int[destWidth];
+        rowIndex = new int[destHeight];
+        //same rounding as RenderingStrategy.renderNearest
+        int factor = 16;
+        int xRatio = ((srcWidth << factor) / destWidth) + 1;
+        int yRatio = ((srcHeight << factor) / destHeight) + 1;
+        for (int j = 0; j < destWidth; j++) {
+            colIndex[j] = (j * xRatio) >> factor;
+        }
+        for (int i = 0; i < destHeight; i++) {
+            rowIndex[i] = ((i * yRatio) >> factor) * srcWidth;
+        }
+        xFactor = destWidth % srcWidth == 0 ? destWidth / srcWidth : 0;
+        for (int j = 0; j < destWidth && xFactor > 0; j++) {
+            //the table rounding may differ from a plain division, stick to the table then
+            xFactor = colIndex[j] == j / xFactor ? xFactor : 0;
+        }
+        LOG.info("Scaling {}x{} -> {}x{}, integer horizontal factor: {}", srcWidth, srcHeight,
+                destWidth, destHeight, xFactor);
+    }
+
+    private void scaleRows(int[] srcPixels, int[] outputPixels, int fromRow, int toRow) {
+        final int[] cols = colIndex;
+        final int width = destWidth;
+        for (int i = fromRow; i < toRow; i++) {
+            int shiftDest = i * width;
+            int shiftSrc = rowIndex[i];
+            if (i > fromRow && shiftSrc == rowIndex[i - 1]) {
+                System.arraycopy(outputPixels, shiftDest - width, outputPixels, shiftDest, width);
+                continue;
+            }
+            if (xFactor > 0) {
+                replicateRow(srcPixels, shiftSrc, outputPixels, shiftDest);
+                continue;
+            }
+            for (int j = 0; j < width; j++) {
+                outputPixels[shiftDest + j] = srcPixels[shiftSrc + cols[j]];
+            }
+        }
+    }
+
+    private void replicateRow(int[] srcPixels, int shiftSrc, int[] outputPixels, int shiftDest) {
+        final int factor = xFactor;
+        final int end = shiftSrc + srcWidth;
+        int k = shiftDest;
+        for (int p = shiftSrc; p < end; p++) {
+            int pixel = srcPixels[p];
+            for (int f = 0; f < factor; f++) {
+                outputPixels[k++] = pixel;
+            }
+        }
+    }
+
+    public long getLastScaleNs() {
+        return lastScaleNs;
+    }
+
+    public long getAverageScaleNs() {
+        return frames == 0 ? 0 : totalScaleNs / frames;
+    }
+
+    public void resetStats() {
+        totalScaleNs = frames = 0;
+    }
+
+    private class RowsTask extends RecursiveAction {
+        private static final long serialVersionUID = 3185263406412983095L;
+
+        private final int[] srcPixels, outputPixels;
+        private final int fromRow, toRow;
+
+        RowsTask(int[] srcPixels, int[] outputPixels, int fromRow, int toRow) {
+            this.srcPixels = srcPixels;
+            this.outputPixels = outputPixels;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            int rows = toRow - fromRow;
+            if (rows <= Math.max(MIN_ROWS_TASK, destHeight / PARALLELISM)) {
+                scaleRows(srcPixels, outputPixels, fromRow, toRow);
+                return;
+            }
+            int mid = fromRow + (rows >> 1);
+            invokeAll(new RowsTask(srcPixels, outputPixels, fromRow, mid),
+                    new RowsTask(srcPixels, outputPixels, mid, toRow));
+        }
+    }
+
+    //created on first use, ie. only when scaling to a large output
+    private static class PoolHolder {
+        private static final AtomicInteger threadNumber = new AtomicInteger();
+        static final ForkJoinPool POOL = new ForkJoinPool(PARALLELISM, pool -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName(NearestScaler.class.getSimpleName() + "-" + threadNumber.getAndIncrement());
+            return t;
+        }, null, false);
+    }
+}
@@ -44,6 +44,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.IntStream;
 
 import static omegadrive.system.SystemProvider.SystemEvent.*;
@@ -58,15 +59,26 @@ public class SwingWindow implements DisplayWindow {
     //when scaling is slow set this to FALSE
     private static final boolean UI_SCALE_ON_EDT
             = Boolean.valueOf(System.getProperty("ui.scale.on.edt", "true"));
+    //scale via Java2D on a Canvas, falls back to software scaling when not accelerated
+    private static final boolean UI_RENDER_ACCELERATED
+            = Boolean.valueOf(System.getProperty("ui.render.accelerated", "false"));
     private Dimension outputNonScaledScreenSize = DEFAULT_SCALED_SCREEN_SIZE;
     private Dimension outputScreenSize = DEFAULT_SCALED_SCREEN_SIZE;
 
     private BufferedImage dest;
-    private int[] pixelsSrc;
     private int[] pixelsDest;
+    private final NearestScaler scaler = new NearestScaler();
+    private String lastStats = "";
+    private String scaleStats = "";
+    //emulation thread -> EDT, the EDT always shows the latest frame
+    private final TripleBuffer<Frame> frameBuffer = new TripleBuffer<>(Frame::new);
+    private final AtomicBoolean presentPending = new AtomicBoolean();
+    private final Runnable presentRunnable = this::presentLatestFrame;
     private double scale = DEFAULT_SCALE_FACTOR;
 
     private final JLabel screenLabel = new JLabel();
+    //null when using the software path
+    private AcceleratedScreen acceleratedScreen;
     private final JLabel perfLabel = new JLabel("");
 
     private JFrame jFrame;
@@ -183,6 +195,10 @@ public class SwingWindow implements DisplayWindow {
             Arrays.fill(pixelsDest, 0);
             screenLabel.invalidate();
             screenLabel.repaint();
+            if (acceleratedScreen != null) {
+                acceleratedScreen.present(new int[nativeScreenSize.width * nativeScreenSize.height],
+                        nativeScreenSize, outputScreenSize);
+            }
             perfLabel.setText("");
             jFrame.setTitle(FRAME_TITLE_HEAD);
             LOG.info("Blanking screen");
@@ -206,17 +222,44 @@ public class SwingWindow implements DisplayWindow {
     //NOTE: this will copy the input array
     @Override
     public void renderScreenLinear(int[] data, Optional<String> label, VideoMode videoMode) {
-        if (data.length != pixelsSrc.length) {
-            pixelsSrc = data.clone();
+        Frame frame = frameBuffer.getBack();
+        if (data.length != frame.data.length) {
+            frame.data = new int[data.length];
         }
-        System.arraycopy(data, 0, pixelsSrc, 0, data.length);
+        System.arraycopy(data, 0, frame.data, 0, data.length);
+        frame.label = label;
+        frame.videoMode = videoMode;
+        frameBuffer.publish();
         if (UI_SCALE_ON_EDT) {
-            SwingUtilities.invokeLater(() -> renderScreenLinearInternal(pixelsSrc, label, videoMode));
+            //at most one pending task, it picks up whatever frame is the latest when it runs
+            if (presentPending.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(presentRunnable);
+            }
         } else {
-            renderScreenLinearInternal(pixelsSrc, label, videoMode);
+            presentLatestFrame();
+        }
+    }
+
+    private void presentLatestFrame() {
+        presentPending.set(false);
+        Frame frame = frameBuffer.acquire();
+        if (frame != null) {
+            renderScreenLinearInternal(frame.data, frame.label, frame.videoMode);
         }
     }
 
+    public long getFramesPresented() {
+        return frameBuffer.getAcquiredCount();
+    }
+
+    public long getFramesDropped() {
+        return frameBuffer.getDroppedCount();
+    }
+
+    public long getLastScaleNs() {
+        return scaler.getLastScaleNs();
+    }
+
     public void init() {
         Util.registerJmx(this);
         GraphicsDevice gd = SwingScreenSupport.setupScreens();
@@ -225,11 +268,21 @@ public class SwingWindow implements DisplayWindow {
         LOG.info("Emulation viewport size: " + ScreenSizeHelper.DEFAULT_SCALED_SCREEN_SIZE);
         LOG.info("Application size: " + DEFAULT_FRAME_SIZE);
 
-        pixelsSrc = new int[0];
+        if (UI_RENDER_ACCELERATED) {
+            if (AcceleratedScreen.isSupported(gd.getDefaultConfiguration())) {
+                acceleratedScreen = new AcceleratedScreen();
+                acceleratedScreen.setPreferredSize(outputNonScaledScreenSize);
+                //the canvas is heavyweight, menus would be hidden behind it
+                JPopupMenu.setDefaultLightWeightPopupEnabled(false);
+                LOG.info("Using accelerated rendering");
+            } else {
+                LOG.warn("Accelerated rendering not available, using software scaling");
+            }
+        }
         dest = createImage(gd, outputNonScaledScreenSize);
         screenLabel.setIcon(new ImageIcon(dest));
 
-        addDndListener(screenLabel);
+        addDndListener(getScreenComponent());
 
         jFrame = new JFrame(FRAME_TITLE_HEAD, gd.getDefaultConfiguration());
 
@@ -314,6 +367,9 @@ public class SwingWindow implements DisplayWindow {
         JMenuItem quickLoadStateItem = new JMenuItem("Quick Load State");
         addKeyAction(quickLoadStateItem, QUICK_LOAD, e -> handleQuickLoadState());
 
+        JMenuItem rewindItem = new JMenuItem("Rewind");
+        addKeyAction(rewindItem, REWIND, e -> handleSystemEvent(REWIND, null, null));
+
         JMenuItem exitItem = new JMenuItem("Exit");
         addKeyAction(exitItem, CLOSE_APP, e -> {
             handleSystemEvent(CLOSE_APP, null, null);
@@ -350,6 +406,7 @@ public class SwingWindow implements DisplayWindow {
         menu.add(saveStateItem);
         menu.add(quickLoadStateItem);
         menu.add(quickSaveStateItem);
+        menu.add(rewindItem);
         menu.add(exitItem);
         helpMenu.add(aboutItem);
         helpMenu.add(keyBindingsItem);
@@ -360,7 +417,7 @@ public class SwingWindow implements DisplayWindow {
 
         screenLabel.setHorizontalAlignment(SwingConstants.CENTER);
         screenLabel.setVerticalAlignment(SwingConstants.CENTER);
-        screenLabel.setCursor(blankCursor);
+        getScreenComponent().setCursor(blankCursor);
 
         AbstractAction debugUiAction = toAbstractAction("debugUI", e -> showDebugInfo(!showDebug));
         actionMap.put(SET_DEBUG_UI, debugUiAction);
@@ -371,7 +428,7 @@ public class SwingWindow implements DisplayWindow {
         jFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         jFrame.setResizable(true);
         jFrame.setJMenuBar(bar);
-        jFrame.add(screenLabel, -1);
+        jFrame.add(getScreenComponent(), -1);
 
         jFrame.pack();
 
@@ -386,13 +443,28 @@ public class SwingWindow implements DisplayWindow {
 
     private void renderScreenLinearInternal(int[] data, Optional<String> label, VideoMode videoMode) {
         boolean changed = resizeScreen(videoMode);
-        RenderingStrategy.renderNearest(data, pixelsDest, nativeScreenSize, outputScreenSize);
+        if (acceleratedScreen != null) {
+            acceleratedScreen.present(data, nativeScreenSize, outputScreenSize);
+        } else {
+            scaler.scale(data, pixelsDest, nativeScreenSize, outputScreenSize);
+        }
         label.ifPresent(this::showLabel);
         screenLabel.repaint();
     }
 
+    private Component getScreenComponent() {
+        return acceleratedScreen != null ? acceleratedScreen : screenLabel;
+    }
+
     private void showLabel(String label) {
         showInfoCount--;
+        //new stats about once a second, add the average scaling time over the period
+        if (acceleratedScreen == null && !label.equals(lastStats)) {
+            lastStats = label;
+            scaleStats = String.format(", scale %.2fms", scaler.getAverageScaleNs() / 1_000_000d);
+            scaler.resetStats();
+        }
+        label += scaleStats;
         if (actionInfo.isPresent()) {
             label += " - " + actionInfo.get();
         }
@@ -442,8 +514,13 @@ public class SwingWindow implements DisplayWindow {
     private Runnable getResizeRunnable(boolean isFullScreen) {
         return () -> {
             outputScreenSize = ScreenSizeHelper.getScreenSize(nativeScreenSize, scale, FIX_ASPECT_RATIO);
-            dest = createImage(getGraphicsDevice(), outputScreenSize);
-            screenLabel.setIcon(new ImageIcon(dest));
+            if (acceleratedScreen != null) {
+                //no need for a scaled copy of the frame
+                acceleratedScreen.setPreferredSize(outputScreenSize);
+            } else {
+                dest = createImage(getGraphicsDevice(), outputScreenSize);
+                screenLabel.setIcon(new ImageIcon(dest));
+            }
             jFrame.setPreferredSize(isFullScreen ? fullScreenSize : nativeScreenSize);
             jFrame.getJMenuBar().setVisible(!isFullScreen);
             jFrame.pack();
@@ -697,4 +774,10 @@ public class SwingWindow implements DisplayWindow {
             }
         }
     }
+
+    private static class Frame {
+        int[] data = new int[0];
+        Optional<String> label = Optional.empty();
+        VideoMode videoMode;
+    }
 }
@@ -0,0 +1,112 @@
+/*
+ * FileIoWorker
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 10:12
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single thread doing the file I/O for savestates and sram, keeps the disk access
+ * off the emulation thread.
+ * <p>
+ * Tasks run in submission order, a write goes to a temp file in the same folder which is then
+ * forced to disk and renamed over the target: a crash never leaves a truncated file behind.
+ */
+public class FileIoWorker {
+
+    private static final Logger LOG = LogManager.getLogger(FileIoWorker.class.getSimpleName());
+
+    private static final String TMP_EXT = ".tmp";
+
+    //daemon, it never keeps the JVM alive: pending writes are flushed when the app closes, see flush
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new PriorityThreadFactory(Thread.NORM_PRIORITY - 1, FileIoWorker.class.getSimpleName(), true));
+
+    /**
+     * The data must not be modified by the caller until the write has completed, pass a copy.
+     *
+     * @return completes with the file written, or exceptionally with the I/O error
+     */
+    public static CompletableFuture<Path> write(Path file, byte[] data, boolean gzip) {
+        return submit(() -> {
+            try {
+                writeAtomic(file, gzip ? ZipUtil.gzip(data) : data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return file;
+        });
+    }
+
+    public static <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /**
+     * Blocks until the pending tasks have completed, or the timeout expires.
+     */
+    public static boolean flush(long timeoutMs) {
+        try {
+            submit(() -> null).get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (Exception e) {
+            LOG.warn("Pending file writes not completed in {} ms", timeoutMs);
+        }
+        return false;
+    }
+
+    static void writeAtomic(Path file, byte[] data) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), TMP_EXT);
+        try {
+            //the data must be on disk before the rename, or a power loss can leave an empty file in place
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
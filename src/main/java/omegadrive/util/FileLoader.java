@@ -196,6 +196,13 @@ public class FileLoader {
         return data;
     }
 
+    /**
+     * Savestates can be stored gzip compressed, see helios.savestate.gzip.
+     */
+    public static byte[] readStateFile(Path file, String... ext) {
+        return ZipUtil.gunzipIfNecessary(readBinaryFile(file, ext));
+    }
+
     public static String loadVersionFromManifest() {
         String version = SNAPSHOT_VERSION;
         String classPath = getCurrentClasspath();
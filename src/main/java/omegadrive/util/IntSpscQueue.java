@@ -0,0 +1,160 @@
+/*
+ * IntSpscQueue
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 10:12
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer single-consumer queue of primitive ints.
+ * <p>
+ * Avoids boxing on the audio path: one thread offers (the emulation thread),
+ * one thread polls/drains (the audio thread).
+ * The head and tail sequences are padded to sit on separate cache lines,
+ * each side keeps a local copy of the other side's sequence and only re-reads it
+ * when the queue looks full/empty.
+ */
+public class IntSpscQueue {
+
+    private final int[] buffer;
+    private final int mask;
+    private final int capacity;
+
+    //consumer side
+    private final Sequence head = new Sequence();
+    private long tailCache;
+
+    //producer side
+    private final Sequence tail = new Sequence();
+    private long headCache;
+
+    public IntSpscQueue(int requestedCapacity) {
+        if (requestedCapacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + requestedCapacity);
+        }
+        int size = Integer.highestOneBit(requestedCapacity);
+        size = size < requestedCapacity ? size << 1 : size;
+        this.buffer = new int[size];
+        this.mask = size - 1;
+        this.capacity = size;
+    }
+
+    /**
+     * Producer only.
+     */
+    public boolean offer(int value) {
+        final long t = tail.get();
+        if (t - headCache >= capacity) {
+            headCache = head.get();
+            if (t - headCache >= capacity) {
+                return false;
+            }
+        }
+        buffer[(int) t & mask] = value;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Consumer only, the caller is expected to check {@link #isEmpty()} first.
+     */
+    public int poll() {
+        final long h = head.get();
+        if (h >= tailCache) {
+            tailCache = tail.get();
+            if (h >= tailCache) {
+                throw new IllegalStateException("Queue is empty");
+            }
+        }
+        int value = buffer[(int) h & mask];
+        head.lazySet(h + 1);
+        return value;
+    }
+
+    /**
+     * Consumer only.
+     */
+    public int peek(int defaultValue) {
+        final long h = head.get();
+        if (h >= tailCache) {
+            tailCache = tail.get();
+            if (h >= tailCache) {
+                return defaultValue;
+            }
+        }
+        return buffer[(int) h & mask];
+    }
+
+    /**
+     * Consumer only, moves at most len values to dest[off, off + len).
+     *
+     * @return the number of values copied
+     */
+    public int drainTo(int[] dest, int off, int len) {
+        final long h = head.get();
+        if (h + len > tailCache) {
+            tailCache = tail.get();
+        }
+        int num = (int) Math.min(len, tailCache - h);
+        if (num <= 0) {
+            return 0;
+        }
+        int start = (int) h & mask;
+        int firstChunk = Math.min(num, capacity - start);
+        System.arraycopy(buffer, start, dest, off, firstChunk);
+        if (firstChunk < num) {
+            System.arraycopy(buffer, 0, dest, off + firstChunk, num - firstChunk);
+        }
+        head.lazySet(h + num);
+        return num;
+    }
+
+    /**
+     * Consumer only.
+     */
+    public void clear() {
+        tailCache = tail.get();
+        head.lazySet(tailCache);
+    }
+
+    public int size() {
+        //read head first, the tail can only move forward
+        long h = head.get();
+        long t = tail.get();
+        return (int) Math.max(0, Math.min(capacity, t - h));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * AtomicLong padded to fill a cache line, avoids false sharing between head and tail.
+     */
+    @SuppressWarnings("unused")
+    private static final class Sequence extends AtomicLong {
+        private static final long serialVersionUID = -6307981722437512206L;
+
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+}
@@ -27,10 +27,16 @@ public class PriorityThreadFactory implements ThreadFactory {
     private AtomicInteger threadNumber = new AtomicInteger();
     private String namePrefix;
     private int threadPriority;
+    private boolean daemon;
 
     public PriorityThreadFactory(int priority, String namePrefix) {
+        this(priority, namePrefix, false);
+    }
+
+    public PriorityThreadFactory(int priority, String namePrefix, boolean daemon) {
         this.namePrefix = namePrefix;
         this.threadPriority = priority;
+        this.daemon = daemon;
     }
 
     public PriorityThreadFactory(String namePrefix) {
@@ -41,6 +47,7 @@ public class PriorityThreadFactory implements ThreadFactory {
     public Thread newThread(Runnable r) {
         Thread t = new Thread(r, namePrefix + "-" + threadNumber.getAndIncrement());
         t.setPriority(threadPriority);
+        t.setDaemon(daemon);
         return t;
     }
 }
@@ -0,0 +1,103 @@
+/*
+ * TripleBuffer
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 10:12
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free single-producer single-consumer exchange of the latest item.
+ * <p>
+ * Three slots: the producer owns the back slot, the consumer owns the front slot,
+ * the middle slot is swapped atomically by both sides.
+ * The producer fills {@link #getBack()} and calls {@link #publish()}, it never blocks;
+ * the consumer calls {@link #acquire()} and gets the most recent published slot.
+ * A published slot replaced before the consumer acquires it is dropped.
+ */
+public class TripleBuffer<T> {
+
+    //the middle index has this bit set when it holds a slot the consumer has not seen yet
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = FRESH - 1;
+
+    private final T[] slots;
+    private final AtomicInteger middle = new AtomicInteger(1);
+    //producer side
+    private int back = 0;
+    private volatile long published;
+    private volatile long dropped;
+    //consumer side
+    private int front = 2;
+    private volatile long acquired;
+
+    @SuppressWarnings("unchecked")
+    public TripleBuffer(Supplier<T> factory) {
+        slots = (T[]) new Object[]{factory.get(), factory.get(), factory.get()};
+    }
+
+    /**
+     * Producer only, the slot to fill before calling {@link #publish()}.
+     */
+    public T getBack() {
+        return slots[back];
+    }
+
+    /**
+     * Producer only, makes the back slot visible to the consumer.
+     *
+     * @return true if the previous published slot has been dropped
+     */
+    public boolean publish() {
+        int prev = middle.getAndSet(back | FRESH);
+        back = prev & INDEX_MASK;
+        published++;
+        if ((prev & FRESH) > 0) {
+            dropped++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consumer only.
+     *
+     * @return the latest published slot, null if nothing has been published since the previous call
+     */
+    public T acquire() {
+        if ((middle.get() & FRESH) == 0) {
+            return null;
+        }
+        front = middle.getAndSet(front) & INDEX_MASK;
+        acquired++;
+        return slots[front];
+    }
+
+    public long getPublishedCount() {
+        return published;
+    }
+
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    public long getAcquiredCount() {
+        return acquired;
+    }
+}
@@ -138,13 +138,9 @@ public class Util {
         if (size == Size.BYTE) {
             data = memory.readRomByte(address);
         } else if (size == Size.WORD) {
-            data = memory.readRomByte(address) << 8;
-            data |= memory.readRomByte(address + 1);
+            data = memory.readRomWord(address);
         } else {
-            data = memory.readRomByte(address) << 24;
-            data |= memory.readRomByte(address + 1) << 16;
-            data |= memory.readRomByte(address + 2) << 8;
-            data |= memory.readRomByte(address + 3);
+            data = memory.readRomLong(address);
         }
         LogHelper.printLevel(LOG, Level.DEBUG, "Read ROM: {}, {}: {}", address, data, size, verbose);
         return data;
@@ -157,63 +153,55 @@ public class Util {
         if (size == Size.BYTE) {
             data = memory.readRamByte(address);
         } else if (size == Size.WORD) {
-            data = memory.readRamByte(address) << 8;
-            data |= memory.readRamByte(address + 1);
+            data = memory.readRamWord(address);
         } else {
-            data = memory.readRamByte(address) << 24;
-            data |= memory.readRamByte(address + 1) << 16;
-            data |= memory.readRamByte(address + 2) << 8;
-            data |= memory.readRamByte(address + 3);
+            data = memory.readRamLong(address);
         }
         LogHelper.printLevel(LOG, Level.DEBUG, "Read RAM: {}, {}: {}", address, data, size, verbose);
         return data;
     }
 
-    public static long readSram(int[] sram, Size size, long address) {
-        long data;
-        if (size == Size.BYTE) {
-            data = sram[(int) address];
-        } else if (size == Size.WORD) {
-            data = sram[(int) address] << 8;
-            data |= sram[(int) address + 1];
-        } else {
-            data = sram[(int) address] << 24;
-            data |= sram[(int) address + 1] << 16;
-            data |= sram[(int) address + 2] << 8;
-            data |= sram[(int) address + 3];
-        }
-        LogHelper.printLevel(LOG, Level.DEBUG, "Read SRAM: {}, {}: {}", address, data, size, verbose);
-        return data;
-    }
-
     public static void writeRam(IMemoryProvider memory, Size size, int address, long data) {
         if (size == Size.BYTE) {
             memory.writeRamByte(address, (int) data);
         } else if (size == Size.WORD) {
-            memory.writeRamByte(address, (int) (data >> 8));
-            memory.writeRamByte(address + 1, (int) (data & 0xFF));
+            memory.writeRamWord(address, (int) data);
         } else if (size == Size.LONG) {
-            memory.writeRamByte(address, (int) ((data >> 24) & 0xFF));
-            memory.writeRamByte(address + 1, (int) ((data >> 16) & 0xFF));
-            memory.writeRamByte(address + 2, (int) ((data >> 8) & 0xFF));
-            memory.writeRamByte(address + 3, (int) (data & 0xFF));
+            memory.writeRamLong(address, (int) data);
         }
         LogHelper.printLevel(LOG, Level.DEBUG, "Write RAM: {}, {}: {}", address, data, size, verbose);
     }
 
-    public static void writeSram(int[] sram, Size size, int address, long data) {
-        if (size == Size.BYTE) {
-            sram[address] = (int) (data & 0xFF);
-        } else if (size == Size.WORD) {
-            sram[address] = (int) ((data >> 8) & 0xFF);
-            sram[address + 1] = (int) (data & 0xFF);
-        } else {
-            sram[address] = (int) ((data >> 24) & 0xFF);
-            sram[address + 1] = (int) ((data >> 16) & 0xFF);
-            sram[address + 2] = (int) ((data >> 8) & 0xFF);
-            sram[address + 3] = (int) (data & 0xFF);
+    //NOTE: no logging, used by the bus fast paths
+    public static long readData(int[] src, Size size, int address) {
+        switch (size) {
+            case BYTE:
+                return src[address];
+            case WORD:
+                return src[address] << 8 | src[address + 1];
+            default:
+                return src[address] << 24 | src[address + 1] << 16 |
+                        src[address + 2] << 8 | src[address + 3];
+        }
+    }
+
+    //NOTE: no logging, used by the bus fast paths
+    public static void writeData(int[] dest, Size size, int address, long data) {
+        switch (size) {
+            case BYTE:
+                dest[address] = (int) (data & 0xFF);
+                break;
+            case WORD:
+                dest[address] = (int) ((data >> 8) & 0xFF);
+                dest[address + 1] = (int) (data & 0xFF);
+                break;
+            default:
+                dest[address] = (int) ((data >> 24) & 0xFF);
+                dest[address + 1] = (int) ((data >> 16) & 0xFF);
+                dest[address + 2] = (int) ((data >> 8) & 0xFF);
+                dest[address + 3] = (int) (data & 0xFF);
+                break;
         }
-        LogHelper.printLevel(LOG, Level.DEBUG, "Write SRAM: {}, {}: {}", address, data, size, verbose);
     }
 
     public static long computeChecksum(IMemoryProvider memoryProvider) {
@@ -0,0 +1,129 @@
+/*
+ * VarIntCodec
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 10:12
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Zigzag variable length ints (1 to 5 bytes, 7 bits per byte), used by the savestate codecs:
+ * most of the emulated state is small values and zeros.
+ * <p>
+ * Arrays are stored with their length, when loading into an array with a different length
+ * the common part is copied and the rest is skipped.
+ */
+public class VarIntCodec {
+
+    public static final int MAX_INT_BYTES = 5;
+
+    public static void putInt(ByteBuffer buf, int value) {
+        int v = (value << 1) ^ (value >> 31);
+        while ((v & ~0x7F) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+    public static int getInt(ByteBuffer buf) {
+        int v = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = buf.get();
+            v |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public static void putBoolean(ByteBuffer buf, boolean value) {
+        buf.put((byte) (value ? 1 : 0));
+    }
+
+    public static boolean getBoolean(ByteBuffer buf) {
+        return buf.get() != 0;
+    }
+
+    public static void putInts(ByteBuffer buf, int[] values) {
+        putInt(buf, values.length);
+        for (int v : values) {
+            putInt(buf, v);
+        }
+    }
+
+    public static void getInts(ByteBuffer buf, int[] dest) {
+        int len = getInt(buf);
+        for (int i = 0; i < len; i++) {
+            int v = getInt(buf);
+            if (i < dest.length) {
+                dest[i] = v;
+            }
+        }
+    }
+
+    public static void putInts(ByteBuffer buf, int[][] values) {
+        putInt(buf, values.length);
+        for (int[] row : values) {
+            putInts(buf, row);
+        }
+    }
+
+    public static void getInts(ByteBuffer buf, int[][] dest) {
+        int len = getInt(buf);
+        int[] skip = new int[0];
+        for (int i = 0; i < len; i++) {
+            getInts(buf, i < dest.length ? dest[i] : skip);
+        }
+    }
+
+    public static void putShorts(ByteBuffer buf, short[] values) {
+        putInt(buf, values.length);
+        for (short v : values) {
+            putInt(buf, v);
+        }
+    }
+
+    public static void getShorts(ByteBuffer buf, short[] dest) {
+        int len = getInt(buf);
+        for (int i = 0; i < len; i++) {
+            int v = getInt(buf);
+            if (i < dest.length) {
+                dest[i] = (short) v;
+            }
+        }
+    }
+
+    public static void putBooleans(ByteBuffer buf, boolean[] values) {
+        putInt(buf, values.length);
+        for (boolean v : values) {
+            putBoolean(buf, v);
+        }
+    }
+
+    public static void getBooleans(ByteBuffer buf, boolean[] dest) {
+        int len = getInt(buf);
+        for (int i = 0; i < len; i++) {
+            boolean v = getBoolean(buf);
+            if (i < dest.length) {
+                dest[i] = v;
+            }
+        }
+    }
+}
@@ -5,9 +5,7 @@ import omegadrive.SystemLoader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.Closeable;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
@@ -15,6 +13,7 @@ import java.util.Optional;
 import java.util.function.BiPredicate;
 import java.util.function.Predicate;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -86,6 +85,33 @@ public class ZipUtil {
         return res;
     }
 
+    public static boolean isGZipData(byte[] data) {
+        return data.length > 2 && (data[0] & 0xFF) == 0x1F && (data[1] & 0xFF) == 0x8B;
+    }
+
+    /**
+     * Inflates gzip data, detected by the magic number, anything else is returned as is.
+     */
+    public static byte[] gunzipIfNecessary(byte[] data) {
+        if (!isGZipData(data)) {
+            return data;
+        }
+        try (InputStream zis = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return ByteStreams.toByteArray(zis);
+        } catch (Exception e) {
+            LOG.error("Unable to inflate gzip data, len: {}", data.length, e);
+        }
+        return new byte[0];
+    }
+
+    public static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length >> 2);
+        try (OutputStream zos = new GZIPOutputStream(baos)) {
+            zos.write(data);
+        }
+        return baos.toByteArray();
+    }
+
     public static void closeQuietly(Closeable c) {
         try {
             if (c != null) {
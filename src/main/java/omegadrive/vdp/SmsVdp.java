@@ -71,7 +71,7 @@ public final class SmsVdp implements BaseVdpProvider {
     /**
      * NTSC / PAL Emulation
      */
-    public static int palFlag = NTSC;
+    private int palFlag = NTSC;
 
     /** SMS Visible Screen Width */
     private final static int SMS_WIDTH = BaseVdpProvider.H32;
@@ -164,16 +164,20 @@ public final class SmsVdp implements BaseVdpProvider {
     private int[] ggDisplay; //only for GG mode
 
     /** SMS Colours converted to Java */
-    private static int[] SMS_JAVA;
+    private final static int[] SMS_JAVA = new int[0x40];
 
     /** GG Colours converted to Java */
-    private static int[] GG_JAVA1, GG_JAVA2;
+    private final static int[] GG_JAVA1 = new int[0x100], GG_JAVA2 = new int[0x10];
+
+    static {
+        generateConvertedPals();
+    }
 
     /** Horizontal Viewport Start */
-    public static int h_start;
+    private int h_start;
 
     /** Horizontal Viewport End */
-    public static int h_end;
+    private int h_end;
 
     // --------------------------------------------------------------------------------------------
     // Decoded SAT Table
@@ -184,6 +188,8 @@ public final class SmsVdp implements BaseVdpProvider {
 
     /** Determine whether SAT has been written to */
     private boolean isSatDirty;
+    //sprites are still evaluated when disabled, they set the collision and overflow flags
+    private boolean renderEnabled = true;
 
     /** Max number of sprites hardware can handle per scanline */
     private final static int SPRITES_PER_LINE = 8;
@@ -267,8 +273,6 @@ public final class SmsVdp implements BaseVdpProvider {
      */
     @Override
     public final void reset() {
-        generateConvertedPals();
-
         firstByte = true;
 
         location = 0;
@@ -610,7 +614,8 @@ public final class SmsVdp implements BaseVdpProvider {
             if (maxDirty != -1)
                 decodeTiles();
 
-            drawBg(lineno);
+            if (renderEnabled)
+                drawBg(lineno);
 
             // ------------------------------------------------------------------------------------
             // Draw Sprite Layer
@@ -624,7 +629,7 @@ public final class SmsVdp implements BaseVdpProvider {
             // ------------------------------------------------------------------------------------
             // Blank Leftmost Column (SMS Only)
             // ------------------------------------------------------------------------------------
-            if (isSms && (vdpreg[0] & 0x20) != 0) {
+            if (renderEnabled && isSms && (vdpreg[0] & 0x20) != 0) {
                 int colour = CRAM[16 + (vdpreg[7] & 0x0F)];
                 int location = lineno << 8;
 
@@ -642,7 +647,7 @@ public final class SmsVdp implements BaseVdpProvider {
         // ----------------------------------------------------------------------------------------
         // Blank Display
         // ----------------------------------------------------------------------------------------
-        else {
+        else if (renderEnabled) {
             drawBGColour(lineno);
         }
     }
@@ -869,35 +874,29 @@ public final class SmsVdp implements BaseVdpProvider {
     //       0000BBBB   (2nd byte)
     // --------------------------------------------------------------------------------------------
 
-    private final void generateConvertedPals() {
-        if (isSms && SMS_JAVA == null) {
-            SMS_JAVA = new int[0x40];
+    //NOTE shared by all instances, only ever written in the static initializer
+    private static void generateConvertedPals() {
+        for (int i = 0; i < SMS_JAVA.length; i++) {
+            int r = i & 0x03;
+            int g = (i >> 2) & 0x03;
+            int b = (i >> 4) & 0x03;
 
-            for (int i = 0; i < SMS_JAVA.length; i++) {
-                int r = i & 0x03;
-                int g = (i >> 2) & 0x03;
-                int b = (i >> 4) & 0x03;
+            SMS_JAVA[i] = ((r * 85) << 16) | ((g * 85) << 8) | (b * 85);
+        }
 
-                SMS_JAVA[i] = ((r * 85) << 16) | ((g * 85) << 8) | (b * 85);
-            }
-        } else if (!isSms && GG_JAVA1 == null) {
-            GG_JAVA1 = new int[0x100];
-            GG_JAVA2 = new int[0x10];
-
-            // Green & Blue
-            for (int i = 0; i < GG_JAVA1.length; i++) {
-                int g = i & 0x0F;
-                int b = (i >> 4) & 0x0F;
-
-                // Shift and fill with the original bitpattern
-                // so %1111 becomes %11111111, %1010 becomes %10101010
-                GG_JAVA1[i] = (g << 20) | (g << 16) | (b << 12) | (b << 8);
-            }
+        // Green & Blue
+        for (int i = 0; i < GG_JAVA1.length; i++) {
+            int g = i & 0x0F;
+            int b = (i >> 4) & 0x0F;
 
-            // Red
-            for (int i = 0; i < GG_JAVA2.length; i++) {
-                GG_JAVA2[i] = (i << 4) | i;
-            }
+            // Shift and fill with the original bitpattern
+            // so %1111 becomes %11111111, %1010 becomes %10101010
+            GG_JAVA1[i] = (g << 20) | (g << 16) | (b << 12) | (b << 8);
+        }
+
+        // Red
+        for (int i = 0; i < GG_JAVA2.length; i++) {
+            GG_JAVA2[i] = (i << 4) | i;
         }
     }
 
@@ -1126,6 +1125,11 @@ public final class SmsVdp implements BaseVdpProvider {
         forceFullRedraw();
     }
 
+    @Override
+    public int getSlotsToNextLineEvent() {
+        return interruptHandler.getIncrementsToNextLineEvent();
+    }
+
     /**
      * Run
      *
@@ -1196,6 +1200,11 @@ public final class SmsVdp implements BaseVdpProvider {
         return memory;
     }
 
+    @Override
+    public void setRenderEnabled(boolean enabled) {
+        renderEnabled = enabled;
+    }
+
     @Override
     public int[] getScreenDataLinear() {
         return screenData;
@@ -110,6 +110,11 @@ public class Tms9918aVdp implements Tms9918a {
         renderDump = new VdpRenderDump();
     }
 
+    @Override
+    public int getSlotsToNextLineEvent() {
+        return interruptHandler.getIncrementsToNextLineEvent();
+    }
+
     @Override
     public int runSlot() {
         boolean vBlank = interruptHandler.isvBlankSet();
@@ -49,6 +49,9 @@ public class GenesisVdp implements GenesisVdpProvider {
     public final static boolean fifoVerbose = false;
     public final static boolean regVerbose = false;
     private final static Logger LOG = LogManager.getLogger(GenesisVdp.class.getSimpleName());
+    //registers updated by the DMA
+    private final static int DMA_LENGTH_LOW_REG = VdpRegisterName.DMA_LENGTH_LOW.ordinal();
+    private final static int DMA_SOURCE_MID_REG = VdpRegisterName.DMA_SOURCE_MID.ordinal();
 
     //TODO true breaks a good number of VdpFifoTests
     private static boolean ENABLE_READ_AHEAD = Boolean.valueOf(System.getProperty("vdp.enable.read.ahead", "false"));
@@ -87,6 +90,8 @@ public class GenesisVdp implements GenesisVdpProvider {
     //filled with the backdrop color. During this time, you can freely access
     //VDP memory with no limitations on the number of writes per line.
     boolean displayEnable;
+    //the renderer has no side effects on the vdp state, it can be skipped
+    private boolean renderEnabled = true;
     //	Enable VINT
     boolean ie0;
     //	Enable DMA
@@ -279,6 +284,9 @@ public class GenesisVdp implements GenesisVdpProvider {
 
     @Override
     public int getRegisterData(int reg) {
+        if (reg >= DMA_LENGTH_LOW_REG && reg <= DMA_SOURCE_MID_REG) {
+            dmaHandler.storeCounters();
+        }
         return registers[reg];
     }
 
@@ -349,6 +357,7 @@ public class GenesisVdp implements GenesisVdpProvider {
         writePendingControlPort = false;
         switch (type) {
             case DATA:
+                dmaHandler.flushTransfers();
                 return readDataPort();
             case CONTROL:
                 return readControl();
@@ -376,6 +385,7 @@ public class GenesisVdp implements GenesisVdpProvider {
 
     @Override
     public void writeVdpPortWord(VdpPortType type, int data) {
+        dmaHandler.flushTransfers();
         switch (type) {
             case DATA:
                 writeDataPortInternal(data);
@@ -461,6 +471,7 @@ public class GenesisVdp implements GenesisVdpProvider {
                     entry.vdpRamMode, entry.data, entry.addressRegister, verbose);
         }
         if (doWrite) {
+            dmaHandler.flushTransfers();
             fifo.pop();
             LogHelper.printLevel(LOG, Level.INFO, "writeVram: {}, data: {}, address: {}",
                     entry.vdpRamMode, entry.data, entry.addressRegister, verbose);
@@ -567,7 +578,9 @@ public class GenesisVdp implements GenesisVdpProvider {
         }
         LogHelper.printLevel(LOG, Level.INFO, "writeReg: {}, data: {}", reg, dataControl, verbose);
         logRegisterChange(reg, dataControl);
+        dmaHandler.flushTransfers();
         registers[reg] = dataControl;
+        dmaHandler.onRegisterWrite(reg, dataControl);
         updateVariables(reg, dataControl);
     }
 
@@ -685,6 +698,12 @@ public class GenesisVdp implements GenesisVdpProvider {
         bus.setVdpBusyState(state);
     }
 
+    //two hCounter increments per slot
+    @Override
+    public int getSlotsToNextLineEvent() {
+        return (interruptHandler.getIncrementsToNextLineEvent() + 1) >> 1;
+    }
+
     @Override
     public int runSlot() {
 //        LogHelper.printLevel(LOG, Level.INFO, "Start slot: {}", interruptHandler.getSlotNumber(), verbose);
@@ -703,13 +722,15 @@ public class GenesisVdp implements GenesisVdpProvider {
         //draw the frame
         if (interruptHandler.isDrawFrameSlot()) {
             interruptHandler.logVerbose("Draw Screen");
+            dmaHandler.flushTransfers();
             debugViewer.update();
             list.forEach(VdpEventListener::onNewFrame);
             resetVideoMode(false);
         }
-        if (interruptHandler.isDrawLineSlot()) {
+        if (renderEnabled && interruptHandler.isDrawLineSlot()) {
             //draw line
             interruptHandler.logVeryVerbose("Draw Scanline: %s", interruptHandler.vCounterInternal);
+            dmaHandler.flushTransfers();
             renderHandler.renderLine(interruptHandler.vCounterInternal);
             debugViewer.updateLine(interruptHandler.vCounterInternal);
         }
@@ -727,6 +748,11 @@ public class GenesisVdp implements GenesisVdpProvider {
         writeDataToVram(isExternalSlot);
     }
 
+    @Override
+    public void setRenderEnabled(boolean enabled) {
+        renderEnabled = enabled;
+    }
+
     @Override
     public void resetVideoMode(boolean force) {
         VideoMode newVideoMode = getVideoMode(region, isH40(), isV30());
@@ -765,6 +791,7 @@ public class GenesisVdp implements GenesisVdpProvider {
 
     @Override
     public VdpMemory getVdpMemory() {
+        dmaHandler.flushTransfers();
         return memoryInterface;
     }
 
@@ -41,6 +41,8 @@ public class GenesisVdpMemoryInterface implements VdpMemoryInterface {
     private int[] javaPalette;
     private int[] satCache = new int[MAX_SPRITES_PER_FRAME_H40 * 8]; //8 bytes per sprite
     private int satBaseAddress = 0, satEndAddress = satBaseAddress + satCache.length;
+    private boolean satCacheDirty = true;
+    private VdpTileCache tileCache;
 
     private VdpColorMapper colorMapper;
 
@@ -60,6 +62,7 @@ public class GenesisVdpMemoryInterface implements VdpMemoryInterface {
         i.cram = Arrays.copyOf(cram, cram.length);
         i.vsram = Arrays.copyOf(vsram, vsram.length);
         i.initPalette();
+        i.tileCache = new VdpTileCache(i.vram);
         return i;
     }
 
@@ -68,6 +71,7 @@ public class GenesisVdpMemoryInterface implements VdpMemoryInterface {
         cram = new int[GenesisVdpProvider.VDP_CRAM_SIZE];
         vsram = new int[GenesisVdpProvider.VDP_VSRAM_SIZE];
         initPalette();
+        tileCache = new VdpTileCache(vram);
     }
 
     private void paletteUpdate(int cramAddress) {
@@ -93,6 +97,7 @@ public class GenesisVdpMemoryInterface implements VdpMemoryInterface {
         address &= (GenesisVdpProvider.VDP_VRAM_SIZE - 1);
         vram[address] = data & 0xFF;
         updateSatCache(address, data & 0xFF);
+        tileCache.markDirty(address);
     }
 
     @Override
@@ -125,6 +130,7 @@ public class GenesisVdpMemoryInterface implements VdpMemoryInterface {
     private void updateSatCache(int vramAddress, int value) {
         if (vramAddress >= satBaseAddress && vramAddress < satEndAddress) {
             satCache[vramAddress - satBaseAddress] = value;
+            satCacheDirty = true;
         }
     }
 
@@ -139,6 +145,18 @@ public class GenesisVdpMemoryInterface implements VdpMemoryInterface {
         return satCache;
     }
 
+    @Override
+    public boolean clearSatCacheDirty() {
+        boolean res = satCacheDirty;
+        satCacheDirty = false;
+        return res;
+    }
+
+    @Override
+    public VdpTileCache getTileCache() {
+        return tileCache;
+    }
+
     @Override
     public int[] getCram() {
         return cram;
@@ -21,7 +21,6 @@ package omegadrive.vdp.gen;
 
 import omegadrive.bus.gen.GenesisBusProvider;
 import omegadrive.util.LogHelper;
-import omegadrive.util.Size;
 import omegadrive.util.VideoMode;
 import omegadrive.vdp.model.GenesisVdpProvider;
 import omegadrive.vdp.model.IVdpFifo;
@@ -31,15 +30,32 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import static omegadrive.bus.gen.GenesisBusProvider.*;
 import static omegadrive.vdp.model.GenesisVdpProvider.VdpRegisterName.*;
 
-public class VdpDmaHandlerImpl implements VdpDmaHandler {
+/**
+ * DMA transfers are paced at one per external access slot, the length and source counters are latched
+ * and only written back to the registers when observed.
+ * <p>
+ * In bulk mode (helios.vdp.dma.bulk, on by default) fill and copy only advance the counters on each slot,
+ * the VRAM writes are then done in one go when something can observe them: any VDP port access
+ * other than a status read, a register write, a line being rendered, the VDP memory being read
+ * (savestate, debug) or the DMA completing.
+ * 68k to VDP transfers still go through the FIFO on each slot but, as the 68k is frozen, the source is read
+ * in one go up to the next line event, straight from the ROM/RAM arrays when possible.
+ */
+public class VdpDmaHandlerImpl implements VdpDmaHandler, GenesisBusProvider.MemoryMapListener {
 
     public static final boolean verbose = false;
     public static final boolean lessVerbose = false || verbose;
     public static final boolean printToSysOut = false;
     private final static Logger LOG = LogManager.getLogger(VdpDmaHandlerImpl.class.getSimpleName());
 
+    private static final boolean BULK_DMA = Boolean.valueOf(System.getProperty("helios.vdp.dma.bulk", "true"));
+    private static final byte[] NO_DIRECT_PAGES = new byte[(ADDRESS_UPPER_LIMIT + 1) >> PAGE_SHIFT];
+    //more than the external slots in a line
+    private static final int MAX_PREFETCH_WORDS = 0x100;
+
     protected GenesisVdpProvider vdpProvider;
     protected VdpMemoryInterface memoryInterface;
     protected GenesisBusProvider busProvider;
@@ -48,6 +64,22 @@ public class VdpDmaHandlerImpl implements VdpDmaHandler {
     private DmaMode dmaMode = null;
     private boolean dmaFillReady;
 
+    //internal copy of the length and source registers (19-22), written back when they are observed
+    private int lengthLow, lengthHigh, sourceLow, sourceMid;
+    private boolean countersDirty;
+
+    boolean bulk = BULK_DMA;
+    //fill/copy bytes not written yet, the run starts at pendingDest (and pendingSource for a copy)
+    private int pendingBytes, pendingDest, pendingSource, pendingIncrement;
+    //the copy byte has been read on the previous slot, its value has not been fetched yet
+    private boolean copyReadPending;
+
+    //68k source words read ahead
+    private final int[] sourceWords = new int[MAX_PREFETCH_WORDS];
+    private int sourceWordsPos, sourceWordsLen;
+    private byte[] pageTable = NO_DIRECT_PAGES;
+    private int[] romData, ramData;
+
     //TODO this should be in the VDP
     private IVdpFifo.VdpFifoEntry pendingReadEntry = new IVdpFifo.VdpFifoEntry();
 
@@ -57,14 +89,26 @@ public class VdpDmaHandlerImpl implements VdpDmaHandler {
         d.vdpProvider = vdpProvider;
         d.busProvider = busProvider;
         d.memoryInterface = memoryInterface;
+        busProvider.addMemoryMapListener(d);
         return d;
     }
 
+    @Override
+    public void onMemoryMapChange(byte[] pageTable, int[] romData, int[] ramData) {
+        boolean direct = romData != null && ramData != null;
+        this.romData = romData;
+        this.ramData = ramData;
+        this.pageTable = direct ? pageTable : NO_DIRECT_PAGES;
+        sourceWordsLen = sourceWordsPos = 0;
+    }
+
     public DmaMode setupDma(GenesisVdpProvider.VramMode vramMode, long data, boolean m1) {
         if (!m1) {
             LogHelper.printLevel(LOG, Level.WARN, "Attempting DMA but m1 not set: {}, data: {}", dmaMode, data, verbose);
             return null;
         }
+        flushTransfers();
+        sourceWordsLen = sourceWordsPos = 0;
         dmaMode = getDmaMode(vdpProvider.getRegisterData(DMA_SOURCE_HIGH), vramMode);
         //on DMA Fill, busy flag is actually immediately (?) set after the CTRL port write,
         //not the DATA port write that starts the Fill operation
@@ -99,14 +143,80 @@ public class VdpDmaHandlerImpl implements VdpDmaHandler {
     }
 
 
+    @Override
+    public void onRegisterWrite(int reg, int data) {
+        switch (reg) {
+            case 19: //DMA_LENGTH_LOW
+                lengthLow = data;
+                break;
+            case 20: //DMA_LENGTH_HIGH
+                lengthHigh = data;
+                break;
+            case 21: //DMA_SOURCE_LOW
+                sourceLow = data;
+                break;
+            case 22: //DMA_SOURCE_MID
+                sourceMid = data;
+                break;
+            case 23: //DMA_SOURCE_HIGH
+                break;
+            default:
+                return;
+        }
+        sourceWordsLen = sourceWordsPos = 0;
+    }
+
+    /**
+     * The registers are only written when observed (savestate, debug) or when the DMA is done,
+     * not on every transfer.
+     */
+    @Override
+    public void storeCounters() {
+        if (!countersDirty) {
+            return;
+        }
+        countersDirty = false;
+        int lenLow = lengthLow, lenHigh = lengthHigh, srcLow = sourceLow, srcMid = sourceMid;
+        vdpProvider.updateRegisterData(DMA_LENGTH_LOW, lenLow);
+        vdpProvider.updateRegisterData(DMA_LENGTH_HIGH, lenHigh);
+        vdpProvider.updateRegisterData(DMA_SOURCE_LOW, srcLow);
+        vdpProvider.updateRegisterData(DMA_SOURCE_MID, srcMid);
+    }
+
+    /**
+     * Replays the fill/copy bytes in the same order the slots would have written them.
+     */
+    @Override
+    public void flushTransfers() {
+        if (pendingBytes > 0) {
+            int len = pendingBytes, dest = pendingDest, src = pendingSource, inc = pendingIncrement;
+            pendingBytes = 0;
+            if (dmaMode == DmaMode.VRAM_COPY) {
+                for (int i = 0; i < len; i++) {
+                    int data = memoryInterface.readVramByte(((src + i) & 0xFFFF) ^ 1);
+                    memoryInterface.writeVramByte(dest ^ 1, data);
+                    dest = (dest + inc) & 0xFFFF;
+                }
+            } else {
+                int data = (dmaFillData >> 8) & 0xFF;
+                for (int i = 0; i < len; i++) {
+                    memoryInterface.writeVramByte(dest ^ 1, data);
+                    dest = (dest + inc) & 0xFFFF;
+                }
+            }
+        }
+        if (copyReadPending) {
+            copyReadPending = false;
+            pendingReadEntry.data = memoryInterface.readVramByte(getSourceAddress() ^ 1);
+        }
+    }
+
     private int getDmaLength() {
-        return vdpProvider.getRegisterData(DMA_LENGTH_HIGH) << 8 | vdpProvider.getRegisterData(DMA_LENGTH_LOW);
+        return lengthHigh << 8 | lengthLow;
     }
 
     private int getSourceAddressLow() {
-        int reg22 = vdpProvider.getRegisterData(DMA_SOURCE_MID);
-        int reg21 = vdpProvider.getRegisterData(DMA_SOURCE_LOW);
-        return (reg22 & 0xFF) << 8 | reg21;
+        return (sourceMid & 0xFF) << 8 | sourceLow;
     }
 
     private int getSourceAddress() {
@@ -191,6 +301,8 @@ public class VdpDmaHandlerImpl implements VdpDmaHandler {
         }
         done &= getDmaLength() == 0;
         if (done) {
+            flushTransfers();
+            storeCounters();
             printLessVerboseInfo("DONE");
             dmaMode = null; //Bug Hunt
             dmaFillReady = false;
@@ -199,9 +311,23 @@ public class VdpDmaHandlerImpl implements VdpDmaHandler {
     }
 
     private void dmaFillSingleByte() {
+        if (bulk) {
+            deferVramWriteByte();
+            return;
+        }
         dmaVramWriteByte((dmaFillData >> 8) & 0xFF);
     }
 
+    private void deferVramWriteByte() {
+        if (pendingBytes == 0) {
+            pendingDest = getDestAddress();
+            pendingSource = getSourceAddress();
+            pendingIncrement = getDestAddressIncrement();
+        }
+        pendingBytes++;
+        postDmaRegisters();
+    }
+
     private void dmaVramWriteByte(int data) {
         int destAddress = getDestAddress() ^ 1;
         printInfo("IN PROGRESS - WRITE");
@@ -211,7 +337,9 @@ public class VdpDmaHandlerImpl implements VdpDmaHandler {
 
     private void postDmaRegisters() {
         decreaseDmaLength();
-        increaseSourceAddress(1);
+        int sourceAddress = (getSourceAddressLow() + 1) & 0xFFFF;
+        sourceLow = sourceAddress & 0xFF;
+        sourceMid = sourceAddress >> 8;
         increaseDestAddress();
     }
 
@@ -221,13 +349,23 @@ public class VdpDmaHandlerImpl implements VdpDmaHandler {
     private void dmaCopySingleByte() {
         //needs two slots, first slot reads, second writes
         if (pendingReadEntry.vdpRamMode == null) {
+            if (bulk) {
+                pendingReadEntry.vdpRamMode = GenesisVdpProvider.VramMode.vramWrite;
+                copyReadPending = true;
+                return;
+            }
             int sourceAddress = getSourceAddress() ^ 1;
             int data = memoryInterface.readVramByte(sourceAddress);
             pendingReadEntry.vdpRamMode = GenesisVdpProvider.VramMode.vramWrite;
             pendingReadEntry.data = data;
             printInfo("IN PROGRESS - READ");
         } else {
-            dmaVramWriteByte(pendingReadEntry.data);
+            if (copyReadPending) {
+                copyReadPending = false;
+                deferVramWriteByte();
+            } else {
+                dmaVramWriteByte(pendingReadEntry.data);
+            }
             pendingReadEntry.vdpRamMode = null;
             pendingReadEntry.data = 0;
         }
@@ -236,12 +374,11 @@ public class VdpDmaHandlerImpl implements VdpDmaHandler {
     //The VDP decrements the length before checking if it's equal to 0,
     //which results in an integer underflow if the length is 0. In other words, if you set the DMA length to 0,
     //it will act like you set it to $10000.
-    private int decreaseDmaLength() {
-        int dmaLen = getDmaLength();
-        dmaLen = (dmaLen - 1) & (GenesisVdpProvider.VDP_VRAM_SIZE - 1);
-        vdpProvider.updateRegisterData(DMA_LENGTH_LOW, dmaLen & 0xFF);
-        vdpProvider.updateRegisterData(DMA_LENGTH_HIGH, dmaLen >> 8);
-        return dmaLen;
+    private void decreaseDmaLength() {
+        int dmaLen = (getDmaLength() - 1) & (GenesisVdpProvider.VDP_VRAM_SIZE - 1);
+        lengthLow = dmaLen & 0xFF;
+        lengthHigh = dmaLen >> 8;
+        countersDirty = true;
     }
 
     private void increaseDestAddress() {
@@ -249,18 +386,6 @@ public class VdpDmaHandlerImpl implements VdpDmaHandler {
         vdpProvider.setAddressRegister(destAddress);
     }
 
-    private void increaseSourceAddress(int inc) {
-        int sourceAddress = (getSourceAddressLow() + inc) & 0xFFFF;
-        setSourceAddress(sourceAddress);
-    }
-
-    private void setSourceAddress(int sourceAddress) {
-        int reg22 = (sourceAddress >> 8) & 0xFF;
-        int reg21 = sourceAddress & 0xFF;
-        vdpProvider.updateRegisterData(DMA_SOURCE_LOW, reg21);
-        vdpProvider.updateRegisterData(DMA_SOURCE_MID, reg22);
-    }
-
     private int getDestAddressIncrement() {
         return vdpProvider.getRegisterData(AUTO_INCREMENT);
     }
@@ -268,13 +393,46 @@ public class VdpDmaHandlerImpl implements VdpDmaHandler {
     private void dma68kToVram() {
         int sourceAddress = getSourceAddress() << 1; //needs to double it
         int destAddress = getDestAddress();
-        int dataWord = (int) busProvider.read(sourceAddress, Size.WORD);
+        int dataWord = bulk && !busProvider.is68kRunning() ? readSourceWord() : busProvider.read16(sourceAddress);
         vdpProvider.fifoPush(destAddress, dataWord);
         printInfo("IN PROGRESS: ", sourceAddress);
         //increase by 1, becomes 2 (bytes) when doubling
         postDmaRegisters();
     }
 
+    private int readSourceWord() {
+        if (sourceWordsPos == sourceWordsLen) {
+            prefetchSourceWords();
+        }
+        return sourceWords[sourceWordsPos++];
+    }
+
+    //the source can't change while the 68k is frozen, reads what the slots up to the next line event need
+    private void prefetchSourceWords() {
+        int len = getDmaLength();
+        len = len == 0 ? GenesisVdpProvider.VDP_VRAM_SIZE : len;
+        len = Math.min(Math.min(len, MAX_PREFETCH_WORDS), Math.max(1, vdpProvider.getSlotsToNextLineEvent()));
+        int high = (vdpProvider.getRegisterData(DMA_SOURCE_HIGH) & 0x7F) << 16;
+        int low = getSourceAddressLow();
+        for (int i = 0; i < len; i++) {
+            int address = (high | ((low + i) & 0xFFFF)) << 1;
+            switch (pageTable[address >>> PAGE_SHIFT]) {
+                case PAGE_ROM:
+                    sourceWords[i] = romData[address] << 8 | romData[address + 1];
+                    break;
+                case PAGE_RAM:
+                    address &= M68K_RAM_MASK;
+                    sourceWords[i] = ramData[address] << 8 | ramData[address + 1];
+                    break;
+                default:
+                    sourceWords[i] = busProvider.read16(address);
+                    break;
+            }
+        }
+        sourceWordsPos = 0;
+        sourceWordsLen = len;
+    }
+
     private DmaMode getDmaMode(int reg17, GenesisVdpProvider.VramMode vramMode) {
         int dmaBits = reg17 >> 6;
         DmaMode mode = null;
@@ -188,6 +188,30 @@ public class VdpInterruptHandler implements BaseVdpProvider.VdpEventListener {
         }
     }
 
+    /**
+     * hCounter increments, the next one counted as 1, up to the one where the vCounter increments
+     * or the vint can be raised: the interrupt state does not change in between.
+     */
+    public int getIncrementsToNextLineEvent() {
+        int pos = getLinePosition(hCounterInternal);
+        int total = vdpCounterMode.hTotalCount;
+        int res = Math.min(getLineDistance(pos, getLinePosition(vdpCounterMode.vCounterIncrementOn)),
+                getLineDistance(pos, getLinePosition(VINT_SET_ON_HCOUNTER_VALUE)));
+        return res > 0 && res <= total ? res : 1;
+    }
+
+    //position of the hCounter value within the line, the counter jumps after hJumpTrigger
+    private int getLinePosition(int hCounter) {
+        int jump = vdpCounterMode.hJumpTrigger;
+        int jumpTarget = (1 + COUNTER_LIMIT) + (jump + 1) - vdpCounterMode.hTotalCount;
+        return hCounter <= jump ? hCounter : (jump + 1) + (hCounter - jumpTarget);
+    }
+
+    private int getLineDistance(int from, int to) {
+        int total = vdpCounterMode.hTotalCount;
+        return Math.floorMod(to - from - 1, total) + 1;
+    }
+
     public boolean isvBlankSet() {
         return vBlankSet;
     }
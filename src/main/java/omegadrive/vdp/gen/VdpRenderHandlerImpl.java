@@ -33,6 +33,7 @@ import java.util.Arrays;
 import java.util.function.BiConsumer;
 
 import static omegadrive.vdp.model.BaseVdpProvider.*;
+import static omegadrive.vdp.model.GenesisVdpProvider.MAX_SPRITES_PER_FRAME_H40;
 import static omegadrive.vdp.model.GenesisVdpProvider.MAX_SPRITES_PER_LINE_H40;
 import static omegadrive.vdp.model.GenesisVdpProvider.VdpRegisterName.*;
 
@@ -57,15 +58,30 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
                 dest.horizontalCellSize = src.horizontalCellSize;
                 dest.spriteNumber = src.spriteNumber;
             };
-    private SpriteDataHolder[] spriteDataHoldersCurrent = new SpriteDataHolder[MAX_SPRITES_PER_LINE_H40];
-
-    private int[] planeA = new int[COLS];
-    private int[] planeB = new int[COLS];
-    private int[] planeBack = new int[COLS];
-    private int[] sprites = new int[COLS];
-    private int[] window = new int[COLS];
-    private RenderPriority[] pixelPriority = new RenderPriority[COLS];
-    private ShadowHighlightType[] shadowHighlight = new ShadowHighlightType[COLS];
+    SpriteDataHolder[] spriteDataHoldersCurrent = new SpriteDataHolder[MAX_SPRITES_PER_LINE_H40];
+
+    //per pixel priority, see RenderPriority#getPriorityOrder: [1,4] the layer, +4 when the priority bit is set
+    private static final byte BACK_PLANE_PRIO = (byte) RenderPriority.BACK_PLANE.getPriorityOrder();
+    private static final int SPRITE_NO_PRIO = RenderPriority.SPRITE_NO_PRIO.getPriorityOrder();
+    private static final int SPRITE_PRIO = RenderPriority.SPRITE_PRIO.getPriorityOrder();
+    private static final int PLANE_A_PRIO = RenderPriority.PLANE_A_PRIO.getPriorityOrder();
+    private static final int WINDOW_NO_PRIO = RenderPriority.WINDOW_PLANE_NO_PRIO.getPriorityOrder();
+    private static final int WINDOW_PRIO = RenderPriority.WINDOW_PLANE_PRIO.getPriorityOrder();
+
+    //per pixel shadow/highlight, the ShadowHighlightType ordinal: SHADOW < NORMAL < HIGHLIGHT
+    private static final ShadowHighlightType[] SH_TYPES = ShadowHighlightType.values();
+    private static final byte SH_NORMAL = (byte) ShadowHighlightType.NORMAL.ordinal();
+    private static final int SH_MAX = SH_TYPES.length - 1;
+
+    private final int[] planeA = new int[COLS];
+    private final int[] planeB = new int[COLS];
+    private final int[] planeBack = new int[COLS];
+    private final int[] sprites = new int[COLS];
+    private final int[] window = new int[COLS];
+    private final byte[] pixelPriority = new byte[COLS];
+    private final byte[] shadowHighlight = new byte[COLS];
+    //priority -> layer holding the pixel
+    private final int[][] layerByPriority = new int[RenderPriority.values().length][];
     private int[] linearScreen = new int[0];
     private SpriteDataHolder spriteDataHolder = new SpriteDataHolder();
     private int spriteTableLocation = 0;
@@ -77,8 +93,19 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
     private int[] vram;
     private int[] cram;
     private int[] javaPalette;
+    private VdpTileCache tileCache;
     private int activeLines = 0;
-    private SpriteDataHolder[] spriteDataHoldersNext = new SpriteDataHolder[MAX_SPRITES_PER_LINE_H40];
+    SpriteDataHolder[] spriteDataHoldersNext = new SpriteDataHolder[MAX_SPRITES_PER_LINE_H40];
+
+    //sprites on each line in link order, capped to the per-line limit; rebuilt when the sat cache changes
+    //verticalPos is 9 bits, a sprite can cover lines up to 511 - 128 + 32
+    private static final int SPRITE_BUCKET_LINES = 512;
+    private final SpriteDataHolder[] satSprites = new SpriteDataHolder[MAX_SPRITES_PER_FRAME_H40];
+    private final int[][] spriteLineBuckets = new int[SPRITE_BUCKET_LINES][MAX_SPRITES_PER_LINE_H40];
+    private final int[] spriteLineCount = new int[SPRITE_BUCKET_LINES];
+    private boolean spriteBucketsDirty = true;
+    private boolean spriteBucketsH40;
+    private InterlaceMode spriteBucketsInterlace;
 
     public static VdpRenderHandler createInstance(GenesisVdpProvider vdpProvider, VdpMemoryInterface memoryInterface) {
         VdpRenderHandler v = new VdpRenderHandlerImpl(vdpProvider, memoryInterface);
@@ -115,7 +142,7 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
 
     @Override
     public void updateSatCache(int satLocation, int vramAddress) {
-
+        spriteBucketsDirty = true;
     }
 
     public VdpRenderHandlerImpl(GenesisVdpProvider vdpProvider, VdpMemoryInterface memoryInterface) {
@@ -127,14 +154,21 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
         this.vram = memoryInterface.getVram();
         this.cram = memoryInterface.getCram();
         this.javaPalette = memoryInterface.getJavaColorPalette();
+        this.tileCache = memoryInterface.getTileCache();
         this.scrollContextA = ScrollContext.createInstance(RenderType.PLANE_A);
         this.scrollContextB = ScrollContext.createInstance(RenderType.PLANE_B);
         this.windowPlaneContext = new WindowPlaneContext();
+        for (RenderPriority rp : RenderPriority.values()) {
+            layerByPriority[rp.getPriorityOrder()] = getPlaneData(rp.getRenderType());
+        }
         vdpProvider.addVdpEventListener(this);
         for (int i = 0; i < spriteDataHoldersCurrent.length; i++) {
             spriteDataHoldersCurrent[i] = new SpriteDataHolder();
             spriteDataHoldersNext[i] = new SpriteDataHolder();
         }
+        for (int i = 0; i < satSprites.length; i++) {
+            satSprites[i] = new SpriteDataHolder();
+        }
         clearDataLine();
         clearDataFrame();
     }
@@ -199,8 +233,8 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
         Arrays.fill(window, 0);
         Arrays.fill(planeA, 0);
         Arrays.fill(planeB, 0);
-        Arrays.fill(pixelPriority, RenderPriority.BACK_PLANE);
-        Arrays.fill(shadowHighlight, ShadowHighlightType.NORMAL);
+        Arrays.fill(pixelPriority, BACK_PLANE_PRIO);
+        Arrays.fill(shadowHighlight, SH_NORMAL);
         SpriteDataHolder[] temp = spriteDataHoldersCurrent;
         spriteDataHoldersCurrent = spriteDataHoldersNext;
         for (int i = 0; i < spriteDataHoldersCurrent.length; i++) {
@@ -217,48 +251,63 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
         spritesFrame = 0;
     }
 
-    private void phase1(int line) {
+    void phase1(int line) {
         boolean isH40 = videoMode.isH40();
         int maxSpritesPerFrame = VdpRenderHandler.maxSpritesPerFrame(isH40);
         int maxSpritesPerLine = VdpRenderHandler.maxSpritesPerLine(isH40);
-        int count = 0;
 
-        if (spritesFrame >= maxSpritesPerFrame) {
+        if (spritesFrame >= maxSpritesPerFrame || line >= SPRITE_BUCKET_LINES) {
+            return;
+        }
+        updateSpriteBuckets(isH40, maxSpritesPerFrame, maxSpritesPerLine);
+        int[] bucket = spriteLineBuckets[line];
+        int lineSprites = spriteLineCount[line];
+        for (int count = 0; count < lineSprites && spritesFrame < maxSpritesPerFrame; count++) {
+            SpriteDataHolder holder = satSprites[bucket[count]];
+            updatePhase1DataFn.accept(holder, spriteDataHoldersNext[count]);
+            spritesFrame += line == holder.verticalPos - 128 ? 1 : 0;
+        }
+    }
+
+    //walk the link list once and assign each sprite to the lines it covers
+    private void updateSpriteBuckets(boolean isH40, int maxSpritesPerFrame, int maxSpritesPerLine) {
+        boolean dirty = memoryInterface.clearSatCacheDirty() | spriteBucketsDirty;
+        if (!dirty && isH40 == spriteBucketsH40 && interlaceMode == spriteBucketsInterlace) {
             return;
         }
-        SpriteDataHolder holder = spriteDataHolder;
+        spriteBucketsDirty = false;
+        spriteBucketsH40 = isH40;
+        spriteBucketsInterlace = interlaceMode;
+        Arrays.fill(spriteLineCount, 0);
         int next = 0;
         int current;
         boolean stop = false;
         for (int index = 0; index < maxSpritesPerFrame && !stop; index++) {
             current = next;
-            holder = getPhase1SpriteData(current, holder);
+            SpriteDataHolder holder = getPhase1SpriteData(current, satSprites[current]);
             next = holder.linkData;
-            int verSizePixels = (holder.verticalCellSize + 1) << 3;
-            int realY = holder.verticalPos - 128;
-            boolean isSpriteOnLine = line >= realY && line < realY + verSizePixels;
-
             stop = next == 0 || next >= maxSpritesPerFrame;
-            if (!isSpriteOnLine) {
-                continue;
+            int realY = holder.verticalPos - 128;
+            int endY = Math.min(realY + ((holder.verticalCellSize + 1) << 3), SPRITE_BUCKET_LINES);
+            for (int line = Math.max(realY, 0); line < endY; line++) {
+                int count = spriteLineCount[line];
+                if (count < maxSpritesPerLine) {
+                    spriteLineBuckets[line][count] = current;
+                    spriteLineCount[line] = count + 1;
+                }
             }
-            updatePhase1DataFn.accept(holder, spriteDataHoldersNext[count]);
-            spritesFrame += line == realY ? 1 : 0;
-            count++;
-
-            stop |= count >= maxSpritesPerLine || spritesFrame >= maxSpritesPerFrame;
         }
     }
 
     private boolean renderSprite(SpriteDataHolder holder, int tileBytePointerBase,
                                  int horOffset, int spritePixelLineLimit) {
+        int rowOffset = tileCache.getRowOffset(tileBytePointerBase);
+        byte[] tilePixels = tileCache.getPixels(holder.horFlip);
         for (int tileBytePos = 0; tileBytePos < BYTES_PER_TILE &&
-                spritePixelLineCount < spritePixelLineLimit; tileBytePos++, horOffset += 2) {
+                spritePixelLineCount < spritePixelLineLimit; tileBytePos++, horOffset += 2, rowOffset += 2) {
             spritePixelLineCount += 2;
-            int tileShift = tileBytePos ^ (holder.horFlipAmount & 3); //[0,4]
-            int tileBytePointer = tileBytePointerBase + tileShift;
-            storeSpriteData(tileBytePointer, horOffset, holder, 0);
-            storeSpriteData(tileBytePointer, horOffset + 1, holder, 1);
+            storeSpriteData(tilePixels[rowOffset], horOffset, holder);
+            storeSpriteData(tilePixels[rowOffset + 1], horOffset + 1, holder);
         }
         return true;
     }
@@ -269,60 +318,40 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
 //    Sprites earlier in the list show up on top of sprites later in the list (priority flag does nothing here).
 // Whichever sprite ends up on top in a given pixel is what will
 // end up in the sprite layer (and sorted against plane A and B).
-    private void storeSpriteData(int tileBytePointer, int horOffset, SpriteDataHolder holder, int pixelInTile) {
-        if (horOffset < 0 || horOffset >= COLS || //Ayrton Senna
-                pixelPriority[horOffset].getRenderType() == RenderType.SPRITE) { //isSpriteAlreadyShown)
+    private void storeSpriteData(int pixelIndex, int horOffset, SpriteDataHolder holder) {
+        if (horOffset < 0 || horOffset >= COLS) { //Ayrton Senna
+            return;
+        }
+        int currentPrio = pixelPriority[horOffset];
+        if (currentPrio == SPRITE_NO_PRIO || currentPrio == SPRITE_PRIO) { //isSpriteAlreadyShown
             return;
         }
-        int pixelIndex = getPixelIndexColor(tileBytePointer, pixelInTile, holder.horFlipAmount);
         int cramIndexColor = holder.paletteLineIndex + (pixelIndex << 1);
         cramIndexColor = processShadowHighlightSprite(cramIndexColor, horOffset);
         sprites[horOffset] = cramIndexColor;
         if (pixelIndex > 0 && cramIndexColor > 0) {
-            updatePriority(horOffset, holder.priority ? RenderPriority.SPRITE_PRIO : RenderPriority.SPRITE_NO_PRIO);
+            updatePriority(horOffset, holder.priority ? SPRITE_PRIO : SPRITE_NO_PRIO);
         }
     }
 
     protected void composeImageLinearLine(int line) {
         int width = videoMode.getDimension().width;
         int k = width * line;
-        for (int col = 0; col < width; col++) {
-            linearScreen[k++] = getPixelFromLayer(pixelPriority[col], col);
-        }
-    }
-
-    private int getPixelFromLayer(RenderPriority rp, int col) {
-        int cramIndex = 0;
-        switch (rp.getRenderType()) {
-            case PLANE_A:
-                cramIndex = planeA[col];
-                break;
-            case PLANE_B:
-                cramIndex = planeB[col];
-                break;
-            case SPRITE:
-                cramIndex = sprites[col];
-                break;
-            case BACK_PLANE:
-                cramIndex = planeBack[col];
-                break;
-            case WINDOW_PLANE:
-                cramIndex = window[col];
-                break;
-            default:
-                break;
-        }
-        return processShadowHighlight(shadowHighlightMode, col, cramIndex, rp);
-    }
-
-    private int processShadowHighlight(boolean shadowHighlightMode, int col, int cramIndex, RenderPriority rp) {
         if (!shadowHighlightMode) {
-            return javaPalette[cramIndex >> 1];
+            for (int col = 0; col < width; col++) {
+                linearScreen[k++] = javaPalette[layerByPriority[pixelPriority[col]][col] >> 1];
+            }
+            return;
+        }
+        for (int col = 0; col < width; col++) {
+            int prio = pixelPriority[col];
+            int cramIndex = layerByPriority[prio][col];
+            //a pixel with the priority bit set is one step brighter
+            int sh = prio > SPRITE_NO_PRIO ? Math.min(shadowHighlight[col] + 1, SH_MAX) : shadowHighlight[col];
+            shadowHighlight[col] = (byte) sh;
+            linearScreen[k++] = colorMapper.getColor(cram[cramIndex] << 8 | cram[cramIndex + 1],
+                    SH_TYPES[Math.max(sh - 1, 0)]);
         }
-        ShadowHighlightType type = shadowHighlight[col];
-        shadowHighlight[col] = rp.getPriorityType() == PriorityType.YES ? type.brighter() : type;
-        return colorMapper.getColor(cram[cramIndex] << 8 | cram[cramIndex + 1],
-                shadowHighlight[col].darker());
     }
 
     private int processShadowHighlightSprite(int cramIndexColor, int col) {
@@ -331,11 +360,11 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
         }
         switch (cramIndexColor) {
             case 0x7C: // palette 3, color E (14) = 3*0x10+E << 1
-                shadowHighlight[col] = shadowHighlight[col].brighter();
+                shadowHighlight[col] = (byte) Math.min(shadowHighlight[col] + 1, SH_MAX);
                 cramIndexColor = 0;
                 break;
             case 0x7E:  // palette 3, color F (15)
-                shadowHighlight[col] = shadowHighlight[col].darker();
+                shadowHighlight[col] = (byte) Math.max(shadowHighlight[col] - 1, 0);
                 cramIndexColor = 0;
                 break;
         }
@@ -443,8 +472,8 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
         final int cellHeight = interlaceMode.getVerticalCellPixelSize();
 
         TileDataHolder tileDataHolder = spriteDataHolder;
-        RenderPriority highPrio = RenderPriority.getRenderPriority(sc.planeType, true);
-        RenderPriority lowPrio = RenderPriority.getRenderPriority(sc.planeType, false);
+        int highPrio = RenderPriority.getRenderPriority(sc.planeType, true).getPriorityOrder();
+        int lowPrio = RenderPriority.getRenderPriority(sc.planeType, false).getPriorityOrder();
         int[] plane = sc.planeType == RenderType.PLANE_A ? planeA :
                 (sc.planeType == RenderType.PLANE_B ? planeB : window);
 
@@ -456,9 +485,11 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
             int currentPrio;
             int rowCellBase = planeLine % 8; //cellHeight;
             int latestTileLocatorVram = -1;
+            int rowOffset = 0;
+            byte[] tilePixels = null;
             for (int pixel = startPixel; pixel < startPixel + 16; pixel++) {
-                currentPrio = pixelPriority[pixel].ordinal();
-                if (currentPrio >= RenderPriority.PLANE_A_PRIO.ordinal()) {
+                currentPrio = pixelPriority[pixel];
+                if (currentPrio >= PLANE_A_PRIO) {
                     continue;
                 }
 
@@ -469,21 +500,20 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
                     int tileNameTable = vram[tileLocatorVram] << 8 | vram[tileLocatorVram + 1];
                     tileDataHolder = getTileData(tileNameTable, tileDataHolder);
                     latestTileLocatorVram = tileLocatorVram;
+
+                    int rowCell = rowCellBase ^ (tileDataHolder.vertFlipAmount & (cellHeight - 1)); //[0,7] or [0,15] IM2
+                    //4 bytes per row
+                    //TODO
+                    int rowCellShift = interlaceMode == InterlaceMode.MODE_2 ? rowCell << 3 : rowCell << 2;
+                    rowOffset = tileCache.getRowOffset(tileDataHolder.tileIndex + rowCellShift);
+                    tilePixels = tileCache.getPixels(tileDataHolder.horFlip);
                 }
-                RenderPriority rp = tileDataHolder.priority ? highPrio : lowPrio;
-                if (currentPrio >= rp.ordinal()) {
+                int rp = tileDataHolder.priority ? highPrio : lowPrio;
+                if (currentPrio >= rp) {
                     continue;
                 }
                 int xPosCell = (pixel + hScrollPixelOffset) % CELL_WIDTH;
-
-                int colCell = xPosCell ^ (spriteDataHolder.horFlipAmount & 7); //[0,7]
-                int rowCell = rowCellBase ^ (spriteDataHolder.vertFlipAmount & (cellHeight - 1)); //[0,7] or [0,15] IM2
-
-                //two pixels per byte, 4 bytes per row
-                //TODO
-                int rowCellShift = interlaceMode == InterlaceMode.MODE_2 ? rowCell << 3 : rowCell << 2;
-                int tileBytePointer = tileDataHolder.tileIndex + (colCell >> 1) + rowCellShift;
-                int onePixelData = getPixelIndexColor(tileBytePointer, xPosCell, tileDataHolder.horFlipAmount);
+                int onePixelData = tilePixels[rowOffset + xPosCell];
 
                 plane[pixel] = tileDataHolder.paletteLineIndex + (onePixelData << 1);
                 if (onePixelData > 0) {
@@ -511,18 +541,17 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
             int tileNameTable = vram[tileLocatorVram] << 8 | vram[tileLocatorVram + 1];
             tileDataHolder = getTileData(tileNameTable, tileDataHolder);
             int pixelVPosTile = tileDataHolder.vertFlip ? CELL_WIDTH - 1 - rowInTile : rowInTile;
-            RenderPriority rp = tileDataHolder.priority ? RenderPriority.WINDOW_PLANE_PRIO :
-                    RenderPriority.WINDOW_PLANE_NO_PRIO;
+            int rp = tileDataHolder.priority ? WINDOW_PRIO : WINDOW_NO_PRIO;
+
+            int rowOffset = tileCache.getRowOffset(tileDataHolder.tileIndex + (pixelVPosTile << 2));
+            byte[] tilePixels = tileCache.getPixels(tileDataHolder.horFlip);
 
             //two pixels at a time as they share a tile
-            for (int k = 0; k < 4; k++) {
-                int pixelHPosTile = k ^ (tileDataHolder.horFlipAmount & 3); //[0,4]
+            for (int k = 0; k < 4; k++, rowOffset += 2) {
                 int pos = (hCell << 3) + (k << 1);
 
-                int tileBytePointer = (tileDataHolder.tileIndex + pixelHPosTile) + (pixelVPosTile << 2);
-
-                int pixelIndexColor1 = getPixelIndexColor(tileBytePointer, 0, tileDataHolder.horFlipAmount);
-                int pixelIndexColor2 = getPixelIndexColor(tileBytePointer, 1, tileDataHolder.horFlipAmount);
+                int pixelIndexColor1 = tilePixels[rowOffset];
+                int pixelIndexColor2 = tilePixels[rowOffset + 1];
 
                 int val1 = tileDataHolder.paletteLineIndex + (pixelIndexColor1 << 1);
                 int val2 = tileDataHolder.paletteLineIndex + (pixelIndexColor2 << 1);
@@ -542,13 +571,6 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
         }
     }
 
-    private int getPixelIndexColor(int tileBytePointer, int pixelInTile, int horFlipAmount) {
-        //1 byte represents 2 pixels, 1 pixel = 4 bit = 16 color gamut
-        int twoPixelsData = vram[tileBytePointer & 0xFFFF];
-        boolean isFirstPixel = (pixelInTile % 2) == (~horFlipAmount & 1);
-        return isFirstPixel ? twoPixelsData & 0x0F : (twoPixelsData & 0xF0) >> 4;
-    }
-
     // This value is effectively the address divided by $400; however, the low
     // bit is ignored, so the Window nametable has to be located at a VRAM
     // address that's a multiple of $800. For example, if the Window nametable
@@ -655,9 +677,10 @@ public class VdpRenderHandlerImpl implements VdpRenderHandler, VdpEventListener
         return getSpriteData(vram, vramOffset, interlaceMode, holder);
     }
 
-    private void updatePriority(int col, RenderPriority rp) {
-        RenderPriority prev = pixelPriority[col];
-        pixelPriority[col] = rp.ordinal() > prev.ordinal() ? rp : prev;
+    private void updatePriority(int col, int rp) {
+        if (rp > pixelPriority[col]) {
+            pixelPriority[col] = (byte) rp;
+        }
     }
 
     public VideoMode getVideoMode() {
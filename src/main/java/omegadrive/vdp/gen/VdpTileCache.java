@@ -0,0 +1,95 @@
+/*
+ * VdpTileCache
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 10:12
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.vdp.gen;
+
+import omegadrive.vdp.model.GenesisVdpProvider;
+
+import java.util.Arrays;
+
+/**
+ * Decoded 4bpp patterns: every 32 bytes of VRAM become 8x8 pixels, one byte per pixel (the color index),
+ * interlace mode 2 tiles (8x16) span two consecutive entries.
+ * <p>
+ * Each entry is stored twice, as is and flipped horizontally; vertical flipping is just a different row.
+ * VRAM writes mark the entry as dirty, it is decoded again the next time it is used.
+ */
+public class VdpTileCache {
+
+    private static final int BYTES_PER_TILE = 32;
+    private static final int PIXELS_PER_TILE = 64;
+    private static final int NUM_TILES = GenesisVdpProvider.VDP_VRAM_SIZE / BYTES_PER_TILE;
+    //4 bytes per row
+    private static final int ROW_ADDRESS_MASK = (GenesisVdpProvider.VDP_VRAM_SIZE - 1) & ~3;
+
+    private final int[] vram;
+    private final byte[] pixels = new byte[NUM_TILES * PIXELS_PER_TILE];
+    private final byte[] pixelsHorFlip = new byte[NUM_TILES * PIXELS_PER_TILE];
+    private final long[] dirty = new long[NUM_TILES / Long.SIZE];
+
+    public VdpTileCache(int[] vram) {
+        this.vram = vram;
+        invalidateAll();
+    }
+
+    public void markDirty(int vramAddress) {
+        int tile = (vramAddress & (GenesisVdpProvider.VDP_VRAM_SIZE - 1)) >> 5;
+        dirty[tile >> 6] |= 1L << tile;
+    }
+
+    public void invalidateAll() {
+        Arrays.fill(dirty, -1L);
+    }
+
+    /**
+     * @param rowAddress VRAM address of the first byte of a tile row
+     * @return the offset of the 8 pixels of the row in {@link #getPixels(boolean)}
+     */
+    public int getRowOffset(int rowAddress) {
+        rowAddress &= ROW_ADDRESS_MASK;
+        int tile = rowAddress >> 5;
+        if ((dirty[tile >> 6] & (1L << tile)) != 0) {
+            decodeTile(tile);
+        }
+        //2 pixels per byte
+        return rowAddress << 1;
+    }
+
+    public byte[] getPixels(boolean horFlip) {
+        return horFlip ? pixelsHorFlip : pixels;
+    }
+
+    private void decodeTile(int tile) {
+        int vramAddress = tile * BYTES_PER_TILE;
+        int pos = tile * PIXELS_PER_TILE;
+        for (int row = 0; row < PIXELS_PER_TILE; row += 8, vramAddress += 4) {
+            for (int i = 0; i < 4; i++) {
+                int twoPixels = vram[vramAddress + i];
+                int first = pos + row + (i << 1);
+                //the high nibble is the pixel on the left
+                pixels[first] = (byte) (twoPixels >> 4);
+                pixels[first + 1] = (byte) (twoPixels & 0xF);
+                int flipped = pos + row + 7 - (i << 1);
+                pixelsHorFlip[flipped] = (byte) (twoPixels >> 4);
+                pixelsHorFlip[flipped - 1] = (byte) (twoPixels & 0xF);
+            }
+        }
+        dirty[tile >> 6] &= ~(1L << tile);
+    }
+}
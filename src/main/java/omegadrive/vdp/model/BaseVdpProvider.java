@@ -76,6 +76,14 @@ public interface BaseVdpProvider extends Device {
 
     int runSlot();
 
+    /**
+     * Slots to run, the next one counted as 1, up to the one that can change the interrupt state
+     * (vCounter increment, vint); 0 when unknown.
+     */
+    default int getSlotsToNextLineEvent() {
+        return 0;
+    }
+
     int getRegisterData(int reg);
 
     void updateRegisterData(int reg, int data);
@@ -101,6 +109,13 @@ public interface BaseVdpProvider extends Device {
         return "vdpState: unsupported";
     }
 
+    /**
+     * When disabled the frame is emulated but the screen is not drawn, ie. run-ahead frames.
+     */
+    default void setRenderEnabled(boolean enabled) {
+        //DO NOTHING
+    }
+
     default void resetVideoMode(boolean force) {
         throw new UnsupportedOperationException("Not supported");
     }
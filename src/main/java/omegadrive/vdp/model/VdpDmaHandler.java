@@ -37,6 +37,27 @@ public interface VdpDmaHandler {
 
     boolean dmaInProgress();
 
+    /**
+     * A register has been written, the DMA length and source (19-22) are used live.
+     */
+    default void onRegisterWrite(int reg, int data) {
+        //DO NOTHING
+    }
+
+    /**
+     * The DMA length and source are about to be observed, writes back the internal counters.
+     */
+    default void storeCounters() {
+        //DO NOTHING
+    }
+
+    /**
+     * VDP memory is about to be observed or written, completes any fill/copy writes still pending.
+     */
+    default void flushTransfers() {
+        //DO NOTHING
+    }
+
     default String getDmaStateString() {
         return "Not implemented";
     }
@@ -20,6 +20,7 @@
 package omegadrive.vdp.model;
 
 import omegadrive.util.Size;
+import omegadrive.vdp.gen.VdpTileCache;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -49,6 +50,8 @@ public interface VdpMemoryInterface extends VdpMemory {
 
     int[] getJavaColorPalette();
 
+    VdpTileCache getTileCache();
+
     default int[] getSatCache() {
         return new int[0];
     }
@@ -57,6 +60,13 @@ public interface VdpMemoryInterface extends VdpMemory {
         //DO NOTHING
     }
 
+    /**
+     * Returns true if the sat cache has changed since the last call, clears the flag.
+     */
+    default boolean clearSatCacheDirty() {
+        return true;
+    }
+
     default int readVideoRamWord(GenesisVdpProvider.VdpRamType vramType, int address) {
         switch (vramType) {
             case VRAM:
@@ -23,7 +23,6 @@ import omegadrive.bus.BaseBusProvider;
 import omegadrive.bus.gen.GenesisBusProvider;
 import omegadrive.bus.gen.GenesisZ80BusProvider;
 import omegadrive.bus.gen.GenesisZ80BusProviderImpl;
-import omegadrive.util.Size;
 import omegadrive.util.Util;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -33,19 +32,30 @@ import z80core.Z80State;
 public class Z80CoreWrapper implements Z80Provider {
 
     public final static boolean STOP_ON_EXCEPTION;
+    public final static boolean IDLE_DETECTION;
     private final static Logger LOG = LogManager.getLogger(Z80CoreWrapper.class.getSimpleName());
 
     static {
         STOP_ON_EXCEPTION =
             Boolean.valueOf(System.getProperty("z80.stop.on.exception", "false"));
+        IDLE_DETECTION =
+                Boolean.valueOf(System.getProperty("helios.z80.idle.detection", "true"));
     }
 
+    private static final int HALT = 0x76, JR = 0x18, JP = 0xC3;
+    private static final int HALT_CYCLES = 4, JR_CYCLES = 12, JP_CYCLES = 10;
+
     public static boolean verbose = false;
 
     protected Z80 z80Core;
     protected BaseBusProvider z80BusProvider;
     protected Z80MemIoOps memIoOps;
     protected int instCyclesPenalty = 0;
+    protected boolean idleDetection = IDLE_DETECTION;
+
+    //idle loop found by getIdleLoopCycles, iterations credited by the last skip
+    private int idleLoopCycles, skipLoopCycles, skipIterations;
+    private long skippedCycles;
 
     public static Z80CoreWrapper createInstance(BaseBusProvider busProvider) {
         Z80CoreWrapper w = new Z80CoreWrapper();
@@ -89,6 +99,7 @@ public class Z80CoreWrapper implements Z80Provider {
     public int executeInstruction() {
         memIoOps.reset();
         instCyclesPenalty = 0;
+        skipIterations = 0;
         try {
             z80Core.execute();
         } catch (Exception | Error e) {
@@ -107,6 +118,7 @@ public class Z80CoreWrapper implements Z80Provider {
     //registers I and R, then sets interrupt status to mode 0.
     @Override
     public void reset() {
+        skipIterations = 0;
         z80Core.setHalted(false);
         z80Core.setINTLine(false);
         z80Core.setNMI(false);
@@ -143,12 +155,12 @@ public class Z80CoreWrapper implements Z80Provider {
 
     @Override
     public int readMemory(int address) {
-        return (int) z80BusProvider.read(address, Size.BYTE);
+        return z80BusProvider.read8(address);
     }
 
     @Override
     public void writeMemory(int address, int data) {
-        z80BusProvider.write(address, data, Size.BYTE);
+        z80BusProvider.write8(address, data);
     }
 
     @Override
@@ -164,10 +176,81 @@ public class Z80CoreWrapper implements Z80Provider {
     @Override
     public void loadZ80State(Z80State z80State) {
         this.z80Core.setZ80State(z80State);
+        skipIterations = 0;
     }
 
     @Override
     public Z80State getZ80State() {
         return z80Core.getZ80State();
     }
-}
\ No newline at end of file
+
+    @Override
+    public void setIdleDetection(boolean enable) {
+        idleDetection = enable;
+    }
+
+    @Override
+    public int getIdleLoopCycles() {
+        idleLoopCycles = idleDetection && !isInterruptPending() ? getLoopCycles(z80Core.getRegPC()) : 0;
+        return idleLoopCycles;
+    }
+
+    /**
+     * An iteration of the idle loop only fetches its own opcodes and bumps R, the interrupt state is
+     * sampled once per iteration: when it cannot change, the iterations are credited in one go.
+     */
+    @Override
+    public int skipIdleCycles(int cycles) {
+        int loopCycles = idleLoopCycles;
+        idleLoopCycles = 0;
+        if (loopCycles == 0) {
+            return 0;
+        }
+        //an interrupt just raised is taken at the end of the next iteration
+        int iterations = isInterruptPending() ? 1 : cycles / loopCycles + 1;
+        addIterations(loopCycles, iterations);
+        skipLoopCycles = loopCycles;
+        skipIterations = iterations;
+        return iterations * loopCycles;
+    }
+
+    @Override
+    public void cancelIdleCycles(int cycles) {
+        if (skipIterations == 0) {
+            return;
+        }
+        addIterations(skipLoopCycles, -Math.min(skipIterations, cycles / skipLoopCycles));
+        skipIterations = 0;
+    }
+
+    @Override
+    public long getSkippedCycles() {
+        return skippedCycles;
+    }
+
+    //NOTE: halt sets PC = PC - 1, jr/jp set memptr to the target
+    private int getLoopCycles(int pc) {
+        switch (memIoOps.peekOpcode(pc)) {
+            case HALT:
+                return z80Core.isHalted() ? HALT_CYCLES : 0;
+            case JR:
+                return z80Core.getMemPtr() == pc && memIoOps.peekOpcode((pc + 1) & 0xFFFF) == 0xFE ? JR_CYCLES : 0;
+            case JP:
+                return z80Core.getMemPtr() == pc && (memIoOps.peekOpcode((pc + 1) & 0xFFFF) |
+                        memIoOps.peekOpcode((pc + 2) & 0xFFFF) << 8) == pc ? JP_CYCLES : 0;
+            default:
+                return 0;
+        }
+    }
+
+    //an interrupt would be taken at the end of the next instruction
+    private boolean isInterruptPending() {
+        return z80Core.isNMI() || z80Core.isPendingEI() || (z80Core.isIFF1() && memIoOps.isActiveINT());
+    }
+
+    private void addIterations(int loopCycles, int iterations) {
+        int r = z80Core.getRegR();
+        z80Core.setRegR((r & 0x80) | ((r + iterations) & 0x7F));
+        skippedCycles += (long) iterations * loopCycles;
+    }
+}
@@ -49,6 +49,8 @@ public class Z80CoreWrapperDebug extends Z80CoreWrapper {
         w.memIoOps = Z80MemIoOps.createDebugGenesisInstance(w.z80BusProvider, w.sb, w.logAddressAccess);
         w.memIoOpsDbg = (Z80MemIoOps.Z80MemIoOpsDbg) w.memIoOps;
         IntStream.range(0, w.lastN).forEach(i -> w.traceArray[i] = new Z80Helper.Z80StateExt());
+        //trace every instruction
+        w.idleDetection = false;
         return setupInternalDbg(w, null);
     }
 
@@ -20,6 +20,7 @@
 package omegadrive.z80;
 
 import omegadrive.bus.BaseBusProvider;
+import omegadrive.bus.gen.GenesisZ80BusProvider;
 import omegadrive.memory.IMemoryRam;
 import omegadrive.util.Size;
 import omegadrive.util.Util;
@@ -57,6 +58,11 @@ public class Z80MemIoOps implements IMemIoOps {
             public int fetchOpcode(int address) {
                 return fetchOpcodeBus(address);
             }
+
+            @Override
+            public int peekOpcode(int address) {
+                return z80BusProvider.read8(address) & 0xFF;
+            }
         };
         m.z80BusProvider = z80BusProvider;
         return m;
@@ -64,7 +70,7 @@ public class Z80MemIoOps implements IMemIoOps {
 
     protected final int fetchOpcodeBus(int address) {
         tstatesCount += 4;
-        return (int) z80BusProvider.read(address, Size.BYTE) & 0xFF;
+        return z80BusProvider.read8(address) & 0xFF;
     }
 
     @Override
@@ -74,16 +80,25 @@ public class Z80MemIoOps implements IMemIoOps {
         return ram[address];
     }
 
+    /**
+     * Reads the opcodes from the z80 RAM, without side effects and without counting any T-state.
+     *
+     * @return -1 outside of RAM, ie. the 68k bank window, where no idle loop is detected
+     */
+    public int peekOpcode(int address) {
+        return address >= 0 && address <= GenesisZ80BusProvider.END_RAM ? ram[address & ramSizeMask] : -1;
+    }
+
     @Override
     public int peek8(int address) {
         tstatesCount += 3;
-        return (int) z80BusProvider.read(address, Size.BYTE) & 0xFF;
+        return z80BusProvider.read8(address) & 0xFF;
     }
 
     @Override
     public void poke8(int address, int value) {
         tstatesCount += 3;
-        z80BusProvider.write(address, value, Size.BYTE);
+        z80BusProvider.write8(address, value);
     }
 
     @Override
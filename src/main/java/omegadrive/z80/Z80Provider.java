@@ -46,4 +46,41 @@ public interface Z80Provider extends Device {
     void loadZ80State(Z80State z80State);
 
     Z80State getZ80State();
+
+    /**
+     * Skipping HALT, jr $ and jp $ loops, see getIdleLoopCycles
+     */
+    default void setIdleDetection(boolean enable) {
+        //DO NOTHING
+    }
+
+    /**
+     * T-states of one iteration when the cpu is waiting for an interrupt (HALT, jr $, jp $)
+     * and the current interrupt state cannot wake it up, 0 otherwise.
+     */
+    default int getIdleLoopCycles() {
+        return 0;
+    }
+
+    /**
+     * To be called after getIdleLoopCycles and the interrupt handling, runs whole iterations of the idle loop.
+     *
+     * @param cycles T-states where the interrupt state is known not to change
+     * @return T-states skipped, 0 if none
+     */
+    default int skipIdleCycles(int cycles) {
+        return 0;
+    }
+
+    /**
+     * The cpu has been stopped (bus request, reset) before the end of the last skip,
+     * gives back the iterations that have not elapsed.
+     */
+    default void cancelIdleCycles(int cycles) {
+        //DO NOTHING
+    }
+
+    default long getSkippedCycles() {
+        return 0;
+    }
 }
@@ -17,13 +17,19 @@
 
 package omegadrive.bus;
 
+import m68k.memory.AddressSpace;
+import omegadrive.bus.gen.GenesisBus;
 import omegadrive.bus.gen.GenesisBusProvider;
 import omegadrive.joypad.GenesisJoypad;
+import omegadrive.m68k.MC68000AddressSpace;
 import omegadrive.m68k.MC68000Wrapper;
 import omegadrive.memory.IMemoryProvider;
 import omegadrive.memory.MemoryProvider;
 import omegadrive.sound.SoundProvider;
+import omegadrive.ssp16.Ssp16;
+import omegadrive.system.SystemProvider;
 import omegadrive.util.Size;
+import omegadrive.vdp.MdVdpTestUtil;
 import omegadrive.vdp.model.GenesisVdpProvider;
 import omegadrive.z80.Z80CoreWrapper;
 import org.junit.Assert;
@@ -81,4 +87,157 @@ public class GenesisBusTest {
         res = bus.read(0xA08A00, Size.BYTE);
         Assert.assertEquals(value, res);
     }
+
+    /**
+     * ROM and RAM accesses served by the page table should match the mapper path
+     */
+    @Test
+    public void testRomRamPages() {
+        GenesisBus bus = new GenesisBus();
+        IMemoryProvider memory = MemoryProvider.createGenesisInstance();
+        int[] rom = new int[0x20000];
+        for (int i = 0; i < rom.length; i++) {
+            rom[i] = i & 0xFF;
+        }
+        memory.setRomData(rom);
+        GenesisVdpProvider vdp = GenesisVdpProvider.createVdp(bus);
+        MC68000Wrapper cpu = new MC68000Wrapper(bus);
+        SystemProvider systemProvider = MdVdpTestUtil.createTestGenesisProvider();
+        bus.attachDevice(memory).attachDevice(cpu).attachDevice(systemProvider).attachDevice(vdp);
+        bus.init();
+
+        Assert.assertEquals(0x3435, bus.read(0x1234, Size.WORD));
+        Assert.assertEquals(0xFEFF0001L, bus.read(0xFFFE, Size.LONG) & Size.LONG.getMask());
+        Assert.assertEquals(bus.readData(0x1001, Size.BYTE), bus.read(0x1001, Size.BYTE));
+        //mirrored ROM
+        Assert.assertEquals(bus.readData(0x20010, Size.WORD), bus.read(0x20010, Size.WORD));
+
+        bus.write(0xFF0000, 0x11223344, Size.LONG);
+        Assert.assertEquals(0x11223344, bus.read(0xFF0000, Size.LONG));
+        //64K mirror
+        Assert.assertEquals(0x1122, bus.read(0xE00000, Size.WORD));
+        Assert.assertEquals(0x33, bus.readData(0xFF0002, Size.BYTE));
+        bus.write(0xFFFFFF, 0x1FF, Size.BYTE);
+        Assert.assertEquals(0xFF, memory.getRamData()[0xFFFF]);
+
+        //width specialised accessors
+        Assert.assertEquals(bus.read(0x1001, Size.BYTE), bus.read8(0x1001));
+        Assert.assertEquals(bus.read(0x20010, Size.WORD), bus.read16(0x20010));
+        Assert.assertEquals(bus.read(0xFFFE, Size.LONG), bus.read32(0xFFFE));
+        bus.write16(0xFF0010, 0x1ABCD);
+        Assert.assertEquals(0xABCD, bus.read(0xFF0010, Size.WORD));
+        bus.write32(0xFFFFFC, 0x55667788);
+        Assert.assertEquals(0x5566, bus.read16(0xE0FFFC));
+        bus.write8(0xFFFFFF, 0x1EE);
+        Assert.assertEquals(0xEE, bus.read8(0xFFFFFF));
+    }
+
+    /**
+     * The SVP appears on the first access to its registers, listeners see the memory map change
+     */
+    @Test
+    public void testSvpMapperMemoryMapChange() {
+        GenesisBus bus = new GenesisBus();
+        IMemoryProvider memory = MemoryProvider.createGenesisInstance();
+        memory.setRomData(new int[0x20000]);
+        GenesisVdpProvider vdp = GenesisVdpProvider.createVdp(bus);
+        MC68000Wrapper cpu = new MC68000Wrapper(bus);
+        SystemProvider systemProvider = MdVdpTestUtil.createTestGenesisProvider();
+        bus.attachDevice(memory).attachDevice(cpu).attachDevice(systemProvider).attachDevice(vdp);
+        bus.init();
+        boolean[] svp = new boolean[1];
+        bus.addMemoryMapListener((pageTable, romData, ramData) -> svp[0] = bus.getSsp16() != Ssp16.NO_SVP);
+        Assert.assertFalse(svp[0]);
+
+        bus.read(GenesisBusProvider.SVP_REG_AREA_START, Size.WORD);
+        Assert.assertTrue(svp[0]);
+    }
+
+    /**
+     * 68k direct reads should match the bus, before and after the memory map changes
+     */
+    @Test
+    public void testAddressSpaceDirectRead() {
+        GenesisBus bus = new GenesisBus();
+        IMemoryProvider memory = MemoryProvider.createGenesisInstance();
+        int[] rom = new int[0x20000];
+        for (int i = 0; i < rom.length; i++) {
+            rom[i] = (i * 7) & 0xFF;
+        }
+        memory.setRomData(rom);
+        GenesisVdpProvider vdp = GenesisVdpProvider.createVdp(bus);
+        MC68000Wrapper cpu = new MC68000Wrapper(bus);
+        SystemProvider systemProvider = MdVdpTestUtil.createTestGenesisProvider();
+        bus.attachDevice(memory).attachDevice(cpu).attachDevice(systemProvider).attachDevice(vdp);
+        AddressSpace as = MC68000AddressSpace.createInstance(bus);
+        bus.init();
+
+        bus.write(0xFF0000, 0x11223344, Size.LONG);
+        bus.write(0xFFFFFC, 0x55667788, Size.LONG);
+        int[] addresses = {0, 0x1233, 0xFFFE, 0x1FFFC, 0x20010, 0xE00000, 0xFF0001, 0xFFFFFC, 0xFFFFFE, 0xFFFFFF};
+        for (int address : addresses) {
+            Assert.assertEquals(bus.read(address, Size.BYTE), as.readByte(address));
+            Assert.assertEquals(bus.read(address, Size.WORD), as.readWord(address));
+            Assert.assertEquals((int) bus.read(address, Size.LONG), as.readLong(address));
+        }
+        Assert.assertEquals(0x1122, as.internalReadWord(0xFF0000));
+        Assert.assertEquals(0x55667788, as.readLong(0xEFFFFC));
+    }
+
+    /**
+     * VDP and IO accesses through the width specialised mapper path should match the Size based path
+     */
+    @Test
+    public void testVdpIoAccessors() {
+        GenesisBus bus = new GenesisBus();
+        IMemoryProvider memory = MemoryProvider.createGenesisInstance();
+        memory.setRomData(new int[0x20000]);
+        GenesisJoypad joypad = new GenesisJoypad();
+        GenesisVdpProvider vdp = GenesisVdpProvider.createVdp(bus);
+        MC68000Wrapper cpu = new MC68000Wrapper(bus);
+        SystemProvider systemProvider = MdVdpTestUtil.createTestGenesisProvider();
+        bus.attachDevice(memory).attachDevice(joypad).attachDevice(cpu).attachDevice(systemProvider).attachDevice(vdp);
+        bus.init();
+        joypad.init();
+        vdp.init();
+
+        //register writes, a byte is used for both halves of the word
+        bus.write16(0xC00004, 0x8F02);
+        Assert.assertEquals(2, vdp.getRegisterData(15));
+        bus.write8(0xC00005, 0x8F);
+        Assert.assertEquals(0x8F, vdp.getRegisterData(15));
+        bus.write16(0xC00004, 0x8F02);
+
+        //VRAM write at 0, then read it back
+        bus.write32(0xC00004, 0x4000_0000);
+        bus.write16(0xC00000, 0x1234);
+        bus.write16(0xC00002, 0x5678);
+        MdVdpTestUtil.runVdpUntilFifoEmpty(vdp);
+        bus.write32(0xC00004, 0);
+        Assert.assertEquals(0x1234, bus.read16(0xC00000));
+        Assert.assertEquals(0x5678, bus.read(0xC00000, Size.WORD));
+        bus.write32(0xC00004, 0);
+        Assert.assertEquals(0x12, bus.read8(0xC00000));
+        bus.write32(0xC00004, 0);
+        Assert.assertEquals(0x34, bus.read8(0xC00001));
+        bus.write32(0xC00004, 0);
+        Assert.assertEquals(0x12345678, bus.read32(0xC00000));
+
+        //status and HV counter
+        Assert.assertEquals(bus.read(0xC00004, Size.WORD), bus.read16(0xC00004));
+        Assert.assertEquals(bus.read(0xC00005, Size.BYTE), bus.read8(0xC00005));
+        Assert.assertEquals(bus.read(0xC00008, Size.WORD), bus.read16(0xC00008));
+        Assert.assertEquals(bus.read(0xC00009, Size.BYTE), bus.read8(0xC00009));
+        Assert.assertEquals((int) bus.read(0xC00004, Size.LONG), bus.read32(0xC00004));
+
+        //joypad
+        bus.write8(0xA10009, 0x40);
+        Assert.assertEquals(0x40, bus.read8(0xA10009));
+        Assert.assertEquals(bus.read(0xA10009, Size.WORD), bus.read16(0xA10008));
+        bus.write16(0xA10002, 0x40);
+        Assert.assertEquals(bus.read(0xA10003, Size.BYTE), bus.read8(0xA10003));
+        Assert.assertEquals((int) bus.read(0xA10002, Size.LONG), bus.read32(0xA10002));
+        bus.write32(0xA10008, 0);
+        Assert.assertEquals(0, bus.read8(0xA10009));
+    }
 }
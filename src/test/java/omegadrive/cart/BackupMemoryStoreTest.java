@@ -0,0 +1,65 @@
+package omegadrive.cart;
+
+import omegadrive.cart.mapper.BackupMemoryStore;
+import omegadrive.util.Size;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BackupMemoryStoreTest
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+public class BackupMemoryStoreTest {
+
+    @Test
+    public void testCreateAndReload() throws Exception {
+        Path file = Files.createTempDirectory("sram").resolve("sub").resolve("test.srm");
+        int size = 0x2000;
+        BackupMemoryStore s = BackupMemoryStore.open(file, size);
+        Assert.assertEquals(size, s.size());
+        Assert.assertEquals(size, Files.size(file));
+        Assert.assertFalse(s.isDirty());
+
+        s.write(0, 0x1FF);
+        s.write(Size.WORD, 0x100, 0x1234);
+        s.write(Size.LONG, 0x1FFC, 0xAABBCCDDL);
+        Assert.assertTrue(s.isDirty());
+        Assert.assertEquals(0xFF, s.read(0));
+        Assert.assertEquals(0x12, s.read(0x100));
+        Assert.assertEquals(0x1234, s.read(Size.WORD, 0x100));
+        Assert.assertEquals(0xAABBCCDDL, s.read(Size.LONG, 0x1FFC));
+        s.close().get(5, TimeUnit.SECONDS);
+        Assert.assertFalse(s.isDirty());
+
+        byte[] b = Files.readAllBytes(file);
+        Assert.assertEquals(size, b.length);
+        Assert.assertEquals(0x34, b[0x101] & 0xFF);
+        Assert.assertEquals(0xDD, b[0x1FFF] & 0xFF);
+
+        //existing file, bigger than requested
+        s = BackupMemoryStore.open(file, 0x100);
+        Assert.assertEquals(size, s.size());
+        Assert.assertEquals(0xFF, s.read(0));
+        Assert.assertEquals(0xAABBCCDDL, s.read(Size.LONG, 0x1FFC));
+        s.close().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testGrowExisting() throws Exception {
+        Path file = Files.createTempFile("sram", ".srm");
+        Files.write(file, new byte[]{1, 2, 3});
+        BackupMemoryStore s = BackupMemoryStore.open(file, 0x400);
+        Assert.assertEquals(0x400, s.size());
+        Assert.assertEquals(3, s.read(2));
+        Assert.assertEquals(0, s.read(3));
+        s.close().get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(0x400, Files.size(file));
+    }
+}
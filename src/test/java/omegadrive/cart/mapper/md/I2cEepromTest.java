@@ -0,0 +1,74 @@
+/*
+ * I2cEepromTest
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 12:47
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.cart.mapper.md;
+
+import omegadrive.cart.mapper.BackupMemoryStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+public class I2cEepromTest {
+
+    private static final int SIZE = 0x80;
+    private static final int PAGE_SIZE = 4;
+
+    /**
+     * A page write crossing the end of the page rolls over to the start of the same page
+     */
+    @Test
+    public void testPageWriteWrap() throws Exception {
+        BackupMemoryStore store = BackupMemoryStore.open(Files.createTempFile("eeprom", ".srm"), SIZE);
+        I2cEeprom eeprom = I2cEeprom.createInstance(SIZE, PAGE_SIZE, store);
+        int[] data = {0x11, 0x22, 0x33, 0x44, 0x55};
+        //start, 7 bit word address 6, write
+        eeprom.eeprom_i2c_in(3);
+        eeprom.eeprom_i2c_in(2);
+        writeBits(eeprom, (6 << 1) | 0);
+        for (int d : data) {
+            writeBits(eeprom, d);
+        }
+        //stop
+        eeprom.eeprom_i2c_in(0);
+        eeprom.eeprom_i2c_in(2);
+        eeprom.eeprom_i2c_in(3);
+
+        //the fifth byte overwrites the first one
+        Assert.assertEquals(0x33, store.read(4));
+        Assert.assertEquals(0x44, store.read(5));
+        Assert.assertEquals(0x55, store.read(6));
+        Assert.assertEquals(0x22, store.read(7));
+        //next page untouched
+        Assert.assertEquals(0, store.read(8));
+        store.close().get(5, TimeUnit.SECONDS);
+    }
+
+    //8 bits MSB first and the ACK clock, SDA only changes while SCL is low
+    private static void writeBits(I2cEeprom eeprom, int value) {
+        for (int i = 7; i >= 0; i--) {
+            int sda = (value >> i) & 1;
+            eeprom.eeprom_i2c_in(sda);
+            eeprom.eeprom_i2c_in(2 | sda);
+        }
+        eeprom.eeprom_i2c_in(0);
+        eeprom.eeprom_i2c_in(2);
+    }
+}
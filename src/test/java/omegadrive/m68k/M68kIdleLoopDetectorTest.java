@@ -0,0 +1,184 @@
+/*
+ * M68kIdleLoopDetectorTest
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 12:47
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.m68k;
+
+import omegadrive.bus.gen.GenesisBusProvider;
+import omegadrive.memory.IMemoryProvider;
+import omegadrive.memory.MemoryProvider;
+import omegadrive.system.SystemProvider;
+import omegadrive.vdp.MdVdpTestUtil;
+import omegadrive.vdp.model.GenesisVdpProvider;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class M68kIdleLoopDetectorTest {
+
+    private static final int CODE_START = 0x200;
+    private static final int RAM_FLAG = 0xFF_0000;
+    private static final int INSTRUCTIONS = 20;
+
+    private static final int[] BRA_SELF = {
+            0x60fe                                  //loop: bra.s loop
+    };
+
+    private static final int[] RAM_POLL = {
+            0x4a79, 0x00ff, 0x0000,                 //loop: tst.w $ff0000
+            0x67f8,                                 //beq.s loop
+            0x60fe                                  //bra.s *
+    };
+
+    private static final int[] VDP_POLL = {
+            0x3039, 0x00c0, 0x0004,                 //loop: move.w $c00004,d0
+            0x0800, 0x0001,                         //btst #1,d0
+            0x67f4                                  //beq.s loop
+    };
+
+    private static final int[] RAM_WRITE = {
+            0x5279, 0x00ff, 0x0000,                 //loop: addq.w #1,$ff0000
+            0x60f8                                  //bra.s loop
+    };
+
+    private static final int[] REG_COUNTER = {
+            0x5280,                                 //loop: addq.l #1,d0
+            0x60fc                                  //bra.s loop
+    };
+
+    private static final int[] STOP = {
+            0x4e72, 0x2000,                         //loop: stop #$2000
+            0x60fa                                  //bra.s loop
+    };
+
+    private MC68000Wrapper cpu;
+    private IMemoryProvider memory;
+    private GenesisBusProvider bus;
+
+    @Before
+    public void setup() {
+        bus = GenesisBusProvider.createBus();
+        memory = MemoryProvider.createGenesisInstance();
+        GenesisVdpProvider vdpProvider = GenesisVdpProvider.createVdp(bus);
+        cpu = MC68000Wrapper.createInstance(bus, false);
+        SystemProvider systemProvider = MdVdpTestUtil.createTestGenesisProvider();
+        bus.attachDevice(memory).attachDevice(cpu).attachDevice(systemProvider).attachDevice(vdpProvider);
+        bus.init();
+        //no interrupt pending
+        bus.handleVdpInterrupts68k();
+        cpu.setIdleDetection(true);
+    }
+
+    @Test
+    public void testBranchToSelf() {
+        load(BRA_SELF);
+        run(INSTRUCTIONS);
+        Assert.assertTrue(cpu.idleLoop.isIdle());
+        int loopCycles = cpu.getIdleLoopCycles();
+        Assert.assertEquals(10, loopCycles);
+        Assert.assertEquals(10 * loopCycles, cpu.skipIdleCycles(10 * loopCycles + loopCycles - 1));
+        Assert.assertEquals(CODE_START, cpu.getPC());
+        Assert.assertTrue(cpu.getSkippedCycles() >= 10 * loopCycles);
+    }
+
+    @Test
+    public void testRamPoll() {
+        load(RAM_POLL);
+        run(INSTRUCTIONS);
+        Assert.assertTrue(cpu.idleLoop.isIdle());
+        Assert.assertEquals(CODE_START, cpu.getPC());
+        int loopCycles = cpu.getIdleLoopCycles();
+        Assert.assertTrue(loopCycles > 0);
+        Assert.assertEquals(3 * loopCycles, cpu.skipIdleCycles(3 * loopCycles));
+        //the skip is cut short, the iterations not elapsed are given back
+        long skipped = cpu.getSkippedCycles();
+        cpu.cancelIdleCycles(2 * loopCycles);
+        Assert.assertEquals(skipped - 2 * loopCycles, cpu.getSkippedCycles());
+
+        //the flag changes, the next iteration exits the loop
+        memory.writeRamWord(RAM_FLAG & 0xFFFF, 1);
+        run(2);
+        Assert.assertFalse(cpu.idleLoop.isIdle());
+        Assert.assertEquals(CODE_START + 8, cpu.getPC());
+    }
+
+    @Test
+    public void testVdpPoll() {
+        load(VDP_POLL);
+        run(INSTRUCTIONS);
+        //replayed, but the status can change on every vdp slot: no iterations are skipped
+        Assert.assertTrue(cpu.idleLoop.isIdle());
+        Assert.assertEquals(0, cpu.getIdleLoopCycles());
+        Assert.assertEquals(0, cpu.skipIdleCycles(1000));
+        long skipped = cpu.getSkippedCycles();
+        run(INSTRUCTIONS);
+        Assert.assertTrue(cpu.getSkippedCycles() > skipped);
+    }
+
+    @Test
+    public void testSideEffectsRejected() {
+        load(RAM_WRITE);
+        run(INSTRUCTIONS);
+        Assert.assertFalse(cpu.idleLoop.isIdle());
+        Assert.assertTrue(cpu.idleLoop.isRejected(CODE_START));
+        Assert.assertEquals(INSTRUCTIONS / 2, memory.readRamWord(RAM_FLAG & 0xFFFF));
+
+        //a savestate load keeps the rejected loops, a new rom clears them
+        cpu.resetIdleLoop();
+        Assert.assertTrue(cpu.idleLoop.isRejected(CODE_START));
+        cpu.setIdleDetection(true);
+        Assert.assertFalse(cpu.idleLoop.isRejected(CODE_START));
+    }
+
+    @Test
+    public void testRegisterChangeRejected() {
+        load(REG_COUNTER);
+        run(INSTRUCTIONS);
+        Assert.assertFalse(cpu.idleLoop.isIdle());
+        Assert.assertTrue(cpu.idleLoop.isRejected(CODE_START));
+        Assert.assertEquals(INSTRUCTIONS / 2, cpu.getM68k().getDataRegisterLong(0));
+    }
+
+    @Test
+    public void testStop() {
+        load(STOP);
+        cpu.runInstruction();
+        //not a loop, the system skips ahead while stopped
+        Assert.assertTrue(cpu.isStopped());
+        Assert.assertFalse(cpu.idleLoop.isIdle());
+        Assert.assertEquals(0, cpu.getIdleLoopCycles());
+        Assert.assertEquals(0, cpu.getSkippedCycles());
+    }
+
+    private void load(int[] code) {
+        int[] rom = new int[0x400];
+        for (int i = 0; i < code.length; i++) {
+            rom[CODE_START + (i << 1)] = code[i] >> 8;
+            rom[CODE_START + (i << 1) + 1] = code[i] & 0xFF;
+        }
+        memory.setRomData(rom);
+        cpu.getM68k().setSR(0x2700);
+        cpu.getM68k().setPC(CODE_START);
+    }
+
+    private void run(int instructions) {
+        for (int i = 0; i < instructions; i++) {
+            cpu.runInstruction();
+        }
+    }
+}
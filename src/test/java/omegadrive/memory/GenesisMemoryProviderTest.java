@@ -17,6 +17,8 @@
 
 package omegadrive.memory;
 
+import omegadrive.util.Size;
+import omegadrive.util.Util;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -30,6 +32,7 @@ import java.util.stream.IntStream;
 public class GenesisMemoryProviderTest {
 
     IMemoryProvider provider = MemoryProvider.createGenesisInstance();
+    IMemoryProvider packedProvider = MemoryProvider.createInstance(new int[1], MemoryProvider.M68K_RAM_SIZE, true);
 
     @Test
     public void testRomWrapping01() {
@@ -86,5 +89,32 @@ public class GenesisMemoryProviderTest {
 
         long res = provider.readRomByte(address);
         Assert.assertEquals(expected, res);
+
+        IntStream.range(0, size).forEach(i -> data[i] = i & 0xFF);
+        packedProvider.setRomData(data);
+        res = packedProvider.readRomByte(address);
+        Assert.assertEquals(expected & 0xFF, res);
+    }
+
+    @Test
+    public void testPackedMemoryProvider() {
+        int size = 4896;
+        int[] data = new int[size];
+        IntStream.range(0, size).forEach(i -> data[i] = (i * 7) & 0xFF);
+        provider.setRomData(data);
+        packedProvider.setRomData(data);
+        for (int i = 0; i < 0x10000; i++) {
+            Assert.assertEquals(provider.readRomByte(i), packedProvider.readRomByte(i));
+            Assert.assertEquals(Util.readRom(provider, Size.WORD, i), Util.readRom(packedProvider, Size.WORD, i));
+            Assert.assertEquals(Util.readRom(provider, Size.LONG, i), Util.readRom(packedProvider, Size.LONG, i));
+        }
+        Assert.assertArrayEquals(provider.getRomData(), packedProvider.getRomData());
+
+        Util.writeRam(packedProvider, Size.LONG, 0x100, 0x8899AABBL);
+        Util.writeRam(packedProvider, Size.WORD, 0xFFFE, 0xCCDD);
+        Assert.assertEquals(0x88, packedProvider.readRamByte(0x100));
+        Assert.assertEquals(0xAABB, Util.readRam(packedProvider, Size.WORD, 0x102));
+        Assert.assertEquals(0x8899AABBL, Util.readRam(packedProvider, Size.LONG, 0x100) & Size.LONG.getMask());
+        Assert.assertEquals(0xDD, packedProvider.getRamData()[0xFFFF]);
     }
 }
@@ -0,0 +1,157 @@
+package omegadrive.save;
+
+import omegadrive.savestate.RewindBuffer;
+import omegadrive.util.Util;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * RewindBufferTest
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+public class RewindBufferTest {
+
+    private static final int STATE_SIZE = 0x4000;
+    private static final int KEYFRAME_INTERVAL = 10;
+    private static final long TIMEOUT_MS = 5000;
+
+    private static byte[] createState(int frame) {
+        byte[] b = new byte[STATE_SIZE];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) (i * 7);
+        }
+        ByteBuffer.wrap(b).putInt(0, frame).putInt(0x100 + (frame % 64) * 4, frame);
+        return b;
+    }
+
+    //one frame at a time, the compressor is never behind
+    private static void captureAll(RewindBuffer rb, int from, int to) {
+        for (int i = from; i < to; i++) {
+            long compressed = rb.getCompressedFrames();
+            rb.capture(ByteBuffer.wrap(createState(i)));
+            long start = System.currentTimeMillis();
+            while (rb.getCompressedFrames() == compressed && System.currentTimeMillis() - start < TIMEOUT_MS) {
+                Util.sleep(1);
+            }
+        }
+        Assert.assertEquals(0, rb.getDroppedFrames());
+    }
+
+    private static void assertState(int frame, Optional<ByteBuffer> res) {
+        Assert.assertTrue(res.isPresent());
+        ByteBuffer b = res.get();
+        byte[] actual = new byte[b.remaining()];
+        b.get(actual);
+        Assert.assertArrayEquals(createState(frame), actual);
+    }
+
+    @Test
+    public void testRewind() {
+        RewindBuffer rb = new RewindBuffer(1000, KEYFRAME_INTERVAL, Long.MAX_VALUE);
+        try {
+            Assert.assertFalse(rb.rewind(1).isPresent());
+            captureAll(rb, 0, 50);
+            Assert.assertEquals(50, rb.getFrames());
+            //keyframes and deltas
+            assertState(49, rb.rewind(1));
+            assertState(40, rb.rewind(9));
+            assertState(33, rb.rewind(7));
+            Assert.assertEquals(33, rb.getFrames());
+
+            //new frames after a rewind, starting with a keyframe
+            captureAll(rb, 100, 105);
+            assertState(102, rb.rewind(3));
+            assertState(32, rb.rewind(3));
+
+            //beyond the oldest frame
+            assertState(0, rb.rewind(1000));
+            Assert.assertEquals(0, rb.getFrames());
+            Assert.assertFalse(rb.rewind(1).isPresent());
+        } finally {
+            rb.close();
+        }
+    }
+
+    @Test
+    public void testCapacity() {
+        int capacity = 25;
+        RewindBuffer rb = new RewindBuffer(capacity, KEYFRAME_INTERVAL, Long.MAX_VALUE);
+        try {
+            captureAll(rb, 0, 100);
+            Assert.assertEquals(capacity, rb.getFrames());
+            //the oldest frame is a delta, its keyframe has been dropped from the ring
+            assertState(75, rb.rewind(capacity));
+            Assert.assertEquals(0, rb.getFrames());
+            Assert.assertEquals(0, rb.getBytes());
+        } finally {
+            rb.close();
+        }
+    }
+
+    /**
+     * A dropped keyframe is accounted for as long as a delta in the ring depends on it.
+     */
+    @Test
+    public void testKeyframeBytes() {
+        int capacity = 5;
+        RewindBuffer full = new RewindBuffer(1000, KEYFRAME_INTERVAL, Long.MAX_VALUE);
+        RewindBuffer keyOnly = new RewindBuffer(1000, KEYFRAME_INTERVAL, Long.MAX_VALUE);
+        RewindBuffer rb = new RewindBuffer(capacity, KEYFRAME_INTERVAL, Long.MAX_VALUE);
+        try {
+            captureAll(keyOnly, 0, 1);
+            long keyframeBytes = keyOnly.getBytes();
+            captureAll(full, 0, KEYFRAME_INTERVAL);
+            long fullBytes = full.getBytes();
+            full.rewind(capacity);
+            long deltaBytes = fullBytes - full.getBytes();
+
+            //frames 5 to 9, deltas of frame 0
+            captureAll(rb, 0, KEYFRAME_INTERVAL);
+            Assert.assertEquals(capacity, rb.getFrames());
+            Assert.assertEquals(keyframeBytes + deltaBytes, rb.getBytes());
+            assertState(8, rb.rewind(2));
+            Assert.assertTrue(rb.getBytes() > keyframeBytes);
+            assertState(5, rb.rewind(capacity));
+            Assert.assertEquals(0, rb.getBytes());
+        } finally {
+            full.close();
+            keyOnly.close();
+            rb.close();
+        }
+    }
+
+    @Test
+    public void testMaxBytes() {
+        RewindBuffer rb = new RewindBuffer(1000, KEYFRAME_INTERVAL, 1);
+        try {
+            captureAll(rb, 0, 5);
+            //at least one frame is kept
+            Assert.assertEquals(1, rb.getFrames());
+            assertState(4, rb.rewind(1));
+        } finally {
+            rb.close();
+        }
+    }
+
+    @Test
+    public void testCompression() {
+        RewindBuffer rb = new RewindBuffer(1000, KEYFRAME_INTERVAL, Long.MAX_VALUE);
+        try {
+            int frames = 100;
+            captureAll(rb, 0, frames);
+            Assert.assertEquals(frames, rb.getFrames());
+            long raw = (long) frames * STATE_SIZE;
+            System.out.println(String.format("Rewind %d frames, raw %d bytes, stored %d bytes",
+                    frames, raw, rb.getBytes()));
+            Assert.assertTrue(rb.getBytes() * 20 < raw);
+        } finally {
+            rb.close();
+        }
+    }
+}
@@ -6,12 +6,16 @@ import omegadrive.memory.IMemoryProvider;
 import omegadrive.memory.MemoryProvider;
 import omegadrive.savestate.GenesisStateHandler;
 import omegadrive.sound.fm.ym2612.nukeykt.Ym2612Nuke;
+import omegadrive.sound.fm.ym2612.nukeykt.Ym3438StateCodec;
 import omegadrive.sound.javasound.AbstractSoundManager;
 import omegadrive.ssp16.Ssp16;
 import omegadrive.ssp16.Ssp16Types;
+import omegadrive.ssp16.SvpStateCodec;
+import omegadrive.util.Util;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
@@ -30,6 +34,8 @@ public class SavestateSerializeTest {
     private static final String svpSavestateName = "svp_serialized_test.gsh";
 
     private static final IMemoryProvider NO_MEMORY = MemoryProvider.createInstance(new int[2], 0);
+    private static final int MIN_SIZE_RATIO = 3;
+    private static final int TIMING_LOOPS = 50;
 
     /**
      * Has the serialization format been changed?
@@ -59,7 +65,7 @@ public class SavestateSerializeTest {
         Path p = Paths.get(fileFolder, svpSavestateName);
         GenesisStateHandler stateHandler = GenesisStateHandler.createLoadInstance(p.toAbsolutePath().toString());
         SvpMapper svpMapper = SvpMapper.createInstance(RomMapper.NO_OP_MAPPER, NO_MEMORY);
-        Ssp16 ssp16 = SvpMapper.ssp16;
+        Ssp16 ssp16 = svpMapper.getSsp16();
         int hc1 = Arrays.hashCode(ssp16.getSvpContext().iram_rom) + Arrays.hashCode(ssp16.getSvpContext().dram);
         stateHandler.loadSvpState(ssp16);
         Ssp16Types.Svp_t svpCtx = ssp16.getSvpContext();
@@ -69,4 +75,108 @@ public class SavestateSerializeTest {
         //with a newly loaded instance
         Assert.assertNotEquals(hc1, hc2);
     }
+
+    /**
+     * The binary codec should be lossless and several times smaller than java serialization.
+     */
+    @Test
+    public void testBinaryCodecNuke() {
+        Path p = Paths.get(fileFolder, nukeSavestateName);
+        GenesisStateHandler stateHandler = GenesisStateHandler.createLoadInstance(p.toAbsolutePath().toString());
+        Ym2612Nuke nuke = new Ym2612Nuke(AbstractSoundManager.audioFormat, 0);
+        stateHandler.loadFmState(nuke);
+        Ym2612Nuke.Ym3438Context context = nuke.getState();
+
+        ByteBuffer buf = ByteBuffer.allocate(Ym3438StateCodec.MAX_SIZE);
+        Ym3438StateCodec.encode(context, buf);
+        byte[] encoded = Arrays.copyOf(buf.array(), buf.position());
+
+        Ym2612Nuke.Ym3438Context decoded = new Ym2612Nuke.Ym3438Context();
+        Ym3438StateCodec.decode(ByteBuffer.wrap(encoded), decoded);
+        buf.clear();
+        Ym3438StateCodec.encode(decoded, buf);
+        Assert.assertArrayEquals(encoded, Arrays.copyOf(buf.array(), buf.position()));
+
+        byte[] serialized = Util.serializeObject(context);
+        printStats("Ym3438", serialized, encoded,
+                () -> Util.serializeObject(context), () -> {
+                    buf.clear();
+                    Ym3438StateCodec.encode(context, buf);
+                });
+        Assert.assertTrue(serialized.length >= encoded.length * MIN_SIZE_RATIO);
+    }
+
+    @Test
+    public void testBinaryCodecSvp() {
+        Path p = Paths.get(fileFolder, svpSavestateName);
+        GenesisStateHandler stateHandler = GenesisStateHandler.createLoadInstance(p.toAbsolutePath().toString());
+        SvpMapper svpMapper = SvpMapper.createInstance(RomMapper.NO_OP_MAPPER, NO_MEMORY);
+        Ssp16 ssp16 = svpMapper.getSsp16();
+        stateHandler.loadSvpState(ssp16);
+        Ssp16Types.Svp_t svpCtx = ssp16.getSvpContext();
+
+        ByteBuffer buf = ByteBuffer.allocate(SvpStateCodec.MAX_SIZE);
+        SvpStateCodec.encode(svpCtx, buf);
+        byte[] encoded = Arrays.copyOf(buf.array(), buf.position());
+
+        Ssp16Types.Svp_t decoded = SvpStateCodec.decode(ByteBuffer.wrap(encoded));
+        Assert.assertArrayEquals(svpCtx.dram, decoded.dram);
+        Assert.assertArrayEquals(Arrays.copyOf(svpCtx.iram_rom, Ssp16.IRAM_SIZE_WORDS),
+                Arrays.copyOf(decoded.iram_rom, Ssp16.IRAM_SIZE_WORDS));
+        buf.clear();
+        SvpStateCodec.encode(decoded, buf);
+        Assert.assertArrayEquals(encoded, Arrays.copyOf(buf.array(), buf.position()));
+
+        byte[] serialized = Util.serializeObject(svpCtx);
+        printStats("Svp", serialized, encoded,
+                () -> Util.serializeObject(svpCtx), () -> {
+                    buf.clear();
+                    SvpStateCodec.encode(svpCtx, buf);
+                });
+        Assert.assertTrue(serialized.length >= encoded.length * MIN_SIZE_RATIO);
+    }
+
+    /**
+     * A savestate written with binary chunks loads back the same FM state.
+     */
+    @Test
+    public void testChunkRoundTripNuke() {
+        Path p = Paths.get(fileFolder, nukeSavestateName);
+        GenesisStateHandler legacy = GenesisStateHandler.createLoadInstance(p.toAbsolutePath().toString());
+        Ym2612Nuke nuke = new Ym2612Nuke(AbstractSoundManager.audioFormat, 0);
+        legacy.loadFmState(nuke);
+
+        GenesisStateHandler save = GenesisStateHandler.createSaveInstance("test", (ByteBuffer) null);
+        save.saveFm(nuke);
+        byte[] data = save.getData();
+        Assert.assertTrue(data.length < p.toFile().length());
+
+        GenesisStateHandler load = GenesisStateHandler.createLoadInstance("test", data);
+        Ym2612Nuke nuke2 = new Ym2612Nuke(AbstractSoundManager.audioFormat, 0);
+        load.loadFmState(nuke2);
+        Assert.assertArrayEquals(encode(nuke.getState()), encode(nuke2.getState()));
+    }
+
+    private static byte[] encode(Ym2612Nuke.Ym3438Context context) {
+        ByteBuffer buf = ByteBuffer.allocate(Ym3438StateCodec.MAX_SIZE);
+        Ym3438StateCodec.encode(context, buf);
+        return Arrays.copyOf(buf.array(), buf.position());
+    }
+
+    private static void printStats(String name, byte[] serialized, byte[] encoded,
+                                   Runnable serialize, Runnable encode) {
+        long serialNs = time(serialize);
+        long encodeNs = time(encode);
+        System.out.println(String.format("%s: serialized %d bytes, %d us; binary %d bytes, %d us",
+                name, serialized.length, serialNs / 1000, encoded.length, encodeNs / 1000));
+    }
+
+    private static long time(Runnable r) {
+        r.run(); //warmup
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMING_LOOPS; i++) {
+            r.run();
+        }
+        return (System.nanoTime() - start) / TIMING_LOOPS;
+    }
 }
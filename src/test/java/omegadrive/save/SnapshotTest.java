@@ -0,0 +1,108 @@
+package omegadrive.save;
+
+import omegadrive.input.InputProvider;
+import omegadrive.joypad.JoypadProvider;
+import omegadrive.savestate.GenesisStateHandler;
+import omegadrive.sound.fm.ym2612.nukeykt.Ym2612Nuke;
+import omegadrive.sound.javasound.AbstractSoundManager;
+import omegadrive.system.HeadlessRunner;
+import omegadrive.system.SystemProvider;
+import omegadrive.system.SystemTestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * SnapshotTest
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+public class SnapshotTest {
+
+    @Test
+    public void testInMemoryReuseAndLoad() {
+        Ym2612Nuke nuke = new Ym2612Nuke(AbstractSoundManager.audioFormat, 0);
+        GenesisStateHandler h = GenesisStateHandler.createSaveInstance("snapshot", (ByteBuffer) null);
+        h.saveFm(nuke);
+        ByteBuffer first = h.getDataBuffer();
+        Assert.assertEquals(0, first.position());
+        byte[] firstData = new byte[first.remaining()];
+        first.duplicate().get(firstData);
+
+        //the buffer is large enough, it gets reused
+        h = GenesisStateHandler.createSaveInstance("snapshot", first);
+        h.saveFm(nuke);
+        ByteBuffer second = h.getDataBuffer();
+        Assert.assertTrue(first.array() == second.array());
+        Assert.assertEquals(first.limit(), second.limit());
+        Assert.assertArrayEquals(firstData, h.getData());
+
+        Ym2612Nuke nuke2 = new Ym2612Nuke(AbstractSoundManager.audioFormat, 0);
+        int hashCode = nuke2.getState().hashCode();
+        GenesisStateHandler.createLoadInstance("snapshot", firstData).loadFmState(nuke2);
+        Assert.assertNotEquals(hashCode, nuke2.getState().hashCode());
+    }
+
+    @Test
+    public void testMdRoundTrip() {
+        testRoundTrip(SystemTestUtil.createMdInputLoopRom());
+    }
+
+    @Test
+    public void testSmsRoundTrip() {
+        testRoundTrip(SystemTestUtil.createSmsInputLoopRom());
+    }
+
+    /**
+     * Replaying the same input after a restore gives the same screen and state.
+     * The audio is not compared, the PSG and the FM output filter are not part of a savestate.
+     */
+    private void testRoundTrip(Path rom) {
+        int frames = 20;
+        HeadlessRunner runner = HeadlessRunner.createInstance(rom);
+        SystemProvider system = runner.getSystemProvider();
+        runner.step(30, createInput(0));
+        byte[] start = toArray(system.snapshot());
+        HeadlessRunner.FrameData expected = runner.step(frames, createInput(runner.getFrameCounter()));
+        byte[] end = toArray(system.snapshot());
+        Assert.assertFalse(Arrays.equals(start, end));
+
+        //restore from a view into a larger array, the state is not at offset 0
+        byte[] padded = new byte[start.length + 16];
+        System.arraycopy(start, 0, padded, 8, start.length);
+        system.restore(ByteBuffer.wrap(padded, 8, start.length));
+        Assert.assertArrayEquals(start, toArray(system.snapshot()));
+
+        HeadlessRunner.FrameData actual = runner.step(frames, createInput(runner.getFrameCounter()));
+        Assert.assertArrayEquals(expected.screen, actual.screen);
+        Assert.assertArrayEquals(end, toArray(system.snapshot()));
+
+        //a different instance, restoring the state gives the same result
+        HeadlessRunner other = HeadlessRunner.createInstance(rom);
+        other.step(7);
+        other.getSystemProvider().restore(start);
+        actual = other.step(frames, createInput(other.getFrameCounter()));
+        Assert.assertArrayEquals(expected.screen, actual.screen);
+        Assert.assertArrayEquals(end, toArray(other.getSystemProvider().snapshot()));
+        runner.close();
+        other.close();
+    }
+
+    //UP is pressed every third frame, counting from startFrame
+    private static HeadlessRunner.FrameInput createInput(long startFrame) {
+        return (frame, joypad) -> joypad.setButtonAction(InputProvider.PlayerNumber.P1,
+                JoypadProvider.JoypadButton.U, (frame - startFrame) % 3 == 0 ?
+                        JoypadProvider.JoypadAction.PRESSED : JoypadProvider.JoypadAction.RELEASED);
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] res = new byte[buffer.remaining()];
+        buffer.duplicate().get(res);
+        return res;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * HeadlessRunnerTest
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 12:47
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class HeadlessRunnerTest {
+
+    /**
+     * Stepping one frame at a time should match a single multi frame step.
+     */
+    @Test
+    public void testStepSingleFrames() {
+        Path rom = SystemTestUtil.createMdInputLoopRom();
+        int frames = 30;
+        HeadlessRunner r1 = HeadlessRunner.createInstance(rom);
+        HeadlessRunner.FrameData fd1 = r1.step(frames);
+        HeadlessRunner r2 = HeadlessRunner.createInstance(rom);
+        HeadlessRunner.FrameData fd2 = null;
+        for (int i = 0; i < frames; i++) {
+            fd2 = r2.step(1);
+        }
+        Assert.assertEquals(frames, fd1.frameNumber);
+        Assert.assertEquals(fd1.frameNumber, fd2.frameNumber);
+        Assert.assertArrayEquals(fd1.screen, fd2.screen);
+        Assert.assertEquals(Arrays.hashCode(r1.getSystemProvider().snapshot().array()),
+                Arrays.hashCode(r2.getSystemProvider().snapshot().array()));
+        r1.close();
+        r2.close();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * IdleLoopTest
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 12:47
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system;
+
+import omegadrive.input.InputProvider;
+import omegadrive.joypad.JoypadProvider;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Path;
+
+/**
+ * Skipping the idle loops doesn't change what the emulation produces.
+ */
+public class IdleLoopTest {
+
+    private static final int FRAMES = 120;
+
+    private static final HeadlessRunner.FrameInput INPUT = (frame, joypad) ->
+            joypad.setButtonAction(InputProvider.PlayerNumber.P1, JoypadProvider.JoypadButton.U,
+                    (frame / 10) % 2 == 0 ? JoypadProvider.JoypadAction.PRESSED : JoypadProvider.JoypadAction.RELEASED);
+
+    /**
+     * The 68k polls a RAM flag set by the vint handler.
+     */
+    @Test
+    public void testMd68kRamPoll() {
+        Path rom = SystemTestUtil.createMdInputLoopRom();
+        HeadlessRunner idle = HeadlessRunner.createInstance(rom);
+        HeadlessRunner plain = HeadlessRunner.createInstance(rom);
+        Genesis idleSystem = (Genesis) idle.getSystemProvider();
+        Genesis plainSystem = (Genesis) plain.getSystemProvider();
+        plainSystem.cpu.setIdleDetection(false);
+        run(plain, idle);
+        Assert.assertEquals(FRAMES, idleSystem.memory.readRamWord(2), 1);
+        Assert.assertEquals(0, plainSystem.cpu.getSkippedCycles());
+        //most of the frame is spent waiting for vblank
+        Assert.assertTrue(idleSystem.cpu.getSkippedCycles() > FRAMES * 100_000L);
+    }
+
+    /**
+     * The z80 halts waiting for the vint, the 68k spins on a bra-to-self.
+     */
+    @Test
+    public void testMdZ80Halt() {
+        Path rom = SystemTestUtil.createMdZ80HaltRom();
+        HeadlessRunner idle = HeadlessRunner.createInstance(rom);
+        HeadlessRunner plain = HeadlessRunner.createInstance(rom);
+        Genesis idleSystem = (Genesis) idle.getSystemProvider();
+        Genesis plainSystem = (Genesis) plain.getSystemProvider();
+        plainSystem.z80.setIdleDetection(false);
+        run(plain, idle);
+        Assert.assertEquals(plainSystem.z80.readMemory(0x1000), idleSystem.z80.readMemory(0x1000));
+        //the int line is still asserted when the handler returns, it is taken more than once per frame
+        Assert.assertTrue(idleSystem.z80.readMemory(0x1000) > 0);
+        Assert.assertEquals(0, plainSystem.z80.getSkippedCycles());
+        Assert.assertTrue(idleSystem.z80.getSkippedCycles() > FRAMES * 10_000L);
+    }
+
+    /**
+     * The z80 halts waiting for the vint, then updates the screen and the audio.
+     */
+    @Test
+    public void testSmsZ80Halt() {
+        Path rom = SystemTestUtil.createSmsInputLoopRom();
+        HeadlessRunner idle = HeadlessRunner.createInstance(rom);
+        HeadlessRunner plain = HeadlessRunner.createInstance(rom);
+        Sms idleSystem = (Sms) idle.getSystemProvider();
+        Sms plainSystem = (Sms) plain.getSystemProvider();
+        plainSystem.z80.setIdleDetection(false);
+        run(plain, idle);
+        Assert.assertEquals(FRAMES & 0xFF, idleSystem.z80.readMemory(0xC000), 1);
+        Assert.assertEquals(0, plainSystem.z80.getSkippedCycles());
+        Assert.assertTrue(idleSystem.z80.getSkippedCycles() > FRAMES * 10_000L);
+    }
+
+    private static void run(HeadlessRunner plain, HeadlessRunner idle) {
+        for (int i = 0; i < FRAMES; i++) {
+            compare(i, plain.step(1, INPUT), idle.step(1, INPUT));
+        }
+        //the savestates differ, the skipped cycles are credited in advance
+        Assert.assertArrayEquals(((BaseSystem<?, ?>) plain.getSystemProvider()).memory.getRamData(),
+                ((BaseSystem<?, ?>) idle.getSystemProvider()).memory.getRamData());
+        plain.close();
+        idle.close();
+    }
+
+    private static void compare(int frame, HeadlessRunner.FrameData expected, HeadlessRunner.FrameData actual) {
+        Assert.assertArrayEquals("Screen, frame " + frame, expected.screen, actual.screen);
+        Assert.assertArrayEquals("Audio, frame " + frame, expected.audio, actual.audio);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * RunAheadTest
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 12:47
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system;
+
+import omegadrive.input.InputProvider;
+import omegadrive.joypad.JoypadProvider;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class RunAheadTest {
+
+    private static final int FRAMES = 120;
+    private static final int RUN_AHEAD_FRAMES = 2;
+    private static final int INPUT_CHANGE_FRAMES = 10;
+
+    //UP is held for INPUT_CHANGE_FRAMES, then released for INPUT_CHANGE_FRAMES
+    private static final HeadlessRunner.FrameInput INPUT = (frame, joypad) ->
+            joypad.setButtonAction(InputProvider.PlayerNumber.P1, JoypadProvider.JoypadButton.U,
+                    isPressed(frame) ? JoypadProvider.JoypadAction.PRESSED : JoypadProvider.JoypadAction.RELEASED);
+
+    private static boolean isPressed(long frame) {
+        return (frame / INPUT_CHANGE_FRAMES) % 2 == 0;
+    }
+
+    @Test
+    public void testMdRunAhead() {
+        testRunAhead(SystemTestUtil.createMdInputLoopRom());
+    }
+
+    @Test
+    public void testSmsRunAhead() {
+        testRunAhead(SystemTestUtil.createSmsInputLoopRom());
+    }
+
+    /**
+     * The real timeline is not affected by run-ahead: same state and same audio on every frame.
+     * The frame shown is the one RUN_AHEAD_FRAMES later, when the input doesn't change in between.
+     */
+    private void testRunAhead(Path rom) {
+        HeadlessRunner plain = HeadlessRunner.createInstance(rom);
+        HeadlessRunner runAhead = HeadlessRunner.createInstance(rom);
+        runAhead.setRunAheadFrames(RUN_AHEAD_FRAMES);
+        List<HeadlessRunner.FrameData> plainFrames = new ArrayList<>();
+        List<HeadlessRunner.FrameData> runAheadFrames = new ArrayList<>();
+        for (int i = 0; i < FRAMES; i++) {
+            HeadlessRunner.FrameData expected = plain.step(1, INPUT);
+            HeadlessRunner.FrameData actual = runAhead.step(1, INPUT);
+            plainFrames.add(expected);
+            runAheadFrames.add(actual);
+            Assert.assertEquals(expected.frameNumber, actual.frameNumber);
+            Assert.assertArrayEquals("Audio, frame " + i, expected.audio, actual.audio);
+            Assert.assertEquals("State, frame " + i, stateHash(plain), stateHash(runAhead));
+        }
+        int compared = 0;
+        for (int i = 0; i < FRAMES - RUN_AHEAD_FRAMES; i++) {
+            if (isPressed(i) != isPressed(i + RUN_AHEAD_FRAMES)) {
+                continue;
+            }
+            int[] expected = plainFrames.get(i + RUN_AHEAD_FRAMES).screen;
+            Assert.assertTrue("Screen, frame " + i, Arrays.equals(expected, runAheadFrames.get(i).screen));
+            Assert.assertFalse(Arrays.equals(expected, plainFrames.get(i).screen));
+            compared++;
+        }
+        Assert.assertTrue(compared > FRAMES / 2);
+        plain.close();
+        runAhead.close();
+    }
+
+    private static int stateHash(HeadlessRunner runner) {
+        ByteBuffer state = runner.getSystemProvider().snapshot();
+        byte[] data = new byte[state.remaining()];
+        state.get(data);
+        return Arrays.hashCode(data);
+    }
+}
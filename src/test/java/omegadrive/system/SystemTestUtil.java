@@ -0,0 +1,216 @@
+/*
+ * SystemTestUtil
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 12:47
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.system;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Builds tiny test roms, the repo doesn't ship any.
+ */
+public class SystemTestUtil {
+
+    private static final int MD_ROM_SIZE = 0x20000;
+    private static final int MD_CODE_START = 0x200;
+    private static final int MD_VINT_START = 0x400;
+
+    /**
+     * Waits for vblank, then each frame: increments a counter in RAM, writes it to CRAM 0 (backdrop),
+     * reads joypad 1 and writes it to the PSG tone 0; screen and audio both depend on the input.
+     */
+    private static final int[] MD_INPUT_LOOP = {
+            0x46fc, 0x2700,                         //move #$2700,sr
+            0x13fc, 0x0040, 0x00a1, 0x0009,         //move.b #$40,$a10009
+            0x13fc, 0x0040, 0x00a1, 0x0003,         //move.b #$40,$a10003
+            0x33fc, 0x8164, 0x00c0, 0x0004,         //move.w #$8164,$c00004
+            0x33fc, 0x8f02, 0x00c0, 0x0004,         //move.w #$8f02,$c00004
+            0x46fc, 0x2000,                         //move #$2000,sr
+            0x4a79, 0x00ff, 0x0000,                 //loop: tst.w $ff0000
+            0x67f8,                                 //beq.s loop
+            0x4279, 0x00ff, 0x0000,                 //clr.w $ff0000
+            0x5279, 0x00ff, 0x0002,                 //addq.w #1,$ff0002
+            0x23fc, 0xc000, 0x0000, 0x00c0, 0x0004, //move.l #$c0000000,$c00004
+            0x33f9, 0x00ff, 0x0002, 0x00c0, 0x0000, //move.w $ff0002,$c00000
+            0x1039, 0x00a1, 0x0003,                 //move.b $a10003,d0
+            0x13fc, 0x0090, 0x00c0, 0x0011,         //move.b #$90,$c00011
+            0x13fc, 0x0085, 0x00c0, 0x0011,         //move.b #$85,$c00011
+            0x13c0, 0x00c0, 0x0011,                 //move.b d0,$c00011
+            0x60ba                                  //bra.s loop
+    };
+
+    private static final int[] MD_VINT_FLAG = {
+            0x33fc, 0x0001, 0x00ff, 0x0000,         //move.w #1,$ff0000
+            0x4e73                                  //rte
+    };
+
+    private static final int MD_Z80_CODE_START = 0x600;
+
+    /**
+     * Loads Z80_HALT_LOOP in the z80 RAM and starts the z80, then waits in a bra-to-self loop.
+     */
+    private static final int[] MD_Z80_SETUP = {
+            0x46fc, 0x2700,                         //move #$2700,sr
+            0x33fc, 0x0100, 0x00a1, 0x1100,         //move.w #$100,$a11100
+            0x33fc, 0x0100, 0x00a1, 0x1200,         //move.w #$100,$a11200
+            0x41f9, 0x00a0, 0x0000,                 //lea $a00000,a0
+            0x43f9, 0x0000, MD_Z80_CODE_START,      //lea $600,a1
+            0x7042,                                 //moveq #$42,d0
+            0x10d9,                                 //copy: move.b (a1)+,(a0)+
+            0x51c8, 0xfffc,                         //dbra d0,copy
+            0x33fc, 0x0000, 0x00a1, 0x1200,         //move.w #0,$a11200
+            0x33fc, 0x0000, 0x00a1, 0x1100,         //move.w #0,$a11100
+            0x33fc, 0x0100, 0x00a1, 0x1200,         //move.w #$100,$a11200
+            0x33fc, 0x8164, 0x00c0, 0x0004,         //move.w #$8164,$c00004
+            0x46fc, 0x2000,                         //move #$2000,sr
+            0x60fe                                  //bra.s *
+    };
+
+    /**
+     * The z80 halts, its vint handler increments a counter at $1000.
+     */
+    private static final int[] Z80_HALT_LOOP = {
+            0xF3,                   //di
+            0x31, 0x00, 0x20,       //ld sp,$2000
+            0xED, 0x56,             //im 1
+            0xFB,                   //ei
+            0x76,                   //loop: halt
+            0x18, 0xFD              //jr loop
+    };
+
+    private static final int[] Z80_VINT_COUNTER = {
+            0xF5,                   //push af
+            0x3A, 0x00, 0x10,       //ld a,($1000)
+            0x3C,                   //inc a
+            0x32, 0x00, 0x10,       //ld ($1000),a
+            0xF1,                   //pop af
+            0xFB,                   //ei
+            0xC9                    //ret
+    };
+
+    private static final int SMS_ROM_SIZE = 0x8000;
+
+    /**
+     * Same as MD_INPUT_LOOP: the vint handler increments a counter in RAM, the main loop writes it
+     * to CRAM 0 and writes joypad 1 to the PSG tone 0.
+     */
+    private static final int[] SMS_RESET = {
+            0xF3,                   //di
+            0x31, 0xF0, 0xDF,       //ld sp,$dff0
+            0xED, 0x56,             //im 1
+            0xC3, 0x00, 0x01        //jp $0100
+    };
+
+    private static final int[] SMS_VINT = {
+            0xF5,                   //push af
+            0xDB, 0xBF,             //in a,($bf)
+            0x3A, 0x00, 0xC0,       //ld a,($c000)
+            0x3C,                   //inc a
+            0x32, 0x00, 0xC0,       //ld ($c000),a
+            0xF1,                   //pop af
+            0xFB,                   //ei
+            0xED, 0x4D              //reti
+    };
+
+    private static final int[] SMS_INPUT_LOOP = {
+            0x3E, 0x04, 0xD3, 0xBF, 0x3E, 0x80, 0xD3, 0xBF, //vdp reg0 = $04, mode 4
+            0x3E, 0xE0, 0xD3, 0xBF, 0x3E, 0x81, 0xD3, 0xBF, //vdp reg1 = $e0, display and vint on
+            0xFB,                                           //ei
+            0x76,                                           //loop: halt
+            0x3E, 0x00, 0xD3, 0xBF, 0x3E, 0xC0, 0xD3, 0xBF, //cram address 0
+            0x3A, 0x00, 0xC0,                               //ld a,($c000)
+            0xD3, 0xBE,                                     //out ($be),a
+            0xDB, 0xDC,                                     //in a,($dc)
+            0xE6, 0x0F,                                     //and $0f
+            0xF6, 0x80,                                     //or $80
+            0xD3, 0x7F,                                     //out ($7f),a
+            0x18, 0xE8                                      //jr loop
+    };
+
+    public static Path createSmsInputLoopRom() {
+        byte[] rom = new byte[SMS_ROM_SIZE];
+        writeBytes(rom, 0, SMS_RESET);
+        writeBytes(rom, 0x38, SMS_VINT);
+        writeBytes(rom, 0x66, new int[]{0xED, 0x45}); //retn
+        writeBytes(rom, 0x100, SMS_INPUT_LOOP);
+        byte[] header = "TMR SEGA".getBytes();
+        System.arraycopy(header, 0, rom, 0x7FF0, header.length);
+        return writeRom(rom, ".sms");
+    }
+
+    public static Path createMdInputLoopRom() {
+        return createMdRom(MD_INPUT_LOOP, MD_VINT_FLAG);
+    }
+
+    public static Path createMdZ80HaltRom() {
+        byte[] rom = createMdRomData(MD_Z80_SETUP, MD_VINT_FLAG);
+        writeBytes(rom, MD_Z80_CODE_START, Z80_HALT_LOOP);
+        writeBytes(rom, MD_Z80_CODE_START + 0x38, Z80_VINT_COUNTER);
+        return writeRom(rom, ".md");
+    }
+
+    public static Path createMdRom(int[] code, int[] vintHandler) {
+        return writeRom(createMdRomData(code, vintHandler), ".md");
+    }
+
+    private static byte[] createMdRomData(int[] code, int[] vintHandler) {
+        byte[] rom = new byte[MD_ROM_SIZE];
+        writeLong(rom, 0, 0x00FF_FE00); //SP
+        writeLong(rom, 4, MD_CODE_START); //PC
+        writeLong(rom, 0x78, MD_VINT_START); //level 6 autovector
+        byte[] header = "SEGA MEGA DRIVE ".getBytes();
+        System.arraycopy(header, 0, rom, 0x100, header.length);
+        writeLong(rom, 0x1A4, MD_ROM_SIZE - 1);
+        writeLong(rom, 0x1A8, 0xFF_0000);
+        writeLong(rom, 0x1AC, 0xFF_FFFF);
+        writeWords(rom, MD_CODE_START, code);
+        writeWords(rom, MD_VINT_START, vintHandler);
+        return rom;
+    }
+
+    private static Path writeRom(byte[] rom, String extension) {
+        try {
+            Path file = Files.createTempFile("helios_test", extension);
+            file.toFile().deleteOnExit();
+            Files.write(file, rom);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeBytes(byte[] rom, int address, int[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            rom[address + i] = (byte) bytes[i];
+        }
+    }
+
+    private static void writeWords(byte[] rom, int address, int[] words) {
+        for (int i = 0; i < words.length; i++) {
+            rom[address + (i << 1)] = (byte) (words[i] >> 8);
+            rom[address + (i << 1) + 1] = (byte) words[i];
+        }
+    }
+
+    private static void writeLong(byte[] rom, int address, int value) {
+        writeWords(rom, address, new int[]{value >>> 16, value & 0xFFFF});
+    }
+}
@@ -0,0 +1,43 @@
+package omegadrive.ui;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.Random;
+
+/**
+ * NearestScalerTest
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+public class NearestScalerTest {
+
+    private static final Dimension[][] sizes = {
+            {new Dimension(320, 240), new Dimension(1920, 1080)},
+            {new Dimension(320, 240), new Dimension(3840, 2160)},
+            {new Dimension(320, 224), new Dimension(960, 672)},
+            {new Dimension(256, 224), new Dimension(640, 480)},
+            {new Dimension(256, 192), new Dimension(1366, 768)},
+            {new Dimension(160, 144), new Dimension(160, 144)},
+    };
+
+    @Test
+    public void testSameAsRenderNearest() {
+        Random rnd = new Random(1);
+        NearestScaler scaler = new NearestScaler();
+        for (Dimension[] d : sizes) {
+            Dimension src = d[0];
+            Dimension dest = d[1];
+            int[] input = rnd.ints(src.width * src.height).toArray();
+            int[] expected = new int[dest.width * dest.height];
+            int[] actual = new int[dest.width * dest.height];
+            RenderingStrategy.renderNearest(input, expected, src, dest);
+            scaler.scale(input, actual, src, dest);
+            Assert.assertArrayEquals(src + " -> " + dest, expected, actual);
+        }
+        Assert.assertTrue(scaler.getAverageScaleNs() > 0);
+    }
+}
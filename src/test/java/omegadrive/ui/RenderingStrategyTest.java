@@ -41,6 +41,7 @@ public class RenderingStrategyTest {
     public static void main(String[] args) {
         testNearest();
         testNearestOld();
+        testNearestScaler();
     }
 
     private static void testLinearCompare() {
@@ -97,6 +98,27 @@ public class RenderingStrategyTest {
     }
 
 
+    private static void testNearestScaler() {
+        NearestScaler scaler = new NearestScaler();
+        System.out.println("testNearestScaler - Warmup");
+        //warm-up
+        testNearestScaler(scaler, 1000);
+        System.out.println("testNearestScaler");
+        for (int i = 0; i < 6; i++) {
+            testNearestScaler(scaler, 1000);
+        }
+    }
+
+    private static void testNearestScaler(NearestScaler scaler, int cycles) {
+        long start = System.nanoTime();
+        for (int i = 0; i < cycles; i++) {
+            screenData = getData(screenData, inputD);
+            RenderingStrategyTest.toLinearLine(linear, screenData, inputD);
+            scaler.scale(linear, output, inputD, outputD);
+        }
+        printPerf(System.nanoTime() - start, cycles);
+    }
+
     private static void testNearest(int cycles) {
         long start = System.nanoTime();
         //warm-up
@@ -0,0 +1,90 @@
+package omegadrive.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * FileIoWorkerTest
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+public class FileIoWorkerTest {
+
+    private static byte[] createData(int len, int seed) {
+        byte[] b = new byte[len];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) (i * seed);
+        }
+        return b;
+    }
+
+    private static long countFiles(Path dir) throws Exception {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.count();
+        }
+    }
+
+    @Test
+    public void testWriteReplace() throws Exception {
+        Path dir = Files.createTempDirectory("fileIo");
+        Path file = dir.resolve("test.gs0");
+        byte[] data = createData(0x1000, 3);
+        Assert.assertEquals(file, FileIoWorker.write(file, data, false).get(5, TimeUnit.SECONDS));
+        Assert.assertArrayEquals(data, Files.readAllBytes(file));
+
+        data = createData(0x800, 5);
+        FileIoWorker.write(file, data, false).get(5, TimeUnit.SECONDS);
+        Assert.assertArrayEquals(data, Files.readAllBytes(file));
+        //no temp files left behind
+        Assert.assertEquals(1, countFiles(dir));
+    }
+
+    @Test
+    public void testWriteGzip() throws Exception {
+        Path dir = Files.createTempDirectory("fileIo");
+        Path file = dir.resolve("test.gs0");
+        byte[] data = createData(0x10000, 0);
+        FileIoWorker.write(file, data, true).get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(Files.size(file) < data.length);
+        Assert.assertArrayEquals(data, FileLoader.readStateFile(file, "gs0"));
+    }
+
+    @Test
+    public void testWriteFailure() throws Exception {
+        Path dir = Files.createTempDirectory("fileIo");
+        Path file = dir.resolve("missing").resolve("test.gs0");
+        CompletableFuture<Path> f = FileIoWorker.write(file, new byte[1], false);
+        try {
+            f.get(5, TimeUnit.SECONDS);
+            Assert.fail("Expected a failure");
+        } catch (Exception e) {
+            Assert.assertTrue(f.isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    public void testOrdering() throws Exception {
+        Path dir = Files.createTempDirectory("fileIo");
+        Path file = dir.resolve("test.srm");
+        for (int i = 1; i < 10; i++) {
+            FileIoWorker.write(file, createData(0x100, i), false);
+        }
+        byte[] res = FileIoWorker.submit(() -> FileLoader.readFileSafe(file)).get(5, TimeUnit.SECONDS);
+        Assert.assertArrayEquals(createData(0x100, 9), res);
+        Assert.assertTrue(FileIoWorker.flush(1000));
+    }
+
+    @Test
+    public void testDaemonThread() throws Exception {
+        boolean daemon = FileIoWorker.submit(() -> Thread.currentThread().isDaemon()).get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(daemon);
+    }
+}
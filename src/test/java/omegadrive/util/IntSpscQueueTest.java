@@ -0,0 +1,96 @@
+package omegadrive.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * IntSpscQueueTest
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+public class IntSpscQueueTest {
+
+    @Test
+    public void testCapacity() {
+        Assert.assertEquals(8, new IntSpscQueue(5).capacity());
+        Assert.assertEquals(8, new IntSpscQueue(8).capacity());
+        Assert.assertEquals(65536, new IntSpscQueue(44100).capacity());
+    }
+
+    @Test
+    public void testOfferPollFull() {
+        IntSpscQueue q = new IntSpscQueue(4);
+        Assert.assertTrue(q.isEmpty());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(q.offer(i));
+        }
+        Assert.assertFalse(q.offer(4));
+        Assert.assertEquals(4, q.size());
+        Assert.assertEquals(0, q.peek(-1));
+        Assert.assertEquals(0, q.poll());
+        Assert.assertTrue(q.offer(4));
+        for (int i = 1; i < 5; i++) {
+            Assert.assertEquals(i, q.poll());
+        }
+        Assert.assertEquals(-1, q.peek(-1));
+        Assert.assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void testDrainWrapAround() {
+        IntSpscQueue q = new IntSpscQueue(8);
+        int[] dest = new int[10];
+        for (int i = 0; i < 6; i++) {
+            q.offer(i);
+        }
+        Assert.assertEquals(6, q.drainTo(dest, 0, 10));
+        //tail wraps around the end of the buffer
+        for (int i = 0; i < 7; i++) {
+            q.offer(100 + i);
+        }
+        Assert.assertEquals(3, q.drainTo(dest, 1, 3));
+        Assert.assertArrayEquals(new int[]{0, 100, 101, 102}, Arrays.copyOf(dest, 4));
+        Assert.assertEquals(4, q.drainTo(dest, 0, 10));
+        Assert.assertArrayEquals(new int[]{103, 104, 105, 106}, Arrays.copyOf(dest, 4));
+        Assert.assertEquals(0, q.drainTo(dest, 0, 10));
+    }
+
+    @Test
+    public void testClear() {
+        IntSpscQueue q = new IntSpscQueue(8);
+        q.offer(1);
+        q.offer(2);
+        q.clear();
+        Assert.assertTrue(q.isEmpty());
+        q.offer(3);
+        Assert.assertEquals(3, q.poll());
+    }
+
+    @Test
+    public void testProducerConsumer() throws InterruptedException {
+        final int total = 1_000_000;
+        IntSpscQueue q = new IntSpscQueue(1024);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < total; ) {
+                if (q.offer(i)) {
+                    i++;
+                }
+            }
+        });
+        producer.start();
+        int[] dest = new int[100];
+        int expected = 0;
+        while (expected < total) {
+            int num = q.drainTo(dest, 0, dest.length);
+            for (int i = 0; i < num; i++) {
+                Assert.assertEquals(expected++, dest[i]);
+            }
+        }
+        producer.join();
+        Assert.assertTrue(q.isEmpty());
+    }
+}
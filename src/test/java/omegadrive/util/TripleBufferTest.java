@@ -0,0 +1,75 @@
+package omegadrive.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TripleBufferTest
+ * <p>
+ * Federico Berti
+ * <p>
+ * Copyright 2020
+ */
+public class TripleBufferTest {
+
+    @Test
+    public void testLatestWins() {
+        TripleBuffer<int[]> tb = new TripleBuffer<>(() -> new int[1]);
+        Assert.assertNull(tb.acquire());
+        for (int i = 1; i <= 3; i++) {
+            tb.getBack()[0] = i;
+            tb.publish();
+        }
+        Assert.assertEquals(3, tb.acquire()[0]);
+        Assert.assertNull(tb.acquire());
+        Assert.assertEquals(3, tb.getPublishedCount());
+        Assert.assertEquals(2, tb.getDroppedCount());
+        Assert.assertEquals(1, tb.getAcquiredCount());
+
+        tb.getBack()[0] = 4;
+        Assert.assertFalse(tb.publish());
+        Assert.assertEquals(4, tb.acquire()[0]);
+        Assert.assertEquals(2, tb.getDroppedCount());
+    }
+
+    /**
+     * The producer never writes into the slot the consumer holds:
+     * every acquired slot must contain a consistent frame.
+     */
+    @Test
+    public void testNoTearing() throws InterruptedException {
+        final int frames = 200_000;
+        TripleBuffer<int[]> tb = new TripleBuffer<>(() -> new int[64]);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            for (int i = 1; i <= frames; i++) {
+                int[] back = tb.getBack();
+                for (int j = 0; j < back.length; j++) {
+                    back[j] = i;
+                }
+                tb.publish();
+            }
+            done.set(true);
+        });
+        producer.start();
+        int last = 0;
+        boolean ended;
+        do {
+            ended = done.get();
+            int[] front = tb.acquire();
+            if (front == null) {
+                continue;
+            }
+            for (int v : front) {
+                Assert.assertEquals(front[0], v);
+            }
+            Assert.assertTrue(front[0] > last);
+            last = front[0];
+        } while (!ended);
+        producer.join();
+        Assert.assertEquals(frames, last);
+        Assert.assertEquals(frames, tb.getDroppedCount() + tb.getAcquiredCount());
+    }
+}
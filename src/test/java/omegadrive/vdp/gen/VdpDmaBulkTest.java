@@ -0,0 +1,208 @@
+/*
+ * VdpDmaBulkTest
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 12:47
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.vdp.gen;
+
+import omegadrive.bus.gen.GenesisBusProvider;
+import omegadrive.memory.IMemoryProvider;
+import omegadrive.memory.MemoryProvider;
+import omegadrive.util.RegionDetector;
+import omegadrive.vdp.MdVdpTestUtil;
+import omegadrive.vdp.model.GenesisVdpProvider;
+import omegadrive.vdp.model.VdpMemoryInterface;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static omegadrive.vdp.model.GenesisVdpProvider.VdpPortType.CONTROL;
+import static omegadrive.vdp.model.GenesisVdpProvider.VdpRegisterName.*;
+
+/**
+ * The bulk DMA (deferred fill/copy writes, 68k source read ahead) gives the same results as
+ * one transfer per slot.
+ */
+public class VdpDmaBulkTest {
+
+    private static final int ROM_SIZE = 0x20000;
+    private static final int DMA_LEN = 0x500;
+
+    private static class Rig {
+        GenesisBusProvider bus;
+        IMemoryProvider memory;
+        VdpMemoryInterface memoryInterface;
+        VdpDmaHandlerImpl dmaHandler;
+        GenesisVdpProvider vdp;
+
+        Rig(boolean bulk) {
+            bus = GenesisBusProvider.createBus();
+            memory = MemoryProvider.createGenesisInstance();
+            memoryInterface = GenesisVdpMemoryInterface.createInstance();
+            dmaHandler = new VdpDmaHandlerImpl();
+            dmaHandler.bulk = bulk;
+            vdp = GenesisVdp.createInstance(bus, memoryInterface, dmaHandler, RegionDetector.Region.EUROPE);
+            dmaHandler.vdpProvider = vdp;
+            dmaHandler.memoryInterface = memoryInterface;
+            dmaHandler.busProvider = bus;
+            int[] rom = new int[ROM_SIZE];
+            for (int i = 0x200; i < ROM_SIZE; i++) {
+                rom[i] = (i * 7) & 0xFF;
+            }
+            memory.setRomData(rom);
+            for (int i = 0; i < MemoryProvider.M68K_RAM_SIZE; i++) {
+                memory.writeRamByte(i, (i * 3) & 0xFF);
+            }
+            bus.attachDevice(memory).attachDevice(MdVdpTestUtil.createTestGenesisProvider()).attachDevice(vdp);
+            bus.init();
+            bus.addMemoryMapListener(dmaHandler);
+            vdp.updateRegisterData(1, 4); //mode5
+            MdVdpTestUtil.setH40(vdp);
+            //some VRAM content for the copy
+            vdp.writeControlPort(0x8F02);
+            vdp.writeControlPort(0x4000);
+            vdp.writeControlPort(0);
+            for (int i = 0; i < 0x800; i++) {
+                vdp.writeDataPort(i * 0x0101 + 0x1234);
+                MdVdpTestUtil.runVdpUntilFifoEmpty(vdp);
+            }
+        }
+    }
+
+    @Test
+    public void testFill() {
+        //the data port write that starts the fill also moves the address
+        testDma(this::startFill, DMA_LEN + 1);
+    }
+
+    @Test
+    public void testCopy() {
+        testDma(this::startCopy, DMA_LEN);
+    }
+
+    @Test
+    public void testRamToVram() {
+        testDma(v -> start68kDma(v, 0xFF_0100, 0x4000_0080), DMA_LEN << 1);
+    }
+
+    @Test
+    public void testRomToVram() {
+        testDma(v -> start68kDma(v, 0x1000, 0x4000_0080), DMA_LEN << 1);
+    }
+
+    @Test
+    public void testRomToCram() {
+        testDma(v -> start68kDma(v, 0x1001, 0xC000_0080), DMA_LEN << 1);
+    }
+
+    /**
+     * Registers 19-22 read during the DMA return the live length and source.
+     */
+    @Test
+    public void testCountersReadDuringDma() {
+        Rig rig = new Rig(true);
+        GenesisVdpProvider vdp = rig.vdp;
+        int source = 0xFF_0100 >> 1;
+        start68kDma(vdp, 0xFF_0100, 0x4000_0080);
+        Assert.assertFalse(rig.bus.is68kRunning());
+        int lastLen = DMA_LEN;
+        do {
+            vdp.runSlot();
+            int transfers = (vdp.getAddressRegister() - 0x1000) >> 1;
+            int len = vdp.getRegisterData(DMA_LENGTH_HIGH.ordinal()) << 8 | vdp.getRegisterData(DMA_LENGTH_LOW.ordinal());
+            int src = vdp.getRegisterData(DMA_SOURCE_MID.ordinal()) << 8 | vdp.getRegisterData(DMA_SOURCE_LOW.ordinal());
+            Assert.assertEquals(DMA_LEN - transfers, len);
+            Assert.assertEquals((source + transfers) & 0xFFFF, src);
+            Assert.assertTrue(len <= lastLen);
+            lastLen = len;
+        } while ((vdp.readVdpPortWord(CONTROL) & 0x2) > 0);
+        Assert.assertEquals(0, lastLen);
+        Assert.assertTrue(rig.bus.is68kRunning());
+    }
+
+    private void testDma(java.util.function.Consumer<GenesisVdpProvider> start, int addressAdvance) {
+        Rig plain = new Rig(false);
+        Rig bulk = new Rig(true);
+        start.accept(plain.vdp);
+        start.accept(bulk.vdp);
+        int lines = 0;
+        boolean done;
+        do {
+            MdVdpTestUtil.runToStartNextLine(plain.vdp);
+            MdVdpTestUtil.runToStartNextLine(bulk.vdp);
+            done = (plain.vdp.readVdpPortWord(CONTROL) & 0x2) == 0;
+            Assert.assertEquals(plain.vdp.readVdpPortWord(CONTROL), bulk.vdp.readVdpPortWord(CONTROL));
+            Assert.assertEquals(plain.vdp.getAddressRegister(), bulk.vdp.getAddressRegister());
+            //observing the counters and the memory mid-DMA doesn't change the outcome
+            if (lines % 3 == 0) {
+                compare(plain, bulk);
+            }
+            lines++;
+        } while (!done);
+        Assert.assertTrue(lines > 1);
+        compare(plain, bulk);
+        Assert.assertEquals(addressAdvance, (bulk.vdp.getAddressRegister() - 0x1000) & 0xFFFF);
+    }
+
+    private static void compare(Rig plain, Rig bulk) {
+        for (int i = DMA_LENGTH_LOW.ordinal(); i <= DMA_SOURCE_MID.ordinal(); i++) {
+            Assert.assertEquals(plain.vdp.getRegisterData(i), bulk.vdp.getRegisterData(i));
+        }
+        Assert.assertArrayEquals(plain.vdp.getVdpMemory().getVram(), bulk.vdp.getVdpMemory().getVram());
+        Assert.assertArrayEquals(plain.vdp.getVdpMemory().getCram(), bulk.vdp.getVdpMemory().getCram());
+    }
+
+    //VRAM fill at 0x1000
+    private void startFill(GenesisVdpProvider vdp) {
+        vdp.writeControlPort(0x8154); //display enable + dma enable
+        setupLength(vdp, 1);
+        vdp.writeControlPort(0x9780);
+        vdp.writeControlPort(0x5000);
+        vdp.writeControlPort(0x80);
+        vdp.writeDataPort(0x68ac);
+    }
+
+    //VRAM copy from 0x0123 to 0x1000
+    private void startCopy(GenesisVdpProvider vdp) {
+        vdp.writeControlPort(0x8154);
+        setupLength(vdp, 1);
+        vdp.writeControlPort(0x9523);
+        vdp.writeControlPort(0x9601);
+        vdp.writeControlPort(0x97C0);
+        vdp.writeControlPort(0x5000);
+        vdp.writeControlPort(0xc0);
+    }
+
+    //68k to VDP memory, destination 0x1000
+    private void start68kDma(GenesisVdpProvider vdp, int sourceAddress, int command) {
+        vdp.writeControlPort(0x8174);
+        setupLength(vdp, 2);
+        int source = sourceAddress >> 1;
+        vdp.writeControlPort(0x9500 | (source & 0xFF));
+        vdp.writeControlPort(0x9600 | ((source >> 8) & 0xFF));
+        vdp.writeControlPort(0x9700 | ((source >> 16) & 0x7F));
+        command |= 0x1000_0000;
+        vdp.writeControlPort(command >>> 16);
+        vdp.writeControlPort(command & 0xFFFF);
+    }
+
+    private void setupLength(GenesisVdpProvider vdp, int increment) {
+        MdVdpTestUtil.runVdpUntilFifoEmpty(vdp);
+        vdp.writeControlPort(0x8F00 + increment);
+        vdp.writeControlPort(0x9300 | (DMA_LEN & 0xFF));
+        vdp.writeControlPort(0x9400 | (DMA_LEN >> 8));
+    }
+}
@@ -115,6 +115,36 @@ public class VdpInterruptHandlerTest {
         hLinesCounterBasic(vdp, h, VideoMode.NTSCJ_H40_V28);
     }
 
+    /**
+     * The interrupt state can only change when the vCounter increments or on the vint hCounter value
+     */
+    @Test
+    public void testIncrementsToNextLineEvent() {
+        BaseVdpProvider vdp = MdVdpTestUtil.createBaseTestVdp();
+        VdpInterruptHandler h = VdpInterruptHandler.createInstance(vdp);
+        for (VideoMode mode : new VideoMode[]{VideoMode.PAL_H40_V30, VideoMode.NTSCU_H32_V28}) {
+            MdVdpTestUtil.updateVideoMode(vdp, mode);
+            VdpCounterMode counterMode = VdpCounterMode.getCounterMode(mode);
+            int total = counterMode.hTotalCount * counterMode.vTotalCount;
+            for (int i = 0; i < total; i++) {
+                int n = h.getIncrementsToNextLineEvent();
+                Assert.assertTrue(n > 0 && n <= counterMode.hTotalCount);
+                for (int j = 1; j < n; j++) {
+                    h.increaseHCounter();
+                    Assert.assertFalse(isLineEvent(h, counterMode));
+                }
+                h.increaseHCounter();
+                Assert.assertTrue(isLineEvent(h, counterMode));
+                i += n - 1;
+            }
+        }
+    }
+
+    private static boolean isLineEvent(VdpInterruptHandler h, VdpCounterMode counterMode) {
+        int hc = h.gethCounterInternal();
+        return hc == counterMode.vCounterIncrementOn || hc == VdpInterruptHandler.VINT_SET_ON_HCOUNTER_VALUE;
+    }
+
     @Test
     @Ignore("TODO fix")
     public void testHLinesCounterPending() {
@@ -0,0 +1,242 @@
+/*
+ * VdpSpritePhase1Test
+ * Copyright (c) 2018-2019 Federico Berti
+ * Last modified: 17/10/19 12:47
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package omegadrive.vdp.gen;
+
+import omegadrive.util.VideoMode;
+import omegadrive.vdp.MdVdpTestUtil;
+import omegadrive.vdp.model.BaseVdpProvider;
+import omegadrive.vdp.model.InterlaceMode;
+import omegadrive.vdp.model.VdpMemoryInterface;
+import omegadrive.vdp.model.VdpRenderHandler;
+import omegadrive.vdp.model.VdpRenderHandler.SpriteDataHolder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static omegadrive.vdp.model.GenesisVdpProvider.MAX_SPRITES_PER_FRAME_H40;
+
+/**
+ * The line-bucketed sprite phase1 picks the same sprites as walking the link list on every line.
+ */
+public class VdpSpritePhase1Test {
+
+    private static final int SAT_MID_FRAME_WRITE_LINE = 100;
+
+    private VdpMemoryInterface memoryInterface;
+    private VdpRenderHandlerImpl renderHandler;
+    private VideoMode videoMode;
+    private InterlaceMode interlaceMode;
+    private Random random;
+
+    //reference state
+    private int spritesFrame;
+    private int maxSpritesOnLine;
+
+    @Before
+    public void setup() {
+        random = new Random(1981);
+        memoryInterface = GenesisVdpMemoryInterface.createInstance();
+        interlaceMode = InterlaceMode.NONE;
+        List<BaseVdpProvider.VdpEventListener> list = new ArrayList<>();
+        MdVdpTestUtil.VdpAdaptor vdp = new MdVdpTestUtil.VdpAdaptor() {
+            @Override
+            public List<BaseVdpProvider.VdpEventListener> getVdpEventListenerList() {
+                return list;
+            }
+
+            @Override
+            public InterlaceMode getInterlaceMode() {
+                return interlaceMode;
+            }
+        };
+        renderHandler = new VdpRenderHandlerImpl(vdp, memoryInterface);
+        setVideoMode(VideoMode.PAL_H40_V28);
+    }
+
+    @Test
+    public void testLineLimit() {
+        writeSat(false);
+        runFrame(null);
+        Assert.assertEquals(VdpRenderHandler.maxSpritesPerLine(true), maxSpritesOnLine);
+        //same sat, the buckets need rebuilding for the lower limits
+        setVideoMode(VideoMode.PAL_H32_V28);
+        runFrame(null);
+        Assert.assertEquals(VdpRenderHandler.maxSpritesPerLine(false), maxSpritesOnLine);
+        setVideoMode(VideoMode.PAL_H40_V28);
+        runFrame(null);
+        Assert.assertEquals(VdpRenderHandler.maxSpritesPerLine(true), maxSpritesOnLine);
+    }
+
+    @Test
+    public void testFrameLimit() {
+        writeSat(true);
+        runFrame(null);
+        Assert.assertEquals(VdpRenderHandler.maxSpritesPerFrame(true), spritesFrame);
+        setVideoMode(VideoMode.PAL_H32_V28);
+        runFrame(null);
+        Assert.assertEquals(VdpRenderHandler.maxSpritesPerFrame(false), spritesFrame);
+    }
+
+    @Test
+    public void testSatWriteMidFrame() {
+        writeSat(false);
+        runFrame(null);
+        runFrame(() -> {
+            //move some sprites below the current line and relink the list
+            for (int i = 0; i < 20; i++) {
+                int sprite = random.nextInt(MAX_SPRITES_PER_FRAME_H40);
+                writeSprite(sprite, SAT_MID_FRAME_WRITE_LINE + 1 + random.nextInt(60), random.nextInt(4),
+                        memoryInterface.getSatCache()[(sprite << 3) + 3]);
+            }
+            memoryInterface.writeVramByte(3, 40);
+        });
+        setVideoMode(VideoMode.PAL_H32_V28);
+        runFrame(() -> writeSprite(0, SAT_MID_FRAME_WRITE_LINE + 5, 3, 1));
+    }
+
+    @Test
+    public void testInterlace() {
+        writeSat(false);
+        runFrame(null);
+        //the vertical position is decoded differently, same sat
+        interlaceMode = InterlaceMode.MODE_2;
+        runFrame(null);
+        setVideoMode(VideoMode.PAL_H32_V28);
+        runFrame(null);
+        interlaceMode = InterlaceMode.NONE;
+        runFrame(null);
+        interlaceMode = InterlaceMode.MODE_1;
+        runFrame(null);
+    }
+
+    private void setVideoMode(VideoMode videoMode) {
+        this.videoMode = videoMode;
+        renderHandler.onVdpEvent(BaseVdpProvider.VdpEvent.VIDEO_MODE, videoMode);
+    }
+
+    //same calls as renderLine, phase1 for the next line once the current line is set up
+    private void runFrame(Runnable midFrameWrite) {
+        spritesFrame = 0;
+        maxSpritesOnLine = 0;
+        renderHandler.initLineData(0);
+        compare(0, renderHandler.spriteDataHoldersCurrent);
+        int lines = videoMode.getDimension().height;
+        for (int line = 0; line < lines; line++) {
+            if (line > 0) {
+                renderHandler.initLineData(line);
+            }
+            if (line == SAT_MID_FRAME_WRITE_LINE && midFrameWrite != null) {
+                midFrameWrite.run();
+            }
+            renderHandler.phase1(line + 1);
+            compare(line + 1, renderHandler.spriteDataHoldersNext);
+        }
+    }
+
+    private void compare(int line, SpriteDataHolder[] actual) {
+        List<int[]> expected = referencePhase1(line);
+        maxSpritesOnLine = Math.max(maxSpritesOnLine, expected.size());
+        for (int i = 0; i < actual.length; i++) {
+            String msg = "Line " + line + ", sprite " + i;
+            if (i >= expected.size()) {
+                Assert.assertEquals(msg, -1, actual[i].spriteNumber);
+                continue;
+            }
+            int[] e = expected.get(i);
+            SpriteDataHolder a = actual[i];
+            Assert.assertArrayEquals(msg, e, new int[]{a.spriteNumber, a.verticalPos, a.linkData,
+                    a.verticalCellSize, a.horizontalCellSize});
+        }
+    }
+
+    //walk the link list from sprite 0 on every line
+    private List<int[]> referencePhase1(int line) {
+        boolean isH40 = videoMode.isH40();
+        int maxSpritesPerFrame = VdpRenderHandler.maxSpritesPerFrame(isH40);
+        int maxSpritesPerLine = VdpRenderHandler.maxSpritesPerLine(isH40);
+        List<int[]> res = new ArrayList<>();
+        if (spritesFrame >= maxSpritesPerFrame) {
+            return res;
+        }
+        int next = 0;
+        boolean stop = false;
+        for (int index = 0; index < maxSpritesPerFrame && !stop; index++) {
+            int[] sprite = readSprite(next);
+            next = sprite[2];
+            int realY = sprite[1] - 128;
+            boolean isSpriteOnLine = line >= realY && line < realY + ((sprite[3] + 1) << 3);
+            stop = next == 0 || next >= maxSpritesPerFrame;
+            if (!isSpriteOnLine) {
+                continue;
+            }
+            res.add(sprite);
+            spritesFrame += line == realY ? 1 : 0;
+            stop |= res.size() >= maxSpritesPerLine || spritesFrame >= maxSpritesPerFrame;
+        }
+        return res;
+    }
+
+    private int[] readSprite(int sprite) {
+        int[] sat = memoryInterface.getSatCache();
+        int a = sprite << 3;
+        int verticalPos = interlaceMode == InterlaceMode.MODE_2 ? ((sat[a] & 0x3) << 7) | (sat[a + 1] >> 1) :
+                ((sat[a] & 0x1) << 8) | sat[a + 1];
+        return new int[]{sprite, verticalPos, sat[a + 3] & 0x7F, sat[a + 2] & 0x3, (sat[a + 2] >> 2) & 0x3};
+    }
+
+    //all the sprites in a shuffled link list, either crowding a few lines or spread over the top of the screen.
+    //The first 64 in the list are the ones H32 can reach
+    private void writeSat(boolean frameLimit) {
+        int[] order = new int[MAX_SPRITES_PER_FRAME_H40];
+        int h32Sprites = VdpRenderHandler.maxSpritesPerFrame(false);
+        for (int i = 1; i < order.length; i++) {
+            int from = i < h32Sprites ? 1 : h32Sprites;
+            int j = from + random.nextInt(i - from + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        for (int i = 0; i < order.length; i++) {
+            int link = i + 1 < order.length ? order[i + 1] : 0;
+            if (frameLimit) {
+                writeSprite(order[i], random.nextInt(100), 0, link);
+            } else {
+                int y = random.nextInt(4) == 0 ? 40 + random.nextInt(16) : random.nextInt(260) - 32;
+                writeSprite(order[i], y, random.nextInt(4), link);
+            }
+        }
+        if (frameLimit) {
+            //still on screen when the limit is reached
+            writeSprite(0, 90, 3, order[1]);
+        }
+    }
+
+    private void writeSprite(int sprite, int line, int verticalCellSize, int link) {
+        int a = sprite << 3;
+        int pos = line + 128;
+        memoryInterface.writeVramByte(a, (pos >> 8) & 0x3);
+        memoryInterface.writeVramByte(a + 1, pos & 0xFF);
+        memoryInterface.writeVramByte(a + 2, random.nextInt(4) << 2 | verticalCellSize);
+        memoryInterface.writeVramByte(a + 3, link);
+    }
+}